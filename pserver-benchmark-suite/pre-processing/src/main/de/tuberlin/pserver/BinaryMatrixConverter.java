@@ -0,0 +1,161 @@
+package de.tuberlin.pserver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Converts a libsvm or comma separated text file into the BINARY_FORMAT matrix layout of
+ * de.tuberlin.pserver.runtime.filesystem.local.BinaryMatrixFile. The libsvm input becomes a
+ * CSR matrix, the comma separated input a dense matrix. Both are read twice, once to size
+ * the sections of the output and once to write them.
+ */
+public class BinaryMatrixConverter {
+
+    private static final int MAGIC = 0x5053_4D42;
+
+    private static final int VERSION = 1;
+
+    private static final int KIND_DENSE = 0;
+
+    private static final int KIND_CSR = 1;
+
+    private static final int FLAG_LABELS = 1;
+
+    private static final int HEADER_SIZE = 64;
+
+    // Buffered little endian writer of one section of the output file.
+    private static class Section {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+
+        private long position;
+
+        public Section(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        public void putInt(int value) throws IOException { ensure(Integer.BYTES); buffer.putInt(value); }
+
+        public void putLong(long value) throws IOException { ensure(Long.BYTES); buffer.putLong(value); }
+
+        public void putFloat(float value) throws IOException { ensure(Float.BYTES); buffer.putFloat(value); }
+
+        public void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                position += channel.write(buffer, position);
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes)
+                flush();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length != 3 || !(args[0].equals("svm") || args[0].equals("dense") || args[0].equals("dense-labelled")))
+            throw new IllegalArgumentException("Usage > binaryconverter svm|dense|dense-labelled input_file output_file");
+
+        final boolean sparse = args[0].equals("svm");
+        final boolean labelled = !args[0].equals("dense");
+        final Path input = Paths.get(args[1]);
+        final Path output = Paths.get(args[2]);
+
+        // First pass: count rows, entries and columns.
+        long rows = 0, entries = 0, cols = 0;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty())
+                    continue;
+                final String[] tokens = tokens(line, sparse);
+                if (sparse) {
+                    for (int i = 1; i < tokens.length; ++i)
+                        cols = Math.max(cols, Long.parseLong(tokens[i].substring(0, tokens[i].indexOf(':'))));
+                    entries += tokens.length - 1;
+                } else {
+                    final int rowCols = tokens.length - (labelled ? 1 : 0);
+                    if (rows > 0 && rowCols != cols)
+                        throw new RuntimeException("Invalid file format, row " + rows + " has " + rowCols + " columns");
+                    cols = rowCols;
+                    entries += rowCols;
+                }
+                ++rows;
+            }
+        }
+
+        // Second pass: write the header and every section at its final position.
+        Files.deleteIfExists(output);
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.US_ASCII);
+             FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+
+            final Section header = new Section(channel, 0);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(sparse ? KIND_CSR : KIND_DENSE);
+            header.putInt(labelled ? FLAG_LABELS : 0);
+            header.putLong(rows);
+            header.putLong(cols);
+            header.putLong(entries);
+            header.putLong(0);
+            header.putLong(0);
+            header.putLong(0);
+            header.flush();
+
+            long position = HEADER_SIZE;
+            final Section labels = new Section(channel, position);
+            position += labelled ? rows * Float.BYTES : 0;
+            final Section rowPtr = new Section(channel, position);
+            position += sparse ? (rows + 1) * Long.BYTES : 0;
+            final Section colIndices = new Section(channel, position);
+            position += sparse ? entries * Integer.BYTES : 0;
+            final Section values = new Section(channel, position);
+
+            long entry = 0;
+            if (sparse)
+                rowPtr.putLong(0);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty())
+                    continue;
+                final String[] tokens = tokens(line, sparse);
+                if (labelled)
+                    labels.putFloat(Float.parseFloat(tokens[0]));
+                for (int i = labelled ? 1 : 0; i < tokens.length; ++i) {
+                    if (sparse) {
+                        final int separator = tokens[i].indexOf(':');
+                        colIndices.putInt(Integer.parseInt(tokens[i].substring(0, separator)) - 1);
+                        values.putFloat(Float.parseFloat(tokens[i].substring(separator + 1)));
+                    } else
+                        values.putFloat(Float.parseFloat(tokens[i].trim()));
+                    ++entry;
+                }
+                if (sparse)
+                    rowPtr.putLong(entry);
+            }
+            labels.flush();
+            rowPtr.flush();
+            colIndices.flush();
+            values.flush();
+        }
+
+        System.out.println("Converted " + rows + " rows, " + cols + " columns and " + entries + " entries.");
+    }
+
+    private static String[] tokens(String line, boolean sparse) {
+        return sparse ? line.trim().split("\\s+") : line.split(",");
+    }
+}
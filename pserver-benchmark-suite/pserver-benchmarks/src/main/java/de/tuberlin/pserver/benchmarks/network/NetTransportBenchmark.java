@@ -0,0 +1,205 @@
+package de.tuberlin.pserver.benchmarks.network;
+
+
+import de.tuberlin.pserver.commons.config.ConfigLoader;
+import de.tuberlin.pserver.runtime.core.network.*;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.*;
+import io.netty.channel.socket.SocketChannel;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares round trip latency and streaming throughput of the NIO and the native epoll
+ * transport over loopback, using the same codec and channel options as the NetManager.
+ */
+public final class NetTransportBenchmark {
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    private static final int PORT = 17021;
+
+    private static final int NUM_WARMUP_PINGS = 10000;
+
+    private static final int NUM_PINGS = 100000;
+
+    private static final int NUM_MESSAGES = 20000;
+
+    private static final int PAYLOAD_SIZE = 16 * 1024;
+
+    // Bounds the outbound queue of the client during the throughput run.
+    private static final int SYNC_INTERVAL = 256;
+
+    private static final String THROUGHPUT_REQUEST = "THROUGHPUT_REQUEST";
+
+    private static final String THROUGHPUT_DONE = "THROUGHPUT_DONE";
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private final NetTransport transport;
+
+    private final NetChannelConfig channelConfig;
+
+    private final BlockingQueue<NetEvent> responses = new LinkedBlockingQueue<>();
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public NetTransportBenchmark(final NetTransport transport, final NetChannelConfig channelConfig) {
+        this.transport     = transport;
+        this.channelConfig = channelConfig;
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public void run() throws Exception {
+        final EventLoopGroup bossGroup   = transport.createEventLoopGroup(1);
+        final EventLoopGroup workerGroup = transport.createEventLoopGroup(1);
+        final EventLoopGroup clientGroup = transport.createEventLoopGroup(1);
+        try {
+            final Channel serverChannel = new ServerBootstrap()
+                    .group(bossGroup, workerGroup)
+                    .channel(transport.getServerChannelClass())
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) throws Exception {
+                            channelConfig.configureChannel(ch);
+                            ch.pipeline().addLast(
+                                    new NetKryoEncoder(channelConfig.isDirectEncoding()),
+                                    new NetKryoDecoder(channelConfig.isDirectEncoding()),
+                                    new ServerHandler()
+                            );
+                        }
+                    })
+                    .bind(PORT).sync().channel();
+
+            final Channel clientChannel = new Bootstrap()
+                    .group(clientGroup)
+                    .channel(transport.getChannelClass())
+                    .handler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) throws Exception {
+                            channelConfig.configureChannel(ch);
+                            ch.pipeline().addLast(
+                                    new NetKryoEncoder(channelConfig.isDirectEncoding()),
+                                    new NetKryoDecoder(channelConfig.isDirectEncoding()),
+                                    new ClientHandler()
+                            );
+                        }
+                    })
+                    .connect(new InetSocketAddress("localhost", PORT)).sync().channel();
+
+            measureLatency(clientChannel);
+            measureThroughput(clientChannel);
+
+            clientChannel.close().sync();
+            serverChannel.close().sync();
+        } finally {
+            clientGroup.shutdownGracefully().sync();
+            workerGroup.shutdownGracefully().sync();
+            bossGroup.shutdownGracefully().sync();
+        }
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private void measureLatency(final Channel channel) throws Exception {
+        for (int i = 0; i < NUM_WARMUP_PINGS; ++i)
+            ping(channel);
+        final long[] rtts = new long[NUM_PINGS];
+        for (int i = 0; i < NUM_PINGS; ++i)
+            rtts[i] = ping(channel);
+        Arrays.sort(rtts);
+        final double mean = Arrays.stream(rtts).average().orElse(0) / 1000.0;
+        System.out.println(String.format("%-5s latency    - mean: %8.2f us, p50: %8.2f us, p99: %8.2f us, p999: %8.2f us",
+                transport, mean, rtts[NUM_PINGS / 2] / 1000.0,
+                rtts[(int) (NUM_PINGS * 0.99)] / 1000.0, rtts[(int) (NUM_PINGS * 0.999)] / 1000.0));
+    }
+
+    private long ping(final Channel channel) throws Exception {
+        final long start = System.nanoTime();
+        channel.writeAndFlush(new NetEvent(NetEvent.NetEventTypes.ECHO_REQUEST));
+        if (responses.poll(10, TimeUnit.SECONDS) == null)
+            throw new IllegalStateException("No echo response.");
+        return System.nanoTime() - start;
+    }
+
+    private void measureThroughput(final Channel channel) throws Exception {
+        final byte[] payload = new byte[PAYLOAD_SIZE];
+        final long start = System.nanoTime();
+        for (int i = 1; i <= NUM_MESSAGES; ++i) {
+            final ChannelFuture future = channel.writeAndFlush(new NetEvent(THROUGHPUT_REQUEST, payload));
+            if (i % SYNC_INTERVAL == 0)
+                future.sync();
+        }
+        channel.writeAndFlush(new NetEvent(THROUGHPUT_DONE));
+        if (responses.poll(60, TimeUnit.SECONDS) == null)
+            throw new IllegalStateException("No throughput response.");
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        final double megaBytes = ((long) NUM_MESSAGES * PAYLOAD_SIZE) / (1024.0 * 1024.0);
+        System.out.println(String.format("%-5s throughput - %8.2f MB/s, %10.0f msg/s",
+                transport, megaBytes / seconds, NUM_MESSAGES / seconds));
+    }
+
+    // ---------------------------------------------------
+    // Inner Classes.
+    // ---------------------------------------------------
+
+    private static final class ServerHandler extends SimpleChannelInboundHandler<NetEvent> {
+
+        private int numReceived;
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, NetEvent event) throws Exception {
+            switch (event.type) {
+                case NetEvent.NetEventTypes.ECHO_REQUEST:
+                    ctx.writeAndFlush(new NetEvent(NetEvent.NetEventTypes.ECHO_RESPONSE));
+                    break;
+                case THROUGHPUT_REQUEST:
+                    ++numReceived;
+                    break;
+                case THROUGHPUT_DONE:
+                    if (numReceived != NUM_MESSAGES)
+                        throw new IllegalStateException("Received " + numReceived + " of " + NUM_MESSAGES + " messages.");
+                    numReceived = 0;
+                    ctx.writeAndFlush(new NetEvent(THROUGHPUT_DONE));
+                    break;
+            }
+        }
+    }
+
+    private final class ClientHandler extends SimpleChannelInboundHandler<NetEvent> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, NetEvent event) throws Exception {
+            responses.add(event);
+        }
+    }
+
+    // ---------------------------------------------------
+    // Entry Point.
+    // ---------------------------------------------------
+
+    public static void main(final String[] args) throws Exception {
+        final NetChannelConfig channelConfig = new NetChannelConfig(ConfigLoader.loadResource("distributed.conf"));
+        for (final NetTransport transport : NetTransport.values()) {
+            if (NetTransport.select(transport) != transport)
+                continue;
+            new NetTransportBenchmark(transport, channelConfig).run();
+        }
+    }
+}
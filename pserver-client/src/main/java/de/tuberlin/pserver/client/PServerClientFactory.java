@@ -51,7 +51,7 @@ public class PServerClientFactory {
             this.config = Preconditions.checkNotNull(config);
             this.machine = configureMachine();
             this.infraManager = new InfrastructureManager(machine, config, true);
-            this.netManager = new NetManager(infraManager, machine, 16);
+            this.netManager = new NetManager(infraManager, machine, config, 16);
             this.netManager.start();
             infraManager.start(); // blocking until all at are registered at zookeeper
             infraManager.getMachines().stream().filter(md -> md != machine).forEach(netManager::connect);
@@ -6,6 +6,8 @@ import de.tuberlin.pserver.commons.utils.ParseUtils;
 import de.tuberlin.pserver.dsl.transaction.TransactionDefinition;
 import de.tuberlin.pserver.dsl.transaction.annotations.Transaction;
 import de.tuberlin.pserver.dsl.transaction.annotations.TransactionType;
+import de.tuberlin.pserver.runtime.core.network.NetFlowPolicy;
+import de.tuberlin.pserver.runtime.core.serializer.WirePrecision;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
@@ -36,6 +38,16 @@ public final class TransactionDescriptor {
 
     public long observerPeriod;
 
+    public final boolean deltaEncoding;
+
+    public final float deltaThreshold;
+
+    public final boolean deltaErrorFeedback;
+
+    public final WirePrecision precision;
+
+    public final NetFlowPolicy flowPolicy;
+
     // ---------------------------------------------------
     // Constructors.
     // ---------------------------------------------------
@@ -47,6 +59,11 @@ public final class TransactionDescriptor {
                                  final TransactionType type,
                                  final boolean cacheRequestObject,
                                  final long observerPeriod,
+                                 final boolean deltaEncoding,
+                                 final float deltaThreshold,
+                                 final boolean deltaErrorFeedback,
+                                 final WirePrecision precision,
+                                 final NetFlowPolicy flowPolicy,
                                  final int nodeID,
                                  final ProgramTable programTable) {
 
@@ -57,6 +74,19 @@ public final class TransactionDescriptor {
         this.type                = Preconditions.checkNotNull(type);
         this.cacheRequestObject  = cacheRequestObject;
         this.observerPeriod      = observerPeriod;
+        this.deltaEncoding       = deltaEncoding;
+        this.deltaThreshold      = deltaThreshold;
+        this.deltaErrorFeedback  = deltaErrorFeedback;
+        this.precision           = Preconditions.checkNotNull(precision);
+        this.flowPolicy          = Preconditions.checkNotNull(flowPolicy);
+        if (deltaEncoding && flowPolicy == NetFlowPolicy.COALESCE)
+            throw new IllegalStateException("Coalesced pushes would drop deltas of transaction " + transactionName + ".");
+        // The encoder keeps one baseline for all receivers, it cannot follow pushes some of them rejected.
+        if (deltaEncoding && flowPolicy == NetFlowPolicy.FAIL)
+            throw new IllegalStateException("Rejected pushes would lose deltas of transaction " + transactionName + ".");
+        // INT8 rounds stochastically each time a push is written, the encoder cannot know the received values.
+        if (deltaEncoding && precision == WirePrecision.INT8)
+            throw new IllegalStateException("Delta encoding does not support INT8 precision in transaction " + transactionName + ".");
         this.srcStateObjectNodes = programTable.getState(stateSrcObjectNames.get(stateSrcObjectNames.size() - 1)).nodes();
         this.dstStateObjectNodes = programTable.getState(stateDstObjectNames.get(stateDstObjectNames.size() - 1)).nodes();
         definition.setTransactionName(transactionName);
@@ -100,6 +130,11 @@ public final class TransactionDescriptor {
                 transaction.type(),
                 transaction.cache(),
                 transaction.observerPeriod(),
+                transaction.delta(),
+                transaction.deltaThreshold(),
+                transaction.deltaErrorFeedback(),
+                transaction.precision(),
+                transaction.flowPolicy(),
                 nodeID,
                 programTable
         );
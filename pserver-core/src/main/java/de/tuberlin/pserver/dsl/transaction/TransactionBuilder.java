@@ -5,6 +5,8 @@ import com.google.common.base.Preconditions;
 import de.tuberlin.pserver.commons.utils.ParseUtils;
 import de.tuberlin.pserver.compiler.TransactionDescriptor;
 import de.tuberlin.pserver.dsl.transaction.annotations.TransactionType;
+import de.tuberlin.pserver.runtime.core.network.NetFlowPolicy;
+import de.tuberlin.pserver.runtime.core.serializer.WirePrecision;
 import de.tuberlin.pserver.runtime.driver.ProgramContext;
 
 public final class TransactionBuilder {
@@ -29,6 +31,16 @@ public final class TransactionBuilder {
 
     public long observerPeriod;
 
+    public boolean delta;
+
+    public float deltaThreshold;
+
+    public boolean deltaErrorFeedback;
+
+    public WirePrecision precision;
+
+    public NetFlowPolicy flowPolicy;
+
     // ---------------------------------------------------
     // Constructor.
     // ---------------------------------------------------
@@ -52,6 +64,14 @@ public final class TransactionBuilder {
 
     public TransactionBuilder observerPeriod(final long observerPeriod) { this.observerPeriod = observerPeriod; return this; }
 
+    public TransactionBuilder delta(final float threshold, final boolean errorFeedback) {
+        this.delta = true; this.deltaThreshold = threshold; this.deltaErrorFeedback = errorFeedback; return this;
+    }
+
+    public TransactionBuilder precision(final WirePrecision precision) { this.precision = precision; return this; }
+
+    public TransactionBuilder flowPolicy(final NetFlowPolicy flowPolicy) { this.flowPolicy = flowPolicy; return this; }
+
     // ---------------------------------------------------
 
     public TransactionDefinition build(final String transactionName, final TransactionDefinition definition) {
@@ -63,6 +83,11 @@ public final class TransactionBuilder {
                 type,
                 cache,
                 observerPeriod,
+                delta,
+                deltaThreshold,
+                deltaErrorFeedback,
+                precision,
+                flowPolicy,
                 programContext.nodeID,
                 programContext.programTable
         );
@@ -77,5 +102,10 @@ public final class TransactionBuilder {
         this.type = TransactionType.PUSH;
         this.at = "";
         this.cache = false;
+        this.delta = false;
+        this.deltaThreshold = 0f;
+        this.deltaErrorFeedback = true;
+        this.precision = WirePrecision.FULL;
+        this.flowPolicy = NetFlowPolicy.BLOCK;
     }
 }
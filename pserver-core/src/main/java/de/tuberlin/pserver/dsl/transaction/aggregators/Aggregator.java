@@ -2,14 +2,14 @@ package de.tuberlin.pserver.dsl.transaction.aggregators;
 
 
 import com.google.common.base.Preconditions;
-import de.tuberlin.pserver.runtime.RuntimeManager;
+import de.tuberlin.pserver.runtime.collective.CollectiveManager;
+import de.tuberlin.pserver.runtime.collective.Partitioner;
 import de.tuberlin.pserver.runtime.driver.ProgramContext;
-import de.tuberlin.pserver.runtime.events.MsgEventHandler;
 import de.tuberlin.pserver.runtime.parallel.shared.SharedVar;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BinaryOperator;
 
 public class Aggregator<T extends Serializable> {
 
@@ -60,86 +60,52 @@ public class Aggregator<T extends Serializable> {
         return symmetricAgg ? symmetric_apply(function) : asymmetric_apply(function);
     }
 
+    /**
+     * Combines the partial aggregates pairwise with an associative operator. Runs as
+     * all-reduce on the collective layer and needs only O(log n) rounds.
+     */
+    public T reduce(final BinaryOperator<T> combiner) throws Exception {
+        return share(collectives().allReduce(pc.programID, aggPushUID(), partialAgg, combiner, pc.getProgramNodeIDs()));
+    }
+
+    /**
+     * Like {@link #reduce(BinaryOperator)}, large partial aggregates are all-reduced chunk
+     * by chunk on a ring. The combiner must then be element-wise and commutative.
+     */
+    public T reduce(final BinaryOperator<T> combiner, final Partitioner<T> partitioner) throws Exception {
+        return share(collectives().allReduce(pc.programID, aggPushUID(), partialAgg, combiner, partitioner, pc.getProgramNodeIDs()));
+    }
+
     // ---------------------------------------------------
     // Private Methods.
     // ---------------------------------------------------
 
     private T symmetric_apply(final AggregatorFunction<T> function) throws Exception {
 
-        pc.runtimeContext.runtimeManager.send(aggPushUID(), partialAgg);
-
-        final int n = pc.nodeDOP - 1;
-
-        final List<T> partialAggs = new ArrayList<>();
-
-        for (int i = 0; i < n + 1; ++i)
-            partialAggs.add(null);
-
-        partialAggs.set(pc.runtimeContext.nodeID, partialAgg);
+        // Every node applies the function to the partial aggregates, ordered by node id.
+        final List<T> partialAggs = collectives().allGather(pc.programID, aggPushUID(), partialAgg, pc.getProgramNodeIDs());
 
-        pc.runtimeContext.runtimeManager.receive(RuntimeManager.ReceiveType.SYNC, n, aggPushUID(), new MsgEventHandler() {
-
-            @Override
-            @SuppressWarnings("unchecked")
-            public void handleMsg(int srcNodeID, Object value) {
-                partialAggs.set(srcNodeID, (T) value);
-            }
-        });
-
-        final T agg = function.apply(partialAggs);
-
-        sharedGlobalAgg.set(agg);
-
-        final T resultAgg = sharedGlobalAgg.get();
-
-        sharedGlobalAgg.done();
-
-        return resultAgg;
+        return share(function.apply(partialAggs));
     }
 
     // ---------------------------------------------------
 
     private T asymmetric_apply(final AggregatorFunction<T> function) throws Exception {
 
-        // -- master node --
-
-        if (pc.node(AGG_NODE_ID)) {
-
-            final int n = pc.nodeDOP - 1;
-
-            final List<T> partialAggs = new ArrayList<>();
-
-            partialAggs.add(partialAgg);
-
-            pc.runtimeContext.runtimeManager.receive(RuntimeManager.ReceiveType.SYNC, n, aggPushUID(), new MsgEventHandler() {
+        final List<T> partialAggs = collectives().gather(pc.programID, aggPushUID(), partialAgg, AGG_NODE_ID, pc.getProgramNodeIDs());
 
-                @Override
-                @SuppressWarnings("unchecked")
-                public void handleMsg(int srcNodeID, Object value) {
-                    partialAggs.add((T) value);
-                }
-            });
-
-            final T agg = function.apply(partialAggs);
-
-            pc.runtimeContext.runtimeManager.send(aggPushUID(), agg);
+        // -- master node --
 
-            sharedGlobalAgg.set(agg);
-        }
+        final T agg = pc.node(AGG_NODE_ID) ? function.apply(partialAggs) : null;
 
+        return share(collectives().broadcast(pc.programID, aggPushUID(), agg, AGG_NODE_ID, pc.getProgramNodeIDs()));
+    }
 
-        if (pc.node(AGG_NODE_ID + 1, pc.nodeDOP - 1)) {
+    // ---------------------------------------------------
 
-            pc.runtimeContext.runtimeManager.send(aggPushUID(), partialAgg, new int[]{AGG_NODE_ID});
+    private T share(final T agg) throws Exception {
 
-            pc.runtimeContext.runtimeManager.receive(RuntimeManager.ReceiveType.SYNC, 1, aggPushUID(), new MsgEventHandler() {
-                @Override
-                @SuppressWarnings("unchecked")
-                public void handleMsg(int srcNodeID, Object value) {
-                    sharedGlobalAgg.set((T) value);
-                }
-            });
-        }
+        sharedGlobalAgg.set(agg);
 
         final T resultAgg = sharedGlobalAgg.get();
 
@@ -148,7 +114,7 @@ public class Aggregator<T extends Serializable> {
         return resultAgg;
     }
 
-    // ---------------------------------------------------
+    private CollectiveManager collectives() { return pc.runtimeContext.collectiveManager; }
 
     private String aggPushUID() { return "agg"; }
 }
@@ -27,10 +27,10 @@ public class IntAggregator extends Aggregator<Integer> {
 
     public Integer apply(final Operation op) throws Exception {
         switch (op) {
-            case ADD:   return apply(pa -> pa.parallelStream().mapToInt(Integer::intValue).sum());
+            case ADD:   return reduce(Integer::sum);
             case COUNT: return apply(pa -> (int)pa.parallelStream().mapToInt(Integer::intValue).count());
-            case MIN:   return apply(pa -> pa.parallelStream().mapToInt(Integer::intValue).min().getAsInt());
-            case MAX:   return apply(pa -> pa.parallelStream().mapToInt(Integer::intValue).max().getAsInt());
+            case MIN:   return reduce(Math::min);
+            case MAX:   return reduce(Math::max);
             default:    throw new IllegalStateException();
         }
     }
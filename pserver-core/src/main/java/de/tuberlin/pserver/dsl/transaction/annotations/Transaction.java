@@ -1,5 +1,8 @@
 package de.tuberlin.pserver.dsl.transaction.annotations;
 
+import de.tuberlin.pserver.runtime.core.network.NetFlowPolicy;
+import de.tuberlin.pserver.runtime.core.serializer.WirePrecision;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -22,4 +25,19 @@ public @interface Transaction {
     public boolean cache() default false;
 
     public long observerPeriod() default -1;
+
+    // Push only changed entries of dense matrices, received as SparseDelta32F. Every push must
+    // reach all receivers, the COALESCE and FAIL flow policies are not supported, nor is INT8.
+    public boolean delta() default false;
+
+    public float deltaThreshold() default 0f;
+
+    public boolean deltaErrorFeedback() default true;
+
+    // Wire precision of Matrix32F values, they are expanded to 32-bit floats on the receiver.
+    public WirePrecision precision() default WirePrecision.FULL;
+
+    // Push behaviour when the outbound queue to a receiver is overloaded. COALESCE keeps only
+    // the newest queued push per receiver and suits apply phases that overwrite local state.
+    public NetFlowPolicy flowPolicy() default NetFlowPolicy.BLOCK;
 }
@@ -0,0 +1,111 @@
+package de.tuberlin.pserver.dsl.transaction.delta;
+
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoSerializable;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import de.tuberlin.pserver.types.matrix.implementation.Matrix32F;
+import de.tuberlin.pserver.types.matrix.implementation.matrix32f.dense.DenseMatrix32F;
+
+/**
+ * The changed entries of a matrix since its last push. Entries are addressed by their
+ * row-major index into a matrix of the given shape, the indices are sorted ascending.
+ * On the wire the indices are written as variable-length gaps between neighbours.
+ */
+public final class SparseDelta32F implements KryoSerializable {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private long rows;
+
+    private long cols;
+
+    private int size;
+
+    private int[] indices;
+
+    private float[] values;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public SparseDelta32F() {}
+
+    public SparseDelta32F(final long rows, final long cols, final int[] indices, final float[] values, final int size) {
+        this.rows    = rows;
+        this.cols    = cols;
+        this.indices = indices;
+        this.values  = values;
+        this.size    = size;
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public long rows() { return rows; }
+
+    public long cols() { return cols; }
+
+    public int size() { return size; }
+
+    public int index(final int i) { return indices[i]; }
+
+    public float value(final int i) { return values[i]; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public void addTo(final Matrix32F m) { addTo(m, 1f); }
+
+    public void addTo(final Matrix32F m, final float scale) {
+        if (m.rows() != rows || m.cols() != cols)
+            throw new IllegalStateException("Delta of shape (" + rows + ", " + cols + ") does not fit matrix of shape ("
+                    + m.rows() + ", " + m.cols() + ").");
+        if (m instanceof DenseMatrix32F) {
+            final float[] data = ((DenseMatrix32F) m).data;
+            for (int i = 0; i < size; ++i)
+                data[indices[i]] += scale * values[i];
+        } else {
+            for (int i = 0; i < size; ++i) {
+                final long row = indices[i] / cols, col = indices[i] % cols;
+                m.set(row, col, m.get(row, col) + scale * values[i]);
+            }
+        }
+    }
+
+    // ---------------------------------------------------
+    // Serialization.
+    // ---------------------------------------------------
+
+    @Override
+    public void write(final Kryo kryo, final Output output) {
+        output.writeVarLong(rows, true);
+        output.writeVarLong(cols, true);
+        output.writeVarInt(size, true);
+        int last = 0;
+        for (int i = 0; i < size; ++i) {
+            output.writeVarInt(indices[i] - last, true);
+            last = indices[i];
+        }
+        for (int i = 0; i < size; ++i)
+            output.writeFloat(values[i]);
+    }
+
+    @Override
+    public void read(final Kryo kryo, final Input input) {
+        rows = input.readVarLong(true);
+        cols = input.readVarLong(true);
+        size = input.readVarInt(true);
+        indices = new int[size];
+        int last = 0;
+        for (int i = 0; i < size; ++i) {
+            last += input.readVarInt(true);
+            indices[i] = last;
+        }
+        values = input.readFloats(size);
+    }
+}
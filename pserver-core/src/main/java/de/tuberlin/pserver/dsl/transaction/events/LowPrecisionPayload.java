@@ -0,0 +1,139 @@
+package de.tuberlin.pserver.dsl.transaction.events;
+
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoSerializable;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import de.tuberlin.pserver.dsl.transaction.delta.SparseDelta32F;
+import de.tuberlin.pserver.runtime.core.serializer.LowPrecisionCodec;
+import de.tuberlin.pserver.runtime.core.serializer.WirePrecision;
+import de.tuberlin.pserver.types.matrix.implementation.matrix32f.dense.DenseMatrix32F;
+import de.tuberlin.pserver.types.matrix.implementation.matrix32f.sparse.CSRMatrix32F;
+
+/**
+ * Wraps a state object of a transaction event whose float values are sent in reduced
+ * precision. The values are quantized while the event is encoded and expanded to 32-bit
+ * floats while it is decoded, so the receiver works on full precision local matrices.
+ * The structure of sparse objects (indices, row pointers) is sent exactly.
+ */
+public final class LowPrecisionPayload implements KryoSerializable {
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    private static final byte DENSE = 0, CSR = 1, DELTA = 2;
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private WirePrecision precision;
+
+    private Object payload;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public LowPrecisionPayload() {}
+
+    private LowPrecisionPayload(final WirePrecision precision, final Object payload) {
+        this.precision = precision;
+        this.payload = payload;
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public static Object wrap(final Object stateObject, final WirePrecision precision) {
+        if (precision == WirePrecision.FULL)
+            return stateObject;
+        if (stateObject instanceof DenseMatrix32F
+                || stateObject instanceof CSRMatrix32F
+                || stateObject instanceof SparseDelta32F)
+            return new LowPrecisionPayload(precision, stateObject);
+        return stateObject;
+    }
+
+    public static Object unwrap(final Object stateObject) {
+        return stateObject instanceof LowPrecisionPayload ? ((LowPrecisionPayload) stateObject).payload : stateObject;
+    }
+
+    // ---------------------------------------------------
+    // Serialization.
+    // ---------------------------------------------------
+
+    @Override
+    public void write(final Kryo kryo, final Output output) {
+        output.writeByte(precision.ordinal());
+        if (payload instanceof DenseMatrix32F) {
+            final DenseMatrix32F m = (DenseMatrix32F) payload;
+            output.writeByte(DENSE);
+            output.writeVarLong(m.rows(), true);
+            output.writeVarLong(m.cols(), true);
+            LowPrecisionCodec.write(output, precision, m.data, m.data.length);
+        } else if (payload instanceof CSRMatrix32F) {
+            final CSRMatrix32F m = (CSRMatrix32F) payload;
+            final Object[] arrays = m.internal().get();
+            final int[] rowPtr = (int[]) arrays[0], cols = (int[]) arrays[1];
+            final float[] values = (float[]) arrays[2];
+            output.writeByte(CSR);
+            output.writeVarLong(m.rows(), true);
+            output.writeVarLong(m.cols(), true);
+            output.writeVarInt(values.length, true);
+            output.writeInts(rowPtr);
+            output.writeInts(cols);
+            LowPrecisionCodec.write(output, precision, values, values.length);
+        } else {
+            final SparseDelta32F d = (SparseDelta32F) payload;
+            final float[] values = new float[d.size()];
+            output.writeByte(DELTA);
+            output.writeVarLong(d.rows(), true);
+            output.writeVarLong(d.cols(), true);
+            output.writeVarInt(d.size(), true);
+            int last = 0;
+            for (int i = 0; i < d.size(); ++i) {
+                output.writeVarInt(d.index(i) - last, true);
+                last = d.index(i);
+                values[i] = d.value(i);
+            }
+            LowPrecisionCodec.write(output, precision, values, values.length);
+        }
+    }
+
+    @Override
+    public void read(final Kryo kryo, final Input input) {
+        precision = WirePrecision.values()[input.readByte()];
+        final byte kind = input.readByte();
+        final long rows = input.readVarLong(true);
+        final long cols = input.readVarLong(true);
+        switch (kind) {
+            case DENSE: {
+                payload = new DenseMatrix32F(rows, cols, LowPrecisionCodec.read(input, precision, (int) (rows * cols)));
+            } break;
+            case CSR: {
+                final int nnz = input.readVarInt(true);
+                final int[] rowPtr = input.readInts((int) rows + 1);
+                final int[] colIdx = input.readInts(nnz);
+                final CSRMatrix32F m = new CSRMatrix32F(rows, cols);
+                m.build(rowPtr, colIdx, LowPrecisionCodec.read(input, precision, nnz));
+                payload = m;
+            } break;
+            case DELTA: {
+                final int size = input.readVarInt(true);
+                final int[] indices = new int[size];
+                int last = 0;
+                for (int i = 0; i < size; ++i) {
+                    last += input.readVarInt(true);
+                    indices[i] = last;
+                }
+                payload = new SparseDelta32F(rows, cols, indices, LowPrecisionCodec.read(input, precision, size), size);
+            } break;
+            default:
+                throw new IllegalStateException("Unknown payload kind: " + kind);
+        }
+    }
+}
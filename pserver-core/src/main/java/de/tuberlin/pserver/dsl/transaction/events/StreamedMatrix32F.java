@@ -0,0 +1,113 @@
+package de.tuberlin.pserver.dsl.transaction.events;
+
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoSerializable;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import de.tuberlin.pserver.runtime.core.network.NetStream;
+import de.tuberlin.pserver.runtime.core.network.NetStreams;
+import de.tuberlin.pserver.types.matrix.implementation.matrix32f.dense.DenseMatrix32F;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Wraps a dense matrix of a transaction event. Large matrices are not serialized into the
+ * event, their values follow as chunk frames that the receiver copies straight into the
+ * array of the received matrix. The event is dispatched as soon as it is decoded, the
+ * receiver can consume the rows that are already complete while the rest is in flight.
+ * Small matrices and matrices of local channels are written inline.
+ */
+public final class StreamedMatrix32F implements KryoSerializable {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private DenseMatrix32F matrix;
+
+    // Receiving stream of the values, null if they were written inline.
+    private NetStream stream;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public StreamedMatrix32F() {}
+
+    private StreamedMatrix32F(final DenseMatrix32F matrix) { this.matrix = matrix; }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public static Object wrap(final Object stateObject) {
+        return stateObject instanceof DenseMatrix32F ? new StreamedMatrix32F((DenseMatrix32F) stateObject) : stateObject;
+    }
+
+    // Waits until all values are received, throws if the stream failed or timed out.
+    public static Object unwrap(final Object stateObject) throws InterruptedException {
+        if (!(stateObject instanceof StreamedMatrix32F))
+            return stateObject;
+        final StreamedMatrix32F streamed = (StreamedMatrix32F) stateObject;
+        if (streamed.stream != null)
+            streamed.stream.await();
+        return streamed.matrix;
+    }
+
+    // The received matrix, rows beyond the completed ones may still be filled in.
+    public DenseMatrix32F matrix() { return matrix; }
+
+    public boolean isComplete() { return stream == null || stream.isComplete(); }
+
+    // Completes when all values are received, fails if the stream failed.
+    public CompletableFuture<Void> received() {
+        return stream != null ? stream.completion() : CompletableFuture.completedFuture(null);
+    }
+
+    // Blocks until rows after fromRow are complete, returns the exclusive end of the complete rows.
+    // Throws if the stream failed or timed out.
+    public long awaitRows(final long fromRow) throws InterruptedException {
+        final long rows = matrix.rows(), cols = matrix.cols();
+        if (stream == null || cols == 0)
+            return rows;
+        final long available = stream.awaitAvailable((int) Math.min((fromRow + 1) * cols, rows * cols));
+        return Math.min(rows, available / cols);
+    }
+
+    // ---------------------------------------------------
+    // Serialization.
+    // ---------------------------------------------------
+
+    @Override
+    public void write(final Kryo kryo, final Output output) {
+        final float[] data = matrix.data;
+        final NetStreams.Outbound outbound = NetStreams.stream(data);
+        output.writeVarLong(matrix.rows(), true);
+        output.writeVarLong(matrix.cols(), true);
+        output.writeBoolean(outbound != null);
+        if (outbound != null) {
+            output.writeLong(outbound.streamID.getMostSignificantBits());
+            output.writeLong(outbound.streamID.getLeastSignificantBits());
+            output.writeVarInt(outbound.chunkLength, true);
+        } else {
+            output.writeVarInt(data.length, true);
+            output.writeFloats(data);
+        }
+    }
+
+    @Override
+    public void read(final Kryo kryo, final Input input) {
+        final long rows = input.readVarLong(true);
+        final long cols = input.readVarLong(true);
+        final float[] data;
+        if (input.readBoolean()) {
+            final UUID streamID = new UUID(input.readLong(), input.readLong());
+            stream = NetStreams.attach(streamID, (int) (rows * cols), input.readVarInt(true));
+            data = stream.data;
+        } else
+            data = input.readFloats(input.readVarInt(true));
+        matrix = new DenseMatrix32F(rows, cols, data);
+    }
+}
@@ -0,0 +1,38 @@
+package de.tuberlin.pserver.dsl.transaction.events;
+
+
+import de.tuberlin.pserver.runtime.core.serializer.WirePrecision;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Wire representation of the state objects of transaction events. Full precision dense
+ * matrices are streamed, reduced precision matrices are quantized.
+ */
+public final class TransactionPayloads {
+
+    private TransactionPayloads() {}
+
+    public static Object wrap(final Object stateObject, final WirePrecision precision) {
+        return precision == WirePrecision.FULL
+                ? StreamedMatrix32F.wrap(stateObject)
+                : LowPrecisionPayload.wrap(stateObject, precision);
+    }
+
+    // Completes when the streamed values of all state objects are received.
+    public static CompletableFuture<Void> received(final List<Object> stateObjects) {
+        final List<CompletableFuture<Void>> streams = new ArrayList<>();
+        for (final Object stateObject : stateObjects) {
+            if (stateObject instanceof StreamedMatrix32F && !((StreamedMatrix32F) stateObject).isComplete())
+                streams.add(((StreamedMatrix32F) stateObject).received());
+        }
+        return CompletableFuture.allOf(streams.toArray(new CompletableFuture[streams.size()]));
+    }
+
+    // Waits until streamed values are received.
+    public static Object unwrap(final Object stateObject) throws InterruptedException {
+        return StreamedMatrix32F.unwrap(LowPrecisionPayload.unwrap(stateObject));
+    }
+}
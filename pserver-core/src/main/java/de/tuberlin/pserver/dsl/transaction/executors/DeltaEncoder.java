@@ -0,0 +1,92 @@
+package de.tuberlin.pserver.dsl.transaction.executors;
+
+
+import de.tuberlin.pserver.dsl.transaction.delta.SparseDelta32F;
+import de.tuberlin.pserver.runtime.core.serializer.LowPrecisionCodec;
+import de.tuberlin.pserver.runtime.core.serializer.WirePrecision;
+import de.tuberlin.pserver.types.matrix.implementation.matrix32f.dense.DenseMatrix32F;
+
+import java.util.Arrays;
+
+/**
+ * Encodes the prepared src state objects of a push transaction as the difference to the
+ * values that were sent last. An entry is sent once it differs from its last sent value by
+ * at least the threshold. With error feedback the entries below the threshold keep their
+ * residual until it grows large enough, without they are dropped. With FP16 the deltas are
+ * rounded here, so the baseline holds the values the receivers apply. Objects that are no
+ * dense matrices are passed through unchanged. An encoder is used by one executor.
+ */
+final class DeltaEncoder {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private final float threshold;
+
+    private final boolean errorFeedback;
+
+    private final boolean half;
+
+    private final float[][] sentValues;
+
+    private final int[] lastSizes;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public DeltaEncoder(final int numStateObjects, final float threshold, final boolean errorFeedback, final WirePrecision precision) {
+        this.threshold = threshold;
+        this.errorFeedback = errorFeedback;
+        this.half = precision == WirePrecision.FP16;
+        this.sentValues = new float[numStateObjects][];
+        this.lastSizes = new int[numStateObjects];
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    // All replicas hold the same values when the transaction is bound, these form the first baseline.
+    public void bind(final int stateObjectIndex, final Object stateObject) {
+        if (stateObject instanceof DenseMatrix32F)
+            sentValues[stateObjectIndex] = ((DenseMatrix32F) stateObject).data.clone();
+    }
+
+    public Object encode(final int stateObjectIndex, final Object preparedStateObject) {
+        if (!(preparedStateObject instanceof DenseMatrix32F))
+            return preparedStateObject;
+        final DenseMatrix32F matrix = (DenseMatrix32F) preparedStateObject;
+        final float[] data = matrix.data;
+        float[] sent = sentValues[stateObjectIndex];
+        if (sent == null || sent.length != data.length)
+            sent = sentValues[stateObjectIndex] = new float[data.length];
+        int[] indices = new int[Math.max(16, lastSizes[stateObjectIndex])];
+        float[] values = new float[indices.length];
+        int size = 0;
+        for (int i = 0; i < data.length; ++i) {
+            float delta = data[i] - sent[i];
+            if (delta == 0f)
+                continue;
+            if (half && Math.abs(delta) >= threshold)
+                delta = LowPrecisionCodec.fromHalf(LowPrecisionCodec.toHalf(delta));
+            if (delta != 0f && Math.abs(delta) >= threshold) {
+                if (size == indices.length) {
+                    indices = Arrays.copyOf(indices, size * 2);
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                indices[size] = i;
+                values[size++] = delta;
+                sent[i] = half ? sent[i] + delta : data[i];
+            } else if (!errorFeedback)
+                sent[i] = data[i];
+        }
+        lastSizes[stateObjectIndex] = size;
+        return new SparseDelta32F(matrix.rows(), matrix.cols(), indices, values, size);
+    }
+
+    public static boolean isEmpty(final Object encodedStateObject) {
+        return encodedStateObject instanceof SparseDelta32F && ((SparseDelta32F) encodedStateObject).isEmpty();
+    }
+}
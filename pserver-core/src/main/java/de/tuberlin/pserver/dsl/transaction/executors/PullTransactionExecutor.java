@@ -2,6 +2,7 @@ package de.tuberlin.pserver.dsl.transaction.executors;
 
 import de.tuberlin.pserver.dsl.transaction.TransactionController;
 import de.tuberlin.pserver.dsl.transaction.TransactionDefinition;
+import de.tuberlin.pserver.dsl.transaction.events.TransactionPayloads;
 import de.tuberlin.pserver.dsl.transaction.events.TransactionPullRequestEvent;
 import de.tuberlin.pserver.dsl.transaction.events.TransactionPullResponseEvent;
 import de.tuberlin.pserver.dsl.transaction.phases.Prepare;
@@ -11,7 +12,6 @@ import org.apache.commons.lang3.ArrayUtils;
 
 import java.util.*;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.atomic.AtomicInteger;
 
 // EXECUTOR ASSUMES NO CONCURRENT TRANSACTIONS OF SAME TYPE.
 // MUST BE ENFORCED BY TRANSACTION MANAGER!
@@ -38,9 +38,8 @@ public class PullTransactionExecutor extends TransactionExecutor {
 
     private CountDownLatch responseLatch;
 
-    private final Thread combinerThread;
-
-    private Object requestObject;
+    // Combiner of the running execution, null without a combine phase.
+    private volatile TreeCombiner combiner;
 
     // ---------------------------------------------------
     // Constructors.
@@ -65,20 +64,6 @@ public class PullTransactionExecutor extends TransactionExecutor {
 
         this.responseLatch = new CountDownLatch(txnSrcNodes.length);
 
-        combinerThread = new Thread(() -> { // RUN COMBINER IN SEPARATE THREAD!
-            try {
-
-                for (String srcStateName : controller.getTransactionDescriptor().stateSrcObjectNames) {
-                    List<Object> srcStates = collectedResponseSrcStateObjects.get(srcStateName);
-                    Object combinedSrcStateObject = transactionDefinition.combinePhase.combine(Arrays.asList(requestObject), srcStates);
-                    collectedResponseSrcStateObjects.put(srcStateName, Arrays.asList(combinedSrcStateObject));
-                }
-
-            } catch (Exception e) {
-                throw new IllegalStateException(e);
-            }
-        });
-
         registerPullTransactionRequest();
         registerPullTransactionResponse();
     }
@@ -120,6 +105,16 @@ public class PullTransactionExecutor extends TransactionExecutor {
         collectedResponseSrcStateObjects.clear();
         final List<Object> resultObjects = new ArrayList<>();
 
+        if (transactionDefinition.combinePhase != null) {
+            combiner = new TreeCombiner(
+                    runtimeContext.runtimeManager.getTransactionService(),
+                    transactionDefinition.combinePhase,
+                    Arrays.asList(requestObject),
+                    controller.getTransactionDescriptor().stateSrcObjectNames,
+                    txnSrcNodes.length
+            );
+        }
+
         { // Request...
 
             final boolean cacheRequest = controller.getTransactionDescriptor().cacheRequestObject;
@@ -143,9 +138,17 @@ public class PullTransactionExecutor extends TransactionExecutor {
 
         { // Response Handling...
 
-            // Wait until combiner thread is completed.
+            // Wait until the last merges of the combiner are completed.
             if (transactionDefinition.combinePhase != null) {
-                combinerThread.join();
+                for (final Map.Entry<String, Object> combined : combiner.await().entrySet())
+                    collectedResponseSrcStateObjects.put(combined.getKey(), Arrays.asList(combined.getValue()));
+                combiner = null;
+            } else {
+                // Responses are decoded and their streams awaited by the caller, not on the dispatcher thread.
+                for (final List<Object> responses : collectedResponseSrcStateObjects.values()) {
+                    for (int i = 0; i < responses.size(); ++i)
+                        responses.set(i, TransactionPayloads.unwrap(responses.get(i)));
+                }
             }
 
             for (int i = 0; i < controller.getTransactionDescriptor().stateDstObjectNames.size(); ++i) {
@@ -181,7 +184,8 @@ public class PullTransactionExecutor extends TransactionExecutor {
                         srcStateObjects[i].lock();
                         final Prepare preparePhase = transactionDefinition.preparePhase;
                         final Object prepareInput = request.getPayload() == null ? srcStateObjects[i] : request.requestObject;
-                        preparedOutputs.put(request.stateObjectNames.get(i), (preparePhase != null) ? preparePhase.prepare(request, prepareInput) : prepareInput);
+                        final Object preparedOutput = (preparePhase != null) ? preparePhase.prepare(request, prepareInput) : prepareInput;
+                        preparedOutputs.put(request.stateObjectNames.get(i), TransactionPayloads.wrap(preparedOutput, controller.getTransactionDescriptor().precision));
                         srcStateObjects[i].unlock();
                     }
 
@@ -204,28 +208,28 @@ public class PullTransactionExecutor extends TransactionExecutor {
         // Register push request listener only at the associated destination nodes.
         if (ArrayUtils.contains(controller.getTransactionDescriptor().dstStateObjectNodes, runtimeContext.nodeID)) {
 
-            AtomicInteger requestCounter = new AtomicInteger(0);
-
             runtimeContext.netManager.addEventListener(TransactionPullResponseEvent.TRANSACTION_RESPONSE + transactionName, event -> {
 
                 final TransactionPullResponseEvent responseEvent = (TransactionPullResponseEvent) event;
 
                 try {
 
+                    final TreeCombiner combiner = this.combiner;
                     for (int i = 0; i < controller.getTransactionDescriptor().stateSrcObjectNames.size(); ++i) {
                         final String stateObjectName = controller.getTransactionDescriptor().stateSrcObjectNames.get(i);
+                        // Still in wire representation, the dispatcher thread must not wait for streamed values.
+                        final Object response = responseEvent.responseSrcStateObjects.get(stateObjectName);
+                        // Merge the response right away instead of after the slowest node answered.
+                        if (combiner != null) {
+                            combiner.add(stateObjectName, response);
+                            continue;
+                        }
                         List<Object> li = collectedResponseSrcStateObjects.get(stateObjectName);
                         if (li == null) {
                             li = new ArrayList<>();
                             collectedResponseSrcStateObjects.put(stateObjectName, li);
                         }
-                        li.add(responseEvent.responseSrcStateObjects.get(stateObjectName));
-                    }
-
-                    if (transactionDefinition.combinePhase != null) {
-                        if (requestCounter.incrementAndGet() == txnSrcNodes.length) {
-                            combinerThread.start();
-                        }
+                        li.add(response);
                     }
 
                     synchronized (monitor) {
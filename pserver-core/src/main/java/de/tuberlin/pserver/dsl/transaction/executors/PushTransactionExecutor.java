@@ -1,17 +1,23 @@
 package de.tuberlin.pserver.dsl.transaction.executors;
 
+import de.tuberlin.pserver.compiler.TransactionDescriptor;
 import de.tuberlin.pserver.dsl.transaction.TransactionController;
 import de.tuberlin.pserver.dsl.transaction.TransactionDefinition;
+import de.tuberlin.pserver.dsl.transaction.delta.SparseDelta32F;
+import de.tuberlin.pserver.dsl.transaction.events.StreamedMatrix32F;
+import de.tuberlin.pserver.dsl.transaction.events.TransactionPayloads;
 import de.tuberlin.pserver.dsl.transaction.events.TransactionPushRequestEvent;
 import de.tuberlin.pserver.dsl.transaction.phases.Prepare;
+import de.tuberlin.pserver.dsl.transaction.phases.RowRangeUpdate;
 import de.tuberlin.pserver.runtime.RuntimeContext;
+import de.tuberlin.pserver.runtime.core.serializer.WirePrecision;
 import de.tuberlin.pserver.types.typeinfo.DistributedTypeInfo;
 import org.apache.commons.lang3.ArrayUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
 
 public class PushTransactionExecutor extends TransactionExecutor {
 
@@ -25,6 +31,8 @@ public class PushTransactionExecutor extends TransactionExecutor {
 
     private final DistributedTypeInfo[] dstStateObjects;
 
+    private final DeltaEncoder deltaEncoder;
+
     // ---------------------------------------------------
     // Constructors.
     // ---------------------------------------------------
@@ -38,6 +46,10 @@ public class PushTransactionExecutor extends TransactionExecutor {
         this.srcStateObjects = new DistributedTypeInfo[numSrcStateObjects];
         final int numDstStateObjects = controller.getTransactionDescriptor().stateDstObjectNames.size();
         this.dstStateObjects = new DistributedTypeInfo[numDstStateObjects];
+        final TransactionDescriptor descriptor = controller.getTransactionDescriptor();
+        this.deltaEncoder = descriptor.deltaEncoding
+                ? new DeltaEncoder(numSrcStateObjects, descriptor.deltaThreshold, descriptor.deltaErrorFeedback, descriptor.precision)
+                : null;
         registerPushTransactionRequest();
     }
 
@@ -57,6 +69,8 @@ public class PushTransactionExecutor extends TransactionExecutor {
         for (final String srcStateObjectName : controller.getTransactionDescriptor().stateSrcObjectNames) {
             if (ArrayUtils.contains(controller.getTransactionDescriptor().srcStateObjectNodes, runtimeContext.nodeID)) {
                 DistributedTypeInfo srcObj = runtimeContext.runtimeManager.getDHT(srcStateObjectName);
+                if (deltaEncoder != null)
+                    deltaEncoder.bind(i, srcObj);
                 srcStateObjects[i++] = srcObj;
             }
         }
@@ -87,14 +101,29 @@ public class PushTransactionExecutor extends TransactionExecutor {
         // Apply prepare phase on src-state object.
         //
 
+        final WirePrecision precision = controller.getTransactionDescriptor().precision;
         final List<Object> preparedSrcStateObjects = new ArrayList<>();
+        boolean unchanged = deltaEncoder != null;
+        // Fresh deltas are never modified after sending, local receivers may share them.
+        boolean immutable = deltaEncoder != null && requestObject == null;
         for (int i = 0; i < controller.getTransactionDescriptor().stateSrcObjectNames.size(); ++i) {
             srcStateObjects[i].lock();
             final Prepare preparePhase = transactionDefinition.preparePhase;
-            preparedSrcStateObjects.add((preparePhase != null) ? preparePhase.prepare(requestObject, srcStateObjects[i]) : srcStateObjects[i]);
+            final Object preparedSrcStateObject = (preparePhase != null) ? preparePhase.prepare(requestObject, srcStateObjects[i]) : srcStateObjects[i];
+            if (deltaEncoder != null) {
+                final Object delta = deltaEncoder.encode(i, preparedSrcStateObject);
+                unchanged &= DeltaEncoder.isEmpty(delta);
+                immutable &= delta instanceof SparseDelta32F;
+                preparedSrcStateObjects.add(TransactionPayloads.wrap(delta, precision));
+            } else
+                preparedSrcStateObjects.add(TransactionPayloads.wrap(preparedSrcStateObject, precision));
             srcStateObjects[i].unlock();
         }
 
+        // Without combiner the receivers do not count rounds, a push without changes can be left out.
+        if (unchanged && transactionDefinition.combinePhase == null)
+            return null;
+
         final TransactionPushRequestEvent request = new TransactionPushRequestEvent(
                 transactionName,
                 controller.getTransactionDescriptor().stateDstObjectNames,
@@ -103,7 +132,14 @@ public class PushTransactionExecutor extends TransactionExecutor {
                 controller.getTransactionDescriptor().cacheRequestObject
         );
 
-        runtimeContext.netManager.dispatchEventAt(txnDstNodes, request);
+        request.isImmutable = immutable;
+        request.flowPolicy  = controller.getTransactionDescriptor().flowPolicy;
+        request.coalesceKey = transactionName;
+
+        final CompletableFuture<Void> sent = runtimeContext.netManager.dispatchEventAt(txnDstNodes, request);
+        // Receivers that accepted the push keep it, a rejection is only reported to the caller.
+        if (sent.isCompletedExceptionally())
+            sent.get();
 
         return null;
     }
@@ -116,61 +152,93 @@ public class PushTransactionExecutor extends TransactionExecutor {
         // Register push request listener only at the associated destination nodes.
         if (ArrayUtils.contains(controller.getTransactionDescriptor().dstStateObjectNodes, runtimeContext.nodeID)) {
 
+            final TransactionExecutionService transactionService = runtimeContext.runtimeManager.getTransactionService();
+
             if (transactionDefinition.combinePhase != null) { // USE COMBINER -> synchronous
 
-                AtomicInteger requestIndex = new AtomicInteger(0);
-                int numRequests = controller.getTransactionDescriptor().srcStateObjectNodes.length - 1;
-                List<Object> srcStateObjects = new ArrayList<>(numRequests);
-                List<Object> srcRequestObjects = new ArrayList<>(numRequests);
+                final int numRequests = controller.getTransactionDescriptor().srcStateObjectNodes.length - 1;
+                final List<Object> srcStateObjects = new ArrayList<>(numRequests);
+                final List<Object> srcRequestObjects = new ArrayList<>(numRequests);
 
                 runtimeContext.netManager.addEventListener(TransactionPushRequestEvent.TRANSACTION_REQUEST + transactionName, event -> {
                     final TransactionPushRequestEvent request = (TransactionPushRequestEvent) event;
-                    srcStateObjects.addAll(request.srcStateObjectsValues);
-                    srcRequestObjects.add(request.requestObject);
-                    int requestCounter = requestIndex.incrementAndGet();
-
-                    System.out.println("NODE [" + runtimeContext.nodeID + "] RECEIVED " + requestCounter + " PUSH REQUESTS.");
-
-                    if (requestCounter == numRequests) {
-                        new Thread(() -> {
-                            try {
-                                Object combinedSrcStateObject = transactionDefinition.combinePhase.combine(srcRequestObjects, srcStateObjects);
-                                for (int i = 0; i < controller.getTransactionDescriptor().stateDstObjectNames.size(); ++i) {
-                                    dstStateObjects[i].lock();
-                                    transactionDefinition.applyPhase.apply(srcRequestObjects,
-                                            Arrays.asList(combinedSrcStateObject),
-                                            dstStateObjects[i]
-                                    );
-                                    dstStateObjects[i].unlock();
-                                }
-                            } catch (Exception ex) {
-                                throw new IllegalStateException(ex);
-                            }
-                        }).start();
+                    // The round is applied once all its values are there, their channels must not be paused.
+                    transactionService.keepReading(request.netChannel, TransactionPayloads.received(request.srcStateObjectsValues));
+                    final List<Object> roundSrcStateObjects, roundSrcRequestObjects;
+                    // Every numRequests pushes form one round that is combined and applied at once.
+                    synchronized (srcRequestObjects) {
+                        srcStateObjects.addAll(request.srcStateObjectsValues);
+                        srcRequestObjects.add(request.requestObject);
+                        if (srcRequestObjects.size() < numRequests)
+                            return;
+                        roundSrcStateObjects = new ArrayList<>(srcStateObjects);
+                        roundSrcRequestObjects = new ArrayList<>(srcRequestObjects);
+                        srcStateObjects.clear();
+                        srcRequestObjects.clear();
                     }
+                    transactionService.submit(transactionName, null, request.netChannel, () -> {
+                        try {
+                            // Streamed values are awaited here and not on the dispatcher thread.
+                            for (int i = 0; i < roundSrcStateObjects.size(); ++i)
+                                roundSrcStateObjects.set(i, TransactionPayloads.unwrap(roundSrcStateObjects.get(i)));
+                            final Object combinedSrcStateObject = transactionDefinition.combinePhase.combine(roundSrcRequestObjects, roundSrcStateObjects);
+                            for (int i = 0; i < controller.getTransactionDescriptor().stateDstObjectNames.size(); ++i)
+                                apply(roundSrcRequestObjects, Arrays.asList(combinedSrcStateObject), dstStateObjects[i]);
+                        } catch (Exception ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    });
                 });
 
             } else {
 
                 runtimeContext.netManager.addEventListener(TransactionPushRequestEvent.TRANSACTION_REQUEST + transactionName, event -> {
-                        final TransactionPushRequestEvent request = (TransactionPushRequestEvent) event;
-                        final List<Object> preparedSrcStateObjects = request.srcStateObjectsValues;
-                        new Thread(() -> {
-                            try {
-                                for (int i = 0; i < controller.getTransactionDescriptor().stateDstObjectNames.size(); ++i) {
-                                    dstStateObjects[i].lock();
-                                    transactionDefinition.applyPhase.apply(Arrays.asList(request.requestObject),
-                                            Arrays.asList(preparedSrcStateObjects.get(i)),
-                                            dstStateObjects[i]
-                                    );
-                                    dstStateObjects[i].unlock();
-                                }
-                            } catch (Exception ex) {
-                                throw new IllegalStateException(ex);
-                            }
-                        }).start();
+                    final TransactionPushRequestEvent request = (TransactionPushRequestEvent) event;
+                    final List<Object> preparedSrcStateObjects = request.srcStateObjectsValues;
+                    // The request consumes rows while they arrive, its channel must not be paused.
+                    transactionService.keepReading(request.netChannel, TransactionPayloads.received(preparedSrcStateObjects));
+                    transactionService.submit(transactionName, request.srcMachineID, request.netChannel, () -> {
+                        try {
+                            for (int i = 0; i < controller.getTransactionDescriptor().stateDstObjectNames.size(); ++i)
+                                applyPushed(request.requestObject, preparedSrcStateObjects.get(i), dstStateObjects[i]);
+                        } catch (Exception ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    });
                 });
             }
         }
     }
+
+    @SuppressWarnings("unchecked")
+    private void applyPushed(final Object requestObject, final Object srcStateObject, final DistributedTypeInfo dstStateObject) throws Exception {
+        if (srcStateObject instanceof StreamedMatrix32F && transactionDefinition.applyPhase instanceof RowRangeUpdate) {
+            // Rows are applied as soon as they are received, the rest of the matrix is still in flight.
+            final StreamedMatrix32F streamed = (StreamedMatrix32F) srcStateObject;
+            final RowRangeUpdate<Object> updatePhase = (RowRangeUpdate<Object>) transactionDefinition.applyPhase;
+            final List<Object> requestObjects = Arrays.asList(requestObject);
+            dstStateObject.lock();
+            try {
+                final long rows = streamed.matrix().rows();
+                for (long row = 0; row < rows; ) {
+                    final long end = streamed.awaitRows(row);
+                    updatePhase.updateRows(requestObjects, streamed.matrix(), row, end, dstStateObject);
+                    row = end;
+                }
+            } finally {
+                dstStateObject.unlock();
+            }
+        } else
+            apply(Arrays.asList(requestObject), Arrays.asList(TransactionPayloads.unwrap(srcStateObject)), dstStateObject);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void apply(final List<Object> requestObjects, final List<Object> srcStateObjects, final DistributedTypeInfo dstStateObject) throws Exception {
+        dstStateObject.lock();
+        try {
+            transactionDefinition.applyPhase.apply(requestObjects, srcStateObjects, dstStateObject);
+        } finally {
+            dstStateObject.unlock();
+        }
+    }
 }
@@ -0,0 +1,256 @@
+package de.tuberlin.pserver.dsl.transaction.executors;
+
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.tuberlin.pserver.commons.config.Config;
+import de.tuberlin.pserver.runtime.core.lifecycle.Deactivatable;
+import de.tuberlin.pserver.runtime.core.network.NetChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the apply phases of incoming transaction requests on a fixed pool of worker threads.
+ * Requests of one transaction from one source node form a lane and are applied one after the
+ * other in arrival order, different lanes run in parallel. If more than the configured
+ * capacity of requests of a transaction is pending, reading from the network channels that
+ * deliver them is paused until the transaction has worked off half of its queue. Channels
+ * that still deliver streamed values of queued requests are not paused, the requests would
+ * wait for these values forever.
+ */
+public final class TransactionExecutionService implements Deactivatable {
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    private static final Logger LOG = LoggerFactory.getLogger(TransactionExecutionService.class);
+
+    public static final String EXECUTOR_THREADS = "worker.transaction.executorThreads";
+
+    public static final String QUEUE_CAPACITY = "worker.transaction.queueCapacity";
+
+    // Source of requests that did not arrive over the network.
+    public static final UUID LOCAL_SOURCE = new UUID(0, 0);
+
+    // A lane gives its worker back to the pool after this number of requests.
+    private static final int MAX_REQUESTS_PER_RUN = 64;
+
+    // ---------------------------------------------------
+    // Inner Classes.
+    // ---------------------------------------------------
+
+    private final class TransactionQueue {
+
+        private final Map<UUID, Lane> lanes = new ConcurrentHashMap<>();
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private final Set<NetChannel> pausedChannels = new HashSet<>();
+
+        private volatile boolean paused;
+
+        public void submit(final UUID source, final NetChannel channel, final Runnable request) {
+            final int numPending = pending.incrementAndGet();
+            lanes.computeIfAbsent(source, s -> new Lane(this)).add(request);
+            if (numPending > queueCapacity && channel != null)
+                pause(channel);
+        }
+
+        public void completed() {
+            if (pending.decrementAndGet() <= queueCapacity / 2 && paused)
+                resume();
+        }
+
+        private void pause(final NetChannel channel) {
+            synchronized (pausedChannels) {
+                pausedChannels.add(channel);
+                pauseReading(channel);
+                paused = true;
+            }
+            // The queue may have drained meanwhile, nobody else would resume the channel then.
+            if (pending.get() <= queueCapacity / 2)
+                resume();
+        }
+
+        // Pauses the channel again after its streams are received, if this queue still wants that.
+        private void repause(final NetChannel channel) {
+            synchronized (pausedChannels) {
+                if (pausedChannels.contains(channel))
+                    pauseReading(channel);
+            }
+        }
+
+        private void resume() {
+            synchronized (pausedChannels) {
+                if (pausedChannels.isEmpty())
+                    return;
+                for (final NetChannel channel : pausedChannels)
+                    channel.setReadPaused(false);
+                pausedChannels.clear();
+                paused = false;
+            }
+        }
+    }
+
+    // ---------------------------------------------------
+
+    private final class Lane implements Runnable {
+
+        private final TransactionQueue queue;
+
+        private final Queue<Runnable> requests = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        public Lane(final TransactionQueue queue) { this.queue = queue; }
+
+        public void add(final Runnable request) {
+            requests.add(request);
+            schedule();
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < MAX_REQUESTS_PER_RUN; ++i) {
+                final Runnable request = requests.poll();
+                if (request == null)
+                    break;
+                try {
+                    request.run();
+                } catch (Throwable t) {
+                    LOG.error("Transaction request failed.", t);
+                } finally {
+                    queue.completed();
+                }
+            }
+            scheduled.set(false);
+            if (!requests.isEmpty())
+                schedule();
+        }
+
+        // At most one worker runs a lane at a time, that keeps the requests in order.
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    LOG.warn("Transaction execution service is shut down, dropped requests.");
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private final ExecutorService executor;
+
+    private final int queueCapacity;
+
+    private final Map<String, TransactionQueue> queues;
+
+    // Channels with streamed values of queued requests in flight, guarded by itself.
+    private final Map<NetChannel, Integer> streamingChannels;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public TransactionExecutionService(final Config config) {
+        Preconditions.checkNotNull(config);
+        final int numThreads = config.hasPath(EXECUTOR_THREADS) && config.getInt(EXECUTOR_THREADS) > 0
+                ? config.getInt(EXECUTOR_THREADS) : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = config.hasPath(QUEUE_CAPACITY) ? config.getInt(QUEUE_CAPACITY) : 1024;
+        Preconditions.checkArgument(queueCapacity > 0);
+        this.executor = Executors.newFixedThreadPool(numThreads,
+                new ThreadFactoryBuilder().setNameFormat("TXN-EXECUTOR-%d").setDaemon(true).build());
+        this.queues = new ConcurrentHashMap<>();
+        this.streamingChannels = new HashMap<>();
+    }
+
+    // ---------------------------------------------------
+    // Component Lifecycle.
+    // ---------------------------------------------------
+
+    public void clearContext() {
+        queues.values().forEach(TransactionQueue::resume);
+        queues.clear();
+    }
+
+    @Override
+    public void deactivate() {
+        clearContext();
+        executor.shutdownNow();
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    /**
+     * Queues a request of the transaction. The request runs after all requests previously
+     * submitted for the same transaction and source. The channel the request arrived on is
+     * paused while the transaction is over capacity, it is null for local requests.
+     */
+    public void submit(final String transactionName, final UUID source, final NetChannel channel, final Runnable request) {
+        Preconditions.checkNotNull(transactionName);
+        Preconditions.checkNotNull(request);
+        queues.computeIfAbsent(transactionName, name -> new TransactionQueue())
+                .submit(source != null ? source : LOCAL_SOURCE, channel, request);
+    }
+
+    /**
+     * Keeps reading from the channel until the streamed values of a request are received. Must
+     * be called before the request is submitted, its channel is not paused until then.
+     */
+    public void keepReading(final NetChannel channel, final CompletableFuture<?> received) {
+        if (channel == null || received.isDone())
+            return;
+        synchronized (streamingChannels) {
+            streamingChannels.merge(channel, 1, Integer::sum);
+            channel.setReadPaused(false);
+        }
+        received.whenComplete((r, t) -> {
+            final boolean idle;
+            synchronized (streamingChannels) {
+                idle = streamingChannels.merge(channel, -1, (a, b) -> a + b == 0 ? null : a + b) == null;
+            }
+            if (idle)
+                queues.values().forEach(queue -> queue.repause(channel));
+        });
+    }
+
+    /** Runs a task that needs no ordering, e.g. a combine step, on the worker pool. */
+    public void execute(final Runnable task) {
+        Preconditions.checkNotNull(task);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Transaction execution service is shut down.", e);
+        }
+    }
+
+    public int getNumOfPendingRequests(final String transactionName) {
+        final TransactionQueue queue = queues.get(transactionName);
+        return queue != null ? queue.pending.get() : 0;
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private void pauseReading(final NetChannel channel) {
+        synchronized (streamingChannels) {
+            if (!streamingChannels.containsKey(channel))
+                channel.setReadPaused(true);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package de.tuberlin.pserver.dsl.transaction.executors;
+
+
+import com.google.common.base.Preconditions;
+import de.tuberlin.pserver.dsl.transaction.events.TransactionPayloads;
+import de.tuberlin.pserver.dsl.transaction.phases.Combine;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Combines the responses of one pull transaction execution while they arrive. Two partial
+ * results of a state object are merged as soon as both are there, the merges run on the
+ * worker pool of the transaction execution service and form a tree over the responses.
+ * The combine phase therefore must be associative. A combiner is used for one execution.
+ * Responses are added in their wire representation, they are received and decoded by the
+ * merge that consumes them and not by the thread that adds them.
+ */
+final class TreeCombiner {
+
+    // ---------------------------------------------------
+    // Inner Classes.
+    // ---------------------------------------------------
+
+    private final class Reduction {
+
+        private final String stateObjectName;
+
+        private Object waiting;
+
+        private int waitingWeight;
+
+        public Reduction(final String stateObjectName) { this.stateObjectName = stateObjectName; }
+
+        // The weight is the number of responses a partial result contains.
+        public void offer(final Object partial, final int weight) {
+            final Object other;
+            final int otherWeight;
+            synchronized (this) {
+                if (weight == numInputs && numInputs > 1) {
+                    complete(stateObjectName, partial);
+                    return;
+                }
+                if (waiting == null && numInputs > 1) {
+                    waiting = partial;
+                    waitingWeight = weight;
+                    return;
+                }
+                other = waiting;
+                otherWeight = waitingWeight;
+                waiting = null;
+            }
+            executor.execute(() -> {
+                try {
+                    final List<Object> partials = other != null
+                            ? Arrays.asList(TransactionPayloads.unwrap(other), TransactionPayloads.unwrap(partial))
+                            : Collections.singletonList(TransactionPayloads.unwrap(partial));
+                    final Object combined = combinePhase.combine(requestObjects, partials);
+                    if (numInputs == 1)
+                        complete(stateObjectName, combined);
+                    else
+                        offer(combined, weight + otherWeight);
+                } catch (Throwable t) {
+                    fail(t);
+                }
+            });
+        }
+    }
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private final TransactionExecutionService executor;
+
+    private final Combine<Object> combinePhase;
+
+    private final List<Object> requestObjects;
+
+    private final int numInputs;
+
+    private final Map<String, Reduction> reductions;
+
+    private final Map<String, Object> results;
+
+    private final CountDownLatch completed;
+
+    private volatile Throwable error;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    public TreeCombiner(final TransactionExecutionService executor,
+                        final Combine combinePhase,
+                        final List<Object> requestObjects,
+                        final List<String> stateObjectNames,
+                        final int numInputs) {
+
+        Preconditions.checkArgument(numInputs > 0);
+        this.executor       = Preconditions.checkNotNull(executor);
+        this.combinePhase   = Preconditions.checkNotNull(combinePhase);
+        this.requestObjects = requestObjects;
+        this.numInputs      = numInputs;
+        this.reductions     = new HashMap<>();
+        for (final String stateObjectName : stateObjectNames)
+            reductions.put(stateObjectName, new Reduction(stateObjectName));
+        this.results        = new ConcurrentHashMap<>();
+        this.completed      = new CountDownLatch(reductions.size());
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public void add(final String stateObjectName, final Object response) {
+        Preconditions.checkNotNull(reductions.get(stateObjectName)).offer(response, 1);
+    }
+
+    /** Waits for all merges and returns the combined object of every state object. */
+    public Map<String, Object> await() throws Exception {
+        completed.await();
+        if (error != null)
+            throw new IllegalStateException("Combine phase failed.", error);
+        return results;
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private void complete(final String stateObjectName, final Object result) {
+        results.put(stateObjectName, result);
+        completed.countDown();
+    }
+
+    private void fail(final Throwable t) {
+        error = t;
+        while (completed.getCount() > 0)
+            completed.countDown();
+    }
+}
@@ -3,6 +3,10 @@ package de.tuberlin.pserver.dsl.transaction.phases;
 
 import java.util.List;
 
+/**
+ * Merges source state objects. Pull transactions combine the responses pairwise while they
+ * arrive, there the combine must be associative and the order of the objects is arbitrary.
+ */
 public interface Combine<T> extends TransactionPhase {
 
     public T combine(final List<Object> requestObj, final List<T> remoteObjects) throws Exception;
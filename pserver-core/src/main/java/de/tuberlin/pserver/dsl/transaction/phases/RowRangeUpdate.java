@@ -0,0 +1,14 @@
+package de.tuberlin.pserver.dsl.transaction.phases;
+
+
+import java.util.List;
+
+/**
+ * Update phase that consumes large pushed matrices row range by row range while the rest of
+ * the matrix is still received. Remote objects that are not streamed are passed as a single
+ * range, combined objects are passed to update(...).
+ */
+public interface RowRangeUpdate<I> extends Update<I> {
+
+    public void updateRows(final List<Object> requestObjects, final I remoteObject, final long fromRow, final long toRow, final I localObject) throws Exception;
+}
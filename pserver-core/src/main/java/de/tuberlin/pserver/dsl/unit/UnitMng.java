@@ -45,6 +45,10 @@ public final class UnitMng {
         return new Loop(programContext).sync(mode).exe(n, body);
     }
 
+    public static Loop loop(final long n, final int mode, final int staleness, final LoopBody body) throws Exception {
+        return new Loop(programContext).sync(mode, staleness).exe(n, body);
+    }
+
     public static Loop loop(final long n, final LoopBody body) throws Exception {
         return new Loop(programContext).exe(n, body);
     }
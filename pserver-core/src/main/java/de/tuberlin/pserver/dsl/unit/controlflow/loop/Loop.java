@@ -1,5 +1,6 @@
 package de.tuberlin.pserver.dsl.unit.controlflow.loop;
 
+import com.google.common.base.Preconditions;
 import de.tuberlin.pserver.dsl.unit.UnitMng;
 import de.tuberlin.pserver.dsl.unit.controlflow.base.CFStatement;
 import de.tuberlin.pserver.runtime.driver.ProgramContext;
@@ -14,6 +15,13 @@ public final class Loop extends CFStatement {
 
     public static final int BULK_SYNCHRONOUS = 2;
 
+    // A node starts epoch e only after all nodes completed epoch e - staleness - 1.
+    public static final int STALE_SYNCHRONOUS = 3;
+
+    public static final int DEFAULT_STALENESS = 2;
+
+    private static final String LOOP_CLOCK = "loop";
+
     // ---------------------------------------------------
     // Inner Classes.
     // ---------------------------------------------------
@@ -41,6 +49,10 @@ public final class Loop extends CFStatement {
 
     private int mode = ASYNCHRONOUS;
 
+    private int staleness = DEFAULT_STALENESS;
+
+    private String clockKey;
+
     // ---------------------------------------------------
     // Constructor.
     // ---------------------------------------------------
@@ -55,6 +67,12 @@ public final class Loop extends CFStatement {
 
     public Loop sync(int mode) { this.mode = mode; return this; }
 
+    public Loop sync(int mode, int staleness) {
+        Preconditions.checkArgument(staleness >= 0);
+        this.staleness = staleness;
+        return sync(mode);
+    }
+
     // ---------------------------------------------------
     // Execution.
     // ---------------------------------------------------
@@ -67,6 +85,9 @@ public final class Loop extends CFStatement {
 
         duration = System.currentTimeMillis();
 
+        if (mode == STALE_SYNCHRONOUS && clockKey == null)
+            clockKey = programContext.openClock(LOOP_CLOCK);
+
         while (!t.terminate()) {
 
             long t0 = System.currentTimeMillis();
@@ -81,6 +102,8 @@ public final class Loop extends CFStatement {
 
             ++epoch;
 
+            tick();
+
             passDuration += System.currentTimeMillis() - t0;
         }
 
@@ -88,7 +111,7 @@ public final class Loop extends CFStatement {
 
         setProfilingData(new LoopProfilingData(duration, epoch > 0 ? passDuration / epoch : passDuration, epoch > 0 ? syncDuration / epoch : syncDuration));
 
-        sync();
+        syncEnd();
 
         return this;
     }
@@ -107,6 +130,24 @@ public final class Loop extends CFStatement {
                 return;
             case BULK_SYNCHRONOUS:
                 programContext.synchronizeUnit(UnitMng.GLOBAL_BARRIER);
+                return;
+            case STALE_SYNCHRONOUS:
+                // Only wait while this node is more than staleness epochs ahead of the slowest node.
+                if (epoch - staleness > 0)
+                    programContext.awaitClock(clockKey, epoch - staleness);
         }
     }
+
+    // The clock of a node is the number of epochs it completed.
+    private void tick() {
+        if (mode == STALE_SYNCHRONOUS)
+            programContext.advanceClock(clockKey, epoch);
+    }
+
+    private void syncEnd() throws Exception {
+        if (mode == STALE_SYNCHRONOUS)
+            programContext.awaitClock(clockKey, epoch);
+        else
+            sync();
+    }
 }
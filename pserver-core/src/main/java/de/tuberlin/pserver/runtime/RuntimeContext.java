@@ -2,6 +2,7 @@ package de.tuberlin.pserver.runtime;
 
 
 import com.google.common.base.Preconditions;
+import de.tuberlin.pserver.runtime.collective.CollectiveManager;
 import de.tuberlin.pserver.runtime.core.infra.InfrastructureManager;
 import de.tuberlin.pserver.runtime.core.network.MachineDescriptor;
 import de.tuberlin.pserver.runtime.core.network.NetManager;
@@ -30,6 +31,8 @@ public final class RuntimeContext {
 
     public final RuntimeManager runtimeManager;
 
+    public final CollectiveManager collectiveManager;
+
     public final InfrastructureManager infraManager;
 
     // ---------------------------------------------------
@@ -44,6 +47,7 @@ public final class RuntimeContext {
                           final DHTManager dhtManager,
                           final FileSystemManager fileManager,
                           final RuntimeManager runtimeManager,
+                          final CollectiveManager collectiveManager,
                           final InfrastructureManager infraManager) {
 
         this.machine            = Preconditions.checkNotNull(machine);
@@ -54,6 +58,7 @@ public final class RuntimeContext {
         this.dhtManager         = Preconditions.checkNotNull(dhtManager);
         this.fileManager        = Preconditions.checkNotNull(fileManager);
         this.runtimeManager     = Preconditions.checkNotNull(runtimeManager);
+        this.collectiveManager  = Preconditions.checkNotNull(collectiveManager);
         this.infraManager       = Preconditions.checkNotNull(infraManager);
     }
 }
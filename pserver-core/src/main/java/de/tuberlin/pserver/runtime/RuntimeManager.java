@@ -5,6 +5,8 @@ import com.google.common.base.Preconditions;
 import de.tuberlin.pserver.compiler.TransactionDescriptor;
 import de.tuberlin.pserver.dsl.transaction.TransactionController;
 import de.tuberlin.pserver.dsl.transaction.TransactionDefinition;
+import de.tuberlin.pserver.dsl.transaction.executors.TransactionExecutionService;
+import de.tuberlin.pserver.runtime.collective.CollectiveManager;
 import de.tuberlin.pserver.runtime.core.infra.InfrastructureManager;
 import de.tuberlin.pserver.runtime.core.lifecycle.Deactivatable;
 import de.tuberlin.pserver.runtime.core.network.NetEvent;
@@ -20,6 +22,7 @@ import de.tuberlin.pserver.types.typeinfo.DistributedTypeInfo;
 import org.apache.commons.lang3.ArrayUtils;
 
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
@@ -47,6 +50,10 @@ public final class RuntimeManager implements Deactivatable {
 
     private final DHTManager dhtManager;
 
+    private final CollectiveManager collectiveManager;
+
+    private final TransactionExecutionService transactionService;
+
     // ---------------------------------------------------
     // Constructor.
     // ---------------------------------------------------
@@ -54,25 +61,33 @@ public final class RuntimeManager implements Deactivatable {
     public RuntimeManager(final InfrastructureManager infraManager,
                           final NetManager netManager,
                           final FileSystemManager fileManager,
-                          final DHTManager dhtManager) {
+                          final DHTManager dhtManager,
+                          final CollectiveManager collectiveManager,
+                          final TransactionExecutionService transactionService) {
 
         this.infraManager   = Preconditions.checkNotNull(infraManager);
         this.netManager     = Preconditions.checkNotNull(netManager);
         this.fileManager    = Preconditions.checkNotNull(fileManager);
         this.dhtManager     = Preconditions.checkNotNull(dhtManager);
+        this.collectiveManager = Preconditions.checkNotNull(collectiveManager);
+        this.transactionService = Preconditions.checkNotNull(transactionService);
 
         this.nodeIDs        = IntStream.iterate(0, x -> x + 1).limit(infraManager.getMachines().size()).toArray();
         this.remoteNodeIDs  = ArrayUtils.removeElements(nodeIDs, infraManager.getNodeID());
     }
 
-    public void clearContext() {
+    public void clearContext(final UUID programID) {
         dhtManager.clearContext();
         fileManager.clearContext();
+        collectiveManager.clearContext(programID);
+        transactionService.clearContext();
     }
 
     public void deactivate() {
         dhtManager.deactivate();
         fileManager.deactivate();
+        collectiveManager.deactivate();
+        transactionService.deactivate();
     }
 
     // ---------------------------------------------------
@@ -83,6 +98,8 @@ public final class RuntimeManager implements Deactivatable {
 
     public int[] getRemoteNodeIDs() { return remoteNodeIDs; }
 
+    public TransactionExecutionService getTransactionService() { return transactionService; }
+
     // ---------------------------------------------------
 
     public TransactionDefinition createTransaction(final ProgramContext programContext, final TransactionDescriptor descriptor) {
@@ -102,24 +119,24 @@ public final class RuntimeManager implements Deactivatable {
     public void addMsgEventListener(final int n, final String name, final MsgEventHandler handler) {
         handler.setInfraManager(infraManager);
         handler.initLatch(n);
-        netManager.addEventListener(MsgEventHandler.MSG_EVENT_PREFIX + name, handler);
+        netManager.addEventListener(MsgEventHandler.eventType(name), handler);
     }
 
     public void removeMsgEventListener(final String name, final MsgEventHandler handler) {
-        netManager.removeEventListener(MsgEventHandler.MSG_EVENT_PREFIX + name, handler);
+        netManager.removeEventListener(MsgEventHandler.eventType(name), handler);
     }
     
     public synchronized void send(final String name, final Object value, final int[] nodeIDs) {
         Preconditions.checkNotNull(name);
         Preconditions.checkNotNull(nodeIDs);
-        final NetEvent event = new NetEvent(MsgEventHandler.MSG_EVENT_PREFIX + name, true);
+        final NetEvent event = new NetEvent(MsgEventHandler.eventType(name), true);
         event.setPayload(value);
         netManager.dispatchEventAt(nodeIDs, event);
     }
 
     public synchronized void send(final String name, final Object value) {
         Preconditions.checkNotNull(name);
-        final NetEvent event = new NetEvent(MsgEventHandler.MSG_EVENT_PREFIX + name, true);
+        final NetEvent event = new NetEvent(MsgEventHandler.eventType(name), true);
         event.setPayload(value);
         netManager.dispatchEventAt(remoteNodeIDs, event);
     }
@@ -147,7 +164,7 @@ public final class RuntimeManager implements Deactivatable {
         handler.setInfraManager(infraManager);
         handler.setRemoveAfterAwait(true);
         handler.initLatch(n);
-        netManager.addEventListener(MsgEventHandler.MSG_EVENT_PREFIX + name, handler);
+        netManager.addEventListener(MsgEventHandler.eventType(name), handler);
         if (type == ReceiveType.SYNC) {
             try {
                 handler.getLatch().await();
@@ -164,7 +181,7 @@ public final class RuntimeManager implements Deactivatable {
     public void registerPullHandler(final String name, final PullHandler handler) {
         Preconditions.checkNotNull(name);
         Preconditions.checkNotNull(handler);
-        netManager.addEventListener(MsgEventHandler.MSG_EVENT_PREFIX + MsgEventHandler.MSG_REQUEST_EVENT_PREFIX + name, e -> {
+        netManager.addEventListener(MsgEventHandler.eventType(MsgEventHandler.MSG_REQUEST_EVENT_PREFIX + name), e -> {
             final NetEvent event = (NetEvent) e;
             final int srcNodeID = infraManager.getNodeIDFromMachineUID(event.srcMachineID);
             final Object result = handler.handlePull(name, event.getPayload());
@@ -188,8 +205,8 @@ public final class RuntimeManager implements Deactivatable {
         responseHandler.setInfraManager(infraManager);
         responseHandler.setRemoveAfterAwait(true);
         responseHandler.initLatch(nodeIDs.length);
-        netManager.addEventListener(MsgEventHandler.MSG_EVENT_PREFIX + MsgEventHandler.MSG_RESPONSE_EVENT_PREFIX + name, responseHandler);
-        NetEvent event = new NetEvent(MsgEventHandler.MSG_EVENT_PREFIX + MsgEventHandler.MSG_REQUEST_EVENT_PREFIX + name, true);
+        netManager.addEventListener(MsgEventHandler.eventType(MsgEventHandler.MSG_RESPONSE_EVENT_PREFIX + name), responseHandler);
+        NetEvent event = new NetEvent(MsgEventHandler.eventType(MsgEventHandler.MSG_REQUEST_EVENT_PREFIX + name), true);
         event.setPayload(requestParam);
         netManager.dispatchEventAt(nodeIDs, event);
         try {
@@ -243,7 +260,7 @@ public final class RuntimeManager implements Deactivatable {
     public void registerPullHandler(final String name, final PullHandler handler) {
         Preconditions.checkNotNull(name);
         Preconditions.checkNotNull(handler);
-        netManager.addEventListener(MsgEventHandler.MSG_EVENT_PREFIX + name, e -> {
+        netManager.addEventListener(MsgEventHandler.eventType(name), e -> {
             final NetEvents.NetEvent event = (NetEvents.NetEvent) e;
             final int srcNodeID = infraManager.getNodeIDFromMachineUID(event.srcMachineID);
             final Object result = handler.handlePull(name);
@@ -267,8 +284,8 @@ public final class RuntimeManager implements Deactivatable {
         responseHandler.setInfraManager(infraManager);
         responseHandler.setRemoveAfterAwait(true);
         responseHandler.initLatch(nodeIDs.length);
-        netManager.addEventListener(MsgEventHandler.MSG_EVENT_PREFIX + name, responseHandler);
-        NetEvents.NetEvent event = new NetEvents.NetEvent(MsgEventHandler.MSG_EVENT_PREFIX + name, true);
+        netManager.addEventListener(MsgEventHandler.eventType(name), responseHandler);
+        NetEvents.NetEvent event = new NetEvents.NetEvent(MsgEventHandler.eventType(name), true);
         netManager.sendEvent(nodeIDs, event);
         try {
             responseHandler.getLatch().await();
@@ -0,0 +1,539 @@
+package de.tuberlin.pserver.runtime.collective;
+
+
+import com.google.common.base.Preconditions;
+import de.tuberlin.pserver.runtime.core.events.IEventHandler;
+import de.tuberlin.pserver.runtime.core.infra.InfrastructureManager;
+import de.tuberlin.pserver.runtime.core.lifecycle.Deactivatable;
+import de.tuberlin.pserver.runtime.core.network.NetEvent;
+import de.tuberlin.pserver.runtime.core.network.NetManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Collective operations over the nodes of a program. Reduce, broadcast and gather run on
+ * a binomial tree and finish in O(log n) rounds. Large values are all-reduced with the ring
+ * algorithm (reduce-scatter followed by all-gather), which moves only 2(n-1)/n of the value
+ * per node. Barriers use the dissemination algorithm. Every node must issue the collective
+ * calls of one name in the same order, the calls are matched by a per name sequence number.
+ * Logical clocks bound the progress of nodes relative to each other (stale synchronous
+ * parallel execution), a node only waits while it is too far ahead of the slowest node.
+ * Mailboxes, sequence numbers and clocks are kept per program and dropped when the
+ * program finishes, programs running side by side never see each other's messages. A node
+ * that waits longer than the timeout for a message or a clock fails the operation.
+ */
+public final class CollectiveManager implements Deactivatable {
+
+    // ---------------------------------------------------
+    // Collective Events.
+    // ---------------------------------------------------
+
+    public static final class CollectiveEvent extends NetEvent {
+
+        private static final String COLLECTIVE_EVENT = "collective_event";
+
+        public final UUID programID;
+
+        public final String key;
+
+        public CollectiveEvent() { this(null, null, null); }
+        public CollectiveEvent(final UUID programID, final String key, final Object value) {
+            super(COLLECTIVE_EVENT, value);
+            this.isLatencyCritical = true;
+            this.programID = programID;
+            this.key = key;
+        }
+    }
+
+    // ---------------------------------------------------
+
+    public static final class ClockEvent extends NetEvent {
+
+        private static final String CLOCK_EVENT = "clock_event";
+
+        public final UUID programID;
+
+        public final String key;
+
+        public final int nodeID;
+
+        public final long clock;
+
+        // Not latency critical, clock updates ride in the outbound batches of other traffic.
+        public ClockEvent() { this(null, null, -1, 0); }
+        public ClockEvent(final UUID programID, final String key, final int nodeID, final long clock) {
+            super(CLOCK_EVENT);
+            this.programID = programID;
+            this.key = key;
+            this.nodeID = nodeID;
+            this.clock = clock;
+        }
+    }
+
+    // ---------------------------------------------------
+    // Inner Classes.
+    // ---------------------------------------------------
+
+    private static final class ProgramCollectives {
+
+        final Map<String, BlockingQueue<CollectiveEvent>> mailboxes = new ConcurrentHashMap<>();
+
+        final Map<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+
+        // Clock of every node per clock key, guarded by the map itself.
+        final Map<String, long[]> clocks = new HashMap<>();
+
+        // Set once the program is cleared, guarded by the clocks.
+        boolean closed;
+
+        BlockingQueue<CollectiveEvent> mailbox(final String key) {
+            return mailboxes.computeIfAbsent(key, k -> new LinkedBlockingQueue<>());
+        }
+    }
+
+    // ---------------------------------------------------
+
+    // The nodes taking part in one operation, in ascending order.
+    private static final class Participants {
+
+        final int[] nodeIDs;
+
+        // Position of this node.
+        final int index;
+
+        final int size;
+
+        Participants(final int[] nodeIDs, final int nodeID) {
+            this.nodeIDs = IntStream.of(nodeIDs).distinct().sorted().toArray();
+            this.index = Arrays.binarySearch(this.nodeIDs, nodeID);
+            this.size = this.nodeIDs.length;
+            Preconditions.checkState(index >= 0, "node " + nodeID + " is not a participant");
+        }
+
+        int indexOf(final int nodeID) {
+            final int idx = Arrays.binarySearch(nodeIDs, nodeID);
+            Preconditions.checkArgument(idx >= 0, "node " + nodeID + " is not a participant");
+            return idx;
+        }
+
+        int rankOf(final int rootIndex) { return (index - rootIndex + size) % size; }
+
+        int nodeOf(final int rank, final int rootIndex) { return nodeIDs[(rank + rootIndex) % size]; }
+    }
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    // Values of at least this size are all-reduced with the ring instead of the binomial tree.
+    public static final long RING_THRESHOLD = 64 * 1024;
+
+    // The ring has 2(n-1) rounds, below this number of nodes the tree is always faster.
+    public static final int RING_MIN_NODES = 3;
+
+    private static final String PHASE_REDUCE = "r";
+
+    private static final String PHASE_BROADCAST = "b";
+
+    private static final String PHASE_REDUCE_SCATTER = "rs";
+
+    private static final String PHASE_ALL_GATHER = "ag";
+
+    private static final String PHASE_BARRIER = "ba";
+
+    public static final long DEFAULT_TIMEOUT = 150000; // in ms
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private final NetManager netManager;
+
+    private final BiConsumer<int[], NetEvent> dispatcher;
+
+    private final int nodeID;
+
+    private final int numNodes;
+
+    private final long timeout;
+
+    private final Map<UUID, ProgramCollectives> programs;
+
+    // Ids of cleared programs, late events of a program must not bring its state back.
+    private final Set<UUID> closedPrograms;
+
+    private final IEventHandler handler;
+
+    private final IEventHandler clockHandler;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public CollectiveManager(final InfrastructureManager infraManager, final NetManager netManager) {
+        this(infraManager.getNodeID(), infraManager.getMachines().size(), Preconditions.checkNotNull(netManager), netManager::dispatchEventAt, DEFAULT_TIMEOUT);
+    }
+
+    // Without net manager the events are sent by the dispatcher and handed in by deliver.
+    CollectiveManager(final int nodeID, final int numNodes, final NetManager netManager,
+                      final BiConsumer<int[], NetEvent> dispatcher, final long timeout) {
+        this.netManager     = netManager;
+        this.dispatcher     = Preconditions.checkNotNull(dispatcher);
+        this.nodeID         = nodeID;
+        this.numNodes       = numNodes;
+        this.timeout        = timeout;
+        this.programs       = new ConcurrentHashMap<>();
+        this.closedPrograms = ConcurrentHashMap.newKeySet();
+        this.handler        = event -> {
+            final CollectiveEvent collectiveEvent = (CollectiveEvent) event;
+            final ProgramCollectives program = openProgram(collectiveEvent.programID);
+            if (program != null)
+                program.mailbox(collectiveEvent.key).add(collectiveEvent);
+        };
+        this.clockHandler   = event -> {
+            final ClockEvent clockEvent = (ClockEvent) event;
+            final ProgramCollectives program = openProgram(clockEvent.programID);
+            if (program != null)
+                updateClock(program, clockEvent.key, clockEvent.nodeID, clockEvent.clock);
+        };
+        if (netManager != null) {
+            netManager.addEventListener(CollectiveEvent.COLLECTIVE_EVENT, handler);
+            netManager.addEventListener(ClockEvent.CLOCK_EVENT, clockHandler);
+        }
+    }
+
+    /**
+     * Drops the mailboxes, sequence numbers and clocks of the finished program. Threads
+     * waiting for its clocks fail, later events of the program are dropped.
+     */
+    public void clearContext(final UUID programID) {
+        closedPrograms.add(Preconditions.checkNotNull(programID));
+        final ProgramCollectives program = programs.remove(programID);
+        if (program != null) {
+            synchronized (program.clocks) {
+                program.closed = true;
+                program.clocks.clear();
+                program.clocks.notifyAll();
+            }
+        }
+    }
+
+    public void clearContext() {
+        programs.keySet().forEach(this::clearContext);
+    }
+
+    @Override
+    public void deactivate() {
+        if (netManager != null) {
+            netManager.removeEventListener(CollectiveEvent.COLLECTIVE_EVENT, handler);
+            netManager.removeEventListener(ClockEvent.CLOCK_EVENT, clockHandler);
+        }
+        clearContext();
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public int getNumNodes() { return numNodes; }
+
+    // The collective operations run over the given nodes, or over all nodes if no nodes are given.
+
+    public <T> T broadcast(final UUID programID, final String name, final T value, final int rootNodeID, final int[] nodeIDs) {
+        final Participants participants = participants(nodeIDs);
+        final ProgramCollectives program = program(programID);
+        return broadcastTree(program, programID, participants, nextOpKey(program, name), value, participants.indexOf(rootNodeID));
+    }
+
+    /**
+     * Combines the values of all nodes with the associative operator. The result is
+     * only returned at the root, all other nodes return null.
+     */
+    public <T> T reduce(final UUID programID, final String name, final T value, final BinaryOperator<T> op, final int rootNodeID, final int[] nodeIDs) {
+        Preconditions.checkNotNull(op);
+        final Participants participants = participants(nodeIDs);
+        final ProgramCollectives program = program(programID);
+        return reduceTree(program, programID, participants, nextOpKey(program, name), value, op, participants.indexOf(rootNodeID));
+    }
+
+    public <T> T allReduce(final UUID programID, final String name, final T value, final BinaryOperator<T> op, final int[] nodeIDs) {
+        return allReduce(programID, name, value, op, null, nodeIDs);
+    }
+
+    /**
+     * Combines the values of all nodes and returns the result at every node. If the value is
+     * large, the partitioner is given and the operator works element-wise and is commutative,
+     * the ring algorithm is used, otherwise a reduce and a broadcast on the binomial tree.
+     */
+    public <T> T allReduce(final UUID programID, final String name, final T value, final BinaryOperator<T> op,
+                           final Partitioner<T> partitioner, final int[] nodeIDs) {
+        Preconditions.checkNotNull(op);
+        final Participants participants = participants(nodeIDs);
+        final ProgramCollectives program = program(programID);
+        final String opKey = nextOpKey(program, name);
+        if (partitioner != null && participants.size >= RING_MIN_NODES && partitioner.sizeInBytes(value) >= RING_THRESHOLD)
+            return allReduceRing(program, programID, participants, opKey, value, op, partitioner);
+        return broadcastTree(program, programID, participants, opKey, reduceTree(program, programID, participants, opKey, value, op, 0), 0);
+    }
+
+    /**
+     * Collects the values of all nodes, ordered by node id, at the root. All other
+     * nodes return null.
+     */
+    public <T> List<T> gather(final UUID programID, final String name, final T value, final int rootNodeID, final int[] nodeIDs) {
+        final Participants participants = participants(nodeIDs);
+        final ProgramCollectives program = program(programID);
+        final Object[] slots = reduceTree(program, programID, participants, nextOpKey(program, name),
+                initSlots(participants, value), CollectiveManager::mergeSlots, participants.indexOf(rootNodeID));
+        return slots != null ? toList(slots) : null;
+    }
+
+    public <T> List<T> allGather(final UUID programID, final String name, final T value, final int[] nodeIDs) {
+        final Participants participants = participants(nodeIDs);
+        final ProgramCollectives program = program(programID);
+        final String opKey = nextOpKey(program, name);
+        final Object[] slots = reduceTree(program, programID, participants, opKey, initSlots(participants, value), CollectiveManager::mergeSlots, 0);
+        return toList(broadcastTree(program, programID, participants, opKey, slots, 0));
+    }
+
+    public void barrier(final UUID programID, final String name) {
+        barrier(programID, name, null);
+    }
+
+    /**
+     * Dissemination barrier over the given nodes. In round k every node signals the node
+     * 2^k positions ahead and waits for the node 2^k positions behind, after ceil(log2 n)
+     * rounds all nodes have passed. Signals are tagged with the epoch of the barrier, so
+     * early arrivals of the next epoch are kept apart and never counted for the current one.
+     */
+    public void barrier(final UUID programID, final String name, final int[] nodeIDs) {
+        final Participants participants = participants(nodeIDs);
+        final int n = participants.size;
+        final int idx = participants.index;
+        final ProgramCollectives program = program(programID);
+        final String epochKey = nextOpKey(program, name);
+        for (int round = 0, distance = 1; distance < n; ++round, distance <<= 1) {
+            send(programID, epochKey, PHASE_BARRIER, round, participants.nodeIDs[(idx + distance) % n], null);
+            receive(program, epochKey, PHASE_BARRIER, round, participants.nodeIDs[(idx - distance + n) % n]);
+        }
+    }
+
+    // ---------------------------------------------------
+
+    /**
+     * Returns the key of a new logical clock. All clocks start at 0, every node must open
+     * the clocks of one name in the same order.
+     */
+    public String openClock(final UUID programID, final String name) { return nextOpKey(program(programID), name); }
+
+    /** Sets the clock of this node and publishes it to the other given nodes. */
+    public void advanceClock(final UUID programID, final String clockKey, final long clock, final int[] nodeIDs) {
+        Preconditions.checkNotNull(clockKey);
+        updateClock(program(programID), clockKey, nodeID, clock);
+        final int[] dstNodeIDs = IntStream.of(nodeIDs).filter(id -> id != nodeID).distinct().toArray();
+        if (dstNodeIDs.length > 0)
+            dispatcher.accept(dstNodeIDs, new ClockEvent(programID, clockKey, nodeID, clock));
+    }
+
+    /**
+     * Blocks until the clocks of all given nodes reached at least minClock. Fails if the
+     * program is cleared meanwhile or the clocks do not get there within the timeout.
+     */
+    public void awaitClock(final UUID programID, final String clockKey, final long minClock, final int[] nodeIDs) {
+        Preconditions.checkNotNull(clockKey);
+        final ProgramCollectives program = program(programID);
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        synchronized (program.clocks) {
+            while (minClock(program, clockKey, nodeIDs) < minClock) {
+                if (program.closed)
+                    throw new IllegalStateException("Program " + programID + " was cleared while waiting for clock " + clockKey + ".");
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    throw new IllegalStateException("Timeout while waiting for clock " + clockKey + " to reach " + minClock + ".");
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(program.clocks, remaining);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------
+    // Package-Private Methods.
+    // ---------------------------------------------------
+
+    // Hands an event to this manager as if it was received from the net manager.
+    void deliver(final NetEvent event) {
+        if (event instanceof ClockEvent)
+            clockHandler.handleEvent(event);
+        else
+            handler.handleEvent(event);
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private ProgramCollectives program(final UUID programID) {
+        final ProgramCollectives program = openProgram(programID);
+        if (program == null)
+            throw new IllegalStateException("Program " + programID + " is already cleared.");
+        return program;
+    }
+
+    // Events may arrive before the program is started here, null once it is cleared.
+    private ProgramCollectives openProgram(final UUID programID) {
+        return programs.computeIfAbsent(Preconditions.checkNotNull(programID), k -> closedPrograms.contains(k) ? null : new ProgramCollectives());
+    }
+
+    private Participants participants(final int[] nodeIDs) {
+        return new Participants(nodeIDs != null ? nodeIDs : IntStream.range(0, numNodes).toArray(), nodeID);
+    }
+
+    private void updateClock(final ProgramCollectives program, final String clockKey, final int srcNodeID, final long clock) {
+        synchronized (program.clocks) {
+            final long[] nodeClocks = program.clocks.computeIfAbsent(clockKey, k -> new long[numNodes]);
+            // Clock updates may overtake each other, a clock never goes back.
+            if (clock > nodeClocks[srcNodeID]) {
+                nodeClocks[srcNodeID] = clock;
+                program.clocks.notifyAll();
+            }
+        }
+    }
+
+    private long minClock(final ProgramCollectives program, final String clockKey, final int[] nodeIDs) {
+        final long[] nodeClocks = program.clocks.get(clockKey);
+        if (nodeClocks == null)
+            return 0;
+        long min = Long.MAX_VALUE;
+        for (final int id : nodeIDs)
+            min = Math.min(min, nodeClocks[id]);
+        return min;
+    }
+
+    private <T> T reduceTree(final ProgramCollectives program, final UUID programID, final Participants participants,
+                             final String opKey, final T value, final BinaryOperator<T> op, final int rootIndex) {
+        final int rank = participants.rankOf(rootIndex);
+        T acc = value;
+        for (int mask = 1; mask < participants.size; mask <<= 1) {
+            if ((rank & mask) != 0) {
+                // Hand the partial result of the subtree to the parent and leave.
+                send(programID, opKey, PHASE_REDUCE, mask, participants.nodeOf(rank - mask, rootIndex), acc);
+                return null;
+            }
+            if ((rank | mask) < participants.size) {
+                final T child = receive(program, opKey, PHASE_REDUCE, mask, participants.nodeOf(rank | mask, rootIndex));
+                acc = op.apply(acc, child);
+            }
+        }
+        return acc;
+    }
+
+    private <T> T broadcastTree(final ProgramCollectives program, final UUID programID, final Participants participants,
+                                final String opKey, final T value, final int rootIndex) {
+        final int rank = participants.rankOf(rootIndex);
+        T result = value;
+        int mask = 1;
+        while (mask < participants.size) {
+            if ((rank & mask) != 0) {
+                result = receive(program, opKey, PHASE_BROADCAST, mask, participants.nodeOf(rank - mask, rootIndex));
+                break;
+            }
+            mask <<= 1;
+        }
+        for (mask >>= 1; mask > 0; mask >>= 1) {
+            if (rank + mask < participants.size)
+                send(programID, opKey, PHASE_BROADCAST, mask, participants.nodeOf(rank + mask, rootIndex), result);
+        }
+        return result;
+    }
+
+    private <T> T allReduceRing(final ProgramCollectives program, final UUID programID, final Participants participants, final String opKey,
+                                final T value, final BinaryOperator<T> op, final Partitioner<T> partitioner) {
+        final int n = participants.size;
+        final int idx = participants.index;
+        final List<T> chunks = new ArrayList<>(partitioner.split(value, n));
+        final int left  = participants.nodeIDs[(idx - 1 + n) % n];
+        final int right = participants.nodeIDs[(idx + 1) % n];
+        // After n-1 reduce-scatter steps the participant at position i holds the fully reduced chunk i+1.
+        for (int step = 0; step < n - 1; ++step) {
+            final int sendIdx = (idx - step + n) % n;
+            final int recvIdx = (idx - step - 1 + n) % n;
+            send(programID, opKey, PHASE_REDUCE_SCATTER, step, right, chunks.get(sendIdx));
+            final T chunk = receive(program, opKey, PHASE_REDUCE_SCATTER, step, left);
+            chunks.set(recvIdx, op.apply(chunks.get(recvIdx), chunk));
+        }
+        // The all-gather circulates the reduced chunks until every node holds all of them.
+        for (int step = 0; step < n - 1; ++step) {
+            final int sendIdx = (idx + 1 - step + n) % n;
+            final int recvIdx = (idx - step + n) % n;
+            send(programID, opKey, PHASE_ALL_GATHER, step, right, chunks.get(sendIdx));
+            chunks.set(recvIdx, receive(program, opKey, PHASE_ALL_GATHER, step, left));
+        }
+        return partitioner.merge(chunks);
+    }
+
+    // ---------------------------------------------------
+
+    private void send(final UUID programID, final String opKey, final String phase, final int step, final int dstNodeID, final Object value) {
+        final CollectiveEvent event = new CollectiveEvent(programID, messageKey(opKey, phase, step, nodeID), value);
+        dispatcher.accept(new int[] {dstNodeID}, event);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T receive(final ProgramCollectives program, final String opKey, final String phase, final int step, final int srcNodeID) {
+        final String key = messageKey(opKey, phase, step, srcNodeID);
+        try {
+            final CollectiveEvent event = program.mailbox(key).poll(timeout, TimeUnit.MILLISECONDS);
+            program.mailboxes.remove(key);
+            if (event == null)
+                throw new IllegalStateException("Timeout while waiting for collective message " + key + ".");
+            return (T) event.getPayload();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String nextOpKey(final ProgramCollectives program, final String name) {
+        Preconditions.checkNotNull(name);
+        return name + "#" + program.sequences.computeIfAbsent(name, k -> new AtomicLong()).getAndIncrement();
+    }
+
+    private static String messageKey(final String opKey, final String phase, final int step, final int srcNodeID) {
+        return opKey + ":" + phase + ":" + step + ":" + srcNodeID;
+    }
+
+    private static Object[] initSlots(final Participants participants, final Object value) {
+        final Object[] slots = new Object[participants.size];
+        slots[participants.index] = value;
+        return slots;
+    }
+
+    private static Object[] mergeSlots(final Object[] a, final Object[] b) {
+        for (int i = 0; i < a.length; ++i) {
+            if (b[i] != null)
+                a[i] = b[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> toList(final Object[] slots) {
+        return new ArrayList<>((List<T>) Arrays.asList(slots));
+    }
+}
@@ -0,0 +1,79 @@
+package de.tuberlin.pserver.runtime.collective;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits a value into contiguous parts and merges the parts back into one value. The
+ * ring algorithms of the {@link CollectiveManager} need it to reduce a value chunk by chunk.
+ */
+public interface Partitioner<T> {
+
+    public abstract long sizeInBytes(final T value);
+
+    public abstract List<T> split(final T value, final int numParts);
+
+    public abstract T merge(final List<T> parts);
+
+    // ---------------------------------------------------
+    // Partitioners.
+    // ---------------------------------------------------
+
+    public static final Partitioner<float[]> FLOAT_ARRAY = new Partitioner<float[]>() {
+
+        @Override
+        public long sizeInBytes(final float[] value) { return (long) value.length * Float.BYTES; }
+
+        @Override
+        public List<float[]> split(final float[] value, final int numParts) {
+            final List<float[]> parts = new ArrayList<>(numParts);
+            for (int i = 0; i < numParts; ++i)
+                parts.add(Arrays.copyOfRange(value, partOffset(value.length, numParts, i), partOffset(value.length, numParts, i + 1)));
+            return parts;
+        }
+
+        @Override
+        public float[] merge(final List<float[]> parts) {
+            final float[] value = new float[parts.stream().mapToInt(p -> p.length).sum()];
+            int offset = 0;
+            for (final float[] part : parts) {
+                System.arraycopy(part, 0, value, offset, part.length);
+                offset += part.length;
+            }
+            return value;
+        }
+    };
+
+    public static final Partitioner<double[]> DOUBLE_ARRAY = new Partitioner<double[]>() {
+
+        @Override
+        public long sizeInBytes(final double[] value) { return (long) value.length * Double.BYTES; }
+
+        @Override
+        public List<double[]> split(final double[] value, final int numParts) {
+            final List<double[]> parts = new ArrayList<>(numParts);
+            for (int i = 0; i < numParts; ++i)
+                parts.add(Arrays.copyOfRange(value, partOffset(value.length, numParts, i), partOffset(value.length, numParts, i + 1)));
+            return parts;
+        }
+
+        @Override
+        public double[] merge(final List<double[]> parts) {
+            final double[] value = new double[parts.stream().mapToInt(p -> p.length).sum()];
+            int offset = 0;
+            for (final double[] part : parts) {
+                System.arraycopy(part, 0, value, offset, part.length);
+                offset += part.length;
+            }
+            return value;
+        }
+    };
+
+    // ---------------------------------------------------
+
+    public static int partOffset(final int length, final int numParts, final int part) {
+        return (int) ((long) length * part / numParts);
+    }
+}
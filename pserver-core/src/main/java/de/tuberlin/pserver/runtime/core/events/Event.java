@@ -16,6 +16,9 @@ public class Event implements Serializable {
 
     public final boolean isSticky;
 
+    // Interned type id plus one, zero until first looked up. Not serialized, ids are local.
+    private transient int typeID;
+
     // ---------------------------------------------------
     // Constructors.
     // ---------------------------------------------------
@@ -39,6 +42,15 @@ public class Event implements Serializable {
         return this.payload;
     }
 
+    public int typeID() {
+        int id = typeID - 1;
+        if (id < 0) {
+            id = EventTypes.intern(type);
+            typeID = id + 1;
+        }
+        return id;
+    }
+
     @Override
     public String toString() {
         return type;
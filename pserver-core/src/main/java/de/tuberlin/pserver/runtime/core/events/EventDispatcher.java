@@ -5,10 +5,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 public class EventDispatcher implements IEventDispatcher {
 
@@ -21,21 +20,32 @@ public class EventDispatcher implements IEventDispatcher {
         public static final String KILL_EVENT = "KILL_EVENT";
     }
 
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    public static final int DEFAULT_RING_CAPACITY = 8192;
+
+    // Maximal number of events a dispatcher thread takes from its ring at once.
+    private static final int DISPATCH_BATCH = 256;
+
     // ---------------------------------------------------
     // Fields.
     // ---------------------------------------------------
 
     private static final Logger LOG = LoggerFactory.getLogger(EventDispatcher.class);
 
-    private final Map<String, List<IEventHandler>> listenerMap;
+    // Listeners indexed by interned event type id, copy-on-write. A null entry means no mapping.
+    private volatile IEventHandler[][] listeners;
 
     private final boolean useDispatchThread;
 
-    private final Thread dispatcherThread;
+    // One ring and thread per shard, events of the same type always go to the same shard.
+    private final EventRingBuffer[] rings;
 
-    private final AtomicBoolean isRunning;
+    private final Thread[] dispatcherThreads;
 
-    private final BlockingQueue<Event> eventQueue;
+    private final AtomicBoolean isRunning;
 
     private final Map<String,List<Event>> cachedEvents;
 
@@ -47,49 +57,49 @@ public class EventDispatcher implements IEventDispatcher {
         this(useDispatchThread, null);
     }
     public EventDispatcher(boolean useDispatchThread, String name) {
+        this(useDispatchThread, name, 1, DEFAULT_RING_CAPACITY);
+    }
+    public EventDispatcher(boolean useDispatchThread, String name, int numShards, int ringCapacity) {
 
-        this.listenerMap        = new ConcurrentHashMap<>();
+        Preconditions.checkArgument(numShards > 0);
+        this.listeners          = new IEventHandler[0][];
         this.cachedEvents       = new ConcurrentHashMap<>();
         this.useDispatchThread  = useDispatchThread;
         this.isRunning          = new AtomicBoolean(useDispatchThread);
-        this.eventQueue         = useDispatchThread ? new LinkedBlockingQueue<>() : null;
+        this.rings              = useDispatchThread ? new EventRingBuffer[numShards] : null;
+        this.dispatcherThreads  = useDispatchThread ? new Thread[numShards] : null;
 
         if (useDispatchThread) {
-            final Runnable runnable = new Runnable() {
-                @Override
-                public void run() {
-                    while (isRunning.get() || eventQueue.size() != 0) {
+            for (int i = 0; i < numShards; ++i) {
+                final EventRingBuffer ring = new EventRingBuffer(ringCapacity);
+                final Runnable runnable = () -> {
+                    final Event[] batch = new Event[DISPATCH_BATCH];
+                    while (isRunning.get() || ring.size() != 0) {
                         try {
-                            final Event event = eventQueue.take();
-                            LOG.trace("Process event {} - events left in queue: {}", event.type, eventQueue.size());
-                            // Stop dispatching thread, if a poison pill was received.
-                            if (!event.type.equals(InternalEventTypes.KILL_EVENT)) {
-                                if (!dispatch(event)) {
-                                    if (event.isSticky) {
-                                        List<Event> events = cachedEvents.get(event.type);
-                                        if (events == null) {
-                                            events = new ArrayList<>();
-                                            cachedEvents.put(event.type, events);
-                                        }
-                                        events.add(event);
-                                    }
-                                }
-                            } else
-                                LOG.trace("kill dispatcher thread");
+                            final int n = ring.drain(batch);
+                            LOG.trace("Process {} events - events left in ring: {}", n, ring.size());
+                            for (int j = 0; j < n; ++j) {
+                                final Event event = batch[j];
+                                batch[j] = null;
+                                // Stop dispatching thread, if a poison pill was received.
+                                if (!event.type.equals(InternalEventTypes.KILL_EVENT))
+                                    dispatchOrCache(event);
+                                else
+                                    LOG.trace("kill dispatcher thread");
+                            }
                         } catch (InterruptedException e) {
                             LOG.error(e.getLocalizedMessage(), e);
                         }
                     }
                     removeAllEventListener();
-                }
-            };
-            this.dispatcherThread =
-                    name != null ? new Thread(runnable, name)
-                            : new Thread(runnable);
-
-            this.dispatcherThread.start();
-        } else {
-            this.dispatcherThread = null;
+                };
+                rings[i] = ring;
+                dispatcherThreads[i] = name != null
+                        ? new Thread(runnable, numShards == 1 ? name : name + "-" + i)
+                        : new Thread(runnable);
+            }
+            for (final Thread dispatcherThread : dispatcherThreads)
+                dispatcherThread.start();
         }
     }
 
@@ -99,7 +109,12 @@ public class EventDispatcher implements IEventDispatcher {
 
     @Override
     public int getNumOfQueuedEvents() {
-        return eventQueue.size();
+        int numOfQueuedEvents = 0;
+        if (!useDispatchThread)
+            return numOfQueuedEvents;
+        for (final EventRingBuffer ring : rings)
+            numOfQueuedEvents += ring.size();
+        return numOfQueuedEvents;
     }
 
     @Override
@@ -112,12 +127,20 @@ public class EventDispatcher implements IEventDispatcher {
     public synchronized void addEventListener(final String type, final IEventHandler listener) {
         Preconditions.checkNotNull(type);
         Preconditions.checkNotNull(listener);
-        List<IEventHandler> listeners = listenerMap.get(type);
-        if (listeners == null) {
-            listeners = Collections.synchronizedList(new LinkedList<>());
-            listenerMap.put(type, listeners);
+        final int typeID = EventTypes.intern(type);
+        IEventHandler[][] table = listeners;
+        if (typeID >= table.length)
+            table = Arrays.copyOf(table, Math.max(typeID + 1, EventTypes.size()));
+        else
+            table = table.clone();
+        final IEventHandler[] typeListeners = table[typeID];
+        if (typeListeners == null) {
+            table[typeID] = new IEventHandler[] { listener };
+        } else {
+            table[typeID] = Arrays.copyOf(typeListeners, typeListeners.length + 1);
+            table[typeID][typeListeners.length] = listener;
         }
-        listeners.add(listener);
+        listeners = table;
         if (cachedEvents.containsKey(type)) {
             final List<Event> events = cachedEvents.remove(type);
             events.forEach(this::dispatch);
@@ -135,7 +158,8 @@ public class EventDispatcher implements IEventDispatcher {
     @Override
     public List<IEventHandler> getEventListener(final String type) {
         Preconditions.checkNotNull(type);
-        return listenerMap.get(type);
+        final IEventHandler[] typeListeners = lookup(EventTypes.intern(type));
+        return typeListeners != null ? Collections.unmodifiableList(Arrays.asList(typeListeners)) : null;
     }
 
     @Override
@@ -145,39 +169,48 @@ public class EventDispatcher implements IEventDispatcher {
 
     @Override
     public synchronized boolean removeEventListener(final String type, final IEventHandler listener) {
-        boolean isRemoved = false;
-        List<IEventHandler> listeners = listenerMap.get(Preconditions.checkNotNull(type));
-        //if (listener == null && listeners.size() > 1)
-        //    throw new IllegalStateException();
-        if (listeners != null && listeners.size() > 0) {
-            isRemoved = listeners.remove(listener);
-            // if no more listeners registered, we remove the complete mapping.
-            //listenerMap.remove(type);
+        final int typeID = EventTypes.intern(Preconditions.checkNotNull(type));
+        final IEventHandler[] typeListeners = lookup(typeID);
+        if (typeListeners == null)
+            return false;
+        for (int i = 0; i < typeListeners.length; ++i) {
+            if (Objects.equals(typeListeners[i], listener)) {
+                final IEventHandler[] remaining = new IEventHandler[typeListeners.length - 1];
+                System.arraycopy(typeListeners, 0, remaining, 0, i);
+                System.arraycopy(typeListeners, i + 1, remaining, i, remaining.length - i);
+                // The mapping stays, even without listeners.
+                final IEventHandler[][] table = listeners.clone();
+                table[typeID] = remaining;
+                listeners = table;
+                return true;
+            }
         }
-        return isRemoved;
+        return false;
     }
 
     @Override
     public synchronized void removeAllEventListener() {
-        listenerMap.values().forEach(List<IEventHandler>::clear);
-        listenerMap.clear();
+        listeners = new IEventHandler[0][];
     }
 
     @Override
-    public synchronized void dispatchEvent(final Event event) {
+    public void dispatchEvent(final Event event) {
         Preconditions.checkNotNull(event);
-        if (useDispatchThread)
-            eventQueue.offer(event);
-        else {
-            if (!dispatch(event)) {
-                if (event.isSticky) {
-                    List<Event> events = cachedEvents.get(event.type);
-                    if (events == null) {
-                        events = new ArrayList<>();
-                        cachedEvents.put(event.type, events);
-                    }
-                    events.add(event);
+        if (useDispatchThread) {
+            final int shard = rings.length == 1 ? 0 : event.typeID() % rings.length;
+            final EventRingBuffer ring = rings[shard];
+            while (!ring.offer(event)) {
+                // A dispatcher thread must not wait for a ring, neither for its own nor for one
+                // whose thread may wait for its ring in turn.
+                if (isDispatcherThread()) {
+                    ring.offerOverflow(event);
+                    return;
                 }
+                LockSupport.parkNanos(1000);
+            }
+        } else {
+            synchronized (this) {
+                dispatchOrCache(event);
             }
         }
     }
@@ -185,13 +218,14 @@ public class EventDispatcher implements IEventDispatcher {
     @Override
     public boolean hasEventListener(final String type) {
         Preconditions.checkNotNull(type);
-        return listenerMap.get(type) != null;
+        return lookup(EventTypes.intern(type)) != null;
     }
 
     public void setName(String name) {
         Preconditions.checkNotNull(name);
         if (useDispatchThread) {
-            this.dispatcherThread.setName(name);
+            for (int i = 0; i < dispatcherThreads.length; ++i)
+                dispatcherThreads[i].setName(dispatcherThreads.length == 1 ? name : name + "-" + i);
         }
     }
 
@@ -200,8 +234,11 @@ public class EventDispatcher implements IEventDispatcher {
         if (useDispatchThread) {
             LOG.trace("Shutdown event dispatcher");
             isRunning.set(false);
-            // Feed the poison pill to the event dispatcher thread to terminate it.
-            eventQueue.add(new Event(InternalEventTypes.KILL_EVENT));
+            // Feed the poison pill to the event dispatcher threads to terminate them.
+            for (final EventRingBuffer ring : rings) {
+                while (!ring.offer(new Event(InternalEventTypes.KILL_EVENT)))
+                    LockSupport.parkNanos(1000);
+            }
         } else {
             removeAllEventListener();
         }
@@ -211,27 +248,61 @@ public class EventDispatcher implements IEventDispatcher {
     public void joinDispatcherThread() {
         if (useDispatchThread) {
             try {
-                dispatcherThread.join();
+                for (final Thread dispatcherThread : dispatcherThreads)
+                    dispatcherThread.join();
             } catch (InterruptedException e) {
                 LOG.error(e.getLocalizedMessage());
             }
         }
     }
 
+    // With several shards this is the thread of the first shard.
     @Override
-    public Thread getDispatcherThread() { return dispatcherThread; }
+    public Thread getDispatcherThread() { return useDispatchThread ? dispatcherThreads[0] : null; }
+
+    public Thread[] getDispatcherThreads() { return useDispatchThread ? dispatcherThreads.clone() : new Thread[0]; }
+
+    public boolean isDispatcherThread() {
+        if (useDispatchThread) {
+            final Thread current = Thread.currentThread();
+            for (final Thread dispatcherThread : dispatcherThreads) {
+                if (dispatcherThread == current)
+                    return true;
+            }
+        }
+        return false;
+    }
 
     // ---------------------------------------------------
     // Private Methods.
     // ---------------------------------------------------
 
+    private IEventHandler[] lookup(final int typeID) {
+        final IEventHandler[][] table = listeners;
+        return typeID < table.length ? table[typeID] : null;
+    }
+
+    private void dispatchOrCache(final Event event) {
+        if (!dispatch(event)) {
+            if (event.isSticky) {
+                List<Event> events = cachedEvents.get(event.type);
+                if (events == null) {
+                    events = new ArrayList<>();
+                    cachedEvents.put(event.type, events);
+                }
+                events.add(event);
+            }
+        }
+    }
+
     private boolean dispatch(final Event event) {
         Preconditions.checkNotNull(event);
-        List<IEventHandler> listeners = null;
+        final int typeID = event.typeID();
+        IEventHandler[] typeListeners = null;
         int retryCount = 5;
-        while (listeners == null && retryCount-- > 0) {
-            listeners = listenerMap.get(event.type);
-            if (listeners == null) {
+        while (typeListeners == null && retryCount-- > 0) {
+            typeListeners = lookup(typeID);
+            if (typeListeners == null) {
                 try {
                     Thread.sleep(5);
                 } catch(InterruptedException ie) {
@@ -239,9 +310,9 @@ public class EventDispatcher implements IEventDispatcher {
                 }
             }
         }
-        if (listeners != null) {
-            List<IEventHandler> l = new ArrayList<>(listeners);
-            for (final IEventHandler el : l) {
+        if (typeListeners != null) {
+            // The array is never modified after publication, no copy is needed.
+            for (final IEventHandler el : typeListeners) {
                 try {
                     el.handleEvent(event);
                 } catch (Throwable t) {
@@ -249,11 +320,11 @@ public class EventDispatcher implements IEventDispatcher {
                     throw t;
                 }
             }
-        } else { // listeners == null
+        } else { // typeListeners == null
             LOG.debug("no listener registered for event " + event.type);
             // Event wasn't processed by any event handler.
             return false;
         }
         return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,147 @@
+package de.tuberlin.pserver.runtime.core.events;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Preallocated ring of events with many producers and one consumer. Producers claim a
+ * sequence number and fill its slot, the consumer takes all filled slots in one batch
+ * and publishes its progress once per batch. An idle consumer spins shortly and then
+ * parks until a producer wakes it up.
+ *
+ * Producers that must not wait for a full ring, e.g. dispatcher threads that would wait for
+ * each other, add their events to an unbounded overflow queue. An overflowed event records
+ * the sequence the ring had reached and is consumed right after the events claimed before
+ * it. The ring accepts no events while the queue is not empty, that keeps the events of
+ * every producer in order.
+ */
+final class EventRingBuffer {
+
+    // ---------------------------------------------------
+    // Inner Classes.
+    // ---------------------------------------------------
+
+    private static final class Overflowed {
+
+        // Events of the ring below this sequence were claimed before this event.
+        final long sequence;
+
+        final Event event;
+
+        Overflowed(final long sequence, final Event event) {
+            this.sequence = sequence;
+            this.event    = event;
+        }
+    }
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    private static final int IDLE_SPINS = 64;
+
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private final AtomicReferenceArray<Event> slots;
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final AtomicLong producerSequence;
+
+    private final Queue<Overflowed> overflow;
+
+    private volatile long consumerSequence;
+
+    private volatile Thread consumer;
+
+    private volatile boolean consumerWaiting;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public EventRingBuffer(final int capacity) {
+        Preconditions.checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1, "capacity must be a power of two");
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.producerSequence = new AtomicLong(0);
+        this.overflow = new ConcurrentLinkedQueue<>();
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public int size() { return (int) Math.max(0, producerSequence.get() - consumerSequence) + overflow.size(); }
+
+    // Returns false if the ring is full or overflowed, the event is then not enqueued.
+    public boolean offer(final Event event) {
+        long sequence;
+        do {
+            sequence = producerSequence.get();
+            if (sequence - consumerSequence >= capacity || !overflow.isEmpty())
+                return false;
+        } while (!producerSequence.compareAndSet(sequence, sequence + 1));
+        slots.set((int) sequence & mask, event);
+        if (consumerWaiting)
+            LockSupport.unpark(consumer);
+        return true;
+    }
+
+    // Enqueues the event without waiting for capacity, see the class comment.
+    public void offerOverflow(final Event event) {
+        overflow.add(new Overflowed(producerSequence.get(), event));
+        if (consumerWaiting)
+            LockSupport.unpark(consumer);
+    }
+
+    // Moves the available events into batch, blocks until there is at least one.
+    public int drain(final Event[] batch) throws InterruptedException {
+        consumer = Thread.currentThread();
+        long sequence = consumerSequence;
+        int idle = 0;
+        while (true) {
+            int n = 0;
+            Event event;
+            while (n < batch.length) {
+                final Overflowed overflowed = overflow.peek();
+                if (overflowed != null && overflowed.sequence <= sequence) {
+                    overflow.poll();
+                    batch[n++] = overflowed.event;
+                } else if ((event = slots.get((int) sequence & mask)) != null) {
+                    slots.lazySet((int) sequence & mask, null);
+                    batch[n++] = event;
+                    ++sequence;
+                } else
+                    break;
+            }
+            if (n > 0) {
+                consumerSequence = sequence;
+                return n;
+            }
+            if (++idle < IDLE_SPINS) {
+                Thread.yield();
+                continue;
+            }
+            consumerWaiting = true;
+            if (slots.get((int) sequence & mask) == null && overflow.isEmpty())
+                LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            consumerWaiting = false;
+            if (Thread.interrupted())
+                throw new InterruptedException();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package de.tuberlin.pserver.runtime.core.events;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interns event type names to small, dense integers of this process. Dispatchers index their
+ * listeners by these ids. The ids are not stable across processes, on the wire events keep
+ * their type names.
+ */
+public final class EventTypes {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private static final Map<String, Integer> typeIDs = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger nextTypeID = new AtomicInteger(0);
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    private EventTypes() {}
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public static int intern(final String type) {
+        final Integer typeID = typeIDs.get(Preconditions.checkNotNull(type));
+        return typeID != null ? typeID : typeIDs.computeIfAbsent(type, t -> nextTypeID.getAndIncrement());
+    }
+
+    public static int size() { return nextTypeID.get(); }
+}
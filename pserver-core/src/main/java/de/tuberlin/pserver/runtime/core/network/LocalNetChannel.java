@@ -0,0 +1,115 @@
+package de.tuberlin.pserver.runtime.core.network;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import de.tuberlin.pserver.runtime.core.serializer.KryoFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Channel to a net manager in the same JVM. Events are handed to the dispatcher ring of the
+ * peer without a socket and without encoding. Events are deep-copied, primitive arrays are
+ * cloned, so that sender and receiver never share mutable state. Events marked immutable
+ * are passed by reference, only the event envelope is copied for every receiver. Objects
+ * Kryo can not copy directly are copied by a serialization round trip.
+ */
+final class LocalNetChannel extends NetChannel {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private static final ThreadLocal<Kryo> kryoThreadLocal = ThreadLocal.withInitial(KryoFactory.INSTANCE::create);
+
+    private final MachineDescriptor localMachine;
+
+    private final NetManager peer;
+
+    // Channel of the peer back to this node, set as the net channel of the delivered events.
+    private volatile LocalNetChannel replyChannel;
+
+    // Set by the receiving side to hold back senders, like disabled auto-read on a socket.
+    private volatile boolean readPaused;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public LocalNetChannel(final MachineDescriptor localMachine,
+                           final MachineDescriptor descriptor,
+                           final NetChannelType type,
+                           final NetManager peer) {
+
+        super(descriptor, type, null);
+        this.localMachine = localMachine;
+        this.peer = peer;
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    // Delivery runs on the sending thread, nothing is queued that flow control could bound.
+    @Override
+    public CompletableFuture<Void> sendMsg(final Object msg) { write(msg); return ACCEPTED; }
+
+    @Override
+    public void write(final Object msg) {
+        if (msg instanceof NetEvent)
+            deliver((NetEvent) msg);
+        else if (msg instanceof NetEventBatch) {
+            for (final NetEvent event : ((NetEventBatch) msg).events)
+                deliver(event);
+        } else
+            throw new IllegalStateException("Unsupported local message: " + msg);
+    }
+
+    @Override
+    public void setReadPaused(final boolean paused) { this.readPaused = paused; }
+
+    @Override
+    public String toString() { return "local:" + descriptor.machineID; }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private void deliver(final NetEvent event) {
+        final LocalNetChannel reply = replyChannel();
+        while (reply.readPaused)
+            LockSupport.parkNanos(50_000);
+        final NetEvent delivered = copy(event);
+        delivered.netChannel = reply;
+        peer.dispatchEvent(delivered);
+    }
+
+    private NetEvent copy(final NetEvent event) {
+        final Kryo kryo = kryoThreadLocal.get();
+        // The sender reuses the event for further receivers, the channel must not be copied.
+        final NetChannel netChannel = event.netChannel;
+        event.netChannel = null;
+        try {
+            if (event.isImmutable)
+                return kryo.copyShallow(event);
+            try {
+                return kryo.copy(event);
+            } catch (KryoException e) {
+                final Output output = new Output(4096, -1);
+                kryo.writeClassAndObject(output, event);
+                return (NetEvent) kryo.readClassAndObject(new Input(output.getBuffer(), 0, output.position()));
+            }
+        } finally {
+            event.netChannel = netChannel;
+        }
+    }
+
+    private LocalNetChannel replyChannel() {
+        LocalNetChannel reply = replyChannel;
+        if (reply == null)
+            replyChannel = reply = peer.acceptLocal(localMachine);
+        return reply;
+    }
+}
@@ -0,0 +1,40 @@
+package de.tuberlin.pserver.runtime.core.network;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Net managers of this JVM that accept local channels, e.g. the nodes of a cluster
+ * simulation in debug mode. A peer found here is connected without a socket.
+ */
+final class LocalNetRegistry {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private static final Map<UUID, NetManager> netManagers = new ConcurrentHashMap<>();
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    private LocalNetRegistry() {}
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public static void register(final MachineDescriptor machine, final NetManager netManager) {
+        netManagers.put(machine.machineID, netManager);
+    }
+
+    public static void unregister(final MachineDescriptor machine, final NetManager netManager) {
+        netManagers.remove(machine.machineID, netManager);
+    }
+
+    public static NetManager lookup(final MachineDescriptor machine) {
+        return machine.machineID != null ? netManagers.get(machine.machineID) : null;
+    }
+}
@@ -0,0 +1,134 @@
+package de.tuberlin.pserver.runtime.core.network;
+
+import com.google.common.base.Preconditions;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns compact integer ids to the methods of remotely callable interfaces. The ids are the
+ * positions of the methods in the sorted list of their signatures, so caller and callee derive
+ * identical ids from the same interface without any negotiation. The callee dispatches through
+ * method handles that are bound to the target object once at registration time.
+ */
+public final class MethodRegistry {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private static final MethodType DISPATCH_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private static final Map<Class<?>, MethodTable> methodTables = new ConcurrentHashMap<>();
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    private MethodRegistry() {}
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public static MethodTable getMethodTable(final Class<?> type) {
+        return methodTables.computeIfAbsent(Preconditions.checkNotNull(type), MethodTable::new);
+    }
+
+    // ---------------------------------------------------
+    // Inner Classes.
+    // ---------------------------------------------------
+
+    public static final class MethodTable {
+
+        public final Class<?> type;
+
+        public final int typeID;
+
+        private final Method[] methods;
+
+        private final Map<Method, Integer> methodIDs;
+
+        private MethodTable(final Class<?> type) {
+            this.type   = type;
+            this.typeID = type.getName().hashCode();
+            final List<Method> methodList = new ArrayList<>();
+            for (final Method method : type.getMethods()) {
+                if (!Modifier.isStatic(method.getModifiers()) && method.getDeclaringClass() != Object.class)
+                    methodList.add(method);
+            }
+            methodList.sort(Comparator.comparing(MethodTable::signatureOf));
+            this.methods   = methodList.toArray(new Method[methodList.size()]);
+            this.methodIDs = new HashMap<>();
+            for (int i = 0; i < methods.length; ++i)
+                methodIDs.put(methods[i], i);
+        }
+
+        public int getMethodID(final Method method) {
+            final Integer methodID = methodIDs.get(method);
+            if (methodID == null)
+                throw new UnsupportedOperationException(method + " is not a remote method of " + type.getName());
+            return methodID;
+        }
+
+        public Method getMethod(final int methodID) { return methods[methodID]; }
+
+        public int size() { return methods.length; }
+
+        public Dispatcher bind(final Object target) {
+            Preconditions.checkArgument(type.isInstance(target));
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            final MethodHandle[] handles = new MethodHandle[methods.length];
+            for (int i = 0; i < methods.length; ++i) {
+                final Method method = methods[i];
+                try {
+                    method.setAccessible(true);
+                    handles[i] = lookup.unreflect(method)
+                            .bindTo(target)
+                            .asSpreader(Object[].class, method.getParameterCount())
+                            .asType(DISPATCH_TYPE);
+                } catch (IllegalAccessException | SecurityException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return new Dispatcher(this, handles);
+        }
+
+        private static String signatureOf(final Method method) {
+            final StringBuilder strBuilder = new StringBuilder();
+            strBuilder.append(method.getName()).append('(');
+            for (final Class<?> cl : method.getParameterTypes())
+                strBuilder.append(cl.getName()).append(',');
+            strBuilder.append(')').append(method.getReturnType().getName());
+            strBuilder.append('@').append(method.getDeclaringClass().getName());
+            return strBuilder.toString();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------
+
+    public static final class Dispatcher {
+
+        public final MethodTable methodTable;
+
+        private final MethodHandle[] handles;
+
+        private Dispatcher(final MethodTable methodTable, final MethodHandle[] handles) {
+            this.methodTable = methodTable;
+            this.handles     = handles;
+        }
+
+        public Object invoke(final int methodID, final Object[] arguments) throws Throwable {
+            if (methodID < 0 || methodID >= handles.length)
+                throw new UnsupportedOperationException("methodID = " + methodID);
+            return (Object) handles[methodID].invokeExact(arguments != null ? arguments : NO_ARGUMENTS);
+        }
+    }
+}
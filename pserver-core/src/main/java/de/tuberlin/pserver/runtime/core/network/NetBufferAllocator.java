@@ -13,8 +13,10 @@ import io.netty.buffer.PooledByteBufAllocator;
  */
 public final class NetBufferAllocator {
 
-    public static PooledByteBufAllocator create() { return create(8192, 11); } // TODO: TUNING HAS BIG IMPACT ON ENCODING TIME !!!
-    public static PooledByteBufAllocator create(int pageSize, int maxOrder) {
+    public static PooledByteBufAllocator create() { return create(false); }
+    public static PooledByteBufAllocator create(boolean preferDirect) { return create(preferDirect, 8192, 11); } // TODO: TUNING HAS BIG IMPACT ON ENCODING TIME !!!
+    public static PooledByteBufAllocator create(int pageSize, int maxOrder) { return create(false, pageSize, maxOrder); }
+    public static PooledByteBufAllocator create(boolean preferDirect, int pageSize, int maxOrder) {
 
         // The configured chunk size whose default is 16 MiB. Override this value by specifying two
         // parameters: pageSize and maxOrder. The default values of them are 8192 and 11 respectively.
@@ -35,8 +37,9 @@ public final class NetBufferAllocator {
 
         int numHeapArena = 3; //(int) Math.min(minNumHeapArena, runtime.maxMemory() / chunkSize / 2 / 3);
 
-        int numDirectArena = 0;
+        // Direct arenas are only needed if the codec serializes into direct buffers.
+        int numDirectArena = preferDirect ? numHeapArena : 0;
 
-        return new PooledByteBufAllocator(numHeapArena, numDirectArena, pageSize, maxOrder);
+        return new PooledByteBufAllocator(preferDirect, numHeapArena, numDirectArena, pageSize, maxOrder);
     }
 }
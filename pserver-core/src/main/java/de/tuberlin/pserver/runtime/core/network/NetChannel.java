@@ -1,9 +1,13 @@
 package de.tuberlin.pserver.runtime.core.network;
 
+import de.tuberlin.pserver.runtime.core.events.EventDispatcher;
 import io.netty.channel.Channel;
 
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class NetChannel {
 
@@ -14,6 +18,9 @@ public class NetChannel {
         CHANNEL_OUT
     }
 
+    // Returned for every message that was accepted by the channel.
+    protected static final CompletableFuture<Void> ACCEPTED = CompletableFuture.completedFuture(null);
+
     public final MachineDescriptor descriptor;
 
     public final NetChannelType type;
@@ -22,26 +29,201 @@ public class NetChannel {
 
     public final Queue<Object> writeQueue;
 
-    public NetChannel(MachineDescriptor descriptor, NetChannelType type, Channel channel) {
-        this.descriptor = descriptor;
-        this.type       = type;
-        this.channel    = channel;
-        this.writeQueue = new ConcurrentLinkedQueue<>();
+    private final NetEventBatcher batcher;
+
+    // Threads that serve inbound messages, they must never wait for outbound capacity.
+    private final EventDispatcher dispatcher;
+
+    // ---------------------------------------------------
+    // Flow Control.
+    // ---------------------------------------------------
+
+    private final int highWatermark;
+
+    private final int lowWatermark;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private final Object flowMutex = new Object();
+
+    // Set at the high watermark, cleared when the queue drained to the low watermark.
+    private volatile boolean overloaded;
+
+    private volatile int maxQueueDepth;
+
+    private final AtomicLong numBlocked = new AtomicLong();
+
+    private final AtomicLong numFailed = new AtomicLong();
+
+    private final AtomicLong numCoalesced = new AtomicLong();
+
+    // ---------------------------------------------------
+
+    public NetChannel(MachineDescriptor descriptor, NetChannelType type, Channel channel) { this(descriptor, type, channel, null, null); }
+    public NetChannel(MachineDescriptor descriptor, NetChannelType type, Channel channel, NetChannelConfig config) { this(descriptor, type, channel, config, null); }
+    public NetChannel(MachineDescriptor descriptor, NetChannelType type, Channel channel, NetChannelConfig config, EventDispatcher dispatcher) {
+        this.descriptor     = descriptor;
+        this.type           = type;
+        this.channel        = channel;
+        this.writeQueue     = new ConcurrentLinkedQueue<>();
+        this.batcher        = (config != null && config.isBatching())
+                ? new NetEventBatcher(this, config.getBatchMaxDelay(), config.getBatchMaxBytes()) : null;
+        this.dispatcher     = dispatcher;
+        this.highWatermark  = config != null ? config.getFlowHighWatermark() : Integer.MAX_VALUE;
+        this.lowWatermark   = config != null ? config.getFlowLowWatermark() : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Sends the message according to the flow policy of the event. The returned future fails
+     * if the message was rejected, it completes as soon as the message is queued.
+     */
+    public CompletableFuture<Void> sendMsg(Object msg) {
+        if (overloaded && msg instanceof NetEvent) {
+            final NetEvent event = (NetEvent) msg;
+            final NetFlowPolicy policy = event.flowPolicy != null ? event.flowPolicy : NetFlowPolicy.UNBOUNDED;
+            switch (policy) {
+                case BLOCK:
+                    awaitCapacity();
+                    break;
+                case FAIL:
+                    numFailed.incrementAndGet();
+                    final CompletableFuture<Void> rejected = new CompletableFuture<>();
+                    rejected.completeExceptionally(new IllegalStateException(
+                            "Outbound queue to " + descriptor + " is overloaded (" + queueDepth.get() + " messages)."));
+                    return rejected;
+                case COALESCE:
+                    if (event.coalesceKey != null && replaceQueued(event))
+                        return ACCEPTED;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (batcher != null) {
+            if (msg instanceof NetEvent && !((NetEvent) msg).isLatencyCritical) {
+                batcher.add((NetEvent) msg);
+                return ACCEPTED;
+            }
+            // Pending batched events must not be overtaken by unbatched messages.
+            batcher.flushAndWrite(msg);
+            return ACCEPTED;
+        }
+        write(msg);
+        return ACCEPTED;
     }
 
-    public void sendMsg(Object msg) {
+    public void write(Object msg) {
         writeQueue.add(msg);
+        final int depth = queueDepth.incrementAndGet();
+        if (depth > maxQueueDepth)
+            maxQueueDepth = depth;
+        if (depth >= highWatermark)
+            overloaded = true;
         if (channel.isWritable()) {
             channel.eventLoop().execute(() -> {
                 if (!writeQueue.isEmpty() && channel.isWritable()) {
-                    Object data = writeQueue.poll();
-                    channel.writeAndFlush(data, channel.voidPromise());
+                    Object data = poll();
+                    if (data != null)
+                        channel.writeAndFlush(data, channel.voidPromise());
                 }
             });
         }
     }
 
+    // Chunks of streamed payloads bypass batching and flow policies, their event was accepted.
+    public void writeStreamChunk(NetStreamChunk chunk) { write(chunk); }
+
+    // Takes the next queued message, called by the event loop of the channel.
+    public Object poll() {
+        final Object msg = writeQueue.poll();
+        if (msg instanceof NetEventBatch)
+            ((NetEventBatch) msg).seal();
+        if (msg != null && queueDepth.decrementAndGet() <= lowWatermark && overloaded) {
+            synchronized (flowMutex) {
+                overloaded = false;
+                flowMutex.notifyAll();
+            }
+        }
+        return msg;
+    }
+
+    // Stop or continue reading inbound messages of this channel.
+    public void setReadPaused(boolean paused) {
+        channel.config().setAutoRead(!paused);
+    }
+
+    // ---------------------------------------------------
+    // Metrics.
+    // ---------------------------------------------------
+
+    public int getQueueDepth() { return queueDepth.get(); }
+
+    public int getMaxQueueDepth() { return maxQueueDepth; }
+
+    public boolean isOverloaded() { return overloaded; }
+
+    public long getNumBlocked() { return numBlocked.get(); }
+
+    public long getNumFailed() { return numFailed.get(); }
+
+    public long getNumCoalesced() { return numCoalesced.get(); }
+
     public String toString() {
         return channel.id().toString();
     }
-}
\ No newline at end of file
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private void awaitCapacity() {
+        if (channel.eventLoop().inEventLoop() || (dispatcher != null && dispatcher.isDispatcherThread()))
+            return;
+        numBlocked.incrementAndGet();
+        synchronized (flowMutex) {
+            // A closed channel never drains, the message is then queued like before.
+            while (overloaded && channel.isActive()) {
+                try {
+                    flowMutex.wait(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the newest queued event with the same coalesce key, looking into the pending
+     * events of the batcher and into queued batches. Only the newest copy is replaced, so no
+     * older copy is sent after the update. Inside a batch the update takes the slot of the
+     * superseded event, a queued single event is removed and the update is appended.
+     */
+    private boolean replaceQueued(final NetEvent event) {
+        if (batcher != null && batcher.replacePending(event)) {
+            numCoalesced.incrementAndGet();
+            return true;
+        }
+        Object newest = null;
+        for (final Object queued : writeQueue) {
+            if (queued instanceof NetEvent
+                    ? event.coalesceKey.equals(((NetEvent) queued).coalesceKey)
+                    : queued instanceof NetEventBatch && ((NetEventBatch) queued).contains(event.coalesceKey))
+                newest = queued;
+        }
+        if (newest instanceof NetEventBatch) {
+            // Fails if the batch is already being encoded, the update is then sent after it.
+            if (!((NetEventBatch) newest).replace(event))
+                return false;
+            numCoalesced.incrementAndGet();
+            return true;
+        }
+        if (newest != null && writeQueue.remove(newest)) {
+            queueDepth.decrementAndGet();
+            numCoalesced.incrementAndGet();
+            write(event);
+            return true;
+        }
+        return false;
+    }
+}
@@ -1,5 +1,7 @@
 package de.tuberlin.pserver.runtime.core.network;
 
+import de.tuberlin.pserver.commons.config.Config;
+import de.tuberlin.pserver.runtime.core.events.EventDispatcher;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelConfig;
@@ -52,15 +54,55 @@ public class NetChannelConfig {
     // Constants.
     // --------------------------------------------------
 
-    // NETTY HIGH- AND LOW- WATERMARK
+    public static final String NETWORK_CONFIG = "worker.network";
 
-    private final boolean tcpKeepAlive            = true;
+    public static final String DIRECT_ENCODING = NETWORK_CONFIG + ".directEncoding";
+
+    public static final String BATCHING = NETWORK_CONFIG + ".batching";
+
+    public static final String BATCHING_ENABLED = BATCHING + ".enabled";
+
+    public static final String BATCHING_MAX_DELAY = BATCHING + ".maxDelay";
+
+    public static final String BATCHING_MAX_BYTES = BATCHING + ".maxBytes";
+
+    public static final String TRANSPORT = NETWORK_CONFIG + ".transport";
+
+    public static final String TCP_NO_DELAY = NETWORK_CONFIG + ".tcpNoDelay";
+
+    public static final String SO_SNDBUF = NETWORK_CONFIG + ".soSndBuf";
+
+    public static final String SO_RCVBUF = NETWORK_CONFIG + ".soRcvBuf";
+
+    public static final String DISPATCHER_SHARDS = NETWORK_CONFIG + ".dispatcherShards";
+
+    public static final String DISPATCHER_RING_CAPACITY = NETWORK_CONFIG + ".dispatcherRingCapacity";
+
+    public static final String LOCAL_TRANSPORT = NETWORK_CONFIG + ".localTransport";
+
+    public static final String DATA_CONNECTIONS = NETWORK_CONFIG + ".dataConnections";
+
+    public static final String CONTROL_CONNECTION = NETWORK_CONFIG + ".controlConnection";
+
+    public static final String STREAMING = NETWORK_CONFIG + ".streaming";
+
+    public static final String STREAMING_ENABLED = STREAMING + ".enabled";
 
-    private final boolean tcpNoDelay              = true;
+    public static final String STREAMING_THRESHOLD = STREAMING + ".threshold";
 
-    private final int soSndBuf                    = 1045678;
+    public static final String STREAMING_CHUNK_SIZE = STREAMING + ".chunkSize";
 
-    private final int soRcvBuf                    = 1045678;
+    public static final String STREAMING_TIMEOUT = STREAMING + ".timeout";
+
+    public static final String FLOW_CONTROL = NETWORK_CONFIG + ".flowControl";
+
+    public static final String FLOW_HIGH_WATERMARK = FLOW_CONTROL + ".highWatermark";
+
+    public static final String FLOW_LOW_WATERMARK = FLOW_CONTROL + ".lowWatermark";
+
+    // NETTY HIGH- AND LOW- WATERMARK
+
+    private final boolean tcpKeepAlive            = true;
 
     private final int writeBufferHighWatermark    = 32 * 1024;
 
@@ -72,18 +114,116 @@ public class NetChannelConfig {
 
     private final ByteBufAllocator allocator;
 
+    // Socket transport of the event loops, EPOLL falls back to NIO if the native transport is missing.
+    private final NetTransport transport;
+
+    private final boolean tcpNoDelay;
+
+    private final int soSndBuf;
+
+    private final int soRcvBuf;
+
+    // Serialize net events straight into pooled direct buffers instead of large heap staging arrays.
+    private final boolean directEncoding;
+
+    // Collect outbound net events per channel and send them as one framed batch.
+    private final boolean batching;
+
+    // Time budget of a batch in microseconds, measured from its first event.
+    private final int batchMaxDelay;
+
+    // Byte budget of a batch, checked against the estimated encoded size of its events.
+    private final int batchMaxBytes;
+
+    // Connect peers running in the same JVM through in-memory channels instead of sockets.
+    private final boolean localTransport;
+
+    // Connections per peer that carry data events, events of one type stay on one connection.
+    private final int dataConnections;
+
+    // Separate connection per peer for latency critical events (barriers, collectives, RPC),
+    // off by default, these events could overtake data events sent before them.
+    private final boolean controlConnection;
+
+    // Float arrays of at least this many bytes are sent as chunk frames behind their event,
+    // the receiver fills the destination array in place, -1 if streaming is disabled.
+    private final int streamThreshold;
+
+    // Bytes of a chunk frame.
+    private final int streamChunkSize;
+
+    // Milliseconds a consumer waits for the next chunk of a stream before the stream fails.
+    private final int streamTimeout;
+
+    // Queued outbound messages of a channel at which the flow policies of net events apply.
+    private final int flowHighWatermark;
+
+    // Queued outbound messages at which an overloaded channel accepts events again.
+    private final int flowLowWatermark;
+
     // --------------------------------------------------
     // Constructor.
     // --------------------------------------------------
 
-    public NetChannelConfig(ByteBufAllocator allocator) {
-        this.allocator = allocator;
+    public NetChannelConfig(Config config) {
+        this.directEncoding = getBoolean(config, DIRECT_ENCODING, true);
+        this.batching       = getBoolean(config, BATCHING_ENABLED, false);
+        this.batchMaxDelay  = getInt(config, BATCHING_MAX_DELAY, 200);
+        this.batchMaxBytes  = getInt(config, BATCHING_MAX_BYTES, 64 * 1024);
+        this.allocator      = NetBufferAllocator.create(directEncoding);
+        this.transport      = NetTransport.select(config.hasPath(TRANSPORT)
+                ? NetTransport.valueOf(config.getString(TRANSPORT).toUpperCase()) : NetTransport.NIO);
+        this.tcpNoDelay     = getBoolean(config, TCP_NO_DELAY, true);
+        this.soSndBuf       = getInt(config, SO_SNDBUF, 1045678);
+        this.soRcvBuf       = getInt(config, SO_RCVBUF, 1045678);
+        this.localTransport = getBoolean(config, LOCAL_TRANSPORT, true);
+        this.dataConnections   = Math.max(1, getInt(config, DATA_CONNECTIONS, 1));
+        this.controlConnection = getBoolean(config, CONTROL_CONNECTION, false);
+        this.streamThreshold   = getBoolean(config, STREAMING_ENABLED, true)
+                ? getInt(config, STREAMING_THRESHOLD, 16 * 1024 * 1024) : -1;
+        this.streamChunkSize   = getInt(config, STREAMING_CHUNK_SIZE, 1024 * 1024);
+        this.streamTimeout     = getInt(config, STREAMING_TIMEOUT, 60000);
+        this.flowHighWatermark = getInt(config, FLOW_HIGH_WATERMARK, 1024);
+        this.flowLowWatermark  = getInt(config, FLOW_LOW_WATERMARK, 256);
+        if (flowLowWatermark > flowHighWatermark)
+            throw new IllegalStateException("Flow control low watermark exceeds high watermark.");
     }
 
     // --------------------------------------------------
     // Public Methods.
     // --------------------------------------------------
 
+    public ByteBufAllocator getAllocator() { return allocator; }
+
+    public boolean isDirectEncoding() { return directEncoding; }
+
+    public boolean isBatching() { return batching; }
+
+    public int getBatchMaxDelay() { return batchMaxDelay; }
+
+    public int getBatchMaxBytes() { return batchMaxBytes; }
+
+    public NetTransport getTransport() { return transport; }
+
+    public boolean isLocalTransport() { return localTransport; }
+
+    public int getDataConnections() { return dataConnections; }
+
+    public boolean hasControlConnection() { return controlConnection; }
+
+    // Connections per peer, one plain channel is used if this is 1.
+    public int getConnectionsPerPeer() { return dataConnections + (controlConnection ? 1 : 0); }
+
+    public int getStreamThreshold() { return streamThreshold; }
+
+    public int getStreamChunkSize() { return streamChunkSize; }
+
+    public int getStreamTimeout() { return streamTimeout; }
+
+    public int getFlowHighWatermark() { return flowHighWatermark; }
+
+    public int getFlowLowWatermark() { return flowLowWatermark; }
+
     public void configureChannel(Channel channel) {
 
         ChannelConfig channelConfig = channel.config();
@@ -140,4 +280,23 @@ public class NetChannelConfig {
 
         channelConfig.setOption(ChannelOption.ALLOCATOR, allocator);
     }
-}
+
+    // Number of dispatcher threads of the net manager, events are sharded over them by type.
+    public static int getDispatcherShards(Config config) { return getInt(config, DISPATCHER_SHARDS, 1); }
+
+    public static int getDispatcherRingCapacity(Config config) {
+        return getInt(config, DISPATCHER_RING_CAPACITY, EventDispatcher.DEFAULT_RING_CAPACITY);
+    }
+
+    // --------------------------------------------------
+    // Private Methods.
+    // --------------------------------------------------
+
+    private static boolean getBoolean(Config config, String path, boolean defaultValue) {
+        return config.hasPath(path) ? config.getBoolean(path) : defaultValue;
+    }
+
+    private static int getInt(Config config, String path, int defaultValue) {
+        return config.hasPath(path) ? config.getInt(path) : defaultValue;
+    }
+}
\ No newline at end of file
@@ -24,6 +24,18 @@ public class NetEvent extends Event {
 
     public transient NetChannel netChannel;
 
+    // Latency critical events bypass the outbound batching stage of the net channel.
+    public transient boolean isLatencyCritical;
+
+    // Payload of immutable events is passed by reference to receivers in the same JVM.
+    public transient boolean isImmutable;
+
+    // Behaviour of the event when the outbound queue of its channel is overloaded.
+    public transient NetFlowPolicy flowPolicy = NetFlowPolicy.UNBOUNDED;
+
+    // Events with equal keys supersede each other under the COALESCE policy.
+    public transient Object coalesceKey;
+
     //@GsonUtils.Exclude
     public UUID srcMachineID;
 
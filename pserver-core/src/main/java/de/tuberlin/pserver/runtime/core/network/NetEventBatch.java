@@ -0,0 +1,70 @@
+package de.tuberlin.pserver.runtime.core.network;
+
+/**
+ * A group of net events that is encoded into a single frame by the sending
+ * {@link NetEventBatcher} and unpacked again by the receiving {@link NetMessageHandler}.
+ */
+public final class NetEventBatch {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    public final NetEvent[] events;
+
+    private transient NetEventBatcher batcher;
+
+    // Set when the channel takes the batch for encoding, its events are then fixed.
+    private transient boolean isSealed;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public NetEventBatch() { this(null, null); }
+    public NetEventBatch(NetEventBatcher batcher, NetEvent[] events) {
+        this.batcher = batcher;
+        this.events  = events;
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public void onEncoded(int encodedSize) {
+        if (batcher != null)
+            batcher.updateEventSize(events.length, encodedSize);
+    }
+
+    public synchronized boolean contains(Object coalesceKey) { return lastIndexOf(coalesceKey) >= 0; }
+
+    /**
+     * Replaces the newest event with the coalesce key of the given event. Fails if there is
+     * no such event or if the batch was already taken for encoding.
+     */
+    public synchronized boolean replace(NetEvent event) {
+        final int index = lastIndexOf(event.coalesceKey);
+        if (isSealed || index < 0)
+            return false;
+        events[index] = event;
+        return true;
+    }
+
+    // ---------------------------------------------------
+    // Package-Private Methods.
+    // ---------------------------------------------------
+
+    synchronized void seal() { isSealed = true; }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private int lastIndexOf(Object coalesceKey) {
+        for (int i = events.length - 1; i >= 0; --i) {
+            if (coalesceKey.equals(events[i].coalesceKey))
+                return i;
+        }
+        return -1;
+    }
+}
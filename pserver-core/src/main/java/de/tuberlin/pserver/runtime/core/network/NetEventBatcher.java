@@ -0,0 +1,105 @@
+package de.tuberlin.pserver.runtime.core.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound batching stage of a {@link NetChannel}. Net events are collected until either the
+ * time budget of the first pending event expires or the estimated encoded size of the pending
+ * events exceeds the byte budget. The events are then written as one {@link NetEventBatch},
+ * which costs one frame and one flush instead of one per event. Batches are written to the
+ * channel while the lock of the batcher is held, so they are queued in the order they were
+ * drained and no message overtakes the events pending before it.
+ *
+ * The encoded size of an event is only known after serialization, so the byte budget is
+ * checked against a running average that the encoder feeds back for every sent batch.
+ */
+public final class NetEventBatcher {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private final NetChannel netChannel;
+
+    private final long maxDelay; // in µs
+
+    private final int maxBytes;
+
+    private volatile int avgEventSize;
+
+    private List<NetEvent> pendingEvents;
+
+    private ScheduledFuture<?> scheduledFlush;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public NetEventBatcher(NetChannel netChannel, int maxDelay, int maxBytes) {
+        this.netChannel     = netChannel;
+        this.maxDelay       = maxDelay;
+        this.maxBytes       = maxBytes;
+        this.avgEventSize   = 128;
+        this.pendingEvents  = new ArrayList<>();
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public synchronized void add(NetEvent event) {
+        pendingEvents.add(event);
+        if ((long) pendingEvents.size() * avgEventSize < maxBytes) {
+            if (scheduledFlush == null)
+                scheduledFlush = netChannel.channel.eventLoop().schedule(this::flush, maxDelay, TimeUnit.MICROSECONDS);
+            return;
+        }
+        netChannel.write(new NetEventBatch(this, drain()));
+    }
+
+    public synchronized void flush() {
+        if (pendingEvents.isEmpty())
+            return;
+        final NetEvent[] batch = drain();
+        netChannel.write(batch.length == 1 ? batch[0] : new NetEventBatch(this, batch));
+    }
+
+    // Writes an unbatched message behind the pending events.
+    public synchronized void flushAndWrite(Object msg) {
+        flush();
+        netChannel.write(msg);
+    }
+
+    // Replaces the newest pending event with the coalesce key of the given event.
+    public synchronized boolean replacePending(NetEvent event) {
+        for (int i = pendingEvents.size() - 1; i >= 0; --i) {
+            if (event.coalesceKey.equals(pendingEvents.get(i).coalesceKey)) {
+                pendingEvents.set(i, event);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void updateEventSize(int numEvents, int encodedSize) {
+        // Exponential moving average over the observed batches.
+        avgEventSize = Math.max(1, (avgEventSize * 3 + encodedSize / numEvents) / 4);
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private NetEvent[] drain() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        final NetEvent[] batch = pendingEvents.toArray(new NetEvent[pendingEvents.size()]);
+        pendingEvents = new ArrayList<>();
+        return batch;
+    }
+}
@@ -0,0 +1,21 @@
+package de.tuberlin.pserver.runtime.core.network;
+
+/**
+ * Behaviour of a net event whose channel has more queued outbound messages than the high
+ * watermark. The channel counts as overloaded until its queue drained to the low watermark.
+ */
+public enum NetFlowPolicy {
+
+    // Queue the event regardless of the queue depth.
+    UNBOUNDED,
+
+    // Block the sending thread until the channel is no longer overloaded. Event loop and
+    // dispatcher threads of the net manager are never blocked, their events are queued.
+    BLOCK,
+
+    // Reject the event, the future returned by the send fails.
+    FAIL,
+
+    // Replace a queued event with the same coalesce key, only the newest update is sent.
+    COALESCE
+}
@@ -0,0 +1,37 @@
+package de.tuberlin.pserver.runtime.core.network;
+
+/**
+ * First message on each connection of a peer with several connections. It names the
+ * connecting machine and the lane the connection serves, the accepting side assembles the
+ * lanes into one {@link StripedNetChannel}. Peers with a single connection send their bare
+ * machine descriptor instead.
+ */
+public final class NetHandshake {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    public final MachineDescriptor machine;
+
+    public final int lane;
+
+    public final int numLanes;
+
+    public final boolean hasControlLane;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public NetHandshake() { this(null, -1, 0, false); }
+    public NetHandshake(final MachineDescriptor machine, final int lane, final int numLanes, final boolean hasControlLane) {
+        this.machine        = machine;
+        this.lane           = lane;
+        this.numLanes       = numLanes;
+        this.hasControlLane = hasControlLane;
+    }
+
+    @Override
+    public String toString() { return "handshake: " + machine + " lane: " + lane + "/" + numLanes; }
+}
@@ -5,15 +5,23 @@ import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.UnsafeInput;
 import de.tuberlin.pserver.runtime.core.serializer.KryoFactory;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
 import java.util.List;
+import java.util.UUID;
 
 
 public class NetKryoDecoder extends ByteToMessageDecoder {
 
-    private final static int DECODING_BUFFER =  1024 * 1024 * 20; // 20MB
+    // Small staging chunk for direct buffers, sized to stay resident in the CPU cache.
+    private final static int DECODING_CHUNK = 1024 * 64; // 64KB
+
+    // Inbound streams of the net manager, the chunks of this channel are copied into them.
+    private final NetStreams streams;
 
     private ThreadLocal kryoThreadLocal = new ThreadLocal<Kryo>() {
         @Override protected Kryo initialValue() {
@@ -27,13 +35,15 @@ public class NetKryoDecoder extends ByteToMessageDecoder {
         }
     };
 
-    private ThreadLocal decodingBuffer = new ThreadLocal<byte[]>() {
-        @Override protected byte[] initialValue() {
-            return new byte[DECODING_BUFFER];
+    private ThreadLocal chunkInputThreadLocal = new ThreadLocal<Input>() {
+        @Override protected Input initialValue() {
+            return new UnsafeInput(DECODING_CHUNK);
         }
     };
 
-    public NetKryoDecoder() {}
+    public NetKryoDecoder(NetStreams streams) {
+        this.streams = streams;
+    }
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
@@ -42,20 +52,72 @@ public class NetKryoDecoder extends ByteToMessageDecoder {
 
         in.markReaderIndex();
         int len = in.readInt();
+        // A negative length marks a chunk frame of a stream.
+        final boolean isChunk = len < 0;
+        if (isChunk)
+            len = -len;
         if (in.readableBytes() < len) {
             in.resetReaderIndex();
             return;
         }
 
+        if (isChunk) {
+            decodeChunk(ctx, in);
+            return;
+        }
+
         final Kryo kryo = (Kryo)kryoThreadLocal.get();
-        final Input input = (Input)inputThreadLocal.get();
-        final byte[] buf = (byte[])decodingBuffer.get();
+        // Streams announced by the frame are opened by this channel.
+        streams.beginDecode(ctx.channel());
+        try {
+            out.add(decodeFrame(kryo, in, len));
+        } finally {
+            NetStreams.endDecode();
+        }
+    }
 
-        in.readBytes(buf, 0, len);
-        input.setBuffer(buf);
-        Object object = kryo.readClassAndObject(input);
-        input.close();
-        out.add(object);
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // No further chunks arrive, consumers waiting for them must not hang.
+        streams.fail(ctx.channel(), new ClosedChannelException());
+        super.channelInactive(ctx);
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private Object decodeFrame(Kryo kryo, ByteBuf in, int len) {
+        final int startIdx = in.readerIndex();
+        final Object object;
+        if (in.hasArray()) {
+            // Deserialize straight from the backing array of the heap buffer.
+            final Input input = (Input)inputThreadLocal.get();
+            input.setBuffer(in.array(), in.arrayOffset() + startIdx, len);
+            object = kryo.readClassAndObject(input);
+        } else {
+            // Stream the frame of the direct buffer through the staging chunk.
+            final Input input = (Input)chunkInputThreadLocal.get();
+            input.setInputStream(new ByteBufInputStream(in, len));
+            object = kryo.readClassAndObject(input);
+            input.setInputStream(null);
+        }
+        in.readerIndex(startIdx + len);
+        return object;
+    }
+
+    private void decodeChunk(ChannelHandlerContext ctx, ByteBuf in) {
+        final UUID streamID   = new UUID(in.readLong(), in.readLong());
+        final int length      = in.readInt();
+        final int chunkLength = in.readInt();
+        final int offset      = in.readInt();
+        final int count       = in.readInt();
+        final NetStream stream = streams.open(ctx.channel(), streamID, length, chunkLength);
+        // Copy the values straight into the array of the receiving stream.
+        final int bytes = count * Float.BYTES;
+        in.nioBuffer(in.readerIndex(), bytes).order(ByteOrder.BIG_ENDIAN).asFloatBuffer().get(stream.data, offset, count);
+        in.skipBytes(bytes);
+        streams.received(stream, offset, count);
     }
 }
 
@@ -5,16 +5,23 @@ import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.io.UnsafeOutput;
 import de.tuberlin.pserver.runtime.core.serializer.KryoFactory;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 
+import java.nio.ByteOrder;
+import java.util.List;
+
 
 public final class NetKryoEncoder extends MessageToByteEncoder<Object> {
 
-    private final static int ENCODING_BUFFER =  1024 * 1024 * 200; // 200MB
+    // Small staging chunk, sized to stay resident in the CPU cache.
+    private final static int ENCODING_CHUNK = 1024 * 64; // 64KB
 
-    private static final byte[] LENGTH_PLACEHOLDER = new byte[4];
+    // Frames of larger payloads stream their float arrays as chunk frames, -1 disables streaming.
+    private final int streamThreshold;
 
+    private final int streamChunkSize;
 
     private ThreadLocal kryoThreadLocal = new ThreadLocal<Kryo>() {
         @Override protected Kryo initialValue() {
@@ -22,61 +29,98 @@ public final class NetKryoEncoder extends MessageToByteEncoder<Object> {
         }
     };
 
-    private ThreadLocal outputThreadLocal = new ThreadLocal<Output>() {
+    private ThreadLocal chunkOutputThreadLocal = new ThreadLocal<Output>() {
         @Override protected Output initialValue() {
-            return new UnsafeOutput();
-        }
-    };
-
-    private ThreadLocal encodingBuffer = new ThreadLocal<byte[]>() {
-        @Override protected byte[] initialValue() {
-            return new byte[ENCODING_BUFFER];
+            return new UnsafeOutput(ENCODING_CHUNK);
         }
     };
 
-    public NetKryoEncoder() {
-        // Ensure heap buffers are used when pass into encode(...) method.
-        // This way you can access the backing array directly.
-        super(false);
+    public NetKryoEncoder() { this(false); }
+    public NetKryoEncoder(boolean directEncoding) { this(directEncoding, -1, 0); }
+    public NetKryoEncoder(boolean directEncoding, int streamThreshold, int streamChunkSize) {
+        // In buffered mode heap buffers are passed into the encode(...) method, in direct
+        // mode the pooled direct buffers can be handed to the socket without a further copy.
+        super(directEncoding);
+        this.streamThreshold = streamThreshold;
+        this.streamChunkSize = streamChunkSize;
     }
 
     @Override
     protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) throws Exception {
         try {
 
-            final Kryo    kryo = (Kryo)kryoThreadLocal.get();
-            final Output  output = (Output)outputThreadLocal.get();
-            final byte[]  encodingBuf = (byte[])encodingBuffer.get();
-
-            output.setBuffer(encodingBuf);
-            int startPos = output.position();
-            kryo.writeClassAndObject(output, msg);
-            int len = output.position() - startPos;
-            output.close();
-            out.writeInt(len);
-            out.writeBytes(encodingBuf, 0, len);
-
-            /*// Keep offset of output buffer.
-            int startIdx = out.writerIndex();
-            ByteBufOutputStream outStream = new ByteBufOutputStream(out);
-            // First, placeholder to output buffer.
-            outStream.write(LENGTH_PLACEHOLDER);
-            // Delegate the backing array to kryo output.
-            output.setBuffer(outStream.buffer().array());
-            output.setOutputStream(outStream);
-            // Serialize data.
-            int startPos = output.position();
-            kryo.writeClassAndObject(output, msg);
-            int len = output.position() - startPos;
-            // Write serialized data on backing array.
-            output.flush();
-            output.close();
-            // Write size in placeholder position.
-            out.setInt(startIdx, len);
-            out.writerIndex(startIdx + 4 + len);*/
+            if (msg instanceof NetStreamChunk) {
+                encodeChunk((NetStreamChunk) msg, out);
+                return;
+            }
+
+            final Kryo kryo = (Kryo)kryoThreadLocal.get();
+
+            final NetChannel streamChannel = streamThreshold >= 0 ? streamChannel(ctx) : null;
+            if (streamChannel != null)
+                NetStreams.beginCollect(streamThreshold, streamChunkSize);
+            final int len;
+            final List<NetStreamChunk> chunks;
+            try {
+                len = encodeFrame(kryo, msg, out);
+            } finally {
+                chunks = streamChannel != null ? NetStreams.endCollect() : null;
+            }
+
+            // The chunks are queued behind the frame that announces their streams.
+            if (chunks != null) {
+                for (final NetStreamChunk chunk : chunks)
+                    streamChannel.writeStreamChunk(chunk);
+            }
+
+            // Feed the encoded size back to the batching stage of the sending channel.
+            if (msg instanceof NetEventBatch)
+                ((NetEventBatch) msg).onEncoded(len);
 
         } catch (Exception e) {
             throw new IllegalStateException(e);
         }
     }
-}
\ No newline at end of file
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private int encodeFrame(Kryo kryo, Object msg, ByteBuf out) {
+        final Output output = (Output)chunkOutputThreadLocal.get();
+        // Keep offset of the length field and write a placeholder.
+        final int lengthIdx = out.writerIndex();
+        out.writeInt(0);
+        // Kryo writes into the staging chunk, each full chunk is drained into the buffer,
+        // the size of a frame is therefore not bounded by a fixed encoding array.
+        output.setOutputStream(new ByteBufOutputStream(out));
+        kryo.writeClassAndObject(output, msg);
+        output.flush();
+        output.setOutputStream(null);
+        // Patch the serialized size into the placeholder position.
+        final int len = out.writerIndex() - lengthIdx - 4;
+        out.setInt(lengthIdx, len);
+        return len;
+    }
+
+    private static void encodeChunk(NetStreamChunk chunk, ByteBuf out) {
+        final int len = chunk.encodedSize();
+        out.ensureWritable(4 + len);
+        // A negative length marks a chunk frame.
+        out.writeInt(-len);
+        out.writeLong(chunk.streamID.getMostSignificantBits());
+        out.writeLong(chunk.streamID.getLeastSignificantBits());
+        out.writeInt(chunk.data.length);
+        out.writeInt(chunk.chunkLength);
+        out.writeInt(chunk.offset);
+        out.writeInt(chunk.count);
+        final int bytes = chunk.count * Float.BYTES;
+        out.nioBuffer(out.writerIndex(), bytes).order(ByteOrder.BIG_ENDIAN).asFloatBuffer().put(chunk.data, chunk.offset, chunk.count);
+        out.writerIndex(out.writerIndex() + bytes);
+    }
+
+    private static NetChannel streamChannel(ChannelHandlerContext ctx) {
+        final NetMessageHandler handler = ctx.pipeline().get(NetMessageHandler.class);
+        return handler != null ? handler.getEventChannel() : null;
+    }
+}
@@ -1,6 +1,7 @@
 package de.tuberlin.pserver.runtime.core.network;
 
 import com.google.common.base.Preconditions;
+import de.tuberlin.pserver.commons.config.Config;
 import de.tuberlin.pserver.runtime.core.events.EventDispatcher;
 import de.tuberlin.pserver.runtime.core.infra.InfrastructureManager;
 import io.netty.bootstrap.Bootstrap;
@@ -10,15 +11,18 @@ import io.netty.channel.*;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.ChannelGroupFuture;
 import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.nio.channels.ClosedChannelException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ConcurrentHashMap;
 
 public final class NetManager extends EventDispatcher {
@@ -35,6 +39,8 @@ public final class NetManager extends EventDispatcher {
 
     public static final String ALL_CHANNELS = "broadcast_channels";
 
+    private static final Logger LOG = LoggerFactory.getLogger(NetManager.class);
+
     // ---------------------------------------------------
     // Fields.
     // ---------------------------------------------------
@@ -59,14 +65,22 @@ public final class NetManager extends EventDispatcher {
 
     private final Map<MachineDescriptor, NetChannel> activeChannels;
 
+    // Streamed payloads received by the decoders of our channels.
+    private final NetStreams streams;
+
     private final Object connectMutex = new Object();
 
+    // Striped channels of accepted peers that still miss lanes, guarded by the connect mutex.
+    private final Map<MachineDescriptor, StripedNetChannel> pendingChannels = new HashMap<>();
+
     // ---------------------------------------------------
     // Constructor.
     // ---------------------------------------------------
 
-    public NetManager(InfrastructureManager infraManager, MachineDescriptor machine, int numThreads) {
-        super(true);
+    public NetManager(InfrastructureManager infraManager, MachineDescriptor machine, Config config, int numThreads) {
+        super(true, "NET-MANAGER-THREAD",
+                NetChannelConfig.getDispatcherShards(Preconditions.checkNotNull(config)),
+                NetChannelConfig.getDispatcherRingCapacity(config));
 
         //System.setProperty("io.netty.allocator.numHeapArenas", "0");
         //System.setProperty("io.netty.allocator.numDirectArenas", "32");
@@ -74,11 +88,12 @@ public final class NetManager extends EventDispatcher {
 
         this.infraManager       = Preconditions.checkNotNull(infraManager);
         this.machine            = Preconditions.checkNotNull(machine);
-        this.bossGroup          = new NioEventLoopGroup(1);
-        this.workerGroup        = new NioEventLoopGroup(numThreads);
-        this.nettyAllocator     = NetBufferAllocator.create(); // TODO: Change this!
-        this.nettyChannelConfig = new NetChannelConfig(nettyAllocator);
+        this.nettyChannelConfig = new NetChannelConfig(Preconditions.checkNotNull(config));
+        this.bossGroup          = nettyChannelConfig.getTransport().createEventLoopGroup(1);
+        this.workerGroup        = nettyChannelConfig.getTransport().createEventLoopGroup(numThreads);
+        this.nettyAllocator     = nettyChannelConfig.getAllocator(); // TODO: Change this!
         this.activeChannels     = new ConcurrentHashMap<>();
+        this.streams            = new NetStreams(nettyChannelConfig.getStreamTimeout());
         this.outChannels        = new DefaultChannelGroup(OUT_CHANNELS, GlobalEventExecutor.INSTANCE);
         this.inChannels         = new DefaultChannelGroup(IN_CHANNELS,  GlobalEventExecutor.INSTANCE);
         this.allChannels        = new DefaultChannelGroup(ALL_CHANNELS, GlobalEventExecutor.INSTANCE);
@@ -100,12 +115,22 @@ public final class NetManager extends EventDispatcher {
 
     public MachineDescriptor getMachineDescriptor() { return machine; }
 
+    public NetStreams getStreams() { return streams; }
+
     public Collection<NetChannel> getActiveChannels() { return Collections.unmodifiableCollection(activeChannels.values()); }
 
+    // Number of queued outbound messages per peer, see NetChannel for the flow control counters.
+    public Map<MachineDescriptor, Integer> getOutboundQueueDepths() {
+        final Map<MachineDescriptor, Integer> depths = new HashMap<>();
+        for (final Map.Entry<MachineDescriptor, NetChannel> entry : activeChannels.entrySet())
+            depths.put(entry.getKey(), entry.getValue().getQueueDepth());
+        return depths;
+    }
+
     public void start() throws Exception {
         ServerBootstrap srvBootstrap = new ServerBootstrap();
         srvBootstrap.group(bossGroup, workerGroup);
-        srvBootstrap.channel(NioServerSocketChannel.class);
+        srvBootstrap.channel(nettyChannelConfig.getTransport().getServerChannelClass());
         srvBootstrap.option(ChannelOption.ALLOCATOR, nettyAllocator);
         srvBootstrap.childOption(ChannelOption.ALLOCATOR, nettyAllocator);
         srvBootstrap.handler(new LoggingHandler(LogLevel.INFO));
@@ -120,10 +145,15 @@ public final class NetManager extends EventDispatcher {
 
         // Bind and start to accept incoming connections.
         srvBootstrap.bind(machine.port).sync();
+
+        if (nettyChannelConfig.isLocalTransport())
+            LocalNetRegistry.register(machine, this);
     }
 
     public void stop() throws Exception {
+        LocalNetRegistry.unregister(machine, this);
         closeAllChannels();
+        streams.failAll(new CancellationException("Net manager of " + machine + " stopped."));
         bossGroup.shutdownGracefully().sync();
         workerGroup.shutdownGracefully().sync();
     }
@@ -135,35 +165,24 @@ public final class NetManager extends EventDispatcher {
                 return activeChannels.get(descriptor);
         }
 
-        try {
-            Bootstrap cliBootstrap = new Bootstrap();
-            cliBootstrap.group(workerGroup);
-            cliBootstrap.channel(NioSocketChannel.class);
-            cliBootstrap.option(ChannelOption.ALLOCATOR, nettyAllocator);
-            cliBootstrap.handler(new ChannelInitializer<SocketChannel>() {
-
-                @Override
-                public void initChannel(SocketChannel ch) throws Exception {
-                    nettyChannelConfig.configureChannel(ch);
-                    defineClientPipeline(ch.pipeline());
-                }
-            });
-
-            ChannelFuture channelFuture = cliBootstrap.connect(descriptor.hostname, descriptor.port);
-            channelFuture.await();
-
-            // Now we are sure the future is completed.
-            assert channelFuture.isDone();
-            if (channelFuture.isCancelled()) {
-                // Connection attempt cancelled by user.
-                throw new IllegalStateException("Connection attempt cancelled");
-            } else if (!channelFuture.isSuccess()) {
-                // Connection attempt was not successful.
-                throw new IllegalStateException(channelFuture.cause());
-            } else {
-                return registerNetChannel(descriptor, channelFuture.channel(), NetChannel.NetChannelType.CHANNEL_OUT);
+        final NetManager peer = nettyChannelConfig.isLocalTransport() ? LocalNetRegistry.lookup(descriptor) : null;
+        if (peer != null && peer != this) {
+            final NetChannel netChannel;
+            synchronized (connectMutex) {
+                netChannel = activeChannels.computeIfAbsent(descriptor,
+                        d -> new LocalNetChannel(machine, d, NetChannel.NetChannelType.CHANNEL_OUT, peer));
             }
+            // Outside of our mutex, the peer may connect to us concurrently.
+            peer.acceptLocal(machine);
+            return netChannel;
+        }
 
+        try {
+            final int numLanes = nettyChannelConfig.getConnectionsPerPeer();
+            if (numLanes == 1)
+                return registerNetChannel(descriptor, openChannel(descriptor), NetChannel.NetChannelType.CHANNEL_OUT);
+            else
+                return connectStriped(descriptor, numLanes);
         } catch(Exception e) {
             e.printStackTrace();
             throw new IllegalStateException(e);
@@ -200,20 +219,34 @@ public final class NetManager extends EventDispatcher {
         }
     }
 
+    // Registers the in-memory channel of a peer in the same JVM, replaces the socket handshake.
+    LocalNetChannel acceptLocal(MachineDescriptor descriptor) {
+        final NetManager peer = Preconditions.checkNotNull(LocalNetRegistry.lookup(descriptor));
+        synchronized (connectMutex) {
+            final NetChannel netChannel = activeChannels.computeIfAbsent(descriptor,
+                    d -> new LocalNetChannel(machine, d, NetChannel.NetChannelType.CHANNEL_IN, peer));
+            if (!(netChannel instanceof LocalNetChannel))
+                throw new IllegalStateException("Peer " + descriptor + " is already connected by socket.");
+            return (LocalNetChannel) netChannel;
+        }
+    }
+
     // ---------------------------------------------------
     // Distributed Event Interface.
     // ---------------------------------------------------
 
-    public void dispatchEventAt(final int[] nodeIDs, final NetEvent event) {
+    public CompletableFuture<Void> dispatchEventAt(final int[] nodeIDs, final NetEvent event) {
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(nodeIDs.length);
         for (int nodeID : nodeIDs) {
             final MachineDescriptor md = infraManager.getMachine(nodeID);
             if (md != null)
-                dispatchEventAt(md, event);
+                futures.add(dispatchEventAt(md, event));
         }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]));
     }
 
-    public void dispatchEventAt(UUID machineID, NetEvent event) { dispatchEventAt(infraManager.getMachine(machineID), event); }
-    public void dispatchEventAt(MachineDescriptor netDescriptor, NetEvent event) {
+    public CompletableFuture<Void> dispatchEventAt(UUID machineID, NetEvent event) { return dispatchEventAt(infraManager.getMachine(machineID), event); }
+    public CompletableFuture<Void> dispatchEventAt(MachineDescriptor netDescriptor, NetEvent event) {
         NetChannel netChannel = activeChannels.get(Preconditions.checkNotNull(netDescriptor));
         if (netChannel == null) {
             if (netDescriptor.equals(machine)) {
@@ -221,14 +254,14 @@ public final class NetManager extends EventDispatcher {
                 event.dstMachineID  = machine.machineID;
                 event.srcMachineID  = machine.machineID;
                 this.dispatchEvent(event);
-                return;
+                return CompletableFuture.completedFuture(null);
             } else
                 throw new IllegalStateException();
         }
         event.netChannel    = netChannel;
         event.dstMachineID  = netDescriptor.machineID;
         event.srcMachineID  = machine.machineID;
-        netChannel.sendMsg(event);
+        return netChannel.sendMsg(event);
     }
 
     public void broadcastEvent(final NetEvent event) {
@@ -246,8 +279,9 @@ public final class NetManager extends EventDispatcher {
         pipeline.addLast(
                 //new Lz4FrameEncoder(true),
                 //new Lz4FrameDecoder(true),
-                new NetKryoEncoder(),
-                new NetKryoDecoder(),
+                new NetKryoEncoder(nettyChannelConfig.isDirectEncoding(),
+                        nettyChannelConfig.getStreamThreshold(), nettyChannelConfig.getStreamChunkSize()),
+                new NetKryoDecoder(streams),
                 //new ObjectEncoder(),
                 //new ObjectDecoder(Integer.MAX_VALUE, ClassResolvers.cacheDisabled(getClass().getClassLoader())),
                 new NetHandshakeRequestHandler(),
@@ -259,8 +293,9 @@ public final class NetManager extends EventDispatcher {
         pipeline.addLast(
                 //new Lz4FrameEncoder(true),
                 //new Lz4FrameDecoder(true),
-                new NetKryoEncoder(),
-                new NetKryoDecoder(),
+                new NetKryoEncoder(nettyChannelConfig.isDirectEncoding(),
+                        nettyChannelConfig.getStreamThreshold(), nettyChannelConfig.getStreamChunkSize()),
+                new NetKryoDecoder(streams),
                 //new ObjectEncoder(),
                 //new ObjectDecoder(Integer.MAX_VALUE, ClassResolvers.cacheDisabled(getClass().getClassLoader())),
                 new NetHandshakeResponseHandler(),
@@ -268,6 +303,110 @@ public final class NetManager extends EventDispatcher {
         );
     }
 
+    private Channel openChannel(MachineDescriptor descriptor) throws Exception {
+        Bootstrap cliBootstrap = new Bootstrap();
+        cliBootstrap.group(workerGroup);
+        cliBootstrap.channel(nettyChannelConfig.getTransport().getChannelClass());
+        cliBootstrap.option(ChannelOption.ALLOCATOR, nettyAllocator);
+        cliBootstrap.handler(new ChannelInitializer<SocketChannel>() {
+
+            @Override
+            public void initChannel(SocketChannel ch) throws Exception {
+                nettyChannelConfig.configureChannel(ch);
+                defineClientPipeline(ch.pipeline());
+            }
+        });
+
+        ChannelFuture channelFuture = cliBootstrap.connect(descriptor.hostname, descriptor.port);
+        channelFuture.await();
+
+        // Now we are sure the future is completed.
+        assert channelFuture.isDone();
+        if (channelFuture.isCancelled()) {
+            // Connection attempt cancelled by user.
+            throw new IllegalStateException("Connection attempt cancelled");
+        } else if (!channelFuture.isSuccess()) {
+            // Connection attempt was not successful.
+            throw new IllegalStateException(channelFuture.cause());
+        } else
+            return channelFuture.channel();
+    }
+
+    private NetChannel connectStriped(MachineDescriptor descriptor, int numLanes) throws Exception {
+        final boolean hasControlLane = nettyChannelConfig.hasControlConnection();
+        final StripedNetChannel striped = new StripedNetChannel(descriptor, NetChannel.NetChannelType.CHANNEL_OUT, hasControlLane, numLanes);
+        final List<CompletableFuture<Void>> handshakes = new ArrayList<>(numLanes);
+        for (int i = 0; i < numLanes; ++i) {
+            final Channel channel = openChannel(descriptor);
+            final NetChannel lane = new NetChannel(descriptor, NetChannel.NetChannelType.CHANNEL_OUT, channel, nettyChannelConfig, this);
+            registerLane(striped, i, lane);
+            // Taken before the handshake is sent, the handler removes itself on the response.
+            handshakes.add(channel.pipeline().get(NetHandshakeResponseHandler.class).accepted);
+            channel.writeAndFlush(new NetHandshake(machine, i, numLanes, hasControlLane), channel.voidPromise());
+        }
+        // The peer publishes the channel with its last lane, only then it can answer our events.
+        try {
+            CompletableFuture.allOf(handshakes.toArray(new CompletableFuture[numLanes])).get();
+        } catch (ExecutionException e) {
+            // The peer closes our lanes if it connected to us meanwhile, its channel is then registered.
+            synchronized (connectMutex) {
+                if (activeChannels.containsKey(descriptor))
+                    return activeChannels.get(descriptor);
+            }
+            throw e;
+        }
+
+        synchronized (connectMutex) {
+            if (activeChannels.containsKey(descriptor))
+                return activeChannels.get(descriptor);
+            activeChannels.put(descriptor, striped);
+        }
+        return striped;
+    }
+
+    private void acceptLane(NetHandshake handshake, Channel channel) {
+        final MachineDescriptor descriptor = handshake.machine;
+        final StripedNetChannel striped;
+        synchronized (connectMutex) {
+            striped = pendingChannels.computeIfAbsent(descriptor, d ->
+                    new StripedNetChannel(d, NetChannel.NetChannelType.CHANNEL_IN, handshake.hasControlLane, handshake.numLanes));
+        }
+        final NetChannel lane = new NetChannel(descriptor, NetChannel.NetChannelType.CHANNEL_IN, channel, nettyChannelConfig, this);
+        if (registerLane(striped, handshake.lane, lane)) {
+            final boolean isDuplicate;
+            synchronized (connectMutex) {
+                pendingChannels.remove(descriptor, striped);
+                isDuplicate = activeChannels.putIfAbsent(descriptor, striped) != null;
+            }
+            if (isDuplicate) {
+                // Both sides connected concurrently, the peer falls back to the registered channel.
+                LOG.warn("Peer " + descriptor + " is already connected, closing its " + handshake.numLanes + " duplicate lanes.");
+                striped.close();
+                return;
+            }
+        }
+        channel.writeAndFlush(descriptor, channel.voidPromise());
+    }
+
+    private boolean registerLane(StripedNetChannel striped, int index, NetChannel lane) {
+        boolean channelGroupRegistration;
+        if (lane.type == NetChannel.NetChannelType.CHANNEL_IN)
+            channelGroupRegistration = inChannels.add(lane.channel);
+        else
+            channelGroupRegistration = outChannels.add(lane.channel);
+        channelGroupRegistration &= allChannels.add(lane.channel);
+
+        if (!channelGroupRegistration)
+            throw new IllegalStateException("Could not register to channel groups.");
+
+        // Writes are served by the lane, inbound events refer to the striped channel.
+        NetMessageHandler msgReadHandler = (NetMessageHandler)
+                lane.channel.pipeline().context(NetMessageHandler.class).handler();
+        msgReadHandler.setNetChannel(lane, striped);
+
+        return striped.setLane(index, lane);
+    }
+
     private NetChannel registerNetChannel(MachineDescriptor descriptor, Channel channel,  NetChannel.NetChannelType type) {
         NetChannel netChannel;
 
@@ -281,7 +420,7 @@ public final class NetManager extends EventDispatcher {
             }
         }
 
-        netChannel = new NetChannel(descriptor, type, channel);
+        netChannel = new NetChannel(descriptor, type, channel, nettyChannelConfig, this);
         activeChannels.put(descriptor, netChannel);
 
         boolean channelGroupRegistration = false;
@@ -319,6 +458,9 @@ public final class NetManager extends EventDispatcher {
             if (msg instanceof MachineDescriptor) {
                 registerNetChannel((MachineDescriptor) msg, ctx.channel(), NetChannel.NetChannelType.CHANNEL_IN);
                 ctx.pipeline().remove(this);
+            } else if (msg instanceof NetHandshake) {
+                acceptLane((NetHandshake) msg, ctx.channel());
+                ctx.pipeline().remove(this);
             } else
                 throw new IllegalStateException("Wrong handshake protocol. msg = " + msg);
         }
@@ -326,12 +468,22 @@ public final class NetManager extends EventDispatcher {
 
     private final class NetHandshakeResponseHandler extends ChannelInboundHandlerAdapter {
 
+        private final CompletableFuture<Void> accepted = new CompletableFuture<>();
+
         @Override
         public void channelRead(ChannelHandlerContext ctx, Object msg) {
-            if (msg instanceof MachineDescriptor && msg.equals(machine))
+            if (msg instanceof MachineDescriptor && msg.equals(machine)) {
                 ctx.pipeline().remove(this);
-            else
+                accepted.complete(null);
+            } else
                 throw new IllegalStateException("Wrong handshake protocol. msg = " + msg);
         }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            // Closed before the peer answered, e.g. because it dropped a duplicate connection.
+            accepted.completeExceptionally(new ClosedChannelException());
+            super.channelInactive(ctx);
+        }
     }
 }
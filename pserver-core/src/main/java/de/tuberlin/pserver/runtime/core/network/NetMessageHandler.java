@@ -16,12 +16,20 @@ public final class NetMessageHandler extends SimpleChannelInboundHandler<Object>
 
     private NetChannel netChannel;
 
+    // Channel the inbound events are attributed to, the striped channel of a lane.
+    private NetChannel eventChannel;
+
     public NetMessageHandler(NetManager netManager) {
         this.netManager = netManager;
     }
 
-    public void setNetChannel(NetChannel netChannel) {
-        this.netChannel = netChannel;
+    // Null until the handshake registered the channel.
+    public NetChannel getEventChannel() { return eventChannel; }
+
+    public void setNetChannel(NetChannel netChannel) { setNetChannel(netChannel, netChannel); }
+    public void setNetChannel(NetChannel netChannel, NetChannel eventChannel) {
+        this.netChannel   = netChannel;
+        this.eventChannel = eventChannel;
     }
 
     //@Override
@@ -33,8 +41,13 @@ public final class NetMessageHandler extends SimpleChannelInboundHandler<Object>
     protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
         if (msg instanceof NetEvent) {
             NetEvent event = (NetEvent)msg;
-            event.netChannel = netChannel;
+            event.netChannel = eventChannel;
             netManager.dispatchEvent(event);
+        } else if (msg instanceof NetEventBatch) {
+            for (NetEvent event : ((NetEventBatch) msg).events) {
+                event.netChannel = eventChannel;
+                netManager.dispatchEvent(event);
+            }
         }
     }
 
@@ -51,10 +64,9 @@ public final class NetMessageHandler extends SimpleChannelInboundHandler<Object>
 
     private void writeIfPossible() {
         while (!netChannel.writeQueue.isEmpty() && netChannel.channel.isWritable()) {
-            netChannel.channel.writeAndFlush(
-                    netChannel.writeQueue.poll(),
-                    netChannel.channel.voidPromise()
-            );
+            final Object msg = netChannel.poll();
+            if (msg != null)
+                netChannel.channel.writeAndFlush(msg, netChannel.channel.voidPromise());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+package de.tuberlin.pserver.runtime.core.network;
+
+import io.netty.channel.Channel;
+
+import java.util.BitSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Receiving end of a streamed float array. The array is allocated when the announcing event
+ * or the first chunk arrives and is filled in place by the decoder. Chunks of several
+ * connections arrive in any order, {@link #available()} is the length of the completely
+ * received prefix, consumers can process it while the rest is still in flight. A stream
+ * fails if its channel is closed or if no chunk arrived within the streaming timeout.
+ */
+public final class NetStream {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    public final UUID streamID;
+
+    public final float[] data;
+
+    // Channel that opened the stream, its streams fail when it is closed.
+    public final Channel channel;
+
+    private final NetStreams streams;
+
+    private final int chunkLength;
+
+    private final BitSet receivedChunks;
+
+    private final CompletableFuture<Void> completion;
+
+    private int nextChunk;
+
+    private volatile int available;
+
+    private volatile Throwable failure;
+
+    // Time of the last received chunk, guarded by this.
+    private long lastProgress;
+
+    // Set when the event that announces the stream was decoded.
+    boolean isAttached;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    NetStream(final NetStreams streams, final Channel channel, final UUID streamID, final int length, final int chunkLength) {
+        if (chunkLength <= 0)
+            throw new IllegalStateException("Invalid chunk length " + chunkLength + " of stream " + streamID + ".");
+        this.streams        = streams;
+        this.channel        = channel;
+        this.streamID       = streamID;
+        this.data           = new float[length];
+        this.chunkLength    = chunkLength;
+        this.receivedChunks = new BitSet((length + chunkLength - 1) / chunkLength);
+        this.completion     = new CompletableFuture<>();
+        this.lastProgress   = System.nanoTime();
+        if (length == 0)
+            completion.complete(null);
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public int available() { return available; }
+
+    public boolean isComplete() { return available == data.length; }
+
+    public boolean isFailed() { return failure != null; }
+
+    // Completes when all values are received, fails with the cause of a failed stream.
+    public CompletableFuture<Void> completion() { return completion; }
+
+    /**
+     * Blocks until at least minLength leading values are received, returns the available length.
+     * Throws an IllegalStateException if the stream failed or if it made no progress within the
+     * streaming timeout, the stream is failed in the latter case.
+     */
+    public int awaitAvailable(final int minLength) throws InterruptedException {
+        final int length = Math.min(minLength, data.length);
+        if (available >= length)
+            return available;
+        long idle;
+        synchronized (this) {
+            while (true) {
+                if (available >= length)
+                    return available;
+                if (failure != null)
+                    throw new IllegalStateException("Stream " + streamID + " failed.", failure);
+                idle = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastProgress);
+                if (idle >= streams.getTimeout())
+                    break;
+                wait(streams.getTimeout() - idle);
+            }
+        }
+        // Failed outside of the monitor, the completion callbacks may take other locks.
+        streams.fail(this, new TimeoutException("No chunk of stream " + streamID + " received for " + idle + " ms."));
+        return awaitAvailable(minLength);
+    }
+
+    public void await() throws InterruptedException { awaitAvailable(data.length); }
+
+    // ---------------------------------------------------
+    // Package-Private Methods.
+    // ---------------------------------------------------
+
+    // Called by the decoder after the values of the chunk are copied into the array.
+    synchronized boolean received(final int offset, final int count) {
+        if (offset % chunkLength != 0 || offset + count > data.length)
+            throw new IllegalStateException("Chunk [" + offset + ", " + (offset + count) + ") does not fit stream " + streamID + ".");
+        lastProgress = System.nanoTime();
+        receivedChunks.set(offset / chunkLength);
+        while (receivedChunks.get(nextChunk))
+            ++nextChunk;
+        final int prefix = (int) Math.min(data.length, (long) nextChunk * chunkLength);
+        if (prefix != available) {
+            available = prefix;
+            notifyAll();
+        }
+        return isComplete();
+    }
+
+    // Returns false if the stream already completed or failed.
+    synchronized boolean fail(final Throwable cause) {
+        if (failure != null || isComplete())
+            return false;
+        failure = cause;
+        notifyAll();
+        return true;
+    }
+
+    // Completes the future outside of the monitor, its callbacks may take other locks.
+    void complete() {
+        if (failure != null)
+            completion.completeExceptionally(failure);
+        else if (isComplete())
+            completion.complete(null);
+    }
+}
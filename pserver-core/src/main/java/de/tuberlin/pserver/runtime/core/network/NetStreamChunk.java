@@ -0,0 +1,46 @@
+package de.tuberlin.pserver.runtime.core.network;
+
+import java.util.UUID;
+
+/**
+ * Slice of a streamed float array. The encoder writes the values raw behind a small header,
+ * the decoder copies them straight into the array of the {@link NetStream} on the receiver.
+ * The chunk refers to the array of the sender, nothing is copied before encoding.
+ */
+public final class NetStreamChunk {
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    // stream id, array length, chunk length, offset and count
+    public static final int HEADER_SIZE = 2 * Long.BYTES + 4 * Integer.BYTES;
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    public final UUID streamID;
+
+    public final float[] data;
+
+    public final int chunkLength;
+
+    public final int offset;
+
+    public final int count;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public NetStreamChunk(final UUID streamID, final float[] data, final int chunkLength, final int offset, final int count) {
+        this.streamID    = streamID;
+        this.data        = data;
+        this.chunkLength = chunkLength;
+        this.offset      = offset;
+        this.count       = count;
+    }
+
+    public int encodedSize() { return HEADER_SIZE + count * Float.BYTES; }
+}
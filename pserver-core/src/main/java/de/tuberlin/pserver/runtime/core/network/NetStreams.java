@@ -0,0 +1,189 @@
+package de.tuberlin.pserver.runtime.core.network;
+
+import io.netty.channel.Channel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inbound streams of a net manager. While the encoder serializes a net event, payloads can
+ * ask to be streamed. They then write a short announcement into the event and the encoder
+ * sends their values as chunk frames behind the event. On the receiver the announcement and
+ * the chunks meet in the registry of the net manager, whichever arrives first allocates the
+ * array. Streams are failed when the channel that opened them is closed.
+ */
+public final class NetStreams {
+
+    // ---------------------------------------------------
+    // Outbound Streams.
+    // ---------------------------------------------------
+
+    public static final class Outbound {
+
+        public final UUID streamID;
+
+        public final int chunkLength;
+
+        private Outbound(final UUID streamID, final int chunkLength) {
+            this.streamID    = streamID;
+            this.chunkLength = chunkLength;
+        }
+    }
+
+    // ---------------------------------------------------
+
+    static final class Collector {
+
+        private final int threshold;
+
+        private final int chunkLength;
+
+        final List<NetStreamChunk> chunks = new ArrayList<>();
+
+        Collector(final int threshold, final int chunkSize) {
+            this.threshold   = threshold;
+            this.chunkLength = Math.max(1, chunkSize / Float.BYTES);
+        }
+    }
+
+    // ---------------------------------------------------
+
+    // Registry and channel of the event frame that is decoded on the current thread.
+    private static final class Decoding {
+
+        private final NetStreams streams;
+
+        private final Channel channel;
+
+        private Decoding(final NetStreams streams, final Channel channel) {
+            this.streams = streams;
+            this.channel = channel;
+        }
+    }
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private static final ThreadLocal<Collector> collector = new ThreadLocal<>();
+
+    private static final ThreadLocal<Decoding> decoding = new ThreadLocal<>();
+
+    private final Map<UUID, NetStream> inboundStreams = new ConcurrentHashMap<>();
+
+    // Milliseconds a waiting consumer tolerates without a received chunk.
+    private final long timeout;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public NetStreams(final long timeout) {
+        if (timeout <= 0)
+            throw new IllegalStateException("Invalid streaming timeout " + timeout + ".");
+        this.timeout = timeout;
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    /**
+     * Called while a payload is serialized. Returns the announcement to write if the values
+     * are sent as chunks, or null if they must be written inline. Values are only streamed
+     * when encoded for a socket and when they exceed the streaming threshold.
+     */
+    public static Outbound stream(final float[] data) {
+        final Collector c = collector.get();
+        if (c == null || (long) data.length * Float.BYTES < c.threshold)
+            return null;
+        final Outbound outbound = new Outbound(UUID.randomUUID(), c.chunkLength);
+        for (int offset = 0; offset < data.length; offset += c.chunkLength)
+            c.chunks.add(new NetStreamChunk(outbound.streamID, data, c.chunkLength, offset, Math.min(c.chunkLength, data.length - offset)));
+        return outbound;
+    }
+
+    // Called while the announcement of a stream is deserialized by a net decoder.
+    public static NetStream attach(final UUID streamID, final int length, final int chunkLength) {
+        final Decoding d = decoding.get();
+        if (d == null)
+            throw new IllegalStateException("Stream " + streamID + " announced outside of a net decoder.");
+        final NetStream stream = d.streams.open(d.channel, streamID, length, chunkLength);
+        synchronized (stream) {
+            stream.isAttached = true;
+            if (stream.isComplete() || stream.isFailed())
+                d.streams.inboundStreams.remove(streamID, stream);
+        }
+        return stream;
+    }
+
+    public long getTimeout() { return timeout; }
+
+    // Number of streams that are announced or partially received.
+    public int numInboundStreams() { return inboundStreams.size(); }
+
+    // Fails the incomplete streams opened by the channel, called when it is closed.
+    public void fail(final Channel channel, final Throwable cause) {
+        for (final NetStream stream : inboundStreams.values()) {
+            if (stream.channel == channel)
+                fail(stream, cause);
+        }
+    }
+
+    // Fails all incomplete streams, called when the net manager stops.
+    public void failAll(final Throwable cause) {
+        for (final NetStream stream : inboundStreams.values())
+            fail(stream, cause);
+    }
+
+    // ---------------------------------------------------
+    // Package-Private Methods.
+    // ---------------------------------------------------
+
+    static void beginCollect(final int threshold, final int chunkSize) {
+        collector.set(new Collector(threshold, chunkSize));
+    }
+
+    static List<NetStreamChunk> endCollect() {
+        final Collector c = collector.get();
+        collector.remove();
+        return c != null ? c.chunks : null;
+    }
+
+    void beginDecode(final Channel channel) { decoding.set(new Decoding(this, channel)); }
+
+    static void endDecode() { decoding.remove(); }
+
+    NetStream open(final Channel channel, final UUID streamID, final int length, final int chunkLength) {
+        final NetStream stream = inboundStreams.computeIfAbsent(streamID, id -> new NetStream(this, channel, id, length, chunkLength));
+        if (stream.data.length != length)
+            throw new IllegalStateException("Stream " + streamID + " announced with " + stream.data.length + " values, chunk expects " + length + ".");
+        return stream;
+    }
+
+    void received(final NetStream stream, final int offset, final int count) {
+        final boolean completed;
+        synchronized (stream) {
+            completed = stream.received(offset, count);
+            // The stream stays registered until its announcement picked it up.
+            if (completed && stream.isAttached)
+                inboundStreams.remove(stream.streamID, stream);
+        }
+        if (completed)
+            stream.complete();
+    }
+
+    void fail(final NetStream stream, final Throwable cause) {
+        final boolean failed;
+        synchronized (stream) {
+            failed = stream.fail(cause);
+            if (failed)
+                inboundStreams.remove(stream.streamID, stream);
+        }
+        if (failed)
+            stream.complete();
+    }
+}
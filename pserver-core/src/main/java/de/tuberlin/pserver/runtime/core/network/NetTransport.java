@@ -0,0 +1,69 @@
+package de.tuberlin.pserver.runtime.core.network;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The socket transport of the netty event loops. EPOLL uses the native edge-triggered
+ * epoll transport of netty and is only available on Linux, everywhere else NIO is used.
+ */
+public enum NetTransport {
+
+    NIO {
+
+        @Override
+        public EventLoopGroup createEventLoopGroup(int numThreads) { return new NioEventLoopGroup(numThreads); }
+
+        @Override
+        public Class<? extends ServerSocketChannel> getServerChannelClass() { return NioServerSocketChannel.class; }
+
+        @Override
+        public Class<? extends SocketChannel> getChannelClass() { return NioSocketChannel.class; }
+    },
+
+    EPOLL {
+
+        @Override
+        public EventLoopGroup createEventLoopGroup(int numThreads) { return new EpollEventLoopGroup(numThreads); }
+
+        @Override
+        public Class<? extends ServerSocketChannel> getServerChannelClass() { return EpollServerSocketChannel.class; }
+
+        @Override
+        public Class<? extends SocketChannel> getChannelClass() { return EpollSocketChannel.class; }
+    };
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private static final Logger LOG = LoggerFactory.getLogger(NetTransport.class);
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public abstract EventLoopGroup createEventLoopGroup(int numThreads);
+
+    public abstract Class<? extends ServerSocketChannel> getServerChannelClass();
+
+    public abstract Class<? extends SocketChannel> getChannelClass();
+
+    public static NetTransport select(NetTransport requested) {
+        if (requested == EPOLL && !Epoll.isAvailable()) {
+            LOG.warn("Native epoll transport is not available, falling back to NIO.", Epoll.unavailabilityCause());
+            return NIO;
+        }
+        return requested;
+    }
+}
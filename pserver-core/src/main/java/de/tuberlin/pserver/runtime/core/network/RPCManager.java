@@ -1,7 +1,9 @@
 package de.tuberlin.pserver.runtime.core.network;
 
 import com.google.common.base.Preconditions;
+import de.tuberlin.pserver.commons.hashtable.NonBlockingHashMapLong;
 import de.tuberlin.pserver.runtime.core.events.EventHandler;
+import de.tuberlin.pserver.runtime.core.lifecycle.Deactivatable;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,16 +12,13 @@ import java.io.Serializable;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
-public final class RPCManager {
+public final class RPCManager implements Deactivatable {
 
     // ---------------------------------------------------
     // RPC Events.
@@ -29,16 +28,17 @@ public final class RPCManager {
 
         private static final String RPC_REQUEST_EVENT = "rpc_request_event";
 
-        public final UUID callUID;
+        public final long callID;
 
         public final RPCManager.MethodSignature methodSignature;
 
-        public RPCCallerRequestEvent() { this(null, null); }
-        public RPCCallerRequestEvent(final UUID callUID,
+        public RPCCallerRequestEvent() { this(-1, null); }
+        public RPCCallerRequestEvent(final long callID,
                                      final RPCManager.MethodSignature methodSignature) {
 
             super(RPC_REQUEST_EVENT);
-            this.callUID = callUID;
+            this.isLatencyCritical = true;
+            this.callID = callID;
             this.methodSignature = methodSignature;
         }
     }
@@ -49,20 +49,28 @@ public final class RPCManager {
 
         private static final String RPC_RESPONSE_EVENT = "rpc_response_event";
 
-        public final UUID callUID;
+        public final long callID;
 
         public final Object result;
 
-        public RPCCalleeResponseEvent() { this(null, null); }
-        public RPCCalleeResponseEvent(final UUID callUID,
+        public RPCCalleeResponseEvent() { this(-1, null); }
+        public RPCCalleeResponseEvent(final long callID,
                                       final Object result) {
 
             super(RPC_RESPONSE_EVENT);
-            this.callUID = callUID;
+            this.isLatencyCritical = true;
+            this.callID = callID;
             this.result = result;
         }
     }
 
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    private static final long DEFAULT_RESPONSE_TIMEOUT = 150000; // in ms
+
+    private static final long REAPER_INTERVAL = 1000; // in ms
 
     // ---------------------------------------------------
     // Fields.
@@ -76,6 +84,14 @@ public final class RPCManager {
 
     private final ProtocolCalleeProxy calleeProxy;
 
+    // Every remote call is identified by a node-local, monotonically increasing id.
+    // The id is used to resolve the associated response from the remote site.
+    private final AtomicLong callIDGenerator;
+
+    private final NonBlockingHashMapLong<PendingCall> pendingCalls;
+
+    private final ScheduledExecutorService reaper;
+
     // ---------------------------------------------------
     // Constructors.
     // ---------------------------------------------------
@@ -85,7 +101,11 @@ public final class RPCManager {
 
         this.netManager = netManager;
 
-        this.cachedProxies = new HashMap<>();
+        this.cachedProxies = new ConcurrentHashMap<>();
+
+        this.callIDGenerator = new AtomicLong(0);
+
+        this.pendingCalls = new NonBlockingHashMapLong<>();
 
         final RPCEventHandler rpcEventHandler = new RPCEventHandler();
 
@@ -94,6 +114,14 @@ public final class RPCManager {
         this.netManager.addEventListener(rpcEvents, rpcEventHandler);
 
         this.calleeProxy = new ProtocolCalleeProxy();
+
+        this.reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread t = new Thread(r, "RPC-REAPER-THREAD");
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.reaper.scheduleWithFixedDelay(this::reapTimedOutCalls, REAPER_INTERVAL, REAPER_INTERVAL, TimeUnit.MILLISECONDS);
     }
 
     // ---------------------------------------------------
@@ -106,17 +134,83 @@ public final class RPCManager {
         calleeProxy.registerProtocol(protocolImplementation, protocolInterface);
     }
 
+    /**
+     * Returns a caller proxy for the protocol on the given machine. Protocol methods declaring a
+     * {@link CompletableFuture} (or one of its super types) as return type are issued asynchronously
+     * and complete with the remote result, all other methods block the caller until the response arrives.
+     */
     @SuppressWarnings("unchecked")
     public <T> T getRPCProtocolProxy(final Class<T> protocolInterface, final MachineDescriptor dstMachine) {
         Preconditions.checkNotNull(protocolInterface);
         Preconditions.checkNotNull(dstMachine);
         final Pair<Class<?>, UUID> proxyKey =  (Pair)Pair.of(protocolInterface, dstMachine.machineID);
-        T proxy = (T) cachedProxies.get(proxyKey);
-        if (proxy == null) {
-            proxy = ProtocolCallerProxy.createProtocolProxy(150000, dstMachine.machineID, protocolInterface, netManager);
-            cachedProxies.put(proxyKey, proxy);
+        return (T) cachedProxies.computeIfAbsent(proxyKey,
+                k -> createProtocolProxy(DEFAULT_RESPONSE_TIMEOUT, dstMachine.machineID, protocolInterface));
+    }
+
+    public int getNumOfPendingCalls() { return pendingCalls.size(); }
+
+    @Override
+    public void deactivate() {
+        reaper.shutdownNow();
+        for (final PendingCall call : pendingCalls.values())
+            call.future.cancel(false);
+        pendingCalls.clear();
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    private <T> T createProtocolProxy(final long responseTimeout,
+                                      final UUID dstMachineID,
+                                      final Class<T> protocolInterface) {
+
+        final ProtocolCallerProxy pc = new ProtocolCallerProxy(responseTimeout, dstMachineID, protocolInterface);
+        return (T) Proxy.newProxyInstance(protocolInterface.getClassLoader(), new Class[]{protocolInterface}, pc);
+    }
+
+    private CompletableFuture<Object> issueCall(final UUID dstMachineID, final MethodSignature methodInfo, final long responseTimeout) {
+        final long callID = callIDGenerator.getAndIncrement();
+        final long deadline = responseTimeout > 0 ? System.currentTimeMillis() + responseTimeout : Long.MAX_VALUE;
+        final PendingCall call = new PendingCall(deadline);
+        pendingCalls.put(callID, call);
+        try {
+            // push to server...
+            netManager.dispatchEventAt(dstMachineID, new RPCCallerRequestEvent(callID, methodInfo));
+        } catch (Exception e) {
+            pendingCalls.remove(callID);
+            call.future.completeExceptionally(e);
+        }
+        return call.future;
+    }
+
+    private void notifyCaller(final long callID, final Object result) {
+        final PendingCall call = pendingCalls.remove(callID);
+        // A missing entry means that the call was already reaped after its time-out.
+        if (call == null) {
+            LOG.debug("dropped late response of remote call " + callID);
+            return;
+        }
+        // TODO: should we pass a crashed call to the caller?
+        if (result instanceof Throwable)
+            call.future.completeExceptionally((Throwable) result);
+        else
+            call.future.complete(result);
+    }
+
+    private void reapTimedOutCalls() {
+        final long now = System.currentTimeMillis();
+        final Iterator<Long> it = pendingCalls.keySet().iterator();
+        while (it.hasNext()) {
+            final long callID = it.next();
+            final PendingCall call = pendingCalls.get(callID);
+            if (call != null && call.deadline < now && pendingCalls.remove(callID, call)) {
+                call.future.completeExceptionally(
+                        new TimeoutException("no result of remote call " + callID + " available"));
+            }
         }
-        return proxy;
     }
 
     // ---------------------------------------------------
@@ -127,65 +221,56 @@ public final class RPCManager {
 
         private static final long serialVersionUID = -1L;
 
-        public final String className;
+        public final int protocolID;
 
-        public final String methodName;
-
-        public final Class<?>[] argumentTypes;
+        public final int methodID;
 
         public final Object[] arguments;
 
-        public final Class<?> returnType;
-
-        public MethodSignature() { this(null, null, null, null, null); }
-        public MethodSignature(String className, String methodName, Class<?>[] argumentTypes, Object[] arguments, Class<?> returnType) {
-            this.className = className;
-            this.methodName = methodName;
-            if (arguments != null) {
-                this.argumentTypes = argumentTypes;
-                this.arguments = arguments;
-            } else {
-                this.argumentTypes = null;
-                this.arguments = null;
-            }
-            this.returnType = returnType;
+        public MethodSignature() { this(-1, -1, null); }
+        public MethodSignature(int protocolID, int methodID, Object[] arguments) {
+            this.protocolID = protocolID;
+            this.methodID = methodID;
+            this.arguments = arguments;
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------
+
+    private static final class PendingCall {
+
+        final CompletableFuture<Object> future;
+
+        final long deadline;
+
+        PendingCall(final long deadline) {
+            this.future   = new CompletableFuture<>();
+            this.deadline = deadline;
         }
     }
 
     // -----------------------------------------------------------------------------------------
 
-    @SuppressWarnings("unused")
-    private static final class ProtocolCallerProxy implements InvocationHandler {
+    private final class ProtocolCallerProxy implements InvocationHandler {
 
         private final long responseTimeout; // 5000; // in ms
 
         private final UUID dstMachineID;
 
-        private final NetManager netManager;
-
-        private final static Map<UUID, CountDownLatch> callerTable = Collections.synchronizedMap(new HashMap<UUID, CountDownLatch>());
+        private final MethodRegistry.MethodTable methodTable;
 
-        private final static Map<UUID, Object> callerResultTable = Collections.synchronizedMap(new HashMap<UUID, Object>());
+        private boolean isAsynchronous(final Class<?> returnType) {
+            return returnType != Object.class && returnType.isAssignableFrom(CompletableFuture.class);
+        }
 
-        public ProtocolCallerProxy(long responseTimeout, final UUID dstMachineID, final NetManager netManager) {
+        public ProtocolCallerProxy(long responseTimeout, final UUID dstMachineID, final Class<?> protocolInterface) {
             Preconditions.checkNotNull(dstMachineID);
-            Preconditions.checkNotNull(netManager);
 
             this.responseTimeout = responseTimeout;
 
             this.dstMachineID = dstMachineID;
 
-            this.netManager = netManager;
-        }
-
-        @SuppressWarnings("unchecked")
-        public static <T> T createProtocolProxy(final long responseTimeout,
-                                                final UUID dstMachineID,
-                                                final Class<T> protocolInterface,
-                                                final NetManager netManager) {
-
-            final ProtocolCallerProxy pc = new ProtocolCallerProxy(responseTimeout, dstMachineID, netManager);
-            return (T) Proxy.newProxyInstance(protocolInterface.getClassLoader(), new Class[]{protocolInterface}, pc);
+            this.methodTable = MethodRegistry.getMethodTable(protocolInterface);
         }
 
         @Override
@@ -203,55 +288,26 @@ public final class RPCManager {
             }
 
             final MethodSignature methodInfo =
-                    new MethodSignature(method.getDeclaringClass().getSimpleName(),
-                            method.getName(),
-                            method.getParameterTypes(),
-                            methodArguments,
-                            method.getReturnType());
-
-            // every remote call is identified by a unique id. The id is used to
-            // resolve the associated response from remote site.
-            final UUID callUID = UUID.randomUUID();
-            final CountDownLatch cdl = new CountDownLatch(1);
-            callerTable.put(callUID, cdl);
+                    new MethodSignature(methodTable.typeID,
+                            methodTable.getMethodID(method),
+                            methodArguments);
 
-            // push to server...
-            netManager.dispatchEventAt(dstMachineID, new RPCCallerRequestEvent(callUID, methodInfo));
+            final CompletableFuture<Object> future = issueCall(dstMachineID, methodInfo, responseTimeout);
+
+            // asynchronous protocol methods hand the pending call directly to the caller.
+            if (isAsynchronous(method.getReturnType()))
+                return future;
 
             try {
-                if (responseTimeout > 0) {
-                    // block the caller thread until we get some response...
-                    // ...but with a specified timeout to avoid indefinitely blocking of caller.
-                    cdl.await(responseTimeout, TimeUnit.MILLISECONDS);
-                } else {
-                    cdl.await();
-                }
+                // block the caller thread until we get some response...
+                return future.get();
             } catch (InterruptedException e) {
                 LOG.info(e.getLocalizedMessage());
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                // if is no result available, then a response time-out happened...
+                throw new IllegalStateException(e.getCause());
             }
-
-            // if is no result hasFree, then a response time-out happened...
-            if (!callerResultTable.containsKey(callUID))
-                throw new IllegalStateException("no result of remote call " + callUID + " hasFree");
-
-            // result is allowed to be null -> void as return primitiveType.
-            final Object result = callerResultTable.get(callUID);
-            // clean up our tables.
-            callerResultTable.remove(callUID);
-            callerTable.remove(callUID);
-
-            // TODO: should we pass a crashed call to the caller?
-            if (result instanceof Throwable)
-                throw new IllegalStateException((Throwable) result);
-
-            return result;
-        }
-
-        public static void notifyCaller(final UUID callUID, final Object result) {
-            Preconditions.checkNotNull(callUID);
-            callerResultTable.put(callUID, result);
-            final CountDownLatch cdl = callerTable.get(callUID);
-            cdl.countDown();
         }
     }
 
@@ -259,28 +315,41 @@ public final class RPCManager {
 
     private final class ProtocolCalleeProxy {
 
-        private final Map<String, Object> calleeTable = new HashMap<>();
+        private final Map<Integer, MethodRegistry.Dispatcher> calleeTable = new ConcurrentHashMap<>();
 
         public void registerProtocol(final Object protocolImplementation, final Class<?> protocolInterface) {
-            calleeTable.put(protocolInterface.getSimpleName(), protocolImplementation);
+            final MethodRegistry.MethodTable methodTable = MethodRegistry.getMethodTable(protocolInterface);
+            final MethodRegistry.Dispatcher registered = calleeTable.get(methodTable.typeID);
+            if (registered != null && registered.methodTable != methodTable)
+                throw new IllegalStateException("protocol id of " + protocolInterface.getName()
+                        + " collides with " + registered.methodTable.type.getName());
+            calleeTable.put(methodTable.typeID, methodTable.bind(protocolImplementation));
         }
 
-        public RPCCalleeResponseEvent callMethod(final UUID callUID, final MethodSignature methodInfo) {
-            Preconditions.checkNotNull(callUID);
+        public CompletableFuture<Object> callMethod(final MethodSignature methodInfo) {
             Preconditions.checkNotNull(methodInfo);
-            final Object protocolImplementation = calleeTable.get(methodInfo.className);
-            if (protocolImplementation == null) {
-                return new RPCCalleeResponseEvent(callUID, new IllegalStateException("found no protocol implementation"));
+            final CompletableFuture<Object> result = new CompletableFuture<>();
+            final MethodRegistry.Dispatcher dispatcher = calleeTable.get(methodInfo.protocolID);
+            if (dispatcher == null) {
+                result.completeExceptionally(new IllegalStateException("found no protocol implementation"));
+                return result;
             }
-            // Maybe we could do some caching of method signatures
-            // on the callee site for frequent repeated calls...
             try {
-                final Method method = protocolImplementation.getClass().getMethod(methodInfo.methodName, methodInfo.argumentTypes);
-                final Object result = method.invoke(protocolImplementation, methodInfo.arguments);
-                return new RPCCalleeResponseEvent(callUID, result);
-            } catch (Exception e) {
-                return new RPCCalleeResponseEvent(callUID, e);
+                final Object value = dispatcher.invoke(methodInfo.methodID, methodInfo.arguments);
+                // asynchronous implementations respond as soon as their future completes.
+                if (value instanceof CompletionStage) {
+                    ((CompletionStage<?>) value).whenComplete((v, t) -> {
+                        if (t != null)
+                            result.completeExceptionally(t);
+                        else
+                            result.complete(v);
+                    });
+                } else
+                    result.complete(value);
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
             }
+            return result;
         }
     }
 
@@ -296,16 +365,17 @@ public final class RPCManager {
 
                 @Override
                 public void run() {
-                    final RPCCalleeResponseEvent calleeMsg =
-                            calleeProxy.callMethod(event.callUID, event.methodSignature);
-                    netManager.dispatchEventAt(event.srcMachineID, calleeMsg);
+                    calleeProxy.callMethod(event.methodSignature).whenComplete((result, t) ->
+                            netManager.dispatchEventAt(event.srcMachineID,
+                                    new RPCCalleeResponseEvent(event.callID, t != null ? t : result))
+                    );
                 }
             });
         }
 
         @Handle(event = RPCCalleeResponseEvent.class)
         private void handleRPCResponse(final RPCCalleeResponseEvent event) {
-            ProtocolCallerProxy.notifyCaller(event.callUID, event.result);
+            notifyCaller(event.callID, event.result);
         }
     }
 }
@@ -0,0 +1,166 @@
+package de.tuberlin.pserver.runtime.core.network;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Channel to a peer over several connections (lanes). With a control lane, lane 0 carries
+ * latency critical events and non event messages (barriers, collectives, RPC), so they never
+ * queue behind bulk transfers. The other lanes carry the data events. All events of one type
+ * use the same data lane, which keeps them in send order. Events of different types and
+ * control messages are not ordered against each other, a barrier can overtake the data sent
+ * before it. Striping is therefore off by default and only suits programs that do not rely on
+ * that order. Inbound events of every lane refer to this channel, replies and read pausing
+ * therefore address the peer and not a lane.
+ */
+final class StripedNetChannel extends NetChannel {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private final boolean hasControlLane;
+
+    private final NetChannel[] lanes;
+
+    private final AtomicInteger numRegisteredLanes;
+
+    private final AtomicInteger nextStreamLane;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public StripedNetChannel(final MachineDescriptor descriptor,
+                             final NetChannelType type,
+                             final boolean hasControlLane,
+                             final int numLanes) {
+
+        super(descriptor, type, null);
+        if (numLanes < (hasControlLane ? 2 : 1))
+            throw new IllegalStateException("No data lane in a channel of " + numLanes + " lanes.");
+        this.hasControlLane     = hasControlLane;
+        this.lanes              = new NetChannel[numLanes];
+        this.numRegisteredLanes = new AtomicInteger();
+        this.nextStreamLane     = new AtomicInteger();
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    // Returns true if this was the last missing lane.
+    public boolean setLane(final int lane, final NetChannel netChannel) {
+        synchronized (lanes) {
+            if (lanes[lane] != null)
+                throw new IllegalStateException("Lane " + lane + " of " + descriptor + " is already connected.");
+            lanes[lane] = netChannel;
+        }
+        return numRegisteredLanes.incrementAndGet() == lanes.length;
+    }
+
+    public NetChannel getControlLane() { return hasControlLane ? lanes[0] : null; }
+
+    // Closes the connections of all registered lanes.
+    public void close() {
+        synchronized (lanes) {
+            for (final NetChannel lane : lanes) {
+                if (lane != null)
+                    lane.channel.close();
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> sendMsg(final Object msg) { return route(msg).sendMsg(msg); }
+
+    @Override
+    public void write(final Object msg) { route(msg).write(msg); }
+
+    // Chunks carry their offset, they are spread round robin over all data lanes.
+    @Override
+    public void writeStreamChunk(final NetStreamChunk chunk) {
+        final int first = firstDataLane();
+        lanes[first + (nextStreamLane.getAndIncrement() & Integer.MAX_VALUE) % (lanes.length - first)].write(chunk);
+    }
+
+    // Only data lanes are paused, control messages keep flowing.
+    @Override
+    public void setReadPaused(final boolean paused) {
+        for (int i = firstDataLane(); i < lanes.length; ++i)
+            lanes[i].setReadPaused(paused);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        int depth = 0;
+        for (final NetChannel lane : lanes)
+            depth += lane.getQueueDepth();
+        return depth;
+    }
+
+    @Override
+    public int getMaxQueueDepth() {
+        int depth = 0;
+        for (final NetChannel lane : lanes)
+            depth = Math.max(depth, lane.getMaxQueueDepth());
+        return depth;
+    }
+
+    @Override
+    public boolean isOverloaded() {
+        for (final NetChannel lane : lanes) {
+            if (lane.isOverloaded())
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public long getNumBlocked() {
+        long count = 0;
+        for (final NetChannel lane : lanes)
+            count += lane.getNumBlocked();
+        return count;
+    }
+
+    @Override
+    public long getNumFailed() {
+        long count = 0;
+        for (final NetChannel lane : lanes)
+            count += lane.getNumFailed();
+        return count;
+    }
+
+    @Override
+    public long getNumCoalesced() {
+        long count = 0;
+        for (final NetChannel lane : lanes)
+            count += lane.getNumCoalesced();
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("striped:");
+        for (int i = 0; i < lanes.length; ++i)
+            sb.append(i == 0 ? "[" : ", ").append(lanes[i]);
+        return sb.append("]").toString();
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private int firstDataLane() { return hasControlLane ? 1 : 0; }
+
+    private NetChannel route(final Object msg) {
+        if (!(msg instanceof NetEvent))
+            return lanes[0];
+        final NetEvent event = (NetEvent) msg;
+        if (hasControlLane && event.isLatencyCritical)
+            return lanes[0];
+        final int first = firstDataLane();
+        return lanes[first + (event.typeID() & Integer.MAX_VALUE) % (lanes.length - first)];
+    }
+}
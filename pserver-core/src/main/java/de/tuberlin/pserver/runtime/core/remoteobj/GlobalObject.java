@@ -1,52 +1,38 @@
 package de.tuberlin.pserver.runtime.core.remoteobj;
 
 import de.tuberlin.pserver.runtime.core.events.EventDispatcher;
+import de.tuberlin.pserver.runtime.core.network.MethodRegistry;
 import de.tuberlin.pserver.runtime.core.network.NetManager;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 public class GlobalObject<T> extends EventDispatcher {
 
     // ---------------------------------------------------
     // Fields.
     // ---------------------------------------------------
 
-    private final Map<Integer, Method> globalMethods;
+    private final MethodRegistry.Dispatcher dispatcher;
 
     // ---------------------------------------------------
     // Constructors.
     // ---------------------------------------------------
 
-    public GlobalObject(NetManager netManager, T instance, String globalObjectName) {
+    public GlobalObject(NetManager netManager, T instance, Class<?> globalObjectType, String globalObjectName) {
         super(true);
 
-        this.globalMethods = new HashMap<>();
-        List<Method> methods = Arrays.asList(Object.class.getMethods());
-        //methods.addAll(Arrays.asList(EventDispatcher.class.getMethods()));
-        for (Method method : instance.getClass().getMethods()) {
-            if (!methods.contains(method) && !Modifier.isStatic(method.getModifiers())) {
-                globalMethods.put(MethodInvocationMsg.getMethodID(method), method);
-            }
-        }
+        // Method ids are derived from the interface the remote proxies are created for.
+        this.dispatcher = MethodRegistry.getMethodTable(globalObjectType).bind(instance);
 
         netManager.addEventListener(MethodInvocationMsg.METHOD_INVOCATION_EVENT + "_" + globalObjectName , (event) -> {
             MethodInvocationMsg mim = (MethodInvocationMsg) event;
-            Method calledMethod = globalMethods.get(mim.methodID);
             Object res = null;
 
-            if (calledMethod == null)
-                throw new UnsupportedOperationException("msg.methodID = " + mim.methodID);
+            if (mim.classID != dispatcher.methodTable.typeID)
+                throw new UnsupportedOperationException("msg.classID = " + mim.classID);
 
             try {
-                res = calledMethod.invoke(instance, mim.arguments);
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                res = e;
+                res = dispatcher.invoke(mim.methodID, mim.arguments);
+            } catch (Throwable t) {
+                res = t;
             }
 
             mim.netChannel.sendMsg(
@@ -1,6 +1,7 @@
 package de.tuberlin.pserver.runtime.core.remoteobj;
 
 import de.tuberlin.pserver.runtime.core.network.MachineDescriptor;
+import de.tuberlin.pserver.runtime.core.network.MethodRegistry;
 import de.tuberlin.pserver.runtime.core.network.NetManager;
 
 import java.lang.reflect.InvocationHandler;
@@ -25,6 +26,8 @@ public final class GlobalObjectProxy implements InvocationHandler {
 
     private final NetManager netManager;
 
+    private final MethodRegistry.MethodTable methodTable;
+
     private final Map<UUID, CountDownLatch> requestLatches;
 
     private final Map<UUID, Object> resultObjects;
@@ -43,13 +46,14 @@ public final class GlobalObjectProxy implements InvocationHandler {
         this.netManager = netManager;
         this.remoteNetDescriptor = remoteNetDescriptor;
         this.classType = classType;
+        this.methodTable    = MethodRegistry.getMethodTable(classType);
         this.requestLatches = new ConcurrentHashMap<>();
         this.resultObjects = new ConcurrentHashMap<>();
         this.globalObjectName = globalObjectName;
 
         netManager.addEventListener(MethodInvocationMsg.METHOD_INVOCATION_EVENT + "_" + globalObjectName, (event) -> {
             MethodInvocationMsg mim = (MethodInvocationMsg)event;
-            if (mim.classID == classType.hashCode() && requestLatches.containsKey(mim.callID)) {
+            if (mim.classID == methodTable.typeID && requestLatches.containsKey(mim.callID)) {
                 CountDownLatch cdl = requestLatches.remove(mim.callID);
                 if (mim.result != null)
                     resultObjects.put(mim.callID, mim.result);
@@ -67,8 +71,8 @@ public final class GlobalObjectProxy implements InvocationHandler {
         MethodInvocationMsg invokeMsg = new MethodInvocationMsg(
                 globalObjectName,
                 callID,
-                classType.hashCode(),
-                MethodInvocationMsg.getMethodID(method),
+                methodTable.typeID,
+                methodTable.getMethodID(method),
                 arguments,
                 null
         );
@@ -2,7 +2,6 @@ package de.tuberlin.pserver.runtime.core.remoteobj;
 
 import de.tuberlin.pserver.runtime.core.network.NetEvent;
 
-import java.lang.reflect.Method;
 import java.util.UUID;
 
 
@@ -35,19 +34,11 @@ public final class MethodInvocationMsg extends NetEvent {
     public MethodInvocationMsg() { this(null, null, -1, -1, null, null); }
     public MethodInvocationMsg(String globalObjectName, UUID callID, int classID, int methodID, Object[] arguments, Object result) {
         super(METHOD_INVOCATION_EVENT + "_" + globalObjectName);
+        this.isLatencyCritical = true;
         this.callID = callID;
         this.classID = classID;
         this.methodID = methodID;
         this.arguments = arguments;
         this.result = result;
     }
-
-    public static int getMethodID(Method method) {
-        StringBuilder strBuilder = new StringBuilder();
-        strBuilder.append(method.getName());
-        for (Class<?> cl : method.getParameterTypes()) {
-            strBuilder.append(cl.getSimpleName());
-        }
-        return strBuilder.toString().hashCode();
-    }
 }
@@ -8,6 +8,7 @@ import de.javakaffee.kryoserializers.guava.ImmutableListSerializer;
 import de.javakaffee.kryoserializers.guava.ImmutableMapSerializer;
 import de.javakaffee.kryoserializers.guava.ImmutableMultimapSerializer;
 import de.javakaffee.kryoserializers.guava.ImmutableSetSerializer;
+import org.objenesis.strategy.StdInstantiatorStrategy;
 
 import java.lang.reflect.InvocationHandler;
 import java.util.Arrays;
@@ -20,6 +21,8 @@ public enum KryoFactory {
 
     public Kryo create() {
         Kryo kryo = new Kryo();
+        // Fall back to objenesis for classes without no-arg constructor (e.g. commons-lang Pair/Triple).
+        kryo.setInstantiatorStrategy(new Kryo.DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
         kryo.register(Arrays.asList("").getClass(), new ArraysAsListSerializer());
         kryo.register(Collections.EMPTY_LIST.getClass(), new CollectionsEmptyListSerializer());
         kryo.register(Collections.EMPTY_MAP.getClass(), new DefaultSerializers.CollectionsEmptyMapSerializer());
@@ -0,0 +1,135 @@
+package de.tuberlin.pserver.runtime.core.serializer;
+
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes float values in a reduced wire precision and reads them back as 32-bit floats.
+ * FP16 rounds to nearest even. INT8 splits the values into blocks that share the scale
+ * max(|v|) / 127, each value is rounded stochastically so that its expectation is exact.
+ */
+public final class LowPrecisionCodec {
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    public static final int INT8_BLOCK_SIZE = 256;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    private LowPrecisionCodec() {}
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public static void write(final Output output, final WirePrecision precision, final float[] values, final int length) {
+        switch (precision) {
+            case FULL:
+                for (int i = 0; i < length; ++i)
+                    output.writeFloat(values[i]);
+                break;
+            case FP16:
+                for (int i = 0; i < length; ++i)
+                    output.writeShort(toHalf(values[i]));
+                break;
+            case INT8:
+                writeInt8(output, values, length);
+                break;
+        }
+    }
+
+    public static float[] read(final Input input, final WirePrecision precision, final int length) {
+        final float[] values = new float[length];
+        switch (precision) {
+            case FULL:
+                for (int i = 0; i < length; ++i)
+                    values[i] = input.readFloat();
+                break;
+            case FP16:
+                for (int i = 0; i < length; ++i)
+                    values[i] = fromHalf(input.readShort());
+                break;
+            case INT8:
+                readInt8(input, values, length);
+                break;
+        }
+        return values;
+    }
+
+    public static short toHalf(final float value) {
+        final int bits = Float.floatToRawIntBits(value);
+        final int sign = (bits >>> 16) & 0x8000;
+        final int abs = bits & 0x7fffffff;
+        if (abs >= 0x7f800000) // Infinity and NaN.
+            return (short) (sign | 0x7c00 | (abs > 0x7f800000 ? 0x200 : 0));
+        if (abs >= 0x477ff000) // Rounds beyond the largest half.
+            return (short) (sign | 0x7c00);
+        if (abs >= 0x38800000) { // Normal half, rebias the exponent from 127 to 15.
+            int half = (abs - 0x38000000) >>> 13;
+            final int rest = abs & 0x1fff;
+            if (rest > 0x1000 || (rest == 0x1000 && (half & 1) != 0))
+                ++half;
+            return (short) (sign | half);
+        }
+        if (abs < 0x33000000) // Below half the smallest subnormal half.
+            return (short) sign;
+        final int shift = 126 - (abs >>> 23);
+        final int mantissa = (abs & 0x7fffff) | 0x800000;
+        int half = mantissa >>> shift;
+        final int rest = mantissa & ((1 << shift) - 1);
+        final int midpoint = 1 << (shift - 1);
+        if (rest > midpoint || (rest == midpoint && (half & 1) != 0))
+            ++half;
+        return (short) (sign | half);
+    }
+
+    public static float fromHalf(final short half) {
+        final int bits = half & 0xffff;
+        final int sign = (bits & 0x8000) << 16;
+        final int exponent = (bits >>> 10) & 0x1f;
+        final int mantissa = bits & 0x3ff;
+        if (exponent == 0) {
+            final float value = mantissa * 0x1p-24f;
+            return sign != 0 ? -value : value;
+        }
+        if (exponent == 0x1f)
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private static void writeInt8(final Output output, final float[] values, final int length) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int start = 0; start < length; start += INT8_BLOCK_SIZE) {
+            final int end = Math.min(start + INT8_BLOCK_SIZE, length);
+            float max = 0f;
+            for (int i = start; i < end; ++i)
+                max = Math.max(max, Math.abs(values[i]));
+            final float scale = max / 127f;
+            output.writeFloat(scale);
+            for (int i = start; i < end; ++i) {
+                final int q = scale == 0f ? 0 : (int) Math.floor(values[i] / scale + random.nextFloat());
+                output.writeByte(Math.max(-127, Math.min(127, q)));
+            }
+        }
+    }
+
+    private static void readInt8(final Input input, final float[] values, final int length) {
+        for (int start = 0; start < length; start += INT8_BLOCK_SIZE) {
+            final int end = Math.min(start + INT8_BLOCK_SIZE, length);
+            final float scale = input.readFloat();
+            for (int i = start; i < end; ++i)
+                values[i] = input.readByte() * scale;
+        }
+    }
+}
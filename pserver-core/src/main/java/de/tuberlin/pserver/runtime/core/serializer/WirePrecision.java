@@ -0,0 +1,14 @@
+package de.tuberlin.pserver.runtime.core.serializer;
+
+
+public enum WirePrecision {
+
+    // 32-bit floats, the values are sent unchanged.
+    FULL,
+
+    // IEEE 754 half precision, 2 bytes per value.
+    FP16,
+
+    // Stochastically rounded 8-bit integers with a float scale per block, ~1 byte per value.
+    INT8
+}
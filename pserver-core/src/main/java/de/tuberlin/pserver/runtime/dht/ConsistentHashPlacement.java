@@ -0,0 +1,93 @@
+package de.tuberlin.pserver.runtime.dht;
+
+
+import com.google.common.base.Preconditions;
+import de.tuberlin.pserver.runtime.core.network.MachineDescriptor;
+
+import java.util.*;
+
+/**
+ * Consistent hash ring with virtual nodes. Every machine owns virtualNodes * weight tokens
+ * on the ring, a value is placed at the owners of the first tokens clockwise from its hash.
+ * Adding a machine only changes the placement of the values that fall into the ranges of its
+ * new tokens, about weight / totalWeight of all values, removing a machine only changes the
+ * placement of the values it owned. The strategy only computes placements, stored values are
+ * not migrated when the machines change (see {@link DHTPlacementStrategy}).
+ */
+public final class ConsistentHashPlacement implements DHTPlacementStrategy {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private final int virtualNodes;
+
+    private final NavigableMap<Long, MachineDescriptor> ring = new TreeMap<>();
+
+    private final Map<MachineDescriptor, Integer> weights = new HashMap<>();
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public ConsistentHashPlacement(final int virtualNodes) {
+        Preconditions.checkArgument(virtualNodes > 0);
+        this.virtualNodes = virtualNodes;
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    @Override
+    public synchronized void addMachine(final MachineDescriptor machine, final int weight) {
+        Preconditions.checkNotNull(machine);
+        Preconditions.checkArgument(weight > 0);
+        removeMachine(machine);
+        weights.put(machine, weight);
+        final long machineHash = DHTPlacementStrategy.hash(machine.machineID);
+        for (int i = 0; i < virtualNodes * weight; ++i) {
+            long token = DHTPlacementStrategy.mix64(machineHash + i);
+            // Resolve the (very unlikely) token collisions by linear probing.
+            while (ring.containsKey(token))
+                ++token;
+            ring.put(token, machine);
+        }
+    }
+
+    @Override
+    public synchronized void removeMachine(final MachineDescriptor machine) {
+        if (weights.remove(machine) != null)
+            ring.values().removeIf(machine::equals);
+    }
+
+    @Override
+    public synchronized boolean containsMachine(final MachineDescriptor machine) { return weights.containsKey(machine); }
+
+    public synchronized int getWeight(final MachineDescriptor machine) { return weights.getOrDefault(machine, 0); }
+
+    @Override
+    public synchronized List<MachineDescriptor> selectMachines(final UUID internalUID, final int numMachines) {
+        Preconditions.checkNotNull(internalUID);
+        Preconditions.checkState(!ring.isEmpty());
+        final int n = Math.min(numMachines, weights.size());
+        final List<MachineDescriptor> selected = new ArrayList<>(n);
+        final long hash = DHTPlacementStrategy.hash(internalUID);
+        walk(ring.tailMap(hash, true).values(), selected, n);
+        walk(ring.headMap(hash, false).values(), selected, n);
+        return selected;
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private static void walk(final Collection<MachineDescriptor> tokens, final List<MachineDescriptor> selected, final int n) {
+        for (final MachineDescriptor machine : tokens) {
+            if (selected.size() == n)
+                return;
+            if (!selected.contains(machine))
+                selected.add(machine);
+        }
+    }
+}
@@ -14,17 +14,15 @@ import de.tuberlin.pserver.runtime.core.network.MachineDescriptor;
 import de.tuberlin.pserver.runtime.core.network.NetEvent;
 import de.tuberlin.pserver.runtime.core.network.NetManager;
 import de.tuberlin.pserver.runtime.dht.types.AbstractBufferedDHTObject;
-import org.apache.commons.lang3.ArrayUtils;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 
 public final class DHTManager extends EventDispatcher implements Deactivatable {
 
@@ -124,6 +122,40 @@ public final class DHTManager extends EventDispatcher implements Deactivatable {
         }
     }
 
+    // ---------------------------------------------------
+
+    /**
+     * Bounded cache of prefetched segments. A cached segment is handed out once and then
+     * dropped, so a later get always observes the segment state after the prefetch was issued.
+     */
+    private static final class SegmentPrefetchCache {
+
+        private final Map<Pair<UUID,Integer>, CompletableFuture<AbstractBufferedDHTObject.Segment>> segments;
+
+        public SegmentPrefetchCache(final int capacity) {
+            this.segments = new LinkedHashMap<Pair<UUID,Integer>, CompletableFuture<AbstractBufferedDHTObject.Segment>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Pair<UUID,Integer>, CompletableFuture<AbstractBufferedDHTObject.Segment>> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        public synchronized boolean contains(final UUID uid, final int segmentIndex) {
+            return segments.containsKey(Pair.of(uid, segmentIndex));
+        }
+
+        public synchronized void put(final UUID uid, final int segmentIndex, final CompletableFuture<AbstractBufferedDHTObject.Segment> segment) {
+            segments.put(Pair.of(uid, segmentIndex), segment);
+        }
+
+        public synchronized CompletableFuture<AbstractBufferedDHTObject.Segment> take(final UUID uid, final int segmentIndex) {
+            return segments.isEmpty() ? null : segments.remove(Pair.of(uid, segmentIndex));
+        }
+
+        public synchronized void clear() { segments.clear(); }
+    }
+
     // ---------------------------------------------------
     // Fields.
     // ---------------------------------------------------
@@ -132,6 +164,12 @@ public final class DHTManager extends EventDispatcher implements Deactivatable {
 
     private static long RESPONSE_TIMEOUT = 55000; // in ms
 
+    public static final String PREFETCH_CACHE_SIZE = "worker.dht.prefetchCacheSize";
+
+    public static final String PLACEMENT = "worker.dht.placement";
+
+    public static final String VIRTUAL_NODES = "worker.dht.virtualNodes";
+
     private static final Object globalDHTMutex = new Object();
 
     //private static final AtomicReference<DHTManager> globalDHTInstance = new AtomicReference<>(null);
@@ -156,15 +194,19 @@ public final class DHTManager extends EventDispatcher implements Deactivatable {
 
     private final GlobalKeyDirectory globalKeyDirectory;
 
+    private final DHTPlacementStrategy placementStrategy;
+
     // ---------------------------------------
 
     private final ExecutorService executor = Executors.newCachedThreadPool();
 
-    private final Map<UUID,CountDownLatch> requestTable = new NonBlockingHashMap<>();
+    private final ScheduledExecutorService timeoutScheduler;
+
+    private final Map<UUID,CompletableFuture<AbstractBufferedDHTObject>> pendingValueRequests = new NonBlockingHashMap<>();
 
-    private final Map<UUID,AbstractBufferedDHTObject> responseValueTable = new NonBlockingHashMap<>();
+    private final Map<UUID,CompletableFuture<AbstractBufferedDHTObject.Segment[]>> pendingSegmentsRequests = new NonBlockingHashMap<>();
 
-    private final Map<UUID,AbstractBufferedDHTObject.Segment[]> responseSegmentsTable = new NonBlockingHashMap<>();
+    private final SegmentPrefetchCache prefetchCache;
 
     // ---------------------------------------------------
     // Constructors.
@@ -190,6 +232,19 @@ public final class DHTManager extends EventDispatcher implements Deactivatable {
 
         this.compressionType = Compressor.CompressionType.NO_COMPRESSION;
 
+        this.placementStrategy = DHTPlacementStrategy.create(
+                config.hasPath(PLACEMENT) ? DHTPlacementStrategy.PlacementType.valueOf(config.getString(PLACEMENT)) : DHTPlacementStrategy.PlacementType.CONSISTENT_HASH,
+                config.hasPath(VIRTUAL_NODES) ? config.getInt(VIRTUAL_NODES) : 128
+        );
+
+        this.prefetchCache  = new SegmentPrefetchCache(config.hasPath(PREFETCH_CACHE_SIZE) ? config.getInt(PREFETCH_CACHE_SIZE) : 1024);
+
+        this.timeoutScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "DHT-TIMEOUT-THREAD");
+            thread.setDaemon(true);
+            return thread;
+        });
+
         // Register DHT events.
         netManager.addEventListener(DHT_EVENT_PUT_VALUE, new DHTPutValueHandler());
         netManager.addEventListener(DHT_EVENT_PUT_SEGMENTS, new DHTPutSegmentsHandler());
@@ -207,11 +262,13 @@ public final class DHTManager extends EventDispatcher implements Deactivatable {
 
     public void clearContext() {
         globalKeyDirectory.clearContext();
+        prefetchCache.clear();
         store.clear();
     }
 
     @Override
     public void deactivate() {
+        timeoutScheduler.shutdownNow();
         super.deactivate();
     }
 
@@ -263,14 +320,13 @@ public final class DHTManager extends EventDispatcher implements Deactivatable {
     private final class DHTGetValueResponseHandler implements IEventHandler {
         @Override
         public void handleEvent(final Event e) {
-            executor.execute(() -> {
-                @SuppressWarnings("unchecked")
-                final Pair<UUID,AbstractBufferedDHTObject> response = (Pair<UUID,AbstractBufferedDHTObject>) e.getPayload();
-                final AbstractBufferedDHTObject value = response.getValue();
-                //value.decompress(); // TODO: Decompression!
-                responseValueTable.put(response.getKey(), value);
-                requestTable.remove(response.getKey()).countDown();
-            });
+            @SuppressWarnings("unchecked")
+            final Pair<UUID,AbstractBufferedDHTObject> response = (Pair<UUID,AbstractBufferedDHTObject>) e.getPayload();
+            final AbstractBufferedDHTObject value = response.getValue();
+            //value.decompress(); // TODO: Decompression!
+            final CompletableFuture<AbstractBufferedDHTObject> future = pendingValueRequests.remove(response.getKey());
+            if (future != null) // Otherwise the request already timed out.
+                executor.execute(() -> future.complete(value));
         }
     }
 
@@ -294,12 +350,11 @@ public final class DHTManager extends EventDispatcher implements Deactivatable {
     private final class DHTGetSegmentsResponseHandler implements IEventHandler {
         @Override
         public void handleEvent(final Event e) {
-            executor.execute(() -> {
-                @SuppressWarnings("unchecked")
-                final Pair<UUID,AbstractBufferedDHTObject.Segment[]> response = (Pair<UUID,AbstractBufferedDHTObject.Segment[]>) e.getPayload();
-                responseSegmentsTable.put(response.getKey(), response.getValue());
-                requestTable.remove(response.getKey()).countDown();
-            });
+            @SuppressWarnings("unchecked")
+            final Pair<UUID,AbstractBufferedDHTObject.Segment[]> response = (Pair<UUID,AbstractBufferedDHTObject.Segment[]>) e.getPayload();
+            final CompletableFuture<AbstractBufferedDHTObject.Segment[]> future = pendingSegmentsRequests.remove(response.getKey());
+            if (future != null) // Otherwise the request already timed out.
+                executor.execute(() -> future.complete(response.getValue()));
         }
     }
 
@@ -326,6 +381,16 @@ public final class DHTManager extends EventDispatcher implements Deactivatable {
 
     public int getNumberOfDHTNodes() { return getDHTNodes().size(); }
 
+    public DHTPlacementStrategy getPlacementStrategy() { return placementStrategy; }
+
+    /**
+     * Sets the relative storage capacity of a machine. Only values that are put afterwards are
+     * placed according to the new weight, all nodes must set the same weights.
+     */
+    public void setMachineWeight(final MachineDescriptor machine, final int weight) {
+        placementStrategy.addMachine(Preconditions.checkNotNull(machine), weight);
+    }
+
     // ---------------------------------------------------
 
     /**
@@ -344,57 +409,35 @@ public final class DHTManager extends EventDispatcher implements Deactivatable {
         if ((key.getPartitionDirectory() == null || key.getPartitionDirectory().size() == 0)
                 && globalKeyDirectory.get(key.internalUID) == null) {
 
-            // Select the machine where the value or the first value partition is stored.
-            final MachineDescriptor primaryMachine = selectMachineForKey(key);
-            // The beginning segment index of this partition.
-            int basePartitionSegmentIndex = 0;
-            // Create an partition descriptor of this value.
-            final DHTKey.PartitionDescriptor ppd =
-                    new DHTKey.PartitionDescriptor(
-                            0,                                          // Partition index.
-                            vals[0].getPartitionSize(),                 // Size of the partition.
-                            0,                                          // Global byte offset.
-                            basePartitionSegmentIndex,                  // Beginning segment index of this partition.
-                            vals[0].getPartitionSize() / segmentSize,   // Number of segments this partition consists of.
-                            segmentSize,                                // Size of a segment. (all segments have equal length).
-                            primaryMachine                              // The machine where the partition is stored.
-                    );
-            // Add descriptor to the keys' partition directory.
-            key.addPartitionDirectoryEntry(nodeID, ppd);
-
             // At the moment we does not allow local storage of multiple values...
             if (vals.length > 1 && key.distributionMode == DHTKey.DistributionMode.LOCAL)
                 throw new IllegalStateException();
 
-            // If we have more value partitions.
-            if (vals.length > 1) {
-                // Create a list of machines where the remaining value partitions are stored.
-                final List<MachineDescriptor> secondaryMachines = new ArrayList<>(getDHTNodes());
-                secondaryMachines.remove(primaryMachine);
-                // Compute beginning segment index of the next value partition.
-                basePartitionSegmentIndex += vals[0].getPartitionSize() / segmentSize;
-                // Compute global offset of the value partition.
-                int globalOffset = vals[0].getPartitionSize();
-                // Iterate over the remaining value partitions and
-                // create the corresponding partition descriptors.
-                for (int i = 1; i < vals.length; ++i) {
-                    final MachineDescriptor remoteMachine = secondaryMachines.get(i - 1);
-                    final DHTKey.PartitionDescriptor pd =
-                            new DHTKey.PartitionDescriptor(
-                                    i,                              // Partition index.
-                                    vals[i].getPartitionSize(),     // Size of the partition.
-                                    globalOffset,                   // Global byte offset
-                                    basePartitionSegmentIndex,      // Beginning segment index of this partition.
-                                    vals[i].getPartitionSize() / segmentSize, // Number of segments this partition consists of.
-                                    segmentSize,                    // Size of a segment. (all segments have equal length).
-                                    remoteMachine                   // The machine where the partition is stored.
-                            );
-
-                    // Add descriptor to the keys' partition directory.
-                    key.addPartitionDirectoryEntry(infraManager.getMachineIndex(remoteMachine), pd);
-                    basePartitionSegmentIndex += pd.numberOfSegments;
-                    globalOffset += vals[i].getPartitionSize();
-                }
+            // Select the machines where the value partitions are stored, the first one holds the primary partition.
+            final List<MachineDescriptor> machines = selectMachinesForKey(key, vals.length);
+            Preconditions.checkState(machines.size() == vals.length, "More value partitions than DHT nodes.");
+            // The beginning segment index of the next value partition.
+            int basePartitionSegmentIndex = 0;
+            // The global byte offset of the next value partition.
+            long globalOffset = 0;
+            // Iterate over the value partitions and create the corresponding partition descriptors.
+            for (int i = 0; i < vals.length; ++i) {
+                final MachineDescriptor machine = machines.get(i);
+                final DHTKey.PartitionDescriptor pd =
+                        new DHTKey.PartitionDescriptor(
+                                i,                              // Partition index.
+                                vals[i].getPartitionSize(),     // Size of the partition.
+                                globalOffset,                   // Global byte offset
+                                basePartitionSegmentIndex,      // Beginning segment index of this partition.
+                                vals[i].getPartitionSize() / segmentSize, // Number of segments this partition consists of.
+                                segmentSize,                    // Size of a segment. (all segments have equal length).
+                                machine                         // The machine where the partition is stored.
+                        );
+
+                // Add descriptor to the keys' partition directory, indexed by the storing node.
+                key.addPartitionDirectoryEntry(infraManager.getMachineIndex(machine), pd);
+                basePartitionSegmentIndex += pd.numberOfSegments;
+                globalOffset += vals[i].getPartitionSize();
             }
 
             globalKeyDirectory.globalPut(key);
@@ -402,15 +445,13 @@ public final class DHTManager extends EventDispatcher implements Deactivatable {
 
         // Iterate over the partition directory and distribute
         // the value partitions to their assigned machines.
-        final Iterator<DHTKey.PartitionDescriptor> it = key.getPartitionDirectory().values().iterator();
-        for (int i = 0; i < key.getPartitionDirectory().size(); ++i) {
-            final DHTKey.PartitionDescriptor pd = it.next();
+        for (final DHTKey.PartitionDescriptor pd : key.getPartitionDirectory().values()) {
             if (isLocal(pd.machine)) {
-                localPut(key, vals[i]);
+                localPut(key, vals[pd.partitionIndex]);
             } else {
                 // Remote put.
                 final NetEvent e = new NetEvent(DHT_EVENT_PUT_VALUE);
-                e.setPayload(Pair.of(key, vals[i]));
+                e.setPayload(Pair.of(key, vals[pd.partitionIndex]));
                 netManager.dispatchEventAt(pd.machine, e);
             }
         }
@@ -441,6 +482,8 @@ public final class DHTManager extends EventDispatcher implements Deactivatable {
         // Group all segments according to their storage locations/dhtManager at.
         final Map<MachineDescriptor, List<AbstractBufferedDHTObject.Segment>> putRequests = new HashMap<>();
         for (final AbstractBufferedDHTObject.Segment segment : segments) {
+            // Prefetched copies of the segment are outdated now.
+            prefetchCache.take(key.internalUID, segment.segmentIndex);
             final MachineDescriptor md = key.getDHTNodeFromSegmentIndex(segment.segmentIndex);
             List<AbstractBufferedDHTObject.Segment> segmentsToPut = putRequests.get(md);
             if (segmentsToPut == null) {
@@ -473,126 +516,170 @@ public final class DHTManager extends EventDispatcher implements Deactivatable {
     // ---------------------------------------------------
 
     /**
-     * Get a <Code>Value</Code> from the dhtManager.
+     * Get a <Code>Value</Code> from the dhtManager. Partitions of remote nodes that did not
+     * respond within the response timeout are null. The future of {@link #getAsync(DHTKey)}
+     * completes in the calling thread if all partitions are local and on the worker pool of
+     * the dhtManager otherwise, never on a network thread, so its continuations may block.
      * @param key The key that is associated with the value object.
      * @return The gathered <Code>Value</Code> partitions.
      */
-    public AbstractBufferedDHTObject[] get(final DHTKey key) {
+    public AbstractBufferedDHTObject[] get(final DHTKey key) { return await(getAsync(key)); }
+
+    public CompletableFuture<AbstractBufferedDHTObject[]> getAsync(final DHTKey key) {
         Preconditions.checkNotNull(key);
         final int numberOfPartitions = key.getPartitionDirectory().size();
         final AbstractBufferedDHTObject[] values = new AbstractBufferedDHTObject[numberOfPartitions];
-        final CountDownLatch operationCompleteLatch = new CountDownLatch(numberOfPartitions);
+        final List<CompletableFuture<Void>> requests = new ArrayList<>(numberOfPartitions);
         // Iterate over keys' partition directory and request all partitions.
-        // Internally we span multiple threads to parallelize the value requests.
         for (final Map.Entry<Integer,DHTKey.PartitionDescriptor> entry : key.getPartitionDirectory().entrySet()) {
             final DHTKey.PartitionDescriptor pd = entry.getValue();
             if (isLocal(pd.machine)) {
                 values[pd.partitionIndex] = __get(key);
                 logDHTAction(key, DHTAction.GET_VALUE);
-                operationCompleteLatch.countDown();
-            } else {
-                executor.submit(() -> {
-                    values[pd.partitionIndex] = getRemoteValueBlocking(pd.machine, key);
-                    operationCompleteLatch.countDown();
-                });
-            }
-        }
-        try {
-            // Wait until all value partitions are collected from remote at.
-            operationCompleteLatch.await();
-        } catch (InterruptedException e) {
-            throw new IllegalStateException(e);
-        }
-        return values;
-    }
-
-    private AbstractBufferedDHTObject getRemoteValueBlocking(final MachineDescriptor machine, final DHTKey key) {
-        final CountDownLatch cdl = new CountDownLatch(1);
-        final UUID requestID = UUID.randomUUID();
-        requestTable.put(requestID, cdl);
-        final NetEvent e = new NetEvent(DHT_EVENT_GET_VALUE_REQUEST);
-        e.setPayload(Pair.of(requestID, key));
-        netManager.dispatchEventAt(machine, e);
-        try {
-            if (RESPONSE_TIMEOUT > 0) {
-                // block the caller thread until we get some response...
-                // ...but with a specified timeout to avoid indefinitely blocking of caller.
-                cdl.await(RESPONSE_TIMEOUT, TimeUnit.MILLISECONDS);
             } else
-                cdl.await();
-        } catch (InterruptedException ie) {
-            throw new IllegalStateException(ie);
+                requests.add(requestRemoteValue(pd.machine, key).thenAccept(value -> values[pd.partitionIndex] = value));
         }
-        return responseValueTable.remove(requestID);
+        return CompletableFuture.allOf(requests.toArray(new CompletableFuture[requests.size()])).thenApply(v -> values);
     }
 
     // The returned segment array order does correspond to order in segmentIndices.
     public AbstractBufferedDHTObject.Segment[] get(final DHTKey key, final int segmentIndex) { return get(key, new int[] { segmentIndex }); }
-    public AbstractBufferedDHTObject.Segment[] get(final DHTKey key, final int[] segmentIndices) {
+    public AbstractBufferedDHTObject.Segment[] get(final DHTKey key, final int[] segmentIndices) { return await(getAsync(key, segmentIndices)); }
+
+    /**
+     * Requests the given segments without blocking the caller. Segments that were prefetched
+     * are taken from the prefetch cache, all other segments are requested from their nodes
+     * with one request per node. Segments of nodes that did not respond within the response
+     * timeout are null. The future completes on the worker pool of the dhtManager, or in the
+     * calling thread if no remote segment is requested, never on a network thread.
+     * @param key The key that is associated with the value object.
+     * @param segmentIndices The indices of the requested segments.
+     * @return A future of the segments, in the order of segmentIndices.
+     */
+    public CompletableFuture<AbstractBufferedDHTObject.Segment[]> getAsync(final DHTKey key, final int[] segmentIndices) {
         Preconditions.checkNotNull(key);
         Preconditions.checkNotNull(segmentIndices);
         final AbstractBufferedDHTObject.Segment[] segments = new AbstractBufferedDHTObject.Segment[segmentIndices.length];
+        // Position of each segment index in the result array.
+        final TIntIntHashMap positions = new TIntIntHashMap(segmentIndices.length * 2, 0.5f, -1, -1);
+        final List<CompletableFuture<Void>> requests = new ArrayList<>();
         // Build all requests and group them according to the dhtManager at.
-        final Map<MachineDescriptor, List<Integer>> requests = new HashMap<>();
-        for (final int segmentIndex : segmentIndices) {
+        final Map<MachineDescriptor, TIntArrayList> requestedSegments = new HashMap<>();
+        for (int i = 0; i < segmentIndices.length; ++i) {
+            final int segmentIndex = segmentIndices[i];
+            if (positions.putIfAbsent(segmentIndex, i) != -1)
+                continue; // Duplicate index, filled in at the end.
+            final CompletableFuture<AbstractBufferedDHTObject.Segment> prefetched = prefetchCache.take(key.internalUID, segmentIndex);
+            if (prefetched != null) {
+                final int position = i;
+                requests.add(prefetched.thenAccept(segment -> segments[position] = segment));
+                continue;
+            }
             final MachineDescriptor md = key.getDHTNodeFromSegmentIndex(segmentIndex);
-            List<Integer> requestedSegmentIndices = requests.get(md);
-            if (requestedSegmentIndices == null) {
-                requestedSegmentIndices = new ArrayList<>();
-                requests.put(md, requestedSegmentIndices);
+            TIntArrayList indices = requestedSegments.get(md);
+            if (indices == null) {
+                indices = new TIntArrayList();
+                requestedSegments.put(md, indices);
             }
-            requestedSegmentIndices.add(segmentIndex);
+            indices.add(segmentIndex);
         }
-        // Iterate over keys' partition directory and request all segments.
-        // Internally we span multiple threads to parallelize the collecting process.
-        final CountDownLatch operationCompleteLatch = new CountDownLatch(requests.size());
-        for (final Map.Entry<MachineDescriptor, List<Integer>> e : requests.entrySet()) {
+        for (final Map.Entry<MachineDescriptor, TIntArrayList> e : requestedSegments.entrySet()) {
             if (isLocal(e.getKey())) {
-                final AbstractBufferedDHTObject.Segment[] localSegments = __get(key).getSegments(Ints.toArray(e.getValue()), nodeID);
-                for (final AbstractBufferedDHTObject.Segment localSegment : localSegments) {
-                    final int index = ArrayUtils.indexOf(segmentIndices, localSegment.segmentIndex);
-                    segments[index] = localSegment;
-                }
+                final AbstractBufferedDHTObject.Segment[] localSegments = __get(key).getSegments(e.getValue().toArray(), nodeID);
+                for (final AbstractBufferedDHTObject.Segment localSegment : localSegments)
+                    segments[positions.get(localSegment.segmentIndex)] = localSegment;
                 logDHTAction(key, DHTAction.GET_SEGMENT);
-                operationCompleteLatch.countDown();
             } else {
-                executor.submit(() -> {
-                    final AbstractBufferedDHTObject.Segment[] remoteSegments = getRemoteSegmentsBlocking(e.getKey(), key, Ints.toArray(e.getValue()));
-                    for (final AbstractBufferedDHTObject.Segment remoteSegment : remoteSegments) {
-                        final int index = ArrayUtils.indexOf(segmentIndices, remoteSegment.segmentIndex);
-                        segments[index] = remoteSegment;
-                    }
-                    operationCompleteLatch.countDown();
-                });
+                requests.add(requestRemoteSegments(e.getKey(), key, e.getValue().toArray()).thenAccept(remoteSegments -> {
+                    if (remoteSegments == null)
+                        return; // Timed out.
+                    for (final AbstractBufferedDHTObject.Segment remoteSegment : remoteSegments)
+                        segments[positions.get(remoteSegment.segmentIndex)] = remoteSegment;
+                }));
             }
         }
-        try {
-            // Wait until all segments are collected from remote at.
-            operationCompleteLatch.await();
-        } catch (InterruptedException e) {
-            throw new IllegalStateException(e);
+        return CompletableFuture.allOf(requests.toArray(new CompletableFuture[requests.size()])).thenApply(v -> {
+            for (int i = 0; i < segmentIndices.length; ++i) {
+                if (segments[i] == null)
+                    segments[i] = segments[positions.get(segmentIndices[i])];
+            }
+            return segments;
+        });
+    }
+
+    /**
+     * Hint that the given segments will be read soon. Remote segments that are neither cached
+     * nor already in flight are requested in the background and kept in the bounded prefetch
+     * cache until a get takes them.
+     * @param key The key that is associated with the value object.
+     * @param segmentIndices The indices of the segments to prefetch.
+     */
+    public void prefetch(final DHTKey key, final int[] segmentIndices) {
+        Preconditions.checkNotNull(key);
+        Preconditions.checkNotNull(segmentIndices);
+        final Map<MachineDescriptor, TIntArrayList> requestedSegments = new HashMap<>();
+        for (final int segmentIndex : segmentIndices) {
+            final MachineDescriptor md = key.getDHTNodeFromSegmentIndex(segmentIndex);
+            if (isLocal(md) || prefetchCache.contains(key.internalUID, segmentIndex))
+                continue;
+            TIntArrayList indices = requestedSegments.get(md);
+            if (indices == null) {
+                indices = new TIntArrayList();
+                requestedSegments.put(md, indices);
+            }
+            indices.add(segmentIndex);
+        }
+        for (final Map.Entry<MachineDescriptor, TIntArrayList> e : requestedSegments.entrySet()) {
+            final int[] indices = e.getValue().toArray();
+            final CompletableFuture<AbstractBufferedDHTObject.Segment[]> request = requestRemoteSegments(e.getKey(), key, indices);
+            for (int i = 0; i < indices.length; ++i) {
+                final int position = i;
+                prefetchCache.put(key.internalUID, indices[i], request.thenApply(segments -> segments != null ? segments[position] : null));
+            }
         }
-        return segments;
     }
 
-    private AbstractBufferedDHTObject.Segment[] getRemoteSegmentsBlocking(final MachineDescriptor machine, final DHTKey key, final int[] segmentIndices) {
-        final CountDownLatch cdl = new CountDownLatch(1);
+    private CompletableFuture<AbstractBufferedDHTObject> requestRemoteValue(final MachineDescriptor machine, final DHTKey key) {
+        final UUID requestID = UUID.randomUUID();
+        final CompletableFuture<AbstractBufferedDHTObject> future = registerRequest(pendingValueRequests, requestID);
+        final NetEvent e = new NetEvent(DHT_EVENT_GET_VALUE_REQUEST);
+        e.setPayload(Pair.of(requestID, key));
+        netManager.dispatchEventAt(machine, e);
+        return future;
+    }
+
+    private CompletableFuture<AbstractBufferedDHTObject.Segment[]> requestRemoteSegments(final MachineDescriptor machine, final DHTKey key, final int[] segmentIndices) {
         final UUID requestID = UUID.randomUUID();
-        requestTable.put(requestID, cdl);
+        final CompletableFuture<AbstractBufferedDHTObject.Segment[]> future = registerRequest(pendingSegmentsRequests, requestID);
         final NetEvent event = new NetEvent(DHT_EVENT_GET_SEGMENTS_REQUEST);
         event.setPayload(Triple.of(requestID, key, segmentIndices));
         netManager.dispatchEventAt(machine, event);
+        return future;
+    }
+
+    private <T> CompletableFuture<T> registerRequest(final Map<UUID,CompletableFuture<T>> pendingRequests, final UUID requestID) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        pendingRequests.put(requestID, future);
+        if (RESPONSE_TIMEOUT > 0) {
+            // Complete the request with null after the timeout to avoid indefinitely blocking of
+            // callers, as the blocking gets always did.
+            timeoutScheduler.schedule(() -> {
+                final CompletableFuture<T> timedOut = pendingRequests.remove(requestID);
+                if (timedOut != null) {
+                    LOG.warn("DHT request " + requestID + " timed out.");
+                    executor.execute(() -> timedOut.complete(null));
+                }
+            }, RESPONSE_TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+        return future;
+    }
+
+    private static <T> T await(final CompletableFuture<T> future) {
         try {
-            if (RESPONSE_TIMEOUT > 0) {
-                // block the caller thread until we get some response...
-                // ...but with a specified timeout to avoid indefinitely blocking of caller.
-                cdl.await(RESPONSE_TIMEOUT, TimeUnit.MILLISECONDS);
-            } else
-                cdl.await();
-        } catch (InterruptedException ie) {
-            throw new IllegalStateException(ie);
+            return future.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
         }
-        return responseSegmentsTable.remove(requestID);
     }
 
     // ---------------------------------------------------
@@ -698,19 +785,15 @@ public final class DHTManager extends EventDispatcher implements Deactivatable {
     // Private Methods.
     // ---------------------------------------------------
 
-    private MachineDescriptor selectMachineForKey(final DHTKey key) {
-        if (key.distributionMode == DHTKey.DistributionMode.DISTRIBUTED)
-            return selectMachineForKey(key.internalUID);
-        else
-            return netManager.getMachineDescriptor();
-    }
-
-    private MachineDescriptor selectMachineForKey(final UUID internalUID) {
-        Preconditions.checkNotNull(internalUID);
-        // Compute (simple hash partitioning) the partitionIndex
-        // of the machine where to store the entry.
-        final int machineIndex = (internalUID.hashCode() & Integer.MAX_VALUE) % infraManager.getMachines().size();
-        return infraManager.getMachines().get(machineIndex);
+    private List<MachineDescriptor> selectMachinesForKey(final DHTKey key, final int numMachines) {
+        if (key.distributionMode != DHTKey.DistributionMode.DISTRIBUTED)
+            return Collections.singletonList(netManager.getMachineDescriptor());
+        // Add joined machines to the placement, existing values are not migrated to them.
+        for (final MachineDescriptor machine : infraManager.getMachines()) {
+            if (!placementStrategy.containsMachine(machine))
+                placementStrategy.addMachine(machine, 1);
+        }
+        return placementStrategy.selectMachines(Preconditions.checkNotNull(key.internalUID), numMachines);
     }
 
     private boolean isLocal(final MachineDescriptor machine) {
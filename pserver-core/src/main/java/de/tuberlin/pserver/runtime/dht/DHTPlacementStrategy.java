@@ -0,0 +1,76 @@
+package de.tuberlin.pserver.runtime.dht;
+
+
+import de.tuberlin.pserver.runtime.core.network.MachineDescriptor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Decides on which machines the partitions of a DHT value are stored. All nodes build
+ * the strategy from the same machine list, so every node computes the same placement.
+ * The placement is only consulted when a value is put, its key then records the machines
+ * of every partition. Changing the machines or their weights affects values that are put
+ * afterwards, stored values are not rebalanced and stay reachable through their keys.
+ */
+public interface DHTPlacementStrategy {
+
+    // ---------------------------------------------------
+    // Placement Types.
+    // ---------------------------------------------------
+
+    public enum PlacementType {
+
+        MODULO_HASH,
+
+        CONSISTENT_HASH
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    /**
+     * Adds a machine, or changes the weight of a known machine. A machine with weight w
+     * receives about w times as many partitions as a machine with weight 1.
+     */
+    public abstract void addMachine(final MachineDescriptor machine, final int weight);
+
+    public abstract void removeMachine(final MachineDescriptor machine);
+
+    public abstract boolean containsMachine(final MachineDescriptor machine);
+
+    /**
+     * Selects up to numMachines distinct machines for the value with the given uid. The
+     * first machine stores the primary partition, the others the remaining partitions.
+     */
+    public abstract List<MachineDescriptor> selectMachines(final UUID internalUID, final int numMachines);
+
+    // ---------------------------------------------------
+    // Factory Methods.
+    // ---------------------------------------------------
+
+    public static DHTPlacementStrategy create(final PlacementType type, final int virtualNodes) {
+        switch (type) {
+            case MODULO_HASH: return new ModuloHashPlacement();
+            case CONSISTENT_HASH: return new ConsistentHashPlacement(virtualNodes);
+            default: throw new IllegalStateException("Unknown placement type: " + type);
+        }
+    }
+
+    // ---------------------------------------------------
+
+    // 64 bit finalizer of MurmurHash3, spreads uuid bits evenly over the ring.
+    public static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public static long hash(final UUID uid) {
+        return mix64(uid.getMostSignificantBits() ^ mix64(uid.getLeastSignificantBits()));
+    }
+}
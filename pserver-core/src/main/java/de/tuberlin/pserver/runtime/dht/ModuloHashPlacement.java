@@ -0,0 +1,51 @@
+package de.tuberlin.pserver.runtime.dht;
+
+
+import com.google.common.base.Preconditions;
+import de.tuberlin.pserver.runtime.core.network.MachineDescriptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Simple hash partitioning over the machine list, secondary partitions go to the following
+ * machines of the list. Weights are ignored and a membership change moves almost all values.
+ */
+public final class ModuloHashPlacement implements DHTPlacementStrategy {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private final List<MachineDescriptor> machines = new ArrayList<>();
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    @Override
+    public synchronized void addMachine(final MachineDescriptor machine, final int weight) {
+        Preconditions.checkNotNull(machine);
+        if (!machines.contains(machine))
+            machines.add(machine);
+    }
+
+    @Override
+    public synchronized void removeMachine(final MachineDescriptor machine) { machines.remove(machine); }
+
+    @Override
+    public synchronized boolean containsMachine(final MachineDescriptor machine) { return machines.contains(machine); }
+
+    @Override
+    public synchronized List<MachineDescriptor> selectMachines(final UUID internalUID, final int numMachines) {
+        Preconditions.checkNotNull(internalUID);
+        Preconditions.checkState(!machines.isEmpty());
+        final int n = Math.min(numMachines, machines.size());
+        final int primaryIndex = (internalUID.hashCode() & Integer.MAX_VALUE) % machines.size();
+        final List<MachineDescriptor> selected = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i)
+            selected.add(machines.get((primaryIndex + i) % machines.size()));
+        return selected;
+    }
+}
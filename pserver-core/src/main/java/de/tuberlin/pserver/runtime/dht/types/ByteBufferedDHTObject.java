@@ -17,6 +17,7 @@ public class ByteBufferedDHTObject extends AbstractBufferedDHTObject {
     // Constructors.
     // ---------------------------------------------------
 
+    public ByteBufferedDHTObject() { this(0, false); }
     public ByteBufferedDHTObject(final int partitionSize,
                                  final boolean allocateMemory) {
 
@@ -25,7 +25,7 @@ public final class GlobalObjectAllocator {
             if (ArrayUtils.contains(globalObject.atNodes, programContext.nodeID)) {
 
                 gObject = globalObject.stateImpl.newInstance(); // Requires standard constructor...
-                new GlobalObject<>(programContext.runtimeContext.netManager, gObject, globalObject.stateName);
+                new GlobalObject<>(programContext.runtimeContext.netManager, gObject, globalObject.stateType, globalObject.stateName);
 
             } else {
 
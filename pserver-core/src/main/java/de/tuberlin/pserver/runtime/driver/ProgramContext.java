@@ -6,23 +6,18 @@ import com.google.gson.Gson;
 import de.tuberlin.pserver.commons.hashtable.NonBlockingHashMap;
 import de.tuberlin.pserver.commons.json.GsonUtils;
 import de.tuberlin.pserver.compiler.ProgramTable;
-import de.tuberlin.pserver.compiler.UnitDescriptor;
 import de.tuberlin.pserver.dsl.transaction.TransactionMng;
 import de.tuberlin.pserver.dsl.unit.UnitMng;
 import de.tuberlin.pserver.runtime.RuntimeContext;
-import de.tuberlin.pserver.runtime.core.events.IEventHandler;
 import de.tuberlin.pserver.runtime.core.lifecycle.Deactivatable;
 import de.tuberlin.pserver.runtime.core.network.MachineDescriptor;
-import de.tuberlin.pserver.runtime.core.network.NetEvent;
-import org.apache.commons.lang3.ArrayUtils;
 
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.UUID;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
 public final class ProgramContext implements Deactivatable {
 
@@ -32,6 +27,8 @@ public final class ProgramContext implements Deactivatable {
 
     public static final String BARRIER_EVENT  = "barrier_event_";
 
+    public static final String CLOCK_EVENT    = "clock_event_";
+
     // ---------------------------------------------------
     // Fields.
     // ---------------------------------------------------
@@ -59,16 +56,13 @@ public final class ProgramContext implements Deactivatable {
     // ---------------------------------------------------
 
     @GsonUtils.Exclude
-    private final Map<String, Object> programStore;
+    private final int[] programNodeIDs;
 
     @GsonUtils.Exclude
-    private final Map<UUID, List<Serializable>> resultObjects;
-
-    @GsonUtils.Exclude
-    private final Map<String, AtomicReference<CountDownLatch>> barriers;
+    private final Map<String, Object> programStore;
 
     @GsonUtils.Exclude
-    private final Map<String, IEventHandler> handlers;
+    private final Map<UUID, List<Serializable>> resultObjects;
 
     // ---------------------------------------------------
     // Constructors.
@@ -91,37 +85,9 @@ public final class ProgramContext implements Deactivatable {
         this.nodeDOP            = nodeDOP;
         this.nodeID             = runtimeContext.nodeID;
 
+        this.programNodeIDs     = IntStream.range(0, nodeDOP).toArray();
         this.programStore       = new NonBlockingHashMap<>();
         this.resultObjects      = new TreeMap<>();
-        this.barriers           = new TreeMap<>();
-        this.handlers           = new TreeMap<>();
-
-        IEventHandler handler = event -> {
-            CountDownLatch barrier = barriers.get(UnitMng.GLOBAL_BARRIER).get();
-            while (barrier.getCount() == 0) {
-                barrier = barriers.get(UnitMng.GLOBAL_BARRIER).get();
-            }
-            barrier.countDown();
-        };
-
-        barriers.put(UnitMng.GLOBAL_BARRIER, new AtomicReference<>(new CountDownLatch(nodeDOP - 1)));
-        handlers.put(BARRIER_EVENT, handler);
-        this.runtimeContext.netManager.addEventListener(BARRIER_EVENT, handler);
-
-        for (final UnitDescriptor unit : programTable.getUnits()) {
-
-            handler = event -> {
-                CountDownLatch barrier = barriers.get(unit.unitName).get();
-                while (barrier.getCount() == 0) { // TODO: Change this!
-                    barrier = barriers.get(unit.unitName).get();
-                }
-                barrier.countDown();
-            };
-
-            barriers.put(unit.unitName, new AtomicReference<>(new CountDownLatch(unit.atNodes.length - 1)));
-            handlers.put(BARRIER_EVENT + unit.unitName, handler);
-            this.runtimeContext.netManager.addEventListener(BARRIER_EVENT + unit.unitName, handler);
-        }
 
         UnitMng.setProgramContext(this);
         TransactionMng.setProgramContext(this);
@@ -129,10 +95,6 @@ public final class ProgramContext implements Deactivatable {
 
     @Override
     public void deactivate() {
-        runtimeContext.netManager.removeEventListener(BARRIER_EVENT, handlers.get(BARRIER_EVENT));
-        for (Map.Entry<String, IEventHandler> entry : handlers.entrySet()) {
-            runtimeContext.netManager.removeEventListener(entry.getKey(), entry.getValue());
-        }
     }
 
     // ---------------------------------------------------
@@ -146,28 +108,26 @@ public final class ProgramContext implements Deactivatable {
 
     public void delete(final String name) { programStore.remove(Preconditions.checkNotNull(name)); }
 
+    // The nodes the program runs on, they take part in its collective operations.
+    public int[] getProgramNodeIDs() { return programNodeIDs; }
+
     // ---------------------------------------------------
 
     public void synchronizeUnit(final String unitName) throws Exception {
-        if (UnitMng.GLOBAL_BARRIER.equals(unitName)) {
-
-            final NetEvent syncEvent = new NetEvent(BARRIER_EVENT, true);
-            runtimeContext.netManager.broadcastEvent(syncEvent);
-            AtomicReference<CountDownLatch> barrierRef = barriers.get(unitName);
-            barrierRef.get().await();
-            barrierRef.set(new CountDownLatch(nodeDOP - 1));
-
-        } else {
-
-            final UnitDescriptor unit = programTable.getUnit(unitName);
-            final NetEvent syncEvent = new NetEvent(BARRIER_EVENT + unitName, true);
-            final int[] atNodes = ArrayUtils.clone(unit.atNodes);
-            final int[] receiverNodeIDs = ArrayUtils.removeElements(atNodes, runtimeContext.nodeID);
-            runtimeContext.netManager.dispatchEventAt(receiverNodeIDs, syncEvent);
-            final AtomicReference<CountDownLatch> barrierRef = barriers.get(unitName);
-            barrierRef.get().await();
-            barrierRef.set(new CountDownLatch(programTable.getUnit(unitName).atNodes.length - 1));
-        }
+        if (UnitMng.GLOBAL_BARRIER.equals(unitName))
+            runtimeContext.collectiveManager.barrier(programID, BARRIER_EVENT + unitName, programNodeIDs);
+        else
+            runtimeContext.collectiveManager.barrier(programID, BARRIER_EVENT + unitName, programTable.getUnit(unitName).atNodes);
+    }
+
+    public String openClock(final String name) { return runtimeContext.collectiveManager.openClock(programID, CLOCK_EVENT + name); }
+
+    public void advanceClock(final String clockKey, final long clock) {
+        runtimeContext.collectiveManager.advanceClock(programID, clockKey, clock, programNodeIDs);
+    }
+
+    public void awaitClock(final String clockKey, final long minClock) {
+        runtimeContext.collectiveManager.awaitClock(programID, clockKey, minClock, programNodeIDs);
     }
 
     // ---------------------------------------------------
@@ -24,7 +24,7 @@ public final class StateAllocator {
 
                 stateObj = (Matrix32F) state;
 
-                new GlobalObject<>(programContext.runtimeContext.netManager, stateObj, state.name());
+                new GlobalObject<>(programContext.runtimeContext.netManager, stateObj, state.type(), state.name());
 
             } else {
 
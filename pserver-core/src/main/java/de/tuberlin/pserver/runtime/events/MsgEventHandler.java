@@ -8,6 +8,9 @@ import de.tuberlin.pserver.runtime.core.events.IEventHandler;
 import de.tuberlin.pserver.runtime.core.infra.InfrastructureManager;
 import de.tuberlin.pserver.runtime.core.network.NetEvent;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public abstract class MsgEventHandler implements IEventHandler {
 
     // ---------------------------------------------------
@@ -20,6 +23,9 @@ public abstract class MsgEventHandler implements IEventHandler {
 
     public static final String MSG_RESPONSE_EVENT_PREFIX = "response_";
 
+    // Event types per message name, built once instead of on every send.
+    private static final Map<String, String> eventTypes = new ConcurrentHashMap<>();
+
     // ---------------------------------------------------
     // Fields.
     // ---------------------------------------------------
@@ -49,6 +55,11 @@ public abstract class MsgEventHandler implements IEventHandler {
             dispatcher.removeEventListener(event.type, this);
     }
 
+    public static String eventType(final String name) {
+        final String type = eventTypes.get(name);
+        return type != null ? type : eventTypes.computeIfAbsent(name, n -> MSG_EVENT_PREFIX + n);
+    }
+
     public void initLatch(final int n) { latch = new ResettableCountDownLatch(n); }
 
     public void reset() { latch.reset(); }
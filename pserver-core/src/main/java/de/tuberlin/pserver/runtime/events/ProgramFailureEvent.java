@@ -50,6 +50,7 @@ public final class ProgramFailureEvent extends NetEvent {
                                final String exceptionMessage) {
 
         super(PSERVER_FAILURE_JOB_EVENT);
+        this.isLatencyCritical = true;
 
         this.machine        = machine;
         this.programID      = programID;
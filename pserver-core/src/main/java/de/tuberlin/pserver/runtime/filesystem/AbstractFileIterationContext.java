@@ -18,4 +18,16 @@ public abstract class AbstractFileIterationContext {
     public abstract InputStream getInputStream();
 
     public abstract int readNext() throws Exception;
+
+    /**
+     * Reads up to length bytes and returns the number of bytes read, or -1 at the end of the
+     * input. Contexts whose iterators track the stream position read only one byte at a time.
+     */
+    public int read(byte[] buffer, int offset, int length) throws Exception {
+        final int b = readNext();
+        if (b == -1)
+            return -1;
+        buffer[offset] = (byte) b;
+        return 1;
+    }
 }
@@ -11,11 +11,16 @@ import de.tuberlin.pserver.runtime.filesystem.distributed.DistributedFile;
 import de.tuberlin.pserver.runtime.filesystem.distributed.DistributedFileIterator;
 import de.tuberlin.pserver.runtime.filesystem.distributed.DistributedFilePartition;
 import de.tuberlin.pserver.runtime.filesystem.distributed.DistributedFilePartitionScheduler;
+import de.tuberlin.pserver.runtime.filesystem.local.LocalBlock;
+import de.tuberlin.pserver.runtime.filesystem.local.LocalChunkedFileReader;
 import de.tuberlin.pserver.runtime.filesystem.local.LocalFile;
+import de.tuberlin.pserver.runtime.filesystem.local.LocalFilePartition;
 import de.tuberlin.pserver.runtime.filesystem.local.LocalFilePartitionScheduler;
 import de.tuberlin.pserver.types.typeinfo.DistributedTypeInfo;
+import de.tuberlin.pserver.types.typeinfo.properties.FileFormat;
 import org.apache.commons.lang.ArrayUtils;
 
+import java.io.File;
 import java.util.*;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
@@ -29,6 +34,20 @@ public class FileSystemManager implements Deactivatable {
 
     public static final String FILE_MASTER_NODE_ID = "worker.filesystem.masterID";
 
+    public static final String CHUNKED_LOADING = "worker.filesystem.chunkedLoading";
+
+    public static final String CHUNK_SIZE = "worker.filesystem.chunkSize";
+
+    public static final String LOADER_THREADS = "worker.filesystem.loaderThreads";
+
+    public static final String LINE_INDEX = "worker.filesystem.lineIndex";
+
+    public static final String LINE_INDEX_STRIDE = "worker.filesystem.lineIndexStride";
+
+    public static final String BINARY_CACHE = "worker.filesystem.binaryCache";
+
+    public static final String BINARY_CACHE_DIR = "worker.filesystem.binaryCacheDir";
+
     public enum FileSystemType {
 
         LOCAL_FILE_SYSTEM,
@@ -147,12 +166,55 @@ public class FileSystemManager implements Deactivatable {
         }
     }
 
+    /**
+     * Returns a reader that loads the local file partition chunk by chunk on several threads,
+     * or null if the file has to be read with its sequential file iterator.
+     */
+    public LocalChunkedFileReader getChunkedFileReader(DistributedTypeInfo typeInfo) {
+        final AbstractFile file = files.get(typeInfo.input().filePath());
+        if (!(file instanceof LocalFile) || (typeInfo.input().fileFormat() != FileFormat.SVM_FORMAT
+                && typeInfo.input().fileFormat() != FileFormat.DENSE_FORMAT)
+                || (config.hasPath(CHUNKED_LOADING) && !config.getBoolean(CHUNKED_LOADING)))
+            return null;
+        final long chunkSize = config.hasPath(CHUNK_SIZE) ? config.getLong(CHUNK_SIZE) : 64 * 1024 * 1024;
+        final int numThreads = config.hasPath(LOADER_THREADS) && config.getInt(LOADER_THREADS) > 0
+                ? config.getInt(LOADER_THREADS) : Runtime.getRuntime().availableProcessors();
+        return new LocalChunkedFileReader((LocalFile) file, chunkSize, numThreads);
+    }
+
     public AbstractFileIterator getFileIterator(DistributedTypeInfo typeInfo) {
         AbstractFileIterator fileIterator = files.get(typeInfo.input().filePath()).getFileIterator();
         fileIterator.open();
         return fileIterator;
     }
 
+    /**
+     * Returns the binary cache file of the local partition of a text file, or null if parsed
+     * partitions are not cached. The cache is off unless enabled, cache files are written to
+     * the cache directory if one is configured and next to the input file otherwise. Every
+     * partitioning of the input gets its own file, the cache is never cleaned up. The cache
+     * file does not necessarily exist.
+     */
+    public File getBinaryCacheFile(DistributedTypeInfo typeInfo) {
+        final AbstractFile file = files.get(typeInfo.input().filePath());
+        if (!(file instanceof LocalFile) || (typeInfo.input().fileFormat() != FileFormat.SVM_FORMAT
+                && typeInfo.input().fileFormat() != FileFormat.DENSE_FORMAT)
+                || !config.hasPath(BINARY_CACHE) || !config.getBoolean(BINARY_CACHE))
+            return null;
+        final LocalBlock block = ((LocalFilePartition) file.getFilePartition()).localBlock;
+        final File inputFile = new File(typeInfo.input().filePath());
+        final String suffix = "." + block.offset + "-" + block.linesToRead + ".bin";
+        final String cacheDir = config.hasPath(BINARY_CACHE_DIR) ? config.getString(BINARY_CACHE_DIR) : "";
+        if (cacheDir.isEmpty())
+            return new File(inputFile.getPath() + suffix);
+        final File dir = new File(cacheDir);
+        // A directory that cannot be created fails the cache write, which is logged there.
+        dir.mkdirs();
+        // Inputs of equal names in different directories must not share cache files.
+        final String pathHash = Integer.toHexString(inputFile.getAbsolutePath().hashCode());
+        return new File(dir, inputFile.getName() + "." + pathHash + suffix);
+    }
+
     // ---------------------------------------------------
     // Private Methods.
     // ---------------------------------------------------
@@ -171,7 +233,7 @@ public class FileSystemManager implements Deactivatable {
                 remainingBlocks.addAll(partitionScheduler.getRemainingBlocks());
             } break;
             case LOCAL_FILE_SYSTEM: {
-                filePartitions = new LocalFilePartitionScheduler((LocalFile) inputFile)
+                filePartitions = new LocalFilePartitionScheduler(config, (LocalFile) inputFile)
                         .schedule(AbstractFilePartitionScheduler.ScheduleType.ORDERED);
             } break;
             default:
@@ -0,0 +1,308 @@
+package de.tuberlin.pserver.runtime.filesystem.local;
+
+
+import com.google.common.base.Preconditions;
+import de.tuberlin.pserver.types.matrix.implementation.Matrix32F;
+import de.tuberlin.pserver.types.matrix.implementation.matrix32f.dense.DenseMatrix32F;
+import de.tuberlin.pserver.types.matrix.implementation.matrix32f.sparse.CSRMatrix32F;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary little endian matrix layout of the BINARY_FORMAT. A 64 byte header is followed by
+ * the labels (optional, one float per row) and then either the row major float values of a
+ * dense matrix or the long[rows + 1] row pointers, int[entries] columns and float[entries]
+ * values of a CSR matrix. Row ranges are read through memory mapped windows and copied in
+ * bulk into the matrix arrays.
+ *
+ * <pre>
+ *  0 int  magic          4 int  version       8 int  kind (0 = dense, 1 = CSR)
+ * 12 int  flags (bit 0 = labels)             16 long rows
+ * 24 long cols          32 long entries      40 long first row in the source
+ * 48 long source length 56 long source modification time (0 = no source)
+ * </pre>
+ */
+public final class BinaryMatrixFile implements AutoCloseable {
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    public static final int MAGIC = 0x5053_4D42;
+
+    public static final int VERSION = 1;
+
+    public static final int KIND_DENSE = 0;
+
+    public static final int KIND_CSR = 1;
+
+    public static final int FLAG_LABELS = 1;
+
+    public static final int HEADER_SIZE = 64;
+
+    // Bytes of one mapped window.
+    private static final int WINDOW_SIZE = 1 << 28;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    public final int kind;
+
+    public final boolean hasLabels;
+
+    public final long rows;
+
+    public final long cols;
+
+    public final long entries;
+
+    public final long firstRow;
+
+    public final long sourceLength;
+
+    public final long sourceModified;
+
+    private final FileChannel channel;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    private BinaryMatrixFile(final FileChannel channel) throws IOException {
+        this.channel = channel;
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining())
+            if (channel.read(header, header.position()) < 0)
+                throw new IOException("Truncated header.");
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION)
+            throw new IOException("Not a binary matrix file.");
+        this.kind           = header.getInt();
+        this.hasLabels      = (header.getInt() & FLAG_LABELS) != 0;
+        this.rows           = header.getLong();
+        this.cols           = header.getLong();
+        this.entries        = header.getLong();
+        this.firstRow       = header.getLong();
+        this.sourceLength   = header.getLong();
+        this.sourceModified = header.getLong();
+        if (kind != KIND_DENSE && kind != KIND_CSR)
+            throw new IOException("Unknown matrix kind " + kind + ".");
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public static BinaryMatrixFile open(final File file) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            return new BinaryMatrixFile(channel);
+        } catch (IOException e) {
+            if (channel != null)
+                try { channel.close(); } catch (IOException ignored) {}
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static boolean supports(final Matrix32F matrix) {
+        return matrix instanceof DenseMatrix32F || matrix instanceof CSRMatrix32F;
+    }
+
+    public static int kindOf(final Matrix32F matrix) {
+        Preconditions.checkArgument(supports(matrix));
+        return matrix instanceof CSRMatrix32F ? KIND_CSR : KIND_DENSE;
+    }
+
+    /** True if the file was written from the given text file and it has not changed since. */
+    public boolean isCacheOf(final File source) {
+        return sourceModified != 0 && sourceLength == source.length() && sourceModified == source.lastModified();
+    }
+
+    /**
+     * Reads numRows rows from row offset of the file into the matrix and the labels into
+     * the first column of the label matrix if it is not null. A CSR matrix is built.
+     */
+    public void read(final long offset, final int numRows, final Matrix32F dataMatrix, final Matrix32F labelMatrix) {
+        Preconditions.checkArgument(offset >= 0 && numRows >= 0 && offset + numRows <= rows);
+        Preconditions.checkState(kind == kindOf(dataMatrix), "Matrix type does not match the file.");
+        // The columns of a sparse file only reach up to its largest column index.
+        Preconditions.checkState(kind == KIND_CSR ? cols <= dataMatrix.cols() : cols == dataMatrix.cols(),
+                "cols = " + cols + " | matrix cols = " + dataMatrix.cols());
+        Preconditions.checkState(dataMatrix.rows() >= numRows, "rows = " + numRows + " | matrix rows = " + dataMatrix.rows());
+        try {
+            long position = HEADER_SIZE;
+            if (hasLabels) {
+                if (labelMatrix != null) {
+                    final float[] labels = new float[numRows];
+                    readFloats(position + offset * Float.BYTES, labels, 0, numRows);
+                    for (int i = 0; i < numRows; ++i)
+                        labelMatrix.set(i, 0, labels[i]);
+                }
+                position += rows * Float.BYTES;
+            }
+            if (kind == KIND_DENSE) {
+                final float[] data = ((DenseMatrix32F) dataMatrix).data;
+                readFloats(position + offset * cols * Float.BYTES, data, 0, (int) (numRows * cols));
+            } else {
+                final long[] rowPtr = new long[numRows + 1];
+                readLongs(position + offset * Long.BYTES, rowPtr, numRows + 1);
+                position += (rows + 1) * Long.BYTES;
+                final long base = rowPtr[0];
+                final long numEntries = rowPtr[numRows] - base;
+                Preconditions.checkState(numEntries <= Integer.MAX_VALUE, "Too many entries for one partition.");
+                final int[] rowPtrArr = new int[numRows + 1];
+                for (int i = 0; i <= numRows; ++i)
+                    rowPtrArr[i] = (int) (rowPtr[i] - base);
+                final int[] colArr = new int[(int) numEntries];
+                final float[] valueArr = new float[(int) numEntries];
+                readInts(position + base * Integer.BYTES, colArr, (int) numEntries);
+                position += entries * Integer.BYTES;
+                readFloats(position + base * Float.BYTES, valueArr, 0, (int) numEntries);
+                ((CSRMatrix32F) dataMatrix).build(rowPtrArr, colArr, valueArr);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes the first numRows rows of the matrix. The source length and modification time
+     * identify the text file the matrix was parsed from, the file is written atomically.
+     */
+    public static void write(final File file, final Matrix32F dataMatrix, final int numRows, final float[] labels,
+                             final long firstRow, final File source) {
+
+        Preconditions.checkArgument(labels == null || labels.length >= numRows);
+        final int kind = kindOf(dataMatrix);
+        File tmpFile = null;
+        try {
+            tmpFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+            try (final FileChannel out = FileChannel.open(tmpFile.toPath(), StandardOpenOption.WRITE)) {
+                final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                final int[] rowPtrArr, colArr;
+                final float[] valueArr;
+                final long numEntries;
+                if (kind == KIND_CSR) {
+                    final Object[] arrays = ((CSRMatrix32F) dataMatrix).internal().get();
+                    rowPtrArr = (int[]) arrays[0];
+                    colArr    = (int[]) arrays[1];
+                    valueArr  = (float[]) arrays[2];
+                    Preconditions.checkState(rowPtrArr != null, "CSR matrix is not built.");
+                    numEntries = rowPtrArr[numRows];
+                } else {
+                    rowPtrArr = colArr = null;
+                    valueArr  = ((DenseMatrix32F) dataMatrix).data;
+                    numEntries = numRows * dataMatrix.cols();
+                }
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(kind).putInt(labels != null ? FLAG_LABELS : 0)
+                        .putLong(numRows).putLong(dataMatrix.cols()).putLong(numEntries).putLong(firstRow)
+                        .putLong(source != null ? source.length() : 0).putLong(source != null ? source.lastModified() : 0);
+                if (labels != null)
+                    for (int i = 0; i < numRows; ++i)
+                        putFloat(out, buffer, labels[i]);
+                if (kind == KIND_CSR) {
+                    for (int i = 0; i <= numRows; ++i)
+                        putLong(out, buffer, rowPtrArr[i]);
+                    for (int i = 0; i < numEntries; ++i)
+                        putInt(out, buffer, colArr[i]);
+                }
+                for (int i = 0; i < numEntries; ++i)
+                    putFloat(out, buffer, valueArr[i]);
+                flush(out, buffer);
+            }
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (tmpFile != null)
+                tmpFile.delete();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private MappedByteBuffer map(final long position, final long length) throws IOException {
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private void readFloats(long position, final float[] dst, int offset, int length) throws IOException {
+        while (length > 0) {
+            final int n = Math.min(length, WINDOW_SIZE / Float.BYTES);
+            map(position, (long) n * Float.BYTES).asFloatBuffer().get(dst, offset, n);
+            position += (long) n * Float.BYTES;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    private void readInts(long position, final int[] dst, int length) throws IOException {
+        int offset = 0;
+        while (length > 0) {
+            final int n = Math.min(length, WINDOW_SIZE / Integer.BYTES);
+            map(position, (long) n * Integer.BYTES).asIntBuffer().get(dst, offset, n);
+            position += (long) n * Integer.BYTES;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    private void readLongs(long position, final long[] dst, int length) throws IOException {
+        int offset = 0;
+        while (length > 0) {
+            final int n = Math.min(length, WINDOW_SIZE / Long.BYTES);
+            map(position, (long) n * Long.BYTES).asLongBuffer().get(dst, offset, n);
+            position += (long) n * Long.BYTES;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    private static void putInt(final FileChannel out, final ByteBuffer buffer, final int value) throws IOException {
+        if (buffer.remaining() < Integer.BYTES)
+            flush(out, buffer);
+        buffer.putInt(value);
+    }
+
+    private static void putLong(final FileChannel out, final ByteBuffer buffer, final long value) throws IOException {
+        if (buffer.remaining() < Long.BYTES)
+            flush(out, buffer);
+        buffer.putLong(value);
+    }
+
+    private static void putFloat(final FileChannel out, final ByteBuffer buffer, final float value) throws IOException {
+        if (buffer.remaining() < Float.BYTES)
+            flush(out, buffer);
+        buffer.putFloat(value);
+    }
+
+    private static void flush(final FileChannel out, final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            out.write(buffer);
+        buffer.clear();
+    }
+}
@@ -13,13 +13,27 @@ public final class LocalBlock implements AbstractBlock {
 
     public final long linesToRead;
 
+    // Byte range of the lines, -1 if the lines have to be located by scanning the file.
+    public final long startPosition;
+
+    public final long endPosition;
+
     // ---------------------------------------------------
     // Constructor.
     // ---------------------------------------------------
 
     public LocalBlock() { this(-1, -1); }
-    public LocalBlock(long offset, long linesToRead) {
-        this.offset      = offset;
-        this.linesToRead = linesToRead;
+    public LocalBlock(long offset, long linesToRead) { this(offset, linesToRead, -1, -1); }
+    public LocalBlock(long offset, long linesToRead, long startPosition, long endPosition) {
+        this.offset        = offset;
+        this.linesToRead   = linesToRead;
+        this.startPosition = startPosition;
+        this.endPosition   = endPosition;
     }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public boolean hasPosition() { return startPosition >= 0; }
 }
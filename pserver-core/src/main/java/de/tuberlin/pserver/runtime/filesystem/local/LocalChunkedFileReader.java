@@ -0,0 +1,239 @@
+package de.tuberlin.pserver.runtime.filesystem.local;
+
+
+import com.google.common.base.Preconditions;
+import de.tuberlin.pserver.runtime.filesystem.records.Record;
+import de.tuberlin.pserver.runtime.filesystem.records.RecordIterator;
+import de.tuberlin.pserver.types.matrix.typeinfo.MatrixTypeInfo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the file partition of a node in parallel. The file, or the byte range of the partition
+ * if the scheduler located it, is split into newline aligned chunks that are memory mapped one
+ * by one, the lines of every chunk are counted in parallel to locate the line range of the
+ * partition, then every chunk of the range is parsed on its own worker thread. Rows are
+ * numbered relative to the partition start, as with the {@link LocalFileIterator}.
+ */
+public final class LocalChunkedFileReader {
+
+    // ---------------------------------------------------
+    // Inner Classes.
+    // ---------------------------------------------------
+
+    public interface ChunkProcessor {
+
+        void process(Chunk chunk, Iterator<Record> records) throws Exception;
+    }
+
+    public static final class Chunk {
+
+        public final int index;
+
+        // Partition relative row of the first record.
+        public final int firstRow;
+
+        public final int numRows;
+
+        private final long position;
+
+        private final long length;
+
+        // Lines of the mapped region before the first record of the partition.
+        private final long skipLines;
+
+        public Chunk(int index, int firstRow, int numRows, long position, long length, long skipLines) {
+            this.index     = index;
+            this.firstRow  = firstRow;
+            this.numRows   = numRows;
+            this.position  = position;
+            this.length    = length;
+            this.skipLines = skipLines;
+        }
+    }
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private final LocalFile file;
+
+    private final long chunkSize;
+
+    private final int numThreads;
+
+    // ---------------------------------------------------
+    // Constructor.
+    // ---------------------------------------------------
+
+    public LocalChunkedFileReader(LocalFile file, long chunkSize, int numThreads) {
+        Preconditions.checkArgument(chunkSize > 0 && chunkSize < Integer.MAX_VALUE / 2);
+        Preconditions.checkArgument(numThreads > 0);
+        this.file       = Preconditions.checkNotNull(file);
+        this.chunkSize  = chunkSize;
+        this.numThreads = numThreads;
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    /**
+     * Splits the file partition of this node into chunks. The chunks are ordered by their
+     * rows, the first row of a chunk follows the last row of its predecessor.
+     */
+    public List<Chunk> plan() {
+        final LocalBlock block = ((LocalFilePartition) file.getFilePartition()).localBlock;
+        // With a known byte range only the range is split, its first line is the partition start.
+        final long firstLine = block.hasPosition() ? 0 : block.offset;
+        final long numLines = Math.min(block.linesToRead, ((MatrixTypeInfo) file.getTypeInfo()).rows());
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try (final FileChannel channel = openChannel()) {
+            final List<Long> boundaries = block.hasPosition()
+                    ? alignedBoundaries(channel, block.startPosition, block.endPosition)
+                    : alignedBoundaries(channel, 0, channel.size());
+            // Count the lines of all regions in parallel.
+            final List<Future<Long>> counts = new ArrayList<>();
+            for (int i = 0; i < boundaries.size() - 1; ++i) {
+                final long position = boundaries.get(i);
+                final long length = boundaries.get(i + 1) - position;
+                counts.add(executor.submit(() -> countLines(channel.map(FileChannel.MapMode.READ_ONLY, position, length))));
+            }
+            final List<Chunk> chunks = new ArrayList<>();
+            long line = 0;
+            for (int i = 0; i < counts.size(); ++i) {
+                final long regionLines = counts.get(i).get();
+                // Intersect the lines of the region with the lines of the partition.
+                final long from = Math.max(line, firstLine);
+                final long to = Math.min(line + regionLines, firstLine + numLines);
+                if (from < to) {
+                    final long position = boundaries.get(i);
+                    chunks.add(new Chunk(chunks.size(), (int) (from - firstLine), (int) (to - from),
+                            position, boundaries.get(i + 1) - position, from - line));
+                }
+                line += regionLines;
+            }
+            return chunks;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses the given chunks concurrently. The processor is called once per chunk from a
+     * worker thread, the record passed by the iterator is reused after the next call.
+     */
+    public void read(List<Chunk> chunks, ChunkProcessor processor) {
+        final MatrixTypeInfo typeInfo = (MatrixTypeInfo) file.getTypeInfo();
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try (final FileChannel channel = openChannel()) {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (final Chunk chunk : chunks) {
+                futures.add(executor.submit(() -> {
+                    final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.position, chunk.length);
+                    skipLines(buffer, chunk.skipLines);
+                    final RecordIterator records = RecordIterator.create(typeInfo, new MappedChunkIterationContext(buffer, chunk.firstRow));
+                    processor.process(chunk, new Iterator<Record>() {
+
+                        private int numRead = 0;
+
+                        @Override
+                        public boolean hasNext() { return numRead < chunk.numRows && records.hasNext(); }
+
+                        @Override
+                        public Record next() {
+                            ++numRead;
+                            return records.next();
+                        }
+                    });
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures)
+                future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private FileChannel openChannel() throws IOException {
+        return FileChannel.open(Paths.get(file.getTypeInfo().input().filePath()), StandardOpenOption.READ);
+    }
+
+    // Start positions of the regions in [start, end), every region but the first starts after a newline.
+    private List<Long> alignedBoundaries(final FileChannel channel, final long start, final long end) throws IOException {
+        final List<Long> boundaries = new ArrayList<>();
+        boundaries.add(start);
+        final ByteBuffer scanBuffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = start + chunkSize;
+        while (position < end) {
+            final long boundary = nextLineStart(channel, position - 1, scanBuffer);
+            if (boundary >= end)
+                break;
+            if (boundary > boundaries.get(boundaries.size() - 1))
+                boundaries.add(boundary);
+            position = Math.max(position + chunkSize, boundary + 1);
+        }
+        boundaries.add(end);
+        return boundaries;
+    }
+
+    private static long nextLineStart(final FileChannel channel, long position, final ByteBuffer scanBuffer) throws IOException {
+        while (true) {
+            scanBuffer.clear();
+            final int read = channel.read(scanBuffer, position);
+            if (read <= 0)
+                return channel.size();
+            for (int i = 0; i < read; ++i) {
+                if (scanBuffer.get(i) == '\n')
+                    return position + i + 1;
+            }
+            position += read;
+        }
+    }
+
+    // The last line of the file counts even if it is not terminated.
+    private static long countLines(final ByteBuffer buffer) {
+        long lines = 0;
+        final int limit = buffer.limit();
+        for (int i = 0; i < limit; ++i) {
+            if (buffer.get(i) == '\n')
+                ++lines;
+        }
+        if (limit > 0 && buffer.get(limit - 1) != '\n')
+            ++lines;
+        return lines;
+    }
+
+    private static void skipLines(final ByteBuffer buffer, long lines) {
+        while (lines > 0 && buffer.hasRemaining()) {
+            if (buffer.get() == '\n')
+                --lines;
+        }
+    }
+}
@@ -32,4 +32,9 @@ public class LocalFileIterationContext extends AbstractFileIterationContext {
     public int readNext() throws Exception {
         return inputStream.read();
     }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws Exception {
+        return inputStream.read(buffer, offset, length);
+    }
 }
@@ -2,6 +2,7 @@ package de.tuberlin.pserver.runtime.filesystem.local;
 
 
 import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.CountingInputStream;
 import de.tuberlin.pserver.runtime.filesystem.AbstractFileIterator;
 import de.tuberlin.pserver.runtime.filesystem.records.Record;
@@ -47,10 +48,15 @@ public class LocalFileIterator implements AbstractFileIterator {
     public void open() {
         try {
 
-            int lineCount = 0;
-            while (lineCount < ic.partition.localBlock.offset)
-                if (ic.inputStream.read() == '\n')
-                    lineCount++;
+            final LocalBlock block = ic.partition.localBlock;
+            if (block.hasPosition()) {
+                ByteStreams.skipFully(ic.inputStream, block.startPosition);
+            } else {
+                int lineCount = 0;
+                while (lineCount < block.offset)
+                    if (ic.inputStream.read() == '\n')
+                        lineCount++;
+            }
 
             recordIterator = RecordIterator.create((MatrixTypeInfo) file.getTypeInfo(), ic);
         } catch(Exception e) {
@@ -0,0 +1,194 @@
+package de.tuberlin.pserver.runtime.filesystem.local;
+
+
+import com.google.common.base.Preconditions;
+import gnu.trove.list.array.TLongArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Maps line numbers of a local file to byte positions. The position of every stride-th line
+ * is stored, the position of any other line is found by scanning at most stride lines from
+ * the preceding indexed line. The index is persisted next to the file as a sidecar and reused
+ * as long as the length and modification time of the file do not change.
+ */
+public final class LocalFileLineIndex {
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalFileLineIndex.class);
+
+    public static final String INDEX_FILE_SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x5053_4C49;
+
+    private static final int VERSION = 1;
+
+    private static final int SCAN_BUFFER_SIZE = 1024 * 1024;
+
+    private static final int SEEK_BUFFER_SIZE = 64 * 1024;
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private final String filePath;
+
+    private final int stride;
+
+    private final long numLines;
+
+    // positions[i] is the byte position of line i * stride.
+    private final long[] positions;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    private LocalFileLineIndex(String filePath, int stride, long numLines, long[] positions) {
+        this.filePath  = filePath;
+        this.stride    = stride;
+        this.numLines  = numLines;
+        this.positions = positions;
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    /**
+     * Loads the sidecar index of the file, or builds it with one sequential scan if it is
+     * missing or stale. The new index is written back if the directory is writable.
+     */
+    public static LocalFileLineIndex open(final String filePath, final int stride) {
+        Preconditions.checkNotNull(filePath);
+        Preconditions.checkArgument(stride > 0);
+        final File file = new File(filePath);
+        final File indexFile = new File(filePath + INDEX_FILE_SUFFIX);
+        final LocalFileLineIndex index = read(file, indexFile, stride);
+        if (index != null)
+            return index;
+        final LocalFileLineIndex newIndex = build(file, stride);
+        newIndex.write(file, indexFile);
+        return newIndex;
+    }
+
+    // The last line counts even if it is not terminated.
+    public long numLines() { return numLines; }
+
+    public int stride() { return stride; }
+
+    /**
+     * Returns the byte position of the first byte of the line, or the length of the file if
+     * the line is behind the last line.
+     */
+    public long position(final long line) {
+        Preconditions.checkArgument(line >= 0);
+        try (final FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            if (line >= numLines)
+                return channel.size();
+            final int block = (int) (line / stride);
+            long position = positions[block];
+            long linesToSkip = line - (long) block * stride;
+            if (linesToSkip == 0)
+                return position;
+            final ByteBuffer buffer = ByteBuffer.allocate(SEEK_BUFFER_SIZE);
+            while (true) {
+                buffer.clear();
+                final int read = channel.read(buffer, position);
+                if (read <= 0)
+                    return channel.size();
+                for (int i = 0; i < read; ++i) {
+                    if (buffer.get(i) == '\n' && --linesToSkip == 0)
+                        return position + i + 1;
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private static LocalFileLineIndex build(final File file, final int stride) {
+        final TLongArrayList positions = new TLongArrayList();
+        long line = 0, position = 0;
+        byte last = '\n';
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(SCAN_BUFFER_SIZE);
+            int read;
+            while ((read = channel.read(buffer)) > 0) {
+                buffer.flip();
+                for (int i = 0; i < read; ++i) {
+                    final byte b = buffer.get(i);
+                    // A line starts after every newline, the first line at position 0.
+                    if (last == '\n' && line % stride == 0)
+                        positions.add(position + i);
+                    if (b == '\n')
+                        ++line;
+                    last = b;
+                }
+                position += read;
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        if (last != '\n')
+            ++line;
+        return new LocalFileLineIndex(file.getPath(), stride, line, positions.toArray());
+    }
+
+    private static LocalFileLineIndex read(final File file, final File indexFile, final int stride) {
+        if (!indexFile.isFile())
+            return null;
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readLong() != file.length() || in.readLong() != file.lastModified()
+                    || in.readInt() != stride)
+                return null;
+            final long numLines = in.readLong();
+            final long[] positions = new long[in.readInt()];
+            for (int i = 0; i < positions.length; ++i)
+                positions[i] = in.readLong();
+            return new LocalFileLineIndex(file.getPath(), stride, numLines, positions);
+        } catch (IOException e) {
+            LOG.warn("Could not read line index " + indexFile + ": " + e);
+            return null;
+        }
+    }
+
+    private void write(final File file, final File indexFile) {
+        File tmpFile = null;
+        try {
+            tmpFile = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getAbsoluteFile().getParentFile());
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(file.length());
+                out.writeLong(file.lastModified());
+                out.writeInt(stride);
+                out.writeLong(numLines);
+                out.writeInt(positions.length);
+                for (final long position : positions)
+                    out.writeLong(position);
+            }
+            // Concurrent jobs may build the same index, the rename lets one of them win.
+            Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Could not write line index " + indexFile + ": " + e);
+            if (tmpFile != null)
+                tmpFile.delete();
+        }
+    }
+}
@@ -18,8 +18,11 @@ public class LocalFilePartition extends AbstractFilePartition {
 
     public LocalFilePartition() { this(-1, null, null, -1, -1); }
     public LocalFilePartition(int nodeID, String file, FileFormat fileFormat, long offset, long linesToRead) {
+        this(nodeID, file, fileFormat, new LocalBlock(offset, linesToRead));
+    }
+    public LocalFilePartition(int nodeID, String file, FileFormat fileFormat, LocalBlock localBlock) {
         super(nodeID, file, fileFormat);
-        this.localBlock = new LocalBlock(offset, linesToRead);
+        this.localBlock = localBlock;
     }
 
     // ---------------------------------------------------
@@ -1,11 +1,15 @@
 package de.tuberlin.pserver.runtime.filesystem.local;
 
 
+import de.tuberlin.pserver.commons.config.Config;
 import de.tuberlin.pserver.runtime.filesystem.AbstractFilePartition;
 import de.tuberlin.pserver.runtime.filesystem.AbstractFilePartitionScheduler;
+import de.tuberlin.pserver.runtime.filesystem.FileSystemManager;
 import de.tuberlin.pserver.types.typeinfo.DistributedTypeInfo;
 import de.tuberlin.pserver.types.typeinfo.properties.DistScheme;
+import de.tuberlin.pserver.types.typeinfo.properties.FileFormat;
 
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.LineNumberReader;
@@ -20,11 +24,22 @@ public class LocalFilePartitionScheduler implements AbstractFilePartitionSchedul
 
     private final LocalFile file;
 
+    // Null if the partitions are located by scanning the file.
+    private final LocalFileLineIndex lineIndex;
+
     // ---------------------------------------------------
     // Constructor.
     // ---------------------------------------------------
 
-    public LocalFilePartitionScheduler(LocalFile file) { this.file = file; }
+    public LocalFilePartitionScheduler(Config config, LocalFile file) {
+        this.file = file;
+        this.lineIndex = file.getTypeInfo().input().fileFormat() == FileFormat.BINARY_FORMAT
+                || (config.hasPath(FileSystemManager.LINE_INDEX) && !config.getBoolean(FileSystemManager.LINE_INDEX))
+                ? null : LocalFileLineIndex.open(
+                        file.getTypeInfo().input().filePath(),
+                        config.hasPath(FileSystemManager.LINE_INDEX_STRIDE) ? config.getInt(FileSystemManager.LINE_INDEX_STRIDE) : 1024
+                );
+    }
 
     // ---------------------------------------------------
     // Public Methods.
@@ -57,23 +72,21 @@ public class LocalFilePartitionScheduler implements AbstractFilePartitionSchedul
                             typeInfo.nodeId(),
                             typeInfo.input().filePath(),
                             typeInfo.input().fileFormat(),
-                            0,
-                            totalLines
+                            createBlock(0, totalLines)
                     )
             );
         } else {
             final long lps = totalLines / typeInfo.nodes().length;
             for (int i = 0; i < typeInfo.nodes().length; ++i) {
+                final long offset = lps * typeInfo.nodes()[i];
                 final long linesToRead = (typeInfo.nodes()[i] == (typeInfo.nodes().length - 1))
-                        ? lps + (totalLines % lps) : lps;
-                long offset = linesToRead * typeInfo.nodes()[i];
+                        ? totalLines - offset : lps;
                 inputPartitions.add(
                         new LocalFilePartition(
                             typeInfo.nodes()[i],
                             typeInfo.input().filePath(),
                             typeInfo.input().fileFormat(),
-                            offset,
-                            linesToRead
+                            createBlock(offset, linesToRead)
                         )
                 );
             }
@@ -81,7 +94,20 @@ public class LocalFilePartitionScheduler implements AbstractFilePartitionSchedul
         return inputPartitions;
     }
 
+    private LocalBlock createBlock(long offset, long linesToRead) {
+        if (lineIndex == null)
+            return new LocalBlock(offset, linesToRead);
+        return new LocalBlock(offset, linesToRead, lineIndex.position(offset), lineIndex.position(offset + linesToRead));
+    }
+
     private long getNumberOfLines(DistributedTypeInfo typeInfo) {
+        if (typeInfo.input().fileFormat() == FileFormat.BINARY_FORMAT) {
+            try (final BinaryMatrixFile binaryFile = BinaryMatrixFile.open(new File(typeInfo.input().filePath()))) {
+                return binaryFile.rows;
+            }
+        }
+        if (lineIndex != null)
+            return lineIndex.numLines();
         try {
             final LineNumberReader lnr = new LineNumberReader(new FileReader(typeInfo.input().filePath()));
             lnr.skip(Long.MAX_VALUE);
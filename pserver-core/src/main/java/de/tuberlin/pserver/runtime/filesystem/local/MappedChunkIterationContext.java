@@ -0,0 +1,68 @@
+package de.tuberlin.pserver.runtime.filesystem.local;
+
+
+import com.google.common.base.Preconditions;
+import de.tuberlin.pserver.runtime.filesystem.AbstractFileIterationContext;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+public class MappedChunkIterationContext extends AbstractFileIterationContext {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    public final ByteBuffer buffer;
+
+    // Stream view of the buffer, it shares the position with readNext() and read(...).
+    private final InputStream inputStream;
+
+    // ---------------------------------------------------
+    // Constructor.
+    // ---------------------------------------------------
+
+    public MappedChunkIterationContext(ByteBuffer buffer, int firstRow) {
+        this.buffer = Preconditions.checkNotNull(buffer);
+        this.row    = firstRow;
+        this.inputStream = new InputStream() {
+
+            @Override
+            public int read() { return buffer.hasRemaining() ? buffer.get() & 0xFF : -1; }
+
+            @Override
+            public int read(byte[] b, int offset, int length) {
+                if (length == 0)
+                    return 0;
+                if (!buffer.hasRemaining())
+                    return -1;
+                final int n = Math.min(length, buffer.remaining());
+                buffer.get(b, offset, n);
+                return n;
+            }
+
+            @Override
+            public long skip(long n) {
+                final int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+                buffer.position(buffer.position() + skipped);
+                return skipped;
+            }
+
+            @Override
+            public int available() { return buffer.remaining(); }
+        };
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    @Override
+    public InputStream getInputStream() { return inputStream; }
+
+    @Override
+    public int readNext() throws Exception { return inputStream.read(); }
+
+    @Override
+    public int read(byte[] b, int offset, int length) throws Exception { return inputStream.read(b, offset, length); }
+}
@@ -0,0 +1,210 @@
+package de.tuberlin.pserver.runtime.filesystem.records;
+
+import de.tuberlin.pserver.runtime.filesystem.AbstractFileIterationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Base of the text record parsers. Reads the input in byte windows and parses numbers
+ * directly from the bytes without creating strings. Floats are correctly rounded, they equal
+ * the result of Float.parseFloat. Decimals with a mantissa below 2^53 and a small exponent
+ * are converted with one or two floating point operations, the remaining numbers and the
+ * rare values that a double conversion would round twice fall back to Float.parseFloat.
+ */
+public abstract class AbstractRecordParser {
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    protected static final int EOF = -1;
+
+    private static final int WINDOW_SIZE = 64 * 1024;
+
+    private static final int MAX_MANTISSA_DIGITS = 18;
+
+    private static final float[] FLOAT_POW10 = { 1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+
+    private static final double[] DOUBLE_POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    protected final AbstractFileIterationContext iteratorContext;
+
+    protected final Record reusedRecord;
+
+    private final byte[] window;
+
+    private int windowPos;
+
+    private int windowLimit;
+
+    // Bytes of the current number, only needed by the slow path.
+    private byte[] token;
+
+    private int tokenLength;
+
+    // The current byte, or EOF.
+    protected int current;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public AbstractRecordParser(AbstractFileIterationContext iteratorContext) {
+        this.iteratorContext = iteratorContext;
+        this.reusedRecord    = new Record();
+        this.window          = new byte[WINDOW_SIZE];
+        this.token           = new byte[32];
+    }
+
+    // ---------------------------------------------------
+    // Public Method.
+    // ---------------------------------------------------
+
+    public abstract Record parseNextRow(int row);
+
+    // ---------------------------------------------------
+    // Protected Methods.
+    // ---------------------------------------------------
+
+    protected final int next() throws Exception {
+        if (windowPos == windowLimit) {
+            final int n = iteratorContext.read(window, 0, window.length);
+            if (n <= 0)
+                return current = EOF;
+            windowPos = 0;
+            windowLimit = n;
+        }
+        return current = window[windowPos++] & 0xFF;
+    }
+
+    protected final int parseInt() throws Exception {
+        boolean negative = false;
+        if (current == '-' || current == '+') {
+            negative = current == '-';
+            next();
+        }
+        if (!isDigit(current))
+            throw parseError("digit");
+        long value = 0;
+        while (isDigit(current)) {
+            value = value * 10 + (current - '0');
+            if (value > Integer.MAX_VALUE + 1L)
+                throw parseError("int");
+            next();
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    protected final float parseFloat() throws Exception {
+        tokenLength = 0;
+        boolean negative = false;
+        if (current == '-' || current == '+') {
+            negative = current == '-';
+            appendToken();
+            next();
+        }
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        boolean anyDigit = false;
+        // Integer part.
+        while (isDigit(current)) {
+            anyDigit = true;
+            if (digits < MAX_MANTISSA_DIGITS) {
+                mantissa = mantissa * 10 + (current - '0');
+                if (mantissa != 0)
+                    ++digits;
+            } else
+                ++exponent;
+            appendToken();
+            next();
+        }
+        // Fraction part.
+        if (current == '.') {
+            appendToken();
+            next();
+            while (isDigit(current)) {
+                anyDigit = true;
+                if (digits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (current - '0');
+                    if (mantissa != 0)
+                        ++digits;
+                    --exponent;
+                }
+                appendToken();
+                next();
+            }
+        }
+        if (!anyDigit)
+            throw parseError("number");
+        // Exponent part.
+        if (current == 'e' || current == 'E') {
+            appendToken();
+            next();
+            boolean negativeExponent = false;
+            if (current == '-' || current == '+') {
+                negativeExponent = current == '-';
+                appendToken();
+                next();
+            }
+            if (!isDigit(current))
+                throw parseError("exponent");
+            int e = 0;
+            while (isDigit(current)) {
+                if (e < 100000)
+                    e = e * 10 + (current - '0');
+                appendToken();
+                next();
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        final float value;
+        if (mantissa == 0)
+            value = 0f;
+        else if (mantissa <= (1L << 24) && exponent >= -10 && exponent <= 10)
+            // Both operands are exact floats, so the result is correctly rounded.
+            value = exponent >= 0 ? mantissa * FLOAT_POW10[exponent] : mantissa / FLOAT_POW10[-exponent];
+        else if (mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+            // Both operands are exact doubles, so the double is correctly rounded. Rounding it to
+            // a float again is only wrong if the double lies exactly halfway between two floats.
+            final double exact = exponent >= 0 ? mantissa * DOUBLE_POW10[exponent] : mantissa / DOUBLE_POW10[-exponent];
+            value = (float) exact;
+            if (isHalfway(exact, value))
+                return Float.parseFloat(new String(token, 0, tokenLength, StandardCharsets.US_ASCII));
+        } else
+            return Float.parseFloat(new String(token, 0, tokenLength, StandardCharsets.US_ASCII));
+        return negative ? -value : value;
+    }
+
+    protected final IllegalStateException parseError(String expected) {
+        return new IllegalStateException("Expected " + expected + " but found "
+                + (current == EOF ? "EOF" : "'" + (char) current + "'") + " @row[" + iteratorContext.row + "]");
+    }
+
+    protected static boolean isDigit(final int c) { return c >= '0' && c <= '9'; }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    // The differences are exact, the double and its neighbouring floats are within a factor of 2.
+    private static boolean isHalfway(final double exact, final float rounded) {
+        if (exact == rounded)
+            return false;
+        final float other = exact > rounded ? Math.nextUp(rounded) : Math.nextDown(rounded);
+        return exact - rounded == (double) other - exact;
+    }
+
+    private void appendToken() {
+        if (tokenLength == token.length)
+            token = Arrays.copyOf(token, tokenLength * 2);
+        token[tokenLength++] = (byte) current;
+    }
+}
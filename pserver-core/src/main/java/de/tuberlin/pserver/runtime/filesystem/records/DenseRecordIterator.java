@@ -0,0 +1,41 @@
+package de.tuberlin.pserver.runtime.filesystem.records;
+
+import de.tuberlin.pserver.runtime.filesystem.AbstractFileIterationContext;
+import de.tuberlin.pserver.types.matrix.typeinfo.MatrixTypeInfo;
+
+public class DenseRecordIterator implements RecordIterator {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private final MatrixTypeInfo matrixTypeInfo;
+
+    private final AbstractFileIterationContext iterationContext;
+
+    private final DenseRecordParser recordParser;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public DenseRecordIterator(MatrixTypeInfo matrixTypeInfo, AbstractFileIterationContext iterationContext) {
+        this.matrixTypeInfo     = matrixTypeInfo;
+        this.iterationContext   = iterationContext;
+        this.recordParser       = new DenseRecordParser(iterationContext, !"".equals(matrixTypeInfo.input().labels()));
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    @Override
+    public boolean hasNext() { return matrixTypeInfo.rows() > iterationContext.row; }
+
+    @Override
+    public Record next() {
+        Record record = recordParser.parseNextRow(iterationContext.row);
+        ++iterationContext.row;
+        return record;
+    }
+}
@@ -0,0 +1,62 @@
+package de.tuberlin.pserver.runtime.filesystem.records;
+
+import de.tuberlin.pserver.runtime.filesystem.AbstractFileIterationContext;
+
+/**
+ * Parses rows of comma separated values. If the rows are labelled the first value is the
+ * label, the remaining values are the columns of the row.
+ */
+public final class DenseRecordParser extends AbstractRecordParser {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private final boolean labelled;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    public DenseRecordParser(AbstractFileIterationContext iteratorContext, boolean labelled) {
+        super(iteratorContext);
+        this.labelled = labelled;
+    }
+
+    // ---------------------------------------------------
+    // Public Method.
+    // ---------------------------------------------------
+
+    @Override
+    public Record parseNextRow(int row) {
+        reusedRecord.reuse();
+        reusedRecord.row = row;
+        try {
+            if (next() == EOF)
+                throw parseError("value");
+            int col = labelled ? -1 : 0;
+            while (true) {
+                while (current == ' ' || current == '\t')
+                    next();
+                final float value = parseFloat();
+                if (col < 0)
+                    reusedRecord.label = value;
+                else
+                    reusedRecord.add(col, value);
+                ++col;
+                while (current == ' ' || current == '\t' || current == '\r')
+                    next();
+                if (current == '\n' || current == EOF)
+                    break;
+                if (current != ',')
+                    throw parseError("','");
+                next();
+            }
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return reusedRecord;
+    }
+}
@@ -1,7 +1,6 @@
 package de.tuberlin.pserver.runtime.filesystem.records;
 
-import gnu.trove.map.TIntFloatMap;
-import gnu.trove.map.hash.TIntFloatHashMap;
+import java.util.Arrays;
 
 public class Record {
 
@@ -19,7 +18,12 @@ public class Record {
 
     public float label;
 
-    public TIntFloatMap entries;
+    // Number of valid entries in indices and values.
+    public int size;
+
+    public int[] indices;
+
+    public float[] values;
 
     // ---------------------------------------------------
     // Constructor.
@@ -27,14 +31,24 @@ public class Record {
 
     public Record() {
         this.label   = Float.NaN;
-        this.entries = new TIntFloatHashMap();
+        this.indices = new int[DEFAULT_RECORD_CAPACITY];
+        this.values  = new float[DEFAULT_RECORD_CAPACITY];
     }
 
     // ---------------------------------------------------
     // Public Method.
     // ---------------------------------------------------
 
+    public void add(final int index, final float value) {
+        if (size == indices.length) {
+            indices = Arrays.copyOf(indices, size * 2);
+            values  = Arrays.copyOf(values, size * 2);
+        }
+        indices[size] = index;
+        values[size++] = value;
+    }
+
     public void reuse() {
-        entries.clear();
+        size = 0;
     }
 }
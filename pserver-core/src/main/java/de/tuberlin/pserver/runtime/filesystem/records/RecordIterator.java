@@ -20,6 +20,9 @@ public interface RecordIterator extends Iterator<Record> {
             case SVM_FORMAT: {
                 return new SVMRecordIterator(matrixTypeInfo, ic);
             }
+            case DENSE_FORMAT: {
+                return new DenseRecordIterator(matrixTypeInfo, ic);
+            }
             default:
                 throw new UnsupportedOperationException("unknown file format");
         }
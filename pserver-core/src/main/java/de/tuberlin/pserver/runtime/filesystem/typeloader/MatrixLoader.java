@@ -4,12 +4,23 @@ import de.tuberlin.pserver.diagnostics.MemoryTracer;
 import de.tuberlin.pserver.runtime.driver.ProgramContext;
 import de.tuberlin.pserver.runtime.filesystem.AbstractFileIterator;
 import de.tuberlin.pserver.runtime.filesystem.FileSystemManager;
+import de.tuberlin.pserver.runtime.filesystem.local.BinaryMatrixFile;
+import de.tuberlin.pserver.runtime.filesystem.local.LocalBlock;
+import de.tuberlin.pserver.runtime.filesystem.local.LocalChunkedFileReader;
+import de.tuberlin.pserver.runtime.filesystem.local.LocalFile;
+import de.tuberlin.pserver.runtime.filesystem.local.LocalFilePartition;
 import de.tuberlin.pserver.runtime.filesystem.records.Record;
 import de.tuberlin.pserver.types.matrix.implementation.Matrix32F;
+import de.tuberlin.pserver.types.matrix.implementation.matrix32f.dense.DenseMatrix32F;
 import de.tuberlin.pserver.types.matrix.implementation.matrix32f.sparse.CSRMatrix32F;
 import de.tuberlin.pserver.types.typeinfo.DistributedTypeInfo;
+import de.tuberlin.pserver.types.typeinfo.properties.FileFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public final class MatrixLoader {
@@ -18,7 +29,7 @@ public final class MatrixLoader {
     // Inner Classes.
     // ---------------------------------------------------
 
-    private static abstract class MatrixLoaderStrategy {
+    private static abstract class MatrixLoaderStrategy<F> {
 
         protected final Matrix32F matrix;
 
@@ -28,7 +39,17 @@ public final class MatrixLoader {
 
         abstract public void putRecord(Record record, Matrix32F dataMatrix, Matrix32F labelMatrix);
 
-        public static MatrixLoaderStrategy createLoader(DistributedTypeInfo state) {
+        // Chunked loading, putChunkRecord is called concurrently for different chunks.
+
+        public boolean supportsChunks(Matrix32F dataMatrix) { return false; }
+
+        public F createFragment(LocalChunkedFileReader.Chunk chunk) { return null; }
+
+        abstract public void putChunkRecord(F fragment, Record record, Matrix32F dataMatrix);
+
+        public void doneChunks(Matrix32F dataMatrix, List<F> fragments) {}
+
+        public static MatrixLoaderStrategy<?> createLoader(DistributedTypeInfo state) {
             if (CSRMatrix32F.class.isAssignableFrom(state.type()))
                 return new CSRMatrix32LoaderStrategy((Matrix32F) state);
             if (Matrix32F.class.isAssignableFrom(state.type()))
@@ -39,24 +60,30 @@ public final class MatrixLoader {
 
     // ---------------------------------------------------
 
-    private final static class Matrix32LoaderStrategy extends MatrixLoaderStrategy {
+    private final static class Matrix32LoaderStrategy extends MatrixLoaderStrategy<Void> {
 
         public Matrix32LoaderStrategy(Matrix32F matrix)  { super(matrix); }
 
         @Override
         public void putRecord(Record record, Matrix32F dataMatrix, Matrix32F labelMatrix) {
-            throw new UnsupportedOperationException();
-            /*while (record.hasNext()) {
-                final RecordEntry32F entry = record.next();
-                if (labelMatrix != null && entry.getCol() == 0)
-                    labelMatrix.set(record.getRow(), entry.getCol(), record.getLabel());
-                else
-                    dataMatrix.set(entry.getRow(), entry.getCol() - ((labelMatrix != null) ? 1 : 0), entry.getValue());
-            }*/
+            if (labelMatrix != null)
+                labelMatrix.set(record.row, 0, record.label);
+            putChunkRecord(null, record, dataMatrix);
+            record.reuse();
+        }
+
+        // Rows of a dense matrix are disjoint array ranges, chunks write them in place.
+        @Override
+        public boolean supportsChunks(Matrix32F dataMatrix) { return dataMatrix instanceof DenseMatrix32F; }
+
+        @Override
+        public void putChunkRecord(Void fragment, Record record, Matrix32F dataMatrix) {
+            for (int i = 0; i < record.size; ++i)
+                dataMatrix.set(record.row, record.indices[i], record.values[i]);
         }
     }
 
-    private final static class CSRMatrix32LoaderStrategy extends MatrixLoaderStrategy {
+    private final static class CSRMatrix32LoaderStrategy extends MatrixLoaderStrategy<CSRMatrix32F.RowFragment> {
 
         public CSRMatrix32LoaderStrategy(Matrix32F matrix)  { super(matrix); }
 
@@ -65,7 +92,7 @@ public final class MatrixLoader {
             try {
                 if (labelMatrix != null)
                     labelMatrix.set(record.row, 0, record.label);
-                ((CSRMatrix32F) dataMatrix).addRow(record.entries);
+                ((CSRMatrix32F) dataMatrix).addRow(record.indices, record.values, record.size);
                 record.reuse();
             } catch (Throwable t) {
                 throw new IllegalStateException(t);
@@ -76,8 +103,30 @@ public final class MatrixLoader {
         public void done(Matrix32F dataMatrix) {
             ((CSRMatrix32F) dataMatrix).build();
         }
+
+        @Override
+        public boolean supportsChunks(Matrix32F dataMatrix) { return true; }
+
+        @Override
+        public CSRMatrix32F.RowFragment createFragment(LocalChunkedFileReader.Chunk chunk) { return new CSRMatrix32F.RowFragment(); }
+
+        @Override
+        public void putChunkRecord(CSRMatrix32F.RowFragment fragment, Record record, Matrix32F dataMatrix) {
+            fragment.addRow(record.indices, record.values, record.size);
+        }
+
+        @Override
+        public void doneChunks(Matrix32F dataMatrix, List<CSRMatrix32F.RowFragment> fragments) {
+            ((CSRMatrix32F) dataMatrix).build(fragments);
+        }
     }
 
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    private static final Logger LOG = LoggerFactory.getLogger(MatrixLoader.class);
+
     // ---------------------------------------------------
     // Fields.
     // ---------------------------------------------------
@@ -112,19 +161,123 @@ public final class MatrixLoader {
         MemoryTracer.printTrace("Before_FileLoading");
         for (DistributedTypeInfo typeInfo : loadingTasks) {
             Matrix32F dataMatrix = (Matrix32F)typeInfo;
-            AbstractFileIterator fileIterator = fileManager.getFileIterator(typeInfo);
             Matrix32F labelMatrix = null;
 
             if (!"".equals(typeInfo.input().labels()))
                 labelMatrix = programContext.runtimeContext.runtimeManager.getDHT(typeInfo.input().labels());
 
-            final MatrixLoaderStrategy loader = MatrixLoaderStrategy.createLoader(typeInfo);
-            while (fileIterator.hasNext()) {
-                loader.putRecord(fileIterator.next(), dataMatrix, labelMatrix);
+            if (typeInfo.input().fileFormat() == FileFormat.BINARY_FORMAT) {
+                loadBinary(typeInfo, dataMatrix, labelMatrix);
+                LOG.debug("Loaded binary matrix file of " + typeInfo.name() + ".");
+                MemoryTracer.printTrace("After_FileLoading");
+                continue;
             }
-            loader.done(dataMatrix);
+
+            final File cacheFile = BinaryMatrixFile.supports(dataMatrix) ? fileManager.getBinaryCacheFile(typeInfo) : null;
+            if (cacheFile != null && loadCache(typeInfo, cacheFile, dataMatrix, labelMatrix)) {
+                LOG.debug("Loaded " + typeInfo.name() + " from binary cache " + cacheFile + ".");
+                MemoryTracer.printTrace("After_FileLoading");
+                continue;
+            }
+
+            final float[] labels = (cacheFile != null && labelMatrix != null) ? new float[numPartitionRows(typeInfo, dataMatrix)] : null;
+            final MatrixLoaderStrategy<?> loader = MatrixLoaderStrategy.createLoader(typeInfo);
+            final LocalChunkedFileReader chunkedReader = fileManager.getChunkedFileReader(typeInfo);
+            if (chunkedReader != null && loader.supportsChunks(dataMatrix)) {
+                loadChunked(chunkedReader, loader, dataMatrix, labelMatrix, labels);
+            } else {
+                AbstractFileIterator fileIterator = fileManager.getFileIterator(typeInfo);
+                while (fileIterator.hasNext()) {
+                    final Record record = fileIterator.next();
+                    if (labels != null)
+                        labels[record.row] = record.label;
+                    loader.putRecord(record, dataMatrix, labelMatrix);
+                }
+                loader.done(dataMatrix);
+            }
+            if (cacheFile != null)
+                writeCache(typeInfo, cacheFile, dataMatrix, labels);
             System.out.println("DONE LOADING DATA!");
             MemoryTracer.printTrace("After_FileLoading");
         }
     }
-}
\ No newline at end of file
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private <F> void loadChunked(LocalChunkedFileReader reader, MatrixLoaderStrategy<F> loader,
+                                 Matrix32F dataMatrix, Matrix32F labelMatrix, float[] cachedLabels) {
+        final List<LocalChunkedFileReader.Chunk> chunks = reader.plan();
+        final List<F> fragments = new ArrayList<>(Collections.nCopies(chunks.size(), null));
+        final float[][] labels = new float[chunks.size()][];
+        reader.read(chunks, (chunk, records) -> {
+            final F fragment = loader.createFragment(chunk);
+            final float[] chunkLabels = new float[chunk.numRows];
+            int i = 0;
+            while (records.hasNext()) {
+                final Record record = records.next();
+                chunkLabels[i++] = record.label;
+                loader.putChunkRecord(fragment, record, dataMatrix);
+                record.reuse();
+            }
+            if (i != chunk.numRows)
+                throw new IllegalStateException("Chunk " + chunk.index + " has " + i + " of " + chunk.numRows + " rows.");
+            fragments.set(chunk.index, fragment);
+            labels[chunk.index] = chunkLabels;
+        });
+        // The label matrix is not necessarily thread safe, set the labels in row order.
+        if (labelMatrix != null) {
+            for (final LocalChunkedFileReader.Chunk chunk : chunks) {
+                for (int i = 0; i < chunk.numRows; ++i)
+                    labelMatrix.set(chunk.firstRow + i, 0, labels[chunk.index][i]);
+                if (cachedLabels != null)
+                    System.arraycopy(labels[chunk.index], 0, cachedLabels, chunk.firstRow, chunk.numRows);
+            }
+        }
+        loader.doneChunks(dataMatrix, fragments);
+    }
+
+    // Rows of the local partition that are loaded into the matrix.
+    private int numPartitionRows(DistributedTypeInfo typeInfo, Matrix32F dataMatrix) {
+        final LocalBlock block = ((LocalFilePartition) fileManager.getFile(typeInfo).getFilePartition()).localBlock;
+        return (int) Math.min(block.linesToRead, dataMatrix.rows());
+    }
+
+    private void loadBinary(DistributedTypeInfo typeInfo, Matrix32F dataMatrix, Matrix32F labelMatrix) {
+        if (!(fileManager.getFile(typeInfo) instanceof LocalFile))
+            throw new UnsupportedOperationException("Binary matrices can only be loaded from local files.");
+        final LocalBlock block = ((LocalFilePartition) fileManager.getFile(typeInfo).getFilePartition()).localBlock;
+        try (final BinaryMatrixFile binaryFile = BinaryMatrixFile.open(new File(typeInfo.input().filePath()))) {
+            binaryFile.read(block.offset, numPartitionRows(typeInfo, dataMatrix), dataMatrix, labelMatrix);
+        }
+    }
+
+    private boolean loadCache(DistributedTypeInfo typeInfo, File cacheFile, Matrix32F dataMatrix, Matrix32F labelMatrix) {
+        if (!cacheFile.isFile())
+            return false;
+        final int numRows = numPartitionRows(typeInfo, dataMatrix);
+        final long offset = ((LocalFilePartition) fileManager.getFile(typeInfo).getFilePartition()).localBlock.offset;
+        try (final BinaryMatrixFile binaryFile = BinaryMatrixFile.open(cacheFile)) {
+            if (!binaryFile.isCacheOf(new File(typeInfo.input().filePath())) || binaryFile.firstRow != offset
+                    || binaryFile.rows != numRows || binaryFile.cols != dataMatrix.cols()
+                    || binaryFile.kind != BinaryMatrixFile.kindOf(dataMatrix) || (labelMatrix != null && !binaryFile.hasLabels))
+                return false;
+            binaryFile.read(0, numRows, dataMatrix, labelMatrix);
+            return true;
+        } catch (IllegalStateException e) {
+            LOG.warn("Could not read binary cache " + cacheFile + ": " + e);
+            return false;
+        }
+    }
+
+    private void writeCache(DistributedTypeInfo typeInfo, File cacheFile, Matrix32F dataMatrix, float[] labels) {
+        final long offset = ((LocalFilePartition) fileManager.getFile(typeInfo).getFilePartition()).localBlock.offset;
+        try {
+            BinaryMatrixFile.write(cacheFile, dataMatrix, numPartitionRows(typeInfo, dataMatrix), labels,
+                    offset, new File(typeInfo.input().filePath()));
+        } catch (IllegalStateException e) {
+            LOG.warn("Could not write binary cache " + cacheFile + ": " + e);
+        }
+    }
+}
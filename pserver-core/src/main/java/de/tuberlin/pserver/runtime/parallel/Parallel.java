@@ -8,6 +8,7 @@ import de.tuberlin.pserver.types.matrix.implementation.Matrix32F;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class Parallel {
 
@@ -15,8 +16,13 @@ public final class Parallel {
     // Fields.
     // ---------------------------------------------------
 
+    // Default number of chunks per slot for the DYNAMIC and GUIDED schedules.
+    public static final int CHUNKS_PER_SLOT = 32;
+
     private static ParallelRuntime parallelRuntime;
 
+    private static volatile Schedule defaultSchedule = Schedule.DYNAMIC;
+
     // ---------------------------------------------------
     // Constructor.
     // ---------------------------------------------------
@@ -29,6 +35,8 @@ public final class Parallel {
 
     public static void setMCRuntime(final ParallelRuntime parallelRuntime) { Parallel.parallelRuntime = parallelRuntime; }
 
+    public static void setDefaultSchedule(final Schedule schedule) { Parallel.defaultSchedule = Preconditions.checkNotNull(schedule); }
+
     // ---------------------------------------------------
     // MCRuntime Primitives.
     // ---------------------------------------------------
@@ -77,12 +85,37 @@ public final class Parallel {
     public static void For(final int dop, final long start, final long end, final ParallelForBody<Long> body)
             throws Exception {
 
+        For(defaultSchedule, dop, start, end, body);
+    }
+
+    public static void For(final Schedule schedule, final int dop, final long start, final long end, final ParallelForBody<Long> body)
+            throws Exception {
+
+        For(schedule, Math.max(1, (end - start) / ((long) dop * CHUNKS_PER_SLOT)), dop, start, end, body);
+    }
+
+    public static void For(final Schedule schedule, final long chunk, final int dop, final long start, final long end, final ParallelForBody<Long> body)
+            throws Exception {
+
+        Preconditions.checkArgument(chunk > 0);
+        final WorkRange[] ranges = WorkRange.split(start, end, dop);
+        final AtomicInteger nextRange = new AtomicInteger(0);
+
         Do(dop, () -> {
-            final double elementsPerCore = (double) (end - start) / dop;
-            final long elementOffset = (int) Math.ceil(elementsPerCore * id());
-            final long numElements = (int) (Math.ceil(elementsPerCore * (id() + 1)) - elementOffset);
-            for (long i = elementOffset; i < elementOffset + numElements; ++i)
-                body.perform(i);
+            final int self = nextRange.getAndIncrement();
+            final WorkRange own = ranges[self];
+            final long[] bounds = new long[2];
+            if (schedule == Schedule.STATIC) {
+                while (own.take(Schedule.STATIC, Long.MAX_VALUE, bounds))
+                    for (long i = bounds[0]; i < bounds[1]; ++i)
+                        body.perform(i);
+                return;
+            }
+            do {
+                while (own.take(schedule, chunk, bounds))
+                    for (long i = bounds[0]; i < bounds[1]; ++i)
+                        body.perform(i);
+            } while (stealInto(ranges, self, bounds));
         });
     }
 
@@ -120,7 +153,8 @@ public final class Parallel {
             }
         }*/
 
-        For(0, iter.size(), (i) -> {
+        // The rows come from one shared iterator, chunks must not be reordered by stealing.
+        For(Schedule.STATIC, parallelRuntime.getNumOfWorkerSlots(), 0, iter.size(), (i) -> {
             Preconditions.checkState(iter.hasNext(), "iter.size = " + iter.size() + ", fetched = " + i);
             final Matrix32F row = iter.get();
             iter.next();
@@ -137,6 +171,27 @@ public final class Parallel {
     // Private Methods.
     // ---------------------------------------------------
 
+    // Steals from the range with the most remaining iterations until all ranges are drained.
+    private static boolean stealInto(final WorkRange[] ranges, final int self, final long[] bounds) {
+        while (true) {
+            WorkRange victim = null;
+            long maxRemaining = 1;
+            for (int i = 0; i < ranges.length; ++i) {
+                final long remaining = ranges[i].remaining();
+                if (i != self && remaining > maxRemaining) {
+                    victim = ranges[i];
+                    maxRemaining = remaining;
+                }
+            }
+            if (victim == null)
+                return false;
+            if (victim.steal(bounds)) {
+                ranges[self].reset(bounds[0], bounds[1]);
+                return true;
+            }
+        }
+    }
+
     private static void executeByWorkerSlots(final int dop, final ParallelBody parallelBody) throws Exception {
         for (int i = dop - 1; i >= 0; --i) {
             parallelRuntime.getWorkerSlots()[i].run(dop, parallelBody);
@@ -4,6 +4,7 @@ import de.tuberlin.pserver.commons.ds.NestedIntervalTree;
 import de.tuberlin.pserver.runtime.core.lifecycle.Deactivatable;
 
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 public enum ParallelRuntime implements Deactivatable {
@@ -13,7 +14,11 @@ public enum ParallelRuntime implements Deactivatable {
     // Fields.
     // ---------------------------------------------------
 
-    private final Map<Long, WorkerSlot> threadToWorkerSlotMap;
+    // Slot bound to a worker thread, set by the thread itself before it runs any task.
+    private final ThreadLocal<WorkerSlot> boundWorkerSlot;
+
+    // Threads that act as slot 0, e.g. the program thread and the event dispatcher.
+    private final Set<Long> primaryThreadIDs;
 
     private final WorkerSlot[] workerSlots;
 
@@ -27,7 +32,9 @@ public enum ParallelRuntime implements Deactivatable {
 
     private ParallelRuntime(final int numSlots) {
 
-        this.threadToWorkerSlotMap = new ConcurrentHashMap<>();
+        this.boundWorkerSlot = new ThreadLocal<>();
+
+        this.primaryThreadIDs = ConcurrentHashMap.newKeySet();
 
         this.workerSlots = new WorkerSlot[numSlots];
 
@@ -71,29 +78,18 @@ public enum ParallelRuntime implements Deactivatable {
 
     public void registerWorkerSlot(final WorkerSlot workerSlot) {
 
-        threadToWorkerSlotMap.put(Thread.currentThread().getId(), workerSlot);
+        boundWorkerSlot.set(workerSlot);
     }
 
     public WorkerSlot currentSlot() {
 
-        WorkerSlot ws = threadToWorkerSlotMap.get(Thread.currentThread().getId());
-
-        int numOfRetries = 5;
+        final WorkerSlot ws = boundWorkerSlot.get();
 
-        while (ws == null && numOfRetries > 0) {
-
-            try {
-                Thread.sleep(50);
-            } catch (InterruptedException ie) {
-                // .. do nothing ..
-            }
+        if (ws != null)
+            return ws;
 
-            ws = threadToWorkerSlotMap.get(Thread.currentThread().getId());
-
-            numOfRetries--;
-        }
-
-        return ws;
+        // Slot 0 is not cached per thread, create(...) replaces it for every program.
+        return primaryThreadIDs.contains(Thread.currentThread().getId()) ? workerSlots[0] : null;
     }
 
     public int currentSlotID() { return currentSlot().slotID; }
@@ -166,9 +162,12 @@ public enum ParallelRuntime implements Deactivatable {
 
         for (int i = 0; i < numSlots; ++i) {
 
+            if (i > 0 && workerSlots[i] != null)
+                workerSlots[i].shutdown();
+
             workerSlots[i] = new WorkerSlot(i);
 
-            if (i == 0) threadToWorkerSlotMap.put(Thread.currentThread().getId(), workerSlots[i]);
+            if (i == 0) primaryThreadIDs.add(Thread.currentThread().getId());
         }
 
         return this;
@@ -176,7 +175,7 @@ public enum ParallelRuntime implements Deactivatable {
 
     public void addPrimaryThread(final long threadID) {
 
-        threadToWorkerSlotMap.put(threadID, workerSlots[0]);
+        primaryThreadIDs.add(threadID);
     }
 
     // ---------------------------------------------------
@@ -0,0 +1,14 @@
+package de.tuberlin.pserver.runtime.parallel;
+
+
+public enum Schedule {
+
+    // Every slot processes one equal share of the range.
+    STATIC,
+
+    // Every slot takes fixed-size chunks from its share and steals from the others when done.
+    DYNAMIC,
+
+    // Like DYNAMIC, but a chunk is half of what remains in the share, never less than the chunk size.
+    GUIDED
+}
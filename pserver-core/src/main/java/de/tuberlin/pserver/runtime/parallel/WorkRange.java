@@ -0,0 +1,69 @@
+package de.tuberlin.pserver.runtime.parallel;
+
+/**
+ * The share of a loop range that belongs to one slot. The owner takes chunks from the front,
+ * idle slots steal the back half of the remaining iterations. Ranges are small and touched
+ * rarely per chunk, a monitor per range is cheaper than a shared cursor for all slots.
+ */
+final class WorkRange {
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private long next;
+
+    private long end;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    private WorkRange(final long next, final long end) {
+        this.next = next;
+        this.end = end;
+    }
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    public static WorkRange[] split(final long start, final long end, final int parts) {
+        final WorkRange[] ranges = new WorkRange[parts];
+        final double elementsPerPart = (double) (end - start) / parts;
+        for (int i = 0; i < parts; ++i)
+            ranges[i] = new WorkRange(
+                    start + (long) Math.ceil(elementsPerPart * i),
+                    start + (long) Math.ceil(elementsPerPart * (i + 1))
+            );
+        return ranges;
+    }
+
+    public synchronized long remaining() { return end - next; }
+
+    // Takes the next chunk into bounds = [from, to), returns false if the range is empty.
+    public synchronized boolean take(final Schedule schedule, final long chunk, final long[] bounds) {
+        if (next >= end)
+            return false;
+        final long size = schedule == Schedule.GUIDED ? Math.max(chunk, (end - next) / 2) : chunk;
+        bounds[0] = next;
+        bounds[1] = next = (end - next <= size) ? end : next + size;
+        return true;
+    }
+
+    // Moves the back half of the remaining iterations into bounds, returns false if there is nothing to share.
+    public synchronized boolean steal(final long[] bounds) {
+        final long remaining = end - next;
+        if (remaining < 2)
+            return false;
+        bounds[0] = next + remaining / 2;
+        bounds[1] = end;
+        end = bounds[0];
+        return true;
+    }
+
+    public synchronized void reset(final long from, final long to) {
+        this.next = from;
+        this.end = to;
+    }
+}
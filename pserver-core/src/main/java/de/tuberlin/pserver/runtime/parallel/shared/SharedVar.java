@@ -11,6 +11,7 @@ import org.apache.commons.lang3.tuple.Triple;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
 
 public final class SharedVar<T> {
 
@@ -128,6 +129,21 @@ public final class SharedVar<T> {
         return fetch().done();
     }
 
+    /**
+     * Combines the values of this variable across all nodes and stores the result. Must be
+     * called by exactly one slot per node, as it takes part in a collective operation.
+     */
+    public T allReduce(final BinaryOperator<T> op) {
+
+        fetch();
+
+        final T value = pc.runtimeContext.collectiveManager.allReduce(pc.programID, sharedVarUIDStr(), this.managedVar.getLeft().get(), op, pc.getProgramNodeIDs());
+
+        this.managedVar.getLeft().set(value);
+
+        return value;
+    }
+
     // ---------------------------------------------------
     // Private Methods.
     // ---------------------------------------------------
@@ -1,5 +1,6 @@
 package de.tuberlin.pserver.runtime.state.matrix.rpc;
 
+import de.tuberlin.pserver.runtime.core.network.MethodRegistry;
 import de.tuberlin.pserver.runtime.core.network.NetManager;
 import de.tuberlin.pserver.runtime.core.remoteobj.MethodInvocationMsg;
 import de.tuberlin.pserver.runtime.driver.ProgramContext;
@@ -23,6 +24,8 @@ public final class GlobalStateMatrixProxy implements InvocationHandler {
 
     private final NetManager netManager;
 
+    private final MethodRegistry.MethodTable methodTable;
+
     private final Map<UUID, CountDownLatch> requestLatches;
 
     private final Map<UUID, Object> resultObjects;
@@ -38,12 +41,13 @@ public final class GlobalStateMatrixProxy implements InvocationHandler {
 
         this.netManager     = programContext.runtimeContext.netManager;
         this.state          = state;
+        this.methodTable    = MethodRegistry.getMethodTable(state.type());
         this.requestLatches = new ConcurrentHashMap<>();
         this.resultObjects  = new ConcurrentHashMap<>();
 
         netManager.addEventListener(MethodInvocationMsg.METHOD_INVOCATION_EVENT + "_" + state.name(), (event) -> {
             MethodInvocationMsg mim = (MethodInvocationMsg)event;
-            if (mim.classID == state.type().hashCode() && requestLatches.containsKey(mim.callID)) {
+            if (mim.classID == methodTable.typeID && requestLatches.containsKey(mim.callID)) {
                 CountDownLatch cdl = requestLatches.remove(mim.callID);
                 if (mim.result != null)
                     resultObjects.put(mim.callID, mim.result);
@@ -61,8 +65,8 @@ public final class GlobalStateMatrixProxy implements InvocationHandler {
         MethodInvocationMsg invokeMsg = new MethodInvocationMsg(
                 state.name(),
                 callID,
-                state.type().hashCode(),
-                MethodInvocationMsg.getMethodID(method),
+                methodTable.typeID,
+                methodTable.getMethodID(method),
                 arguments,
                 null
         );
@@ -0,0 +1,75 @@
+package de.tuberlin.pserver.dsl.transaction.executors;
+
+import de.tuberlin.pserver.dsl.transaction.delta.SparseDelta32F;
+import de.tuberlin.pserver.runtime.core.serializer.LowPrecisionCodec;
+import de.tuberlin.pserver.runtime.core.serializer.WirePrecision;
+import de.tuberlin.pserver.types.matrix.implementation.matrix32f.dense.DenseMatrix32F;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DeltaEncoderTest {
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    private static final int SIZE = 1000;
+
+    // ---------------------------------------------------
+    // Tests.
+    // ---------------------------------------------------
+
+    @Test
+    public void testFullPrecisionReplicaFollows() {
+        final float[] replica = push(WirePrecision.FULL, 1);
+        assertArrayEquals(target(), replica, 0f);
+    }
+
+    @Test
+    public void testHalfPrecisionResidualIsSentLater() {
+        // The first push is off by the FP16 rounding of the deltas.
+        final float[] target = target();
+        assertTrue(maxError(target, push(WirePrecision.FP16, 1)) > 1e-5f);
+        // The baseline holds the rounded values, so the next pushes send what the receiver misses.
+        assertTrue(maxError(target, push(WirePrecision.FP16, 4)) < 1e-6f);
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private static float[] push(final WirePrecision precision, final int numPushes) {
+        final float[] replica = new float[SIZE];
+        final DeltaEncoder encoder = new DeltaEncoder(1, 0f, true, precision);
+        encoder.bind(0, new DenseMatrix32F(1, SIZE, replica.clone()));
+        final DenseMatrix32F state = new DenseMatrix32F(1, SIZE, target());
+        for (int p = 0; p < numPushes; ++p) {
+            final SparseDelta32F delta = (SparseDelta32F) encoder.encode(0, state);
+            // The receiver gets the values as written on the wire.
+            for (int i = 0; i < delta.size(); ++i)
+                replica[delta.index(i)] += precision == WirePrecision.FP16
+                        ? LowPrecisionCodec.fromHalf(LowPrecisionCodec.toHalf(delta.value(i)))
+                        : delta.value(i);
+        }
+        return replica;
+    }
+
+    private static float[] target() {
+        final Random random = new Random(5);
+        final float[] values = new float[SIZE];
+        for (int i = 0; i < SIZE; ++i)
+            values[i] = 1f + random.nextFloat();
+        return values;
+    }
+
+    private static float maxError(final float[] expected, final float[] actual) {
+        float max = 0f;
+        for (int i = 0; i < expected.length; ++i)
+            max = Math.max(max, Math.abs(expected[i] - actual[i]));
+        return max;
+    }
+}
@@ -0,0 +1,220 @@
+package de.tuberlin.pserver.runtime.collective;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CollectiveManagerTest {
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    private static final UUID PROGRAM_ID = new UUID(1, 2);
+
+    // Large enough for the ring, not a multiple of the number of nodes.
+    private static final int RING_LENGTH = (int) (CollectiveManager.RING_THRESHOLD / Double.BYTES) + 7;
+
+    // ---------------------------------------------------
+    // Fields.
+    // ---------------------------------------------------
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    // Keys of all collective messages sent between the nodes.
+    private final List<String> sentKeys = Collections.synchronizedList(new ArrayList<>());
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // ---------------------------------------------------
+    // Tests.
+    // ---------------------------------------------------
+
+    @Test
+    public void testTreeAllReduce() throws Exception {
+        for (final int numNodes : new int[] { 1, 2, 3, 5, 8 }) {
+            final CollectiveManager[] managers = cluster(numNodes, CollectiveManager.DEFAULT_TIMEOUT);
+            final List<Integer> sums = run(all(numNodes), id -> managers[id].allReduce(PROGRAM_ID, "sum", id + 1, Integer::sum, null));
+            for (final int sum : sums)
+                assertEquals(numNodes * (numNodes + 1) / 2, sum);
+        }
+    }
+
+    @Test
+    public void testTreeReduceGatherAndBroadcastAtRoot() throws Exception {
+        final CollectiveManager[] managers = cluster(6, CollectiveManager.DEFAULT_TIMEOUT);
+        final List<Integer> sums = run(all(6), id -> managers[id].reduce(PROGRAM_ID, "sum", id, Integer::sum, 4, null));
+        final List<List<Integer>> gathered = run(all(6), id -> managers[id].gather(PROGRAM_ID, "gather", id * 10, 4, null));
+        final List<String> broadcast = run(all(6), id -> managers[id].broadcast(PROGRAM_ID, "bcast", id == 4 ? "root" : null, 4, null));
+        for (int id = 0; id < 6; ++id) {
+            if (id == 4) {
+                assertEquals(15, (int) sums.get(id));
+                assertEquals(Arrays.asList(0, 10, 20, 30, 40, 50), gathered.get(id));
+            } else {
+                assertNull(sums.get(id));
+                assertNull(gathered.get(id));
+            }
+            assertEquals("root", broadcast.get(id));
+        }
+    }
+
+    @Test
+    public void testRingAllReduce() throws Exception {
+        for (final int numNodes : new int[] { 3, 4, 7 }) {
+            sentKeys.clear();
+            final CollectiveManager[] managers = cluster(numNodes, CollectiveManager.DEFAULT_TIMEOUT);
+            final List<double[]> results = run(all(numNodes), id -> managers[id].allReduce(PROGRAM_ID, "ring",
+                    ringValue(id), CollectiveManagerTest::add, Partitioner.DOUBLE_ARRAY, null));
+            double[] expected = new double[RING_LENGTH];
+            for (int id = 0; id < numNodes; ++id)
+                expected = add(expected, ringValue(id));
+            for (final double[] result : results)
+                assertArrayEquals(expected, result, 0.0);
+            assertTrue(sentKeys.stream().anyMatch(key -> key.contains(":rs:")));
+        }
+    }
+
+    @Test
+    public void testOperationsOverProgramNodes() throws Exception {
+        // Nodes 1 and 4 are not part of the program and never call in.
+        final CollectiveManager[] managers = cluster(6, CollectiveManager.DEFAULT_TIMEOUT);
+        final int[] nodeIDs = { 5, 0, 3, 2 };
+        final List<Integer> sums = run(nodeIDs, id -> managers[id].allReduce(PROGRAM_ID, "sum", id, Integer::sum, nodeIDs));
+        final List<List<Integer>> gathered = run(nodeIDs, id -> managers[id].allGather(PROGRAM_ID, "gather", id, nodeIDs));
+        final List<double[]> ring = run(nodeIDs, id -> managers[id].allReduce(PROGRAM_ID, "ring",
+                ringValue(id), CollectiveManagerTest::add, Partitioner.DOUBLE_ARRAY, nodeIDs));
+        final List<String> broadcast = run(nodeIDs, id -> managers[id].broadcast(PROGRAM_ID, "bcast", id == 3 ? "root" : null, 3, nodeIDs));
+        final double[] expected = add(add(ringValue(0), ringValue(2)), add(ringValue(3), ringValue(5)));
+        for (int i = 0; i < nodeIDs.length; ++i) {
+            assertEquals(10, (int) sums.get(i));
+            assertEquals(Arrays.asList(0, 2, 3, 5), gathered.get(i));
+            assertArrayEquals(expected, ring.get(i), 0.0);
+            assertEquals("root", broadcast.get(i));
+        }
+    }
+
+    @Test
+    public void testMissingNodeTimesOut() throws Exception {
+        final CollectiveManager[] managers = cluster(2, 200);
+        try {
+            run(new int[] { 0 }, id -> managers[id].allReduce(PROGRAM_ID, "sum", id, Integer::sum, null));
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testAwaitClockOfSlowestNode() throws Exception {
+        final CollectiveManager[] managers = cluster(3, CollectiveManager.DEFAULT_TIMEOUT);
+        final int[] nodeIDs = all(3);
+        final List<String> keys = run(nodeIDs, id -> managers[id].openClock(PROGRAM_ID, "clock"));
+        final Future<?> waiter = executor.submit(() -> managers[0].awaitClock(PROGRAM_ID, keys.get(0), 2, nodeIDs));
+        for (int id = 0; id < 3; ++id)
+            managers[id].advanceClock(PROGRAM_ID, keys.get(id), id == 2 ? 1 : 2, nodeIDs);
+        assertFalse(waiter.isDone());
+        managers[2].advanceClock(PROGRAM_ID, keys.get(2), 2, nodeIDs);
+        waiter.get(30, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testAwaitClockTimesOut() throws Exception {
+        final CollectiveManager[] managers = cluster(2, 200);
+        final String key = managers[0].openClock(PROGRAM_ID, "clock");
+        try {
+            managers[0].awaitClock(PROGRAM_ID, key, 1, all(2));
+            fail();
+        } catch (IllegalStateException e) {
+            // The other node never advanced its clock.
+        }
+    }
+
+    @Test
+    public void testClearContextFailsWaitersAndDropsLateEvents() throws Exception {
+        final CollectiveManager[] managers = cluster(2, CollectiveManager.DEFAULT_TIMEOUT);
+        final String key = managers[0].openClock(PROGRAM_ID, "clock");
+        final Future<?> waiter = executor.submit(() -> managers[0].awaitClock(PROGRAM_ID, key, 1, all(2)));
+        managers[0].clearContext(PROGRAM_ID);
+        try {
+            waiter.get(30, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        // Late events of the cleared program do not bring it back.
+        managers[1].advanceClock(PROGRAM_ID, key, 1, all(2));
+        managers[0].deliver(new CollectiveManager.CollectiveEvent(PROGRAM_ID, "late", null));
+        try {
+            managers[0].openClock(PROGRAM_ID, "clock");
+            fail();
+        } catch (IllegalStateException e) {
+            // The program is cleared.
+        }
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private CollectiveManager[] cluster(final int numNodes, final long timeout) {
+        final CollectiveManager[] managers = new CollectiveManager[numNodes];
+        for (int i = 0; i < numNodes; ++i) {
+            managers[i] = new CollectiveManager(i, numNodes, null, (dstNodeIDs, event) -> {
+                if (event instanceof CollectiveManager.CollectiveEvent)
+                    sentKeys.add(((CollectiveManager.CollectiveEvent) event).key);
+                for (final int dstNodeID : dstNodeIDs)
+                    managers[dstNodeID].deliver(event);
+            }, timeout);
+        }
+        return managers;
+    }
+
+    // Runs the operation on every given node in its own thread, results are in the order of the nodes.
+    private <T> List<T> run(final int[] nodeIDs, final IntFunction<T> op) throws Exception {
+        final List<Future<T>> futures = new ArrayList<>();
+        for (final int nodeID : nodeIDs)
+            futures.add(executor.submit(() -> op.apply(nodeID)));
+        final List<T> results = new ArrayList<>();
+        for (final Future<T> future : futures)
+            results.add(future.get(30, TimeUnit.SECONDS));
+        return results;
+    }
+
+    private static int[] all(final int numNodes) { return IntStream.range(0, numNodes).toArray(); }
+
+    private static double[] ringValue(final int nodeID) {
+        final double[] value = new double[RING_LENGTH];
+        for (int i = 0; i < value.length; ++i)
+            value[i] = (i % 13) * (nodeID + 1);
+        return value;
+    }
+
+    private static double[] add(final double[] a, final double[] b) {
+        final double[] sum = new double[a.length];
+        for (int i = 0; i < a.length; ++i)
+            sum[i] = a[i] + b[i];
+        return sum;
+    }
+}
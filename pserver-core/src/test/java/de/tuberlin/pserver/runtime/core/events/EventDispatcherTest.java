@@ -0,0 +1,98 @@
+package de.tuberlin.pserver.runtime.core.events;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EventDispatcherTest {
+
+    @Test(timeout = 60000)
+    public void testDispatcherThreadsDoNotWaitForFullRings() throws Exception {
+        // Two types on different shards, every handler floods the ring of the other shard.
+        final String typeA = "DISPATCHER_TEST_A";
+        String name = "DISPATCHER_TEST_B";
+        for (int i = 0; EventTypes.intern(name) % 2 == EventTypes.intern(typeA) % 2; ++i)
+            name = "DISPATCHER_TEST_B" + i;
+        final String typeB = name;
+
+        final int numB = 2000, fanOut = 3;
+        final EventDispatcher dispatcher = new EventDispatcher(true, "TEST-DISPATCHER", 2, 4);
+        final AtomicInteger nextB = new AtomicInteger();
+        final AtomicInteger numLeaves = new AtomicInteger();
+        final AtomicReference<String> error = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(numB * fanOut);
+
+        dispatcher.addEventListener(typeA, event -> {
+            if ("start".equals(event.getPayload())) {
+                for (int i = 0; i < numB; ++i)
+                    dispatcher.dispatchEvent(new Event(typeB, i));
+            } else {
+                numLeaves.incrementAndGet();
+                done.countDown();
+            }
+        });
+        dispatcher.addEventListener(typeB, event -> {
+            // Events of one type keep their order, also when they overflowed.
+            final int expected = nextB.getAndIncrement();
+            if (!Integer.valueOf(expected).equals(event.getPayload()))
+                error.compareAndSet(null, "expected " + expected + " but received " + event.getPayload());
+            for (int i = 0; i < fanOut; ++i)
+                dispatcher.dispatchEvent(new Event(typeA, "leaf"));
+        });
+
+        try {
+            dispatcher.dispatchEvent(new Event(typeA, "start"));
+            assertTrue("dispatcher threads blocked each other", done.await(30, TimeUnit.SECONDS));
+            assertNull(error.get(), error.get());
+            assertEquals(numB, nextB.get());
+            assertEquals(numB * fanOut, numLeaves.get());
+        } finally {
+            dispatcher.deactivate();
+            dispatcher.joinDispatcherThread();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentProducers() throws Exception {
+        final int numProducers = 4, numEvents = 20000;
+        final String type = "DISPATCHER_TEST_PRODUCERS";
+        final EventDispatcher dispatcher = new EventDispatcher(true, "TEST-DISPATCHER", 2, 16);
+        final int[] nextExpected = new int[numProducers];
+        final AtomicReference<String> error = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(numProducers * numEvents);
+
+        // Only the dispatcher thread of the type touches nextExpected.
+        dispatcher.addEventListener(type, event -> {
+            final int[] payload = (int[]) event.getPayload();
+            if (payload[1] != nextExpected[payload[0]]++)
+                error.compareAndSet(null, "producer " + payload[0] + " sent " + payload[1]);
+            done.countDown();
+        });
+
+        final Thread[] producers = new Thread[numProducers];
+        for (int p = 0; p < numProducers; ++p) {
+            final int producer = p;
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < numEvents; ++i)
+                    dispatcher.dispatchEvent(new Event(type, new int[] { producer, i }));
+            });
+            producers[p].start();
+        }
+        try {
+            for (final Thread producer : producers)
+                producer.join();
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            assertNull(error.get(), error.get());
+        } finally {
+            dispatcher.deactivate();
+            dispatcher.joinDispatcherThread();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package de.tuberlin.pserver.runtime.core.events;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EventRingBufferTest {
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    private static final String TYPE = "RING_TEST_EVENT";
+
+    // ---------------------------------------------------
+    // Tests.
+    // ---------------------------------------------------
+
+    @Test
+    public void testWrapAround() throws Exception {
+        final EventRingBuffer ring = new EventRingBuffer(4);
+        final Event[] batch = new Event[16];
+        int next = 0, expected = 0;
+        for (int round = 0; round < 1000; ++round) {
+            // Fill the ring until it is full, the sequences wrap around the slots every round.
+            while (ring.offer(new Event(TYPE, next)))
+                ++next;
+            assertEquals(4, ring.size());
+            assertEquals(expected + 4, next);
+            final int n = ring.drain(batch);
+            assertEquals(4, n);
+            for (int i = 0; i < n; ++i)
+                assertEquals(expected++, batch[i].getPayload());
+            assertEquals(0, ring.size());
+        }
+    }
+
+    @Test
+    public void testOverflowKeepsOrder() throws Exception {
+        final EventRingBuffer ring = new EventRingBuffer(4);
+        for (int i = 0; i < 4; ++i)
+            assertTrue(ring.offer(new Event(TYPE, i)));
+        assertFalse(ring.offer(new Event(TYPE, 4)));
+        ring.offerOverflow(new Event(TYPE, 4));
+        ring.offerOverflow(new Event(TYPE, 5));
+        assertEquals(6, ring.size());
+
+        // The ring refuses events until the overflowed ones are consumed.
+        final Event[] batch = new Event[2];
+        assertEquals(2, ring.drain(batch));
+        assertFalse(ring.offer(new Event(TYPE, 6)));
+
+        final List<Object> received = new ArrayList<>();
+        received.add(batch[0].getPayload());
+        received.add(batch[1].getPayload());
+        while (received.size() < 6) {
+            final int n = ring.drain(batch);
+            for (int i = 0; i < n; ++i)
+                received.add(batch[i].getPayload());
+        }
+        for (int i = 0; i < 6; ++i)
+            assertEquals(i, received.get(i));
+        assertTrue(ring.offer(new Event(TYPE, 6)));
+        assertEquals(1, ring.drain(batch));
+        assertEquals(6, batch[0].getPayload());
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentProducers() throws Exception {
+        final int numProducers = 6;
+        final int numEvents = 50000;
+        final EventRingBuffer ring = new EventRingBuffer(64);
+        final AtomicReference<String> error = new AtomicReference<>();
+
+        final Thread consumer = new Thread(() -> {
+            final Event[] batch = new Event[16];
+            final int[] nextExpected = new int[numProducers];
+            int received = 0;
+            try {
+                while (received < numProducers * numEvents) {
+                    final int n = ring.drain(batch);
+                    for (int i = 0; i < n; ++i) {
+                        final int[] payload = (int[]) batch[i].getPayload();
+                        // Events of every producer arrive in the order they were offered.
+                        if (payload[1] != nextExpected[payload[0]]++)
+                            error.compareAndSet(null, "producer " + payload[0] + " sent " + payload[1]);
+                    }
+                    received += n;
+                }
+            } catch (InterruptedException e) {
+                error.compareAndSet(null, "interrupted");
+            }
+        });
+        consumer.start();
+
+        final List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < numProducers; ++p) {
+            final int producer = p;
+            // Every other producer overflows instead of waiting for a full ring.
+            final boolean overflows = p % 2 == 1;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < numEvents; ++i) {
+                    final Event event = new Event(TYPE, new int[] { producer, i });
+                    while (!ring.offer(event)) {
+                        if (overflows) {
+                            ring.offerOverflow(event);
+                            break;
+                        }
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        for (final Thread producer : producers)
+            producer.join();
+        consumer.join();
+
+        assertNull(error.get(), error.get());
+        assertEquals(0, ring.size());
+    }
+}
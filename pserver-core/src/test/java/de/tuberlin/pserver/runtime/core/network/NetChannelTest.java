@@ -0,0 +1,102 @@
+package de.tuberlin.pserver.runtime.core.network;
+
+import com.typesafe.config.ConfigFactory;
+import de.tuberlin.pserver.commons.config.TypesafeConfig;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NetChannelTest {
+
+    // ---------------------------------------------------
+    // Tests.
+    // ---------------------------------------------------
+
+    @Test
+    public void testCoalesceBatchedEvents() {
+        final EmbeddedChannel embedded = new EmbeddedChannel();
+        final NetChannel channel = new NetChannel(null, NetChannel.NetChannelType.CHANNEL_OUT, embedded, batchingConfig());
+
+        // The first queued message reaches the high watermark of one.
+        final NetEvent control = new NetEvent("control");
+        control.isLatencyCritical = true;
+        channel.sendMsg(control);
+        assertTrue(channel.isOverloaded());
+
+        // Coalesced while pending in the batcher.
+        final NetEvent first = update(1);
+        channel.sendMsg(first);
+        final NetEvent second = update(2);
+        channel.sendMsg(second);
+        assertEquals(1, channel.getNumCoalesced());
+
+        // Coalesced inside the queued batch.
+        channel.sendMsg(new NetEvent("other"));
+        channel.sendMsg(new NetEvent("other"));
+        flushBatcher(channel);
+        final NetEvent third = update(3);
+        channel.sendMsg(third);
+        assertEquals(2, channel.getNumCoalesced());
+        assertEquals(3, channel.getQueueDepth());
+
+        embedded.runPendingTasks();
+        assertSame(control, embedded.readOutbound());
+        final NetEventBatch batch = (NetEventBatch) embedded.readOutbound();
+        assertEquals(3, batch.events.length);
+        assertSame(third, batch.events[0]);
+        assertEquals("other", batch.events[1].type);
+        assertEquals("flush", ((NetEvent) embedded.readOutbound()).type);
+        assertNull(embedded.readOutbound());
+    }
+
+    @Test
+    public void testSealedBatchIsNotCoalesced() {
+        final NetEvent event = update(1);
+        final NetEventBatch batch = new NetEventBatch(null, new NetEvent[] { new NetEvent("other"), event });
+        assertTrue(batch.contains("key"));
+        assertFalse(batch.contains("missing"));
+
+        final NetEvent newer = update(2);
+        assertTrue(batch.replace(newer));
+        assertSame(newer, batch.events[1]);
+        batch.seal();
+        assertFalse(batch.replace(update(3)));
+        assertSame(newer, batch.events[1]);
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private static NetEvent update(final int value) {
+        final NetEvent event = new NetEvent("update", value);
+        event.flowPolicy = NetFlowPolicy.COALESCE;
+        event.coalesceKey = "key";
+        return event;
+    }
+
+    private static void flushBatcher(final NetChannel channel) {
+        // A latency critical message flushes the pending events as one batch in front of it.
+        final NetEvent flush = new NetEvent("flush");
+        flush.isLatencyCritical = true;
+        channel.sendMsg(flush);
+    }
+
+    private static NetChannelConfig batchingConfig() {
+        final Map<String, Object> values = new HashMap<>();
+        values.put(NetChannelConfig.BATCHING_ENABLED, true);
+        // Long enough that the timed flush never fires during the test.
+        values.put(NetChannelConfig.BATCHING_MAX_DELAY, 60 * 1000 * 1000);
+        values.put(NetChannelConfig.FLOW_HIGH_WATERMARK, 1);
+        values.put(NetChannelConfig.FLOW_LOW_WATERMARK, 0);
+        return new NetChannelConfig(new TypesafeConfig(ConfigFactory.parseMap(values)) {});
+    }
+}
@@ -0,0 +1,158 @@
+package de.tuberlin.pserver.runtime.core.serializer;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LowPrecisionCodecTest {
+
+    // ---------------------------------------------------
+    // FP16.
+    // ---------------------------------------------------
+
+    @Test
+    public void testHalfRoundTrip() {
+        for (int bits = 0; bits <= 0xffff; ++bits) {
+            final short half = (short) bits;
+            final float value = LowPrecisionCodec.fromHalf(half);
+            if (Float.isNaN(value))
+                assertTrue(Integer.toHexString(bits), isNaN(LowPrecisionCodec.toHalf(value)));
+            else
+                assertEquals(Integer.toHexString(bits), half, LowPrecisionCodec.toHalf(value));
+        }
+    }
+
+    @Test
+    public void testHalfSpecialValues() {
+        assertEquals(0f, LowPrecisionCodec.fromHalf((short) 0x0000), 0f);
+        assertEquals(Float.floatToIntBits(-0f), Float.floatToIntBits(LowPrecisionCodec.fromHalf((short) 0x8000)));
+        assertEquals(0x1p-24f, LowPrecisionCodec.fromHalf((short) 0x0001), 0f);
+        assertEquals(0x3ffp-24f, LowPrecisionCodec.fromHalf((short) 0x03ff), 0f);
+        assertEquals(0x1p-14f, LowPrecisionCodec.fromHalf((short) 0x0400), 0f);
+        assertEquals(65504f, LowPrecisionCodec.fromHalf((short) 0x7bff), 0f);
+        assertEquals(Float.POSITIVE_INFINITY, LowPrecisionCodec.fromHalf((short) 0x7c00), 0f);
+        assertEquals(Float.NEGATIVE_INFINITY, LowPrecisionCodec.fromHalf((short) 0xfc00), 0f);
+        assertTrue(Float.isNaN(LowPrecisionCodec.fromHalf((short) 0x7e00)));
+
+        assertEquals((short) 0x7bff, LowPrecisionCodec.toHalf(65504f));
+        assertEquals((short) 0x7bff, LowPrecisionCodec.toHalf(65519f));
+        assertEquals((short) 0x7c00, LowPrecisionCodec.toHalf(65520f));
+        assertEquals((short) 0x7c00, LowPrecisionCodec.toHalf(Float.MAX_VALUE));
+        assertEquals((short) 0xfc00, LowPrecisionCodec.toHalf(-Float.MAX_VALUE));
+        assertEquals((short) 0x7c00, LowPrecisionCodec.toHalf(Float.POSITIVE_INFINITY));
+        assertEquals((short) 0xfc00, LowPrecisionCodec.toHalf(Float.NEGATIVE_INFINITY));
+        assertTrue(isNaN(LowPrecisionCodec.toHalf(Float.NaN)));
+        // Subnormal halves and underflow, ties round to even.
+        assertEquals((short) 0x0001, LowPrecisionCodec.toHalf(0x1p-24f));
+        assertEquals((short) 0x0000, LowPrecisionCodec.toHalf(0x1p-25f));
+        assertEquals((short) 0x0001, LowPrecisionCodec.toHalf(Math.nextUp(0x1p-25f)));
+        assertEquals((short) 0x0002, LowPrecisionCodec.toHalf(0x3p-25f));
+        assertEquals((short) 0x0000, LowPrecisionCodec.toHalf(Float.MIN_VALUE));
+        assertEquals((short) 0x8000, LowPrecisionCodec.toHalf(-Float.MIN_VALUE));
+        assertEquals((short) 0x0400, LowPrecisionCodec.toHalf(0x3ffp-24f + 0x1p-25f));
+    }
+
+    @Test
+    public void testHalfRoundsToNearest() {
+        final Random random = new Random(3);
+        for (int i = 0; i < 100000; ++i) {
+            final float value = (random.nextFloat() * 2 - 1) * (float) Math.pow(2, random.nextInt(42) - 26);
+            final short half = LowPrecisionCodec.toHalf(value);
+            final float error = Math.abs(LowPrecisionCodec.fromHalf(half) - value);
+            for (final int neighbour : new int[] { half - 1, half + 1 }) {
+                final float other = LowPrecisionCodec.fromHalf((short) neighbour);
+                if ((neighbour & 0x7fff) < 0x7c00 && (neighbour & 0x8000) == (half & 0x8000))
+                    assertTrue(value + " -> " + Integer.toHexString(half & 0xffff), error <= Math.abs(other - value));
+            }
+        }
+    }
+
+    // ---------------------------------------------------
+    // INT8.
+    // ---------------------------------------------------
+
+    @Test
+    public void testInt8ScaleAndErrorBound() {
+        final Random random = new Random(5);
+        final int length = 3 * LowPrecisionCodec.INT8_BLOCK_SIZE + 17;
+        final float[] values = new float[length];
+        for (int i = 0; i < length; ++i) {
+            // Every block has a different magnitude, the scale is per block.
+            final float magnitude = (float) Math.pow(10, i / LowPrecisionCodec.INT8_BLOCK_SIZE - 2);
+            values[i] = (random.nextFloat() * 2 - 1) * magnitude;
+        }
+        final byte[] bytes = write(WirePrecision.INT8, values);
+        final int numBlocks = (length + LowPrecisionCodec.INT8_BLOCK_SIZE - 1) / LowPrecisionCodec.INT8_BLOCK_SIZE;
+        assertEquals(numBlocks * Float.BYTES + length, bytes.length);
+
+        final float[] decoded = read(WirePrecision.INT8, bytes, length);
+        final Input input = new Input(bytes);
+        for (int start = 0; start < length; start += LowPrecisionCodec.INT8_BLOCK_SIZE) {
+            final int end = Math.min(start + LowPrecisionCodec.INT8_BLOCK_SIZE, length);
+            float max = 0f;
+            for (int i = start; i < end; ++i)
+                max = Math.max(max, Math.abs(values[i]));
+            final float scale = input.readFloat();
+            assertEquals(max / 127f, scale, 0f);
+            for (int i = start; i < end; ++i) {
+                final byte q = input.readByte();
+                assertTrue(q >= -127 && q <= 127);
+                assertEquals(q * scale, decoded[i], 0f);
+                // Stochastic rounding picks one of the two neighbouring steps.
+                assertTrue(i + ": " + values[i] + " -> " + decoded[i], Math.abs(decoded[i] - values[i]) <= scale * 1.0001f);
+            }
+        }
+    }
+
+    @Test
+    public void testInt8IsUnbiased() {
+        final float[] values = { 1f, 0.3f, -0.55f, 0.01f, -1f, 0.77f };
+        final double[] sums = new double[values.length];
+        final int rounds = 20000;
+        for (int r = 0; r < rounds; ++r) {
+            final float[] decoded = read(WirePrecision.INT8, write(WirePrecision.INT8, values), values.length);
+            for (int i = 0; i < values.length; ++i)
+                sums[i] += decoded[i];
+        }
+        // One step is 1/127, the mean of the rounded values converges to the value.
+        for (int i = 0; i < values.length; ++i)
+            assertEquals(values[i], sums[i] / rounds, 0.001);
+    }
+
+    @Test
+    public void testInt8ZeroBlock() {
+        final float[] values = new float[10];
+        assertEquals(0f, read(WirePrecision.INT8, write(WirePrecision.INT8, values), values.length)[3], 0f);
+    }
+
+    @Test
+    public void testFullPrecisionIsExact() {
+        final float[] values = { 0f, -0f, Float.MIN_VALUE, Float.MAX_VALUE, 1.2345678f, Float.NEGATIVE_INFINITY };
+        final float[] decoded = read(WirePrecision.FULL, write(WirePrecision.FULL, values), values.length);
+        for (int i = 0; i < values.length; ++i)
+            assertEquals(Float.floatToIntBits(values[i]), Float.floatToIntBits(decoded[i]));
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private static boolean isNaN(final short half) {
+        return (half & 0x7c00) == 0x7c00 && (half & 0x3ff) != 0;
+    }
+
+    private static byte[] write(final WirePrecision precision, final float[] values) {
+        final Output output = new Output(1024, -1);
+        LowPrecisionCodec.write(output, precision, values, values.length);
+        return output.toBytes();
+    }
+
+    private static float[] read(final WirePrecision precision, final byte[] bytes, final int length) {
+        return LowPrecisionCodec.read(new Input(bytes), precision, length);
+    }
+}
@@ -0,0 +1,148 @@
+package de.tuberlin.pserver.runtime.dht;
+
+import de.tuberlin.pserver.runtime.core.network.MachineDescriptor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConsistentHashPlacementTest {
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    private static final int NUM_MACHINES = 8;
+
+    private static final int NUM_KEYS = 20000;
+
+    private static final int NUM_REPLICAS = 3;
+
+    // ---------------------------------------------------
+    // Tests.
+    // ---------------------------------------------------
+
+    @Test
+    public void testAddMachineMovesOnlyToIt() {
+        final List<MachineDescriptor> machines = machines(NUM_MACHINES + 1);
+        final ConsistentHashPlacement placement = placement(machines.subList(0, NUM_MACHINES));
+        final List<UUID> keys = keys();
+        final List<List<MachineDescriptor>> before = place(placement, keys);
+
+        final MachineDescriptor added = machines.get(NUM_MACHINES);
+        placement.addMachine(added, 1);
+        final List<List<MachineDescriptor>> after = place(placement, keys);
+        int moved = 0;
+        for (int i = 0; i < keys.size(); ++i) {
+            // Without the new machine the replicas are the old ones in the old order.
+            final List<MachineDescriptor> others = new ArrayList<>(after.get(i));
+            others.remove(added);
+            assertEquals(before.get(i).subList(0, others.size()), others);
+            if (!after.get(i).get(0).equals(before.get(i).get(0))) {
+                assertEquals(added, after.get(i).get(0));
+                ++moved;
+            }
+        }
+        assertShare(1.0 / (NUM_MACHINES + 1), moved);
+    }
+
+    @Test
+    public void testRemoveMachineMovesOnlyItsValues() {
+        final List<MachineDescriptor> machines = machines(NUM_MACHINES);
+        final ConsistentHashPlacement placement = placement(machines);
+        final List<UUID> keys = keys();
+        final List<List<MachineDescriptor>> before = place(placement, keys);
+
+        final MachineDescriptor removed = machines.get(3);
+        placement.removeMachine(removed);
+        assertFalse(placement.containsMachine(removed));
+        final List<List<MachineDescriptor>> after = place(placement, keys);
+        int moved = 0;
+        for (int i = 0; i < keys.size(); ++i) {
+            assertFalse(after.get(i).contains(removed));
+            // The remaining replicas keep their order, the next machine on the ring fills the gap.
+            final List<MachineDescriptor> remaining = new ArrayList<>(before.get(i));
+            remaining.remove(removed);
+            assertEquals(remaining, after.get(i).subList(0, remaining.size()));
+            if (before.get(i).get(0).equals(removed))
+                ++moved;
+        }
+        assertShare(1.0 / NUM_MACHINES, moved);
+
+        // Adding the machine again restores the original placement.
+        placement.addMachine(removed, 1);
+        assertEquals(before, place(placement, keys));
+    }
+
+    @Test
+    public void testWeightedShare() {
+        final List<MachineDescriptor> machines = machines(NUM_MACHINES);
+        final ConsistentHashPlacement placement = placement(machines);
+        final MachineDescriptor heavy = machines.get(0);
+        placement.addMachine(heavy, 3);
+        assertEquals(3, placement.getWeight(heavy));
+        int owned = 0;
+        for (final UUID key : keys()) {
+            if (placement.selectMachines(key, 1).get(0).equals(heavy))
+                ++owned;
+        }
+        assertShare(3.0 / (NUM_MACHINES + 2), owned);
+    }
+
+    @Test
+    public void testReplicasAreDistinct() {
+        final ConsistentHashPlacement placement = placement(machines(2));
+        for (final UUID key : keys()) {
+            final List<MachineDescriptor> replicas = placement.selectMachines(key, NUM_REPLICAS);
+            assertEquals(2, replicas.size());
+            assertNotEquals(replicas.get(0), replicas.get(1));
+        }
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private static List<MachineDescriptor> machines(final int n) {
+        final Random random = new Random(17);
+        final List<MachineDescriptor> machines = new ArrayList<>();
+        for (int i = 0; i < n; ++i)
+            machines.add(new MachineDescriptor(new UUID(random.nextLong(), random.nextLong()), null, 9000 + i, "node" + i));
+        return machines;
+    }
+
+    private static ConsistentHashPlacement placement(final List<MachineDescriptor> machines) {
+        final ConsistentHashPlacement placement = new ConsistentHashPlacement(128);
+        for (final MachineDescriptor machine : machines)
+            placement.addMachine(machine, 1);
+        return placement;
+    }
+
+    private static List<UUID> keys() {
+        final Random random = new Random(23);
+        final List<UUID> keys = new ArrayList<>(NUM_KEYS);
+        for (int i = 0; i < NUM_KEYS; ++i)
+            keys.add(new UUID(random.nextLong(), random.nextLong()));
+        return keys;
+    }
+
+    private static List<List<MachineDescriptor>> place(final ConsistentHashPlacement placement, final List<UUID> keys) {
+        final List<List<MachineDescriptor>> placements = new ArrayList<>(keys.size());
+        for (final UUID key : keys)
+            placements.add(placement.selectMachines(key, NUM_REPLICAS));
+        return placements;
+    }
+
+    private static void assertShare(final double expected, final int count) {
+        // 128 virtual nodes per weight keep the share of a machine close to its share of the weights.
+        final double share = (double) count / NUM_KEYS;
+        assertTrue("share " + share + ", expected " + expected, Math.abs(share - expected) < expected * 0.35);
+    }
+}
@@ -0,0 +1,79 @@
+package de.tuberlin.pserver.runtime.filesystem.local;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LocalFileLineIndexTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    // ---------------------------------------------------
+    // Tests.
+    // ---------------------------------------------------
+
+    @Test
+    public void testCRLF() throws Exception {
+        // Lines end at the LF, the CR stays part of the line.
+        assertIndexed("a\r\nbb\r\n\r\nccc\r\nd\r\n", 0, 3, 7, 9, 14);
+    }
+
+    @Test
+    public void testMissingTrailingNewline() throws Exception {
+        assertIndexed("a\nbb\n\nccc\nd", 0, 2, 5, 6, 10);
+        assertIndexed("a\r\nbb\r\n\r\nccc\r\nd", 0, 3, 7, 9, 14);
+        assertIndexed("single line", 0);
+    }
+
+    @Test
+    public void testEmptyLinesAndEmptyFile() throws Exception {
+        assertIndexed("\n\n\n", 0, 1, 2);
+        assertIndexed("");
+    }
+
+    @Test
+    public void testLongLinesAcrossSeekBuffers() throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        final long[] expected = new long[7];
+        for (int i = 0; i < expected.length; ++i) {
+            expected[i] = sb.length();
+            for (int j = 0; j < 50000 * (i + 1); ++j)
+                sb.append((char) ('a' + j % 26));
+            sb.append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        sb.setLength(sb.length() - 1);
+        assertIndexed(sb.toString(), expected);
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private void assertIndexed(final String content, final long... expected) throws Exception {
+        final File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+        for (final int stride : new int[] { 1, 2, 3, 100 }) {
+            // The first open builds the index, the second one reads it back from the sidecar.
+            new File(file.getPath() + LocalFileLineIndex.INDEX_FILE_SUFFIX).delete();
+            assertPositions(LocalFileLineIndex.open(file.getPath(), stride), file, expected);
+            assertTrue(new File(file.getPath() + LocalFileLineIndex.INDEX_FILE_SUFFIX).isFile());
+            assertPositions(LocalFileLineIndex.open(file.getPath(), stride), file, expected);
+        }
+    }
+
+    private static void assertPositions(final LocalFileLineIndex index, final File file, final long[] expected) {
+        assertEquals(expected.length, index.numLines());
+        for (int line = 0; line < expected.length; ++line)
+            assertEquals("line " + line + " with stride " + index.stride(), expected[line], index.position(line));
+        assertEquals(file.length(), index.position(expected.length));
+        assertEquals(file.length(), index.position(expected.length + 5));
+    }
+}
@@ -0,0 +1,115 @@
+package de.tuberlin.pserver.runtime.filesystem.records;
+
+import de.tuberlin.pserver.runtime.filesystem.local.MappedChunkIterationContext;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class AbstractRecordParserTest {
+
+    // ---------------------------------------------------
+    // Inner Classes.
+    // ---------------------------------------------------
+
+    private static final class FloatParser extends AbstractRecordParser {
+
+        public FloatParser(final String text) {
+            super(new MappedChunkIterationContext(ByteBuffer.wrap((text + " ").getBytes(StandardCharsets.US_ASCII)), 0));
+        }
+
+        public float parse() throws Exception {
+            next();
+            return parseFloat();
+        }
+
+        @Override
+        public Record parseNextRow(int row) { throw new IllegalStateException(); }
+    }
+
+    // ---------------------------------------------------
+    // Tests.
+    // ---------------------------------------------------
+
+    @Test
+    public void testBoundaries() throws Exception {
+        final String[] inputs = {
+                "0", "-0", "+0", "0.0", "-0.0", "0e10", "1", "-1", "+1", ".5", "5.", "0.1", "-0.1",
+                "16777216", "16777217", "16777218", "16777219", "9007199254740992", "9007199254740993",
+                "3.4028235e38", "3.4028236e38", "3.5e38", "1e39", "1.4e-45", "7e-46", "1e-46",
+                "1.17549435e-38", "1.1754942e-38", "1e10", "1e-10", "1e11", "1e-11", "1e22", "1e-22",
+                "1e23", "1e-23", "123456789", "0.000123456789", "1234567890123456789", "0.30000001192092896",
+                "1.000000178813934326171875", "1.0000001788139343", "1.0000001788139342", "8.000001430511475",
+                "00000000000000000000001.5", "1.5000000000000000000000000001", "1E5", "1e+5", "1e-5",
+                "2.4414062E-4", "100000000000000000000000000000000000000"
+        };
+        for (final String input : inputs)
+            assertParsed(input);
+    }
+
+    @Test
+    public void testRandomFloats() throws Exception {
+        final Random random = new Random(42);
+        for (int i = 0; i < 20000; ++i) {
+            final float value = Float.intBitsToFloat(random.nextInt());
+            if (Float.isNaN(value) || Float.isInfinite(value))
+                continue;
+            assertParsed(Float.toString(value));
+            assertParsed(Double.toString(value));
+            assertParsed(new BigDecimal(value).round(new MathContext(1 + random.nextInt(17))).toString());
+        }
+    }
+
+    @Test
+    public void testRandomDecimals() throws Exception {
+        final Random random = new Random(7);
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50000; ++i) {
+            sb.setLength(0);
+            if (random.nextBoolean())
+                sb.append('-');
+            final int numDigits = 1 + random.nextInt(20);
+            final int point = random.nextInt(numDigits + 1);
+            for (int d = 0; d < numDigits; ++d) {
+                if (d == point)
+                    sb.append('.');
+                sb.append((char) ('0' + random.nextInt(10)));
+            }
+            if (random.nextBoolean())
+                sb.append('e').append(random.nextInt(60) - 30);
+            assertParsed(sb.toString());
+        }
+    }
+
+    @Test
+    public void testNearHalfway() throws Exception {
+        // Decimals next to the midpoint of two floats, the double rounded value may hit the midpoint.
+        final Random random = new Random(1);
+        for (int i = 0; i < 10000; ++i) {
+            final float value = Float.intBitsToFloat(random.nextInt(0x7F000000));
+            final BigDecimal halfway = new BigDecimal(value).add(new BigDecimal(Math.nextUp(value))).divide(BigDecimal.valueOf(2));
+            for (int digits = 9; digits <= 17; ++digits) {
+                final BigDecimal rounded = halfway.round(new MathContext(digits));
+                final BigDecimal ulp = rounded.ulp();
+                assertParsed(rounded.toString());
+                assertParsed(rounded.add(ulp).toString());
+                assertParsed(rounded.subtract(ulp).toString());
+            }
+        }
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private static void assertParsed(final String input) throws Exception {
+        final float expected = Float.parseFloat(input);
+        final float actual = new FloatParser(input).parse();
+        assertEquals(input, Float.floatToIntBits(expected), Float.floatToIntBits(actual));
+    }
+}
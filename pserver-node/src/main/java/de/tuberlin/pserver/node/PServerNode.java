@@ -10,6 +10,7 @@ import de.tuberlin.pserver.runtime.core.events.IEventHandler;
 import de.tuberlin.pserver.runtime.core.infra.InfrastructureManager;
 import de.tuberlin.pserver.runtime.core.network.MachineDescriptor;
 import de.tuberlin.pserver.runtime.core.network.NetManager;
+import de.tuberlin.pserver.runtime.core.network.RPCManager;
 import de.tuberlin.pserver.runtime.driver.ProgramDriver;
 import de.tuberlin.pserver.runtime.events.ProgramFailureEvent;
 import de.tuberlin.pserver.runtime.events.ProgramResultEvent;
@@ -32,6 +33,8 @@ public final class PServerNode extends EventDispatcher {
 
     private final NetManager netManager;
 
+    private final RPCManager rpcManager;
+
     private final RuntimeManager runtimeManager;
 
     private final RuntimeContext runtimeContext;
@@ -48,6 +51,7 @@ public final class PServerNode extends EventDispatcher {
         this.machine            = factory.machine;
         this.infraManager       = factory.infraManager;
         this.netManager         = factory.netManager;
+        this.rpcManager         = factory.rpcManager;
         this.runtimeManager     = factory.runtimeManager;
         this.runtimeContext     = factory.runtimeContext;
 
@@ -59,6 +63,7 @@ public final class PServerNode extends EventDispatcher {
     @Override
     public void deactivate() {
         runtimeManager.deactivate();
+        rpcManager.deactivate();
         netManager.deactivate();
         infraManager.deactivate();
         super.deactivate();
@@ -78,7 +83,8 @@ public final class PServerNode extends EventDispatcher {
                 new Thread(() -> {
                     try {
                         ParallelRuntime.INSTANCE.create(runtimeContext.numOfCores);
-                        ParallelRuntime.INSTANCE.addPrimaryThread(netManager.getDispatcherThread().getId());
+                        for (final Thread dispatcherThread : netManager.getDispatcherThreads())
+                            ParallelRuntime.INSTANCE.addPrimaryThread(dispatcherThread.getId());
                         driver.executeProgram();
                         final List<Serializable> results = instance.programContext.getResults();
                         final ProgramResultEvent jre = new ProgramResultEvent(
@@ -100,7 +106,7 @@ public final class PServerNode extends EventDispatcher {
                         netManager.dispatchEventAt(programSubmission.clientMachine, jfe);
                     } finally {
                         driver.deactivate();
-                        runtimeManager.clearContext();
+                        runtimeManager.clearContext(instance.programContext.programID);
                         ParallelRuntime.INSTANCE.deactivate();
                     }
                 }).start();
@@ -2,8 +2,10 @@ package de.tuberlin.pserver.node;
 
 import com.google.common.base.Preconditions;
 import de.tuberlin.pserver.diagnostics.MemoryTracer;
+import de.tuberlin.pserver.dsl.transaction.executors.TransactionExecutionService;
 import de.tuberlin.pserver.runtime.RuntimeContext;
 import de.tuberlin.pserver.runtime.RuntimeManager;
+import de.tuberlin.pserver.runtime.collective.CollectiveManager;
 import de.tuberlin.pserver.commons.config.Config;
 import de.tuberlin.pserver.runtime.core.infra.InetHelper;
 import de.tuberlin.pserver.runtime.core.infra.InfrastructureManager;
@@ -45,6 +47,8 @@ public final class PServerNodeFactory {
 
     public final DHTManager dhtManager;
 
+    public final CollectiveManager collectiveManager;
+
     public final RuntimeManager runtimeManager;
 
     public final RPCManager rpcManager;
@@ -64,7 +68,7 @@ public final class PServerNodeFactory {
             this.infraManager = new InfrastructureManager(machine, config, false);
 
             MemoryTracer.printTrace("Initialized_InfraStructureManager");
-            this.netManager = new NetManager(infraManager, machine, 16);
+            this.netManager = new NetManager(infraManager, machine, config, 16);
             this.netManager.start();
 
             MemoryTracer.printTrace("Initialized_NetManager");
@@ -85,7 +89,9 @@ public final class PServerNodeFactory {
             this.dhtManager = new DHTManager(this.config, infraManager, netManager);
 
             MemoryTracer.printTrace("Initialized_DHTManager");
-            this.runtimeManager = new RuntimeManager(infraManager, netManager, fileManager, dhtManager);
+            this.collectiveManager = new CollectiveManager(infraManager, netManager);
+            this.runtimeManager = new RuntimeManager(infraManager, netManager, fileManager, dhtManager, collectiveManager,
+                    new TransactionExecutionService(config));
             this.runtimeContext = new RuntimeContext(
                     machine,
                     infraManager.getMachines().size(),
@@ -95,6 +101,7 @@ public final class PServerNodeFactory {
                     dhtManager,
                     fileManager,
                     runtimeManager,
+                    collectiveManager,
                     infraManager
             );
             netManager.addEventListener(NetEvent.NetEventTypes.ECHO_REQUEST, event -> {
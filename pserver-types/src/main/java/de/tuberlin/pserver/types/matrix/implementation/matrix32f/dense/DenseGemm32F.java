@@ -0,0 +1,183 @@
+package de.tuberlin.pserver.types.matrix.implementation.matrix32f.dense;
+
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Blocked matrix multiply kernel C = op(A) * op(B) for row major float arrays, op is either
+ * the identity or the transpose. A KC x NC panel of op(B) is packed into a contiguous buffer
+ * that stays in the L2 cache, four rows of C are updated per panel row so every loaded B
+ * element is used four times. The innermost loop is a plain axpy over a contiguous row that
+ * the JIT vectorizes. Row blocks of C are computed in parallel on the common fork-join pool.
+ */
+final class DenseGemm32F {
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    // Depth of a packed panel.
+    private static final int KC = 128;
+
+    // Width of a packed panel, KC * NC floats fill 256KB.
+    private static final int NC = 512;
+
+    // Rows of C updated together in the micro kernel.
+    private static final int MR = 4;
+
+    // Rows of C of one parallel task.
+    private static final int MC = 64;
+
+    // Below this number of multiply-adds the kernel runs in the calling thread.
+    private static final long PARALLEL_THRESHOLD = 1L << 21;
+
+    // ---------------------------------------------------
+    // Constructors.
+    // ---------------------------------------------------
+
+    private DenseGemm32F() {}
+
+    // ---------------------------------------------------
+    // Public Methods.
+    // ---------------------------------------------------
+
+    /**
+     * Computes C = op(A) * op(B), where op(A) is m x k, op(B) is k x n and C is m x n. A is
+     * stored as k x m if transA is set and B as n x k if transB is set. C must not share its
+     * array with A or B.
+     */
+    public static void gemm(final boolean transA, final boolean transB,
+                            final int m, final int n, final int k,
+                            final float[] a, final float[] b, final float[] c) {
+
+        Preconditions.checkArgument(a.length >= m * k && b.length >= k * n && c.length >= m * n);
+        Preconditions.checkArgument(c != a && c != b, "The result must not alias an operand.");
+        final Kernel kernel = new Kernel(transA, transB, m, n, k, a, b, c);
+        if ((long) m * n * k < PARALLEL_THRESHOLD || m <= MC || ForkJoinPool.getCommonPoolParallelism() < 2)
+            kernel.compute(0, m);
+        else
+            ForkJoinPool.commonPool().invoke(new RowBlockTask(kernel, 0, m));
+    }
+
+    // ---------------------------------------------------
+    // Inner Classes.
+    // ---------------------------------------------------
+
+    private static final class RowBlockTask extends RecursiveAction {
+
+        private final Kernel kernel;
+
+        private final int rowStart;
+
+        private final int rowEnd;
+
+        public RowBlockTask(final Kernel kernel, final int rowStart, final int rowEnd) {
+            this.kernel   = kernel;
+            this.rowStart = rowStart;
+            this.rowEnd   = rowEnd;
+        }
+
+        @Override
+        protected void compute() {
+            if (rowEnd - rowStart <= MC) {
+                kernel.compute(rowStart, rowEnd);
+                return;
+            }
+            // Split at a multiple of MC so all blocks but the last have full height.
+            final int mid = rowStart + ((rowEnd - rowStart) / MC / 2 + 1) * MC;
+            invokeAll(new RowBlockTask(kernel, rowStart, mid), new RowBlockTask(kernel, mid, rowEnd));
+        }
+    }
+
+    // ---------------------------------------------------
+
+    private static final class Kernel {
+
+        private final boolean transA;
+
+        private final boolean transB;
+
+        private final int m, n, k;
+
+        private final float[] a, b, c;
+
+        public Kernel(final boolean transA, final boolean transB,
+                      final int m, final int n, final int k,
+                      final float[] a, final float[] b, final float[] c) {
+
+            this.transA = transA;
+            this.transB = transB;
+            this.m = m;
+            this.n = n;
+            this.k = k;
+            this.a = a;
+            this.b = b;
+            this.c = c;
+        }
+
+        public void compute(final int rowStart, final int rowEnd) {
+            for (int i = rowStart; i < rowEnd; ++i) {
+                final int offset = i * n;
+                for (int j = 0; j < n; ++j)
+                    c[offset + j] = 0f;
+            }
+            final float[] panel = new float[Math.min(KC, k) * Math.min(NC, n)];
+            for (int pc = 0; pc < k; pc += KC) {
+                final int kc = Math.min(KC, k - pc);
+                for (int jc = 0; jc < n; jc += NC) {
+                    final int nc = Math.min(NC, n - jc);
+                    packB(pc, kc, jc, nc, panel);
+                    int i = rowStart;
+                    for (; i + MR <= rowEnd; i += MR)
+                        microKernel4(i, pc, kc, jc, nc, panel);
+                    for (; i < rowEnd; ++i)
+                        microKernel1(i, pc, kc, jc, nc, panel);
+                }
+            }
+        }
+
+        // Copies op(B)[pc:pc+kc, jc:jc+nc] row by row into the panel.
+        private void packB(final int pc, final int kc, final int jc, final int nc, final float[] panel) {
+            if (!transB) {
+                for (int p = 0; p < kc; ++p)
+                    System.arraycopy(b, (pc + p) * n + jc, panel, p * nc, nc);
+            } else {
+                for (int j = 0; j < nc; ++j) {
+                    final int offset = (jc + j) * k + pc;
+                    for (int p = 0; p < kc; ++p)
+                        panel[p * nc + j] = b[offset + p];
+                }
+            }
+        }
+
+        private float a(final int i, final int p) { return transA ? a[p * m + i] : a[i * k + p]; }
+
+        private void microKernel4(final int i, final int pc, final int kc, final int jc, final int nc, final float[] panel) {
+            final int c0 = i * n + jc, c1 = c0 + n, c2 = c1 + n, c3 = c2 + n;
+            for (int p = 0; p < kc; ++p) {
+                final float a0 = a(i, pc + p), a1 = a(i + 1, pc + p), a2 = a(i + 2, pc + p), a3 = a(i + 3, pc + p);
+                final int offset = p * nc;
+                for (int j = 0; j < nc; ++j) {
+                    final float v = panel[offset + j];
+                    c[c0 + j] += a0 * v;
+                    c[c1 + j] += a1 * v;
+                    c[c2 + j] += a2 * v;
+                    c[c3 + j] += a3 * v;
+                }
+            }
+        }
+
+        private void microKernel1(final int i, final int pc, final int kc, final int jc, final int nc, final float[] panel) {
+            final int c0 = i * n + jc;
+            for (int p = 0; p < kc; ++p) {
+                final float a0 = a(i, pc + p);
+                final int offset = p * nc;
+                for (int j = 0; j < nc; ++j)
+                    c[c0 + j] += a0 * panel[offset + j];
+            }
+        }
+    }
+}
@@ -416,9 +416,51 @@ public class DenseMatrix32F extends AbstractMatrixTypeInfo implements Matrix32F
 
     @Override
     public Matrix32F mul(final Matrix32F B, final Matrix32F C) {
-        for (int row = 0; row < C.rows(); row++) {
-            for (int col = 0; col < C.cols(); col++) {
-                C.set(row, col, this.getRow(row).dot(B.getCol(col)));
+        return mul(false, B, false, C);
+    }
+
+    // Computes this * B^T without materializing the transpose of B.
+    public Matrix32F mulTransposed(final Matrix32F B) {
+        return mulTransposed(B, new DenseMatrix32F(this.rows(), B.rows()));
+    }
+
+    public Matrix32F mulTransposed(final Matrix32F B, final Matrix32F C) {
+        return mul(false, B, true, C);
+    }
+
+    // Computes this^T * B without materializing the transpose of this matrix.
+    public Matrix32F transposedMul(final Matrix32F B) {
+        return transposedMul(B, new DenseMatrix32F(this.cols(), B.cols()));
+    }
+
+    public Matrix32F transposedMul(final Matrix32F B, final Matrix32F C) {
+        return mul(true, B, false, C);
+    }
+
+    private Matrix32F mul(final boolean transA, final Matrix32F B, final boolean transB, final Matrix32F C) {
+        final long m = transA ? cols() : rows();
+        final long k = transA ? rows() : cols();
+        final long n = transB ? B.rows() : B.cols();
+        Preconditions.checkArgument((transB ? B.cols() : B.rows()) == k && C.rows() == m && C.cols() == n,
+                "Shape mismatch: (%s x %s) * (%s x %s) -> (%s x %s)", m, k, transB ? B.cols() : B.rows(), n, C.rows(), C.cols());
+        if (B.getClass() == DenseMatrix32F.class && C.getClass() == DenseMatrix32F.class) {
+            final float[] b = ((DenseMatrix32F) B).data;
+            final float[] c = ((DenseMatrix32F) C).data;
+            if (c == data || c == b) {
+                // The kernel writes C while reading A and B, so compute into a temporary array.
+                final float[] result = new float[(int) (m * n)];
+                DenseGemm32F.gemm(transA, transB, (int) m, (int) n, (int) k, data, b, result);
+                System.arraycopy(result, 0, c, 0, result.length);
+            } else
+                DenseGemm32F.gemm(transA, transB, (int) m, (int) n, (int) k, data, b, c);
+        } else {
+            for (long row = 0; row < m; ++row) {
+                for (long col = 0; col < n; ++col) {
+                    float value = 0f;
+                    for (long p = 0; p < k; ++p)
+                        value += (transA ? get(p, row) : get(row, p)) * (transB ? B.get(col, p) : B.get(p, col));
+                    C.set(row, col, value);
+                }
             }
         }
         return C;
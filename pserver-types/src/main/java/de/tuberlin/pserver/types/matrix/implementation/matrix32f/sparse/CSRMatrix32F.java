@@ -25,6 +25,33 @@ public final class CSRMatrix32F extends Matrix32FEmptyImpl {
         void process(int coreID, int row, float[] valueList, int rowStart, int rowEnd, int[] colList) throws Exception;
     }
 
+    // ---------------------------------------------------
+    // Row Fragments.
+    // ---------------------------------------------------
+
+    /**
+     * Rows of a contiguous row range that are collected independently of the matrix, e.g. by
+     * one loader thread per file chunk. The fragments are copied once into the final arrays.
+     */
+    public static final class RowFragment {
+
+        private final TIntList colList = new TIntArrayList();
+
+        private final TFloatList valueList = new TFloatArrayList();
+
+        private final TIntList rowPtrList = new TIntArrayList(new int[] {0});
+
+        public void addRow(int[] cols, float[] values, int length) {
+            colList.add(cols, 0, length);
+            valueList.add(values, 0, length);
+            rowPtrList.add(colList.size());
+        }
+
+        public int numRows() { return rowPtrList.size() - 1; }
+
+        public int numEntries() { return colList.size(); }
+    }
+
     // ---------------------------------------------------
     // Fields.
     // ---------------------------------------------------
@@ -84,6 +111,12 @@ public final class CSRMatrix32F extends Matrix32FEmptyImpl {
         rowPtrList.add(colList.size());
     }
 
+    public void addRow(int[] cols, float[] values, int length) {
+        colList.add(cols, 0, length);
+        valueList.add(values, 0, length);
+        rowPtrList.add(colList.size());
+    }
+
     public void build() {
         colArr = colList.toArray();
         colList = null;
@@ -95,6 +128,53 @@ public final class CSRMatrix32F extends Matrix32FEmptyImpl {
         valueList = null;
     }
 
+    /**
+     * Builds the matrix from row fragments that hold consecutive row ranges in the given
+     * order. Rows must not have been added with addRow.
+     */
+    public void build(List<RowFragment> fragments) {
+        Preconditions.checkState(colList != null && colList.isEmpty() && rowPtrList.size() == 1);
+        int numRows = 0, numEntries = 0;
+        for (final RowFragment fragment : fragments) {
+            numRows += fragment.numRows();
+            numEntries += fragment.numEntries();
+        }
+        if (numRows != rows())
+            throw new IllegalStateException("numRows = " + numRows + " | rows() = " + rows());
+        colArr = new int[numEntries];
+        valueArr = new float[numEntries];
+        rowPtrArr = new int[numRows + 1];
+        int rowOffset = 0, entryOffset = 0;
+        for (final RowFragment fragment : fragments) {
+            fragment.colList.toArray(colArr, 0, entryOffset, fragment.numEntries());
+            fragment.valueList.toArray(valueArr, 0, entryOffset, fragment.numEntries());
+            for (int i = 1; i <= fragment.numRows(); ++i)
+                rowPtrArr[rowOffset + i] = entryOffset + fragment.rowPtrList.get(i);
+            rowOffset += fragment.numRows();
+            entryOffset += fragment.numEntries();
+        }
+        colList = null;
+        rowPtrList = null;
+        valueList = null;
+    }
+
+    /**
+     * Builds the matrix from complete CSR arrays, the arrays are used without copying. Rows
+     * must not have been added with addRow.
+     */
+    public void build(int[] rowPtr, int[] cols, float[] values) {
+        Preconditions.checkState(colList != null && colList.isEmpty() && rowPtrList.size() == 1);
+        Preconditions.checkArgument(cols.length == values.length && rowPtr[rowPtr.length - 1] == cols.length);
+        if (rowPtr.length - 1 != rows())
+            throw new IllegalStateException("numRows = " + (rowPtr.length - 1) + " | rows() = " + rows());
+        rowPtrArr = rowPtr;
+        colArr = cols;
+        valueArr = values;
+        colList = null;
+        rowPtrList = null;
+        valueList = null;
+    }
+
     // ---------------------------------------------------
     // Parallel Processor.
     // ---------------------------------------------------
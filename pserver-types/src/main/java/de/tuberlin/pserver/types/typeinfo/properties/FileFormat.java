@@ -6,7 +6,8 @@ public enum FileFormat {
     UNDEFINED(null, null, null),
     DENSE_FORMAT(",", "\n", ValueType.FLOAT),
     SPARSE_FORMAT(",", "\n", ValueType.FLOAT),
-    SVM_FORMAT(" ", "\n", ValueType.FLOAT);
+    SVM_FORMAT(" ", "\n", ValueType.FLOAT),
+    BINARY_FORMAT(null, null, ValueType.FLOAT);
 
     public enum ValueType {
         FLOAT, DOUBLE
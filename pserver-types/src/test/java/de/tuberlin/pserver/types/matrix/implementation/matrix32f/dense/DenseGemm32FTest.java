@@ -0,0 +1,80 @@
+package de.tuberlin.pserver.types.matrix.implementation.matrix32f.dense;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class DenseGemm32FTest {
+
+    // ---------------------------------------------------
+    // Constants.
+    // ---------------------------------------------------
+
+    // {m, n, k}, none of the larger sizes is a multiple of the panel or block sizes.
+    private static final int[][] SIZES = {
+            {1, 1, 1}, {3, 5, 7}, {4, 4, 4}, {5, 129, 130}, {67, 513, 131}, {131, 523, 257}
+    };
+
+    // ---------------------------------------------------
+    // Tests.
+    // ---------------------------------------------------
+
+    @Test
+    public void testNoTranspose() { assertMatchesNaive(false, false); }
+
+    @Test
+    public void testTransposeA() { assertMatchesNaive(true, false); }
+
+    @Test
+    public void testTransposeB() { assertMatchesNaive(false, true); }
+
+    @Test
+    public void testTransposeBoth() { assertMatchesNaive(true, true); }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testResultMustNotAlias() {
+        final float[] a = new float[16];
+        DenseGemm32F.gemm(false, false, 4, 4, 4, a, new float[16], a);
+    }
+
+    // ---------------------------------------------------
+    // Private Methods.
+    // ---------------------------------------------------
+
+    private static void assertMatchesNaive(final boolean transA, final boolean transB) {
+        final Random random = new Random(11);
+        for (final int[] size : SIZES) {
+            final int m = size[0], n = size[1], k = size[2];
+            final float[] a = randomArray(random, m * k);
+            final float[] b = randomArray(random, k * n);
+            final float[] c = new float[m * n];
+            // The kernel overwrites C, it never accumulates into old values.
+            Arrays.fill(c, Float.NaN);
+            DenseGemm32F.gemm(transA, transB, m, n, k, a, b, c);
+            for (int i = 0; i < m; ++i) {
+                for (int j = 0; j < n; ++j) {
+                    double expected = 0, magnitude = 0;
+                    for (int p = 0; p < k; ++p) {
+                        final double product = (double) (transA ? a[p * m + i] : a[i * k + p])
+                                * (transB ? b[j * k + p] : b[p * n + j]);
+                        expected += product;
+                        magnitude += Math.abs(product);
+                    }
+                    // Float summation in another order, the error grows with k.
+                    final double tolerance = 4 * k * Math.ulp(1f) * magnitude + Float.MIN_NORMAL;
+                    assertEquals(m + "x" + n + "x" + k + " at (" + i + ", " + j + ")", expected, c[i * n + j], tolerance);
+                }
+            }
+        }
+    }
+
+    private static float[] randomArray(final Random random, final int length) {
+        final float[] values = new float[length];
+        for (int i = 0; i < length; ++i)
+            values[i] = random.nextFloat() * 2 - 1;
+        return values;
+    }
+}